@@ -87,7 +87,7 @@ public class CMapEncoding implements Serializable {
             isDirect = true;
         } else {
             cid2Code = FontCache.getCid2Byte(cmap);
-            code2Cid = cid2Code.getReversMap();
+            code2Cid = FontCache.getCode2CidMap(cmap);
         }
     }
 
@@ -63,6 +63,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class FontCache {
 
@@ -81,9 +82,20 @@ public class FontCache {
     private static final String W_PROP = "W";
     private static final String W2_PROP = "W2";
 
-    private static Map<FontCacheKey, FontProgram> fontCache = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CMapCidUni> cid2UniCmaps = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CMapUniCid> uni2CidCmaps = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CMapByteCid> byte2CidCmaps = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CMapCidByte> cid2ByteCmaps = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, IntHashtable> code2CidMaps = new ConcurrentHashMap<>();
+
+    private static volatile IFontProgramCache fontCache = new FontProgramCache();
+
+    private static final Object[] loadingLocks = new Object[64];
 
     static {
+        for (int i = 0; i < loadingLocks.length; i++) {
+            loadingLocks[i] = new Object();
+        }
         try {
             loadRegistry();
             for (String font : registryNames.get(FONTS_PROP)) {
@@ -142,24 +154,71 @@ public class FontCache {
         return registryNames;
     }
 
+    /**
+     * Gets the CMap which maps CIDs to Unicode. The CMap is parsed once and shared, it must not be modified.
+     * @param uniMap the name of the CMap resource
+     * @return the parsed CMap
+     */
     public static CMapCidUni getCid2UniCmap(String uniMap) {
-        CMapCidUni cidUni = new CMapCidUni();
-        return parseCmap(uniMap, cidUni);
+        CMapCidUni cidUni = cid2UniCmaps.get(uniMap);
+        if (cidUni == null) {
+            cidUni = putParsedCmap(cid2UniCmaps, uniMap, parseCmap(uniMap, new CMapCidUni()));
+        }
+        return cidUni;
     }
 
+    /**
+     * Gets the CMap which maps Unicode to CIDs. The CMap is parsed once and shared, it must not be modified.
+     * @param uniMap the name of the CMap resource
+     * @return the parsed CMap
+     */
     public static CMapUniCid getUni2CidCmap(String uniMap) {
-        CMapUniCid uniCid = new CMapUniCid();
-        return parseCmap(uniMap, uniCid);
+        CMapUniCid uniCid = uni2CidCmaps.get(uniMap);
+        if (uniCid == null) {
+            uniCid = putParsedCmap(uni2CidCmaps, uniMap, parseCmap(uniMap, new CMapUniCid()));
+        }
+        return uniCid;
     }
 
+    /**
+     * Gets the CMap which maps byte codes to CIDs. The CMap is parsed once and shared, it must not be modified.
+     * @param cmap the name of the CMap resource
+     * @return the parsed CMap
+     */
     public static CMapByteCid getByte2CidCmap(String cmap) {
-        CMapByteCid uniCid = new CMapByteCid();
-        return parseCmap(cmap, uniCid);
+        CMapByteCid byteCid = byte2CidCmaps.get(cmap);
+        if (byteCid == null) {
+            byteCid = putParsedCmap(byte2CidCmaps, cmap, parseCmap(cmap, new CMapByteCid()));
+        }
+        return byteCid;
     }
 
+    /**
+     * Gets the CMap which maps CIDs to byte codes. The CMap is parsed once and shared, it must not be modified.
+     * @param cmap the name of the CMap resource
+     * @return the parsed CMap
+     */
     public static CMapCidByte getCid2Byte(String cmap) {
-        CMapCidByte cidByte = new CMapCidByte();
-        return parseCmap(cmap, cidByte);
+        CMapCidByte cidByte = cid2ByteCmaps.get(cmap);
+        if (cidByte == null) {
+            cidByte = putParsedCmap(cid2ByteCmaps, cmap, parseCmap(cmap, new CMapCidByte()));
+        }
+        return cidByte;
+    }
+
+    /**
+     * Gets the reverse map of {@link #getCid2Byte(String)}, shared between the encodings using the same CMap.
+     */
+    static IntHashtable getCode2CidMap(String cmap) {
+        IntHashtable code2Cid = code2CidMaps.get(cmap);
+        if (code2Cid == null) {
+            code2Cid = getCid2Byte(cmap).getReversMap();
+            IntHashtable cached = code2CidMaps.putIfAbsent(cmap, code2Cid);
+            if (cached != null) {
+                code2Cid = cached;
+            }
+        }
+        return code2Cid;
     }
 
     public static FontProgram getFont(String fontName) {
@@ -175,12 +234,36 @@ public class FontCache {
     }
 
     static FontProgram saveFont(FontProgram font, FontCacheKey key) {
-        FontProgram fontFound = fontCache.get(key);
-        if (fontFound != null) {
-            return fontFound;
+        return fontCache.put(key, font);
+    }
+
+    /**
+     * Gets the cache which stores the font programs created with caching enabled.
+     * By default it is a {@link FontProgramCache} without the size limit.
+     * @return the font program cache
+     */
+    public static IFontProgramCache getFontProgramCache() {
+        return fontCache;
+    }
+
+    /**
+     * Replaces the cache which stores the font programs created with caching enabled,
+     * e.g. with a {@link FontProgramCache} with the size limit. The previously cached font programs are dropped.
+     * @param cache the new font program cache
+     */
+    public static void setFontProgramCache(IFontProgramCache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("cache");
         }
-        fontCache.put(key, font);
-        return font;
+        fontCache = cache;
+    }
+
+    /**
+     * Gets the lock which is held while a font program with the given key is created, so that the same
+     * font program is not parsed by several threads at once.
+     */
+    static Object getLoadingLock(FontCacheKey key) {
+        return loadingLocks[(key.hashCode() & 0x7fffffff) % loadingLocks.length];
     }
 
     private static void loadRegistry() throws java.io.IOException {
@@ -243,6 +326,12 @@ public class FontCache {
         return h;
     }
 
+    private static <T extends AbstractCMap> T putParsedCmap(ConcurrentMap<String, T> cmaps, String name, T cmap) {
+        // another thread may have parsed the same CMap meanwhile, the first one is kept
+        T cached = cmaps.putIfAbsent(name, cmap);
+        return cached != null ? cached : cmap;
+    }
+
     private static <T extends AbstractCMap> T parseCmap(String name, T cmap) {
         try {
             CMapParser.parseCid(name, cmap, new CMapLocationResource());
@@ -0,0 +1,254 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.font;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The default {@link IFontProgramCache} implementation.
+ * <br><br>
+ * The cache may be bounded by the estimated memory size of the cached font programs. When the limit is exceeded,
+ * the least recently used font programs are evicted. Evicted font programs are still kept softly reachable,
+ * so they can be taken back from the cache until the garbage collector claims them.
+ * <br><br>
+ * The cache keeps statistics on hits, misses, loads and evictions.
+ */
+public class FontProgramCache implements IFontProgramCache {
+
+    private static final long GLYPH_SIZE_ESTIMATE = 128;
+    private static final long FONT_PROGRAM_SIZE_ESTIMATE = 4096;
+
+    private final long maxSize;
+    private long size;
+
+    private final Map<FontCacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<FontCacheKey, EvictedFontProgram> evicted = new HashMap<>();
+    private final ReferenceQueue<FontProgram> collected = new ReferenceQueue<>();
+
+    private long hits;
+    private long misses;
+    private long loads;
+    private long evictions;
+
+    /**
+     * Creates a cache without the size limit.
+     */
+    public FontProgramCache() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache which keeps the estimated size of the cached font programs under the limit.
+     * @param maxSize the maximum size in bytes
+     */
+    public FontProgramCache(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize");
+        }
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized FontProgram get(FontCacheKey key) {
+        expungeCollected();
+        CacheEntry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            return entry.fontProgram;
+        }
+        EvictedFontProgram reference = evicted.remove(key);
+        FontProgram fontProgram = reference != null ? reference.get() : null;
+        if (fontProgram != null) {
+            hits++;
+            add(key, fontProgram, reference.size);
+            return fontProgram;
+        }
+        misses++;
+        return null;
+    }
+
+    @Override
+    public synchronized FontProgram put(FontCacheKey key, FontProgram fontProgram) {
+        expungeCollected();
+        CacheEntry entry = entries.get(key);
+        if (entry != null) {
+            return entry.fontProgram;
+        }
+        EvictedFontProgram reference = evicted.remove(key);
+        FontProgram fontFound = reference != null ? reference.get() : null;
+        if (fontFound != null) {
+            add(key, fontFound, reference.size);
+            return fontFound;
+        }
+        loads++;
+        add(key, fontProgram, estimateSize(fontProgram));
+        return fontProgram;
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        evicted.clear();
+        size = 0;
+        hits = 0;
+        misses = 0;
+        loads = 0;
+        evictions = 0;
+    }
+
+    /**
+     * @return the maximum size of the cached font programs in bytes
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the estimated size of the cached font programs in bytes, not including the evicted ones
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of the cached font programs, not including the evicted ones
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups which found a font program, including the evicted ones not yet collected
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which did not find a font program
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of font programs which were created and put to the cache
+     */
+    public synchronized long getLoads() {
+        return loads;
+    }
+
+    /**
+     * @return the number of font programs which were evicted because the size limit was exceeded
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Estimates the memory taken by the font program: its glyphs and, for TrueType fonts, the font data.
+     * The size is estimated once, when the font program is first put to the cache, and is kept
+     * while the font program is evicted, since the font data may not be available anymore afterwards.
+     * @param fontProgram the font program
+     * @return the estimated size in bytes
+     */
+    protected long estimateSize(FontProgram fontProgram) {
+        long estimate = FONT_PROGRAM_SIZE_ESTIMATE + fontProgram.countOfGlyphs() * GLYPH_SIZE_ESTIMATE;
+        if (fontProgram instanceof TrueTypeFont) {
+            estimate += ((TrueTypeFont) fontProgram).getFontDataLength();
+        }
+        return estimate;
+    }
+
+    private void add(FontCacheKey key, FontProgram fontProgram, long fontProgramSize) {
+        CacheEntry entry = new CacheEntry(fontProgram, fontProgramSize);
+        entries.put(key, entry);
+        size += entry.size;
+        Iterator<Map.Entry<FontCacheKey, CacheEntry>> iterator = entries.entrySet().iterator();
+        // the just added font program is always kept, even if it exceeds the limit by itself
+        while (size > maxSize && entries.size() > 1) {
+            Map.Entry<FontCacheKey, CacheEntry> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.getValue().size;
+            evicted.put(eldest.getKey(), new EvictedFontProgram(eldest.getKey(), eldest.getValue(), collected));
+            evictions++;
+        }
+    }
+
+    private void expungeCollected() {
+        Reference<? extends FontProgram> reference;
+        while ((reference = collected.poll()) != null) {
+            FontCacheKey key = ((EvictedFontProgram) reference).key;
+            if (evicted.get(key) == reference) {
+                evicted.remove(key);
+            }
+        }
+    }
+
+    private static class CacheEntry {
+        final FontProgram fontProgram;
+        final long size;
+
+        CacheEntry(FontProgram fontProgram, long size) {
+            this.fontProgram = fontProgram;
+            this.size = size;
+        }
+    }
+
+    private static class EvictedFontProgram extends SoftReference<FontProgram> {
+        final FontCacheKey key;
+        final long size;
+
+        EvictedFontProgram(FontCacheKey key, CacheEntry entry, ReferenceQueue<FontProgram> queue) {
+            super(entry.fontProgram, queue);
+            this.key = key;
+            this.size = entry.size;
+        }
+    }
+}
@@ -164,22 +164,28 @@ public final class FontProgramFactory {
      */
     @Deprecated
     public static FontProgram createFont(String name, byte[] fontProgram, boolean cached) throws java.io.IOException {
+        if (!cached) {
+            return buildFont(name, fontProgram);
+        }
+        FontCacheKey fontKey = createFontCacheKey(name, fontProgram);
+        FontProgram fontFound = FontCache.getFont(fontKey);
+        if (fontFound != null) {
+            return fontFound;
+        }
+        synchronized (FontCache.getLoadingLock(fontKey)) {
+            // the font may have been created by another thread while this one was waiting for the lock
+            fontFound = FontCache.getFont(fontKey);
+            return fontFound != null ? fontFound : FontCache.saveFont(buildFont(name, fontProgram), fontKey);
+        }
+    }
+
+    private static FontProgram buildFont(String name, byte[] fontProgram) throws java.io.IOException {
         String baseName = FontProgram.getBaseName(name);
 
         //yes, we trying to find built-in standard font with original name, not baseName.
         boolean isBuiltinFonts14 = FontConstants.BUILTIN_FONTS_14.contains(name);
         boolean isCidFont = !isBuiltinFonts14 && FontCache.isPredefinedCidFont(baseName);
 
-        FontProgram fontFound;
-        FontCacheKey fontKey = null;
-        if (cached) {
-            fontKey = createFontCacheKey(name, fontProgram);
-            fontFound = FontCache.getFont(fontKey);
-            if (fontFound != null) {
-                return fontFound;
-            }
-        }
-
         FontProgram fontBuilt = null;
         if (name == null) {
             if (fontProgram != null) {
@@ -225,7 +231,7 @@ public final class FontProgramFactory {
                 throw new IOException(IOException.TypeOfFontIsNotRecognized);
             }
         }
-        return cached ? FontCache.saveFont(fontBuilt, fontKey) : fontBuilt;
+        return fontBuilt;
     }
 
     /**
@@ -234,17 +240,7 @@ public final class FontProgramFactory {
      */
     @Deprecated
     public static FontProgram createType1Font(String name, byte[] afm, byte[] pfb, boolean cached) throws java.io.IOException {
-        FontProgram fontProgram;
-        FontCacheKey fontKey = null;
-        if (cached) {
-            fontKey = createFontCacheKey(name, afm);
-            fontProgram = FontCache.getFont(fontKey);
-            if (fontProgram != null) {
-                return fontProgram;
-            }
-        }
-        fontProgram = new Type1Font(name, null, afm, pfb);
-        return cached ? FontCache.saveFont(fontProgram, fontKey) : fontProgram;
+        return createType1Font(name, null, afm, pfb, cached);
     }
 
     /**
@@ -300,15 +296,18 @@ public final class FontProgramFactory {
      * is true, otherwise it will always be created new
      */
     public static FontProgram createFont(String ttc, int ttcIndex, boolean cached) throws java.io.IOException {
+        if (!cached) {
+            return new TrueTypeFont(ttc, ttcIndex);
+        }
         FontCacheKey fontCacheKey = FontCacheKey.create(ttc, ttcIndex);
-        if (cached) {
-            FontProgram fontFound = FontCache.getFont(fontCacheKey);
-            if (fontFound != null) {
-                return fontFound;
-            }
+        FontProgram fontFound = FontCache.getFont(fontCacheKey);
+        if (fontFound != null) {
+            return fontFound;
+        }
+        synchronized (FontCache.getLoadingLock(fontCacheKey)) {
+            fontFound = FontCache.getFont(fontCacheKey);
+            return fontFound != null ? fontFound : FontCache.saveFont(new TrueTypeFont(ttc, ttcIndex), fontCacheKey);
         }
-        FontProgram fontBuilt = new TrueTypeFont(ttc, ttcIndex);
-        return cached ? FontCache.saveFont(fontBuilt, fontCacheKey) : fontBuilt;
     }
 
     /**
@@ -322,15 +321,18 @@ public final class FontProgramFactory {
      * is true, otherwise it will always be created new
      */
     public static FontProgram createFont(byte[] ttc, int ttcIndex, boolean cached) throws java.io.IOException {
+        if (!cached) {
+            return new TrueTypeFont(ttc, ttcIndex);
+        }
         FontCacheKey fontKey = FontCacheKey.create(ttc, ttcIndex);
-        if (cached) {
-            FontProgram fontFound = FontCache.getFont(fontKey);
-            if (fontFound != null) {
-                return fontFound;
-            }
+        FontProgram fontFound = FontCache.getFont(fontKey);
+        if (fontFound != null) {
+            return fontFound;
+        }
+        synchronized (FontCache.getLoadingLock(fontKey)) {
+            fontFound = FontCache.getFont(fontKey);
+            return fontFound != null ? fontFound : FontCache.saveFont(new TrueTypeFont(ttc, ttcIndex), fontKey);
         }
-        FontProgram fontBuilt = new TrueTypeFont(ttc, ttcIndex);
-        return cached ? FontCache.saveFont(fontBuilt, fontKey) : fontBuilt;
     }
 
     /**
@@ -451,18 +453,18 @@ public final class FontProgramFactory {
     }
 
     private static FontProgram createType1Font(String metricsPath, String binaryPath, byte[] afm, byte[] pfb, boolean cached) throws java.io.IOException {
-        FontProgram fontProgram;
-        FontCacheKey fontKey = null;
-        if (cached) {
-            fontKey = createFontCacheKey(metricsPath, afm);
+        if (!cached) {
+            return new Type1Font(metricsPath, binaryPath, afm, pfb);
+        }
+        FontCacheKey fontKey = createFontCacheKey(metricsPath, afm);
+        FontProgram fontProgram = FontCache.getFont(fontKey);
+        if (fontProgram != null) {
+            return fontProgram;
+        }
+        synchronized (FontCache.getLoadingLock(fontKey)) {
             fontProgram = FontCache.getFont(fontKey);
-            if (fontProgram != null) {
-                return fontProgram;
-            }
+            return fontProgram != null ? fontProgram : FontCache.saveFont(new Type1Font(metricsPath, binaryPath, afm, pfb), fontKey);
         }
-
-        fontProgram = new Type1Font(metricsPath, binaryPath, afm, pfb);
-        return cached ? FontCache.saveFont(fontProgram, fontKey) : fontProgram;
     }
 
     private static FontCacheKey createFontCacheKey(String name, byte[] fontProgram) {
@@ -168,6 +168,21 @@ public class TrueTypeFont extends FontProgram {
         return fontStreamBytes;
     }
 
+    /**
+     * Gets the length of the font data the font was parsed from, plus the length of the
+     * font stream bytes if they have already been read. The font data is not counted once the font is closed.
+     */
+    long getFontDataLength() {
+        long length = fontStreamBytes != null ? fontStreamBytes.length : 0;
+        if (fontParser != null && fontParser.raf != null) {
+            try {
+                length += fontParser.raf.length();
+            } catch (java.io.IOException ignored) {
+            }
+        }
+        return length;
+    }
+
     @Override
     public int getPdfFontFlags() {
         int flags = 0;
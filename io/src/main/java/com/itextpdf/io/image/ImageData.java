@@ -46,13 +46,13 @@ package com.itextpdf.io.image;
 import com.itextpdf.io.IOException;
 import com.itextpdf.io.LogMessageConstant;
 import com.itextpdf.io.color.IccProfile;
-import com.itextpdf.io.source.ByteArrayOutputStream;
-import com.itextpdf.io.source.RandomAccessFileOrArray;
-import com.itextpdf.io.source.RandomAccessSourceFactory;
 import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.io.util.UrlUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.Map;
 
@@ -113,6 +113,11 @@ public abstract class ImageData {
 
     protected Long mySerialId = getSerialId();
 
+    /**
+     * Whether the image bytes are read from the url each time they are needed instead of being kept in memory.
+     */
+    protected boolean streamed;
+
     protected ImageData(URL url, ImageType type) {
         this.url = url;
         this.originalType = type;
@@ -208,10 +213,47 @@ public abstract class ImageData {
         this.colorSpace = colorSpace;
     }
 
+    /**
+     * Gets the image bytes. For streamed images the bytes are read from the image url on every call,
+     * so the returned array is not kept by this instance.
+     *
+     * @return the image bytes
+     */
     public byte[] getData() {
+        if (data == null && streamed) {
+            try {
+                return readData();
+            } catch (java.io.IOException e) {
+                throw new IOException(IOException.IoException, e);
+            }
+        }
         return data;
     }
 
+    /**
+     * Checks whether the image bytes are not kept in memory, but read from the image url each time they are needed.
+     *
+     * @return true if the image bytes are read from the image url on demand
+     * @see ImageDataFactory#createStreamed(URL)
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * Opens a stream over the image bytes. The bytes of streamed images are read from the image url,
+     * otherwise they are read from memory. The stream shall be closed by the caller.
+     *
+     * @return a stream over the image bytes
+     * @throws java.io.IOException if the image url can not be opened
+     */
+    public InputStream openDataStream() throws java.io.IOException {
+        if (data == null && url != null) {
+            return UrlUtil.openStream(url);
+        }
+        return new ByteArrayInputStream(data);
+    }
+
     public boolean canBeMask() {
         if (isRawImage()) {
             if (bpc > 0xff)
@@ -237,7 +279,7 @@ public abstract class ImageData {
     }
 
     public boolean isSoftMask() {
-        return mask && bpc > 1 && bpc <=8;
+        return mask && bpc > 1 && (bpc <= 8 || bpc == 16);
     }
 
     public void makeMask() {
@@ -320,7 +362,7 @@ public abstract class ImageData {
      */
     public boolean canImageBeInline() {
         Logger logger = LoggerFactory.getLogger(ImageData.class);
-        if (imageSize > 4096) {
+        if (imageSize > 4096 || streamed) {
             logger.warn(LogMessageConstant.IMAGE_SIZE_CANNOT_BE_MORE_4KB);
             return false;
         }
@@ -337,11 +379,16 @@ public abstract class ImageData {
      * @throws java.io.IOException
      */
     void loadData() throws java.io.IOException {
-        RandomAccessFileOrArray raf = new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(url));
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        StreamUtil.transferBytes(raf, stream);
-        raf.close();
-        data = stream.toByteArray();
+        data = readData();
+    }
+
+    private byte[] readData() throws java.io.IOException {
+        InputStream stream = UrlUtil.openStream(url);
+        try {
+            return StreamUtil.inputStreamToArray(stream);
+        } finally {
+            stream.close();
+        }
     }
 
     /** Creates a new serial id.
@@ -131,6 +131,37 @@ public final class ImageDataFactory {
         return create(filename, false);
     }
 
+    /**
+     * Create an ImageData instance representing the image from the file located at the specified url,
+     * without keeping the image bytes in memory. JPEG images are embedded as they are, so only their header
+     * is parsed and the image bytes are read from the url again when the image is written to a PDF document.
+     * Images of other types are loaded into memory as with {@link #create(URL)}.
+     * @param url location of the image
+     * @return The created ImageData object.
+     */
+    public static ImageData createStreamed(URL url) {
+        byte[] imageType = readImageType(url);
+        if (imageTypeIs(imageType, jpeg)) {
+            ImageData image = new JpegImageData(url);
+            image.streamed = true;
+            JpegImageHelper.processImage(image);
+            return image;
+        }
+        return create(url);
+    }
+
+    /**
+     * Create an ImageData instance representing the image from the specified file,
+     * without keeping the image bytes in memory.
+     * @param filename filename of the file containing the image
+     * @return The created ImageData object.
+     * @throws MalformedURLException
+     * @see #createStreamed(URL)
+     */
+    public static ImageData createStreamed(String filename) throws MalformedURLException {
+        return createStreamed(UrlUtil.toURL(filename));
+    }
+
     /**
      * Create an ImageData instance from the passed parameters.
      *
@@ -451,20 +482,46 @@ public final class ImageDataFactory {
     }
 
     public static ImageData createPng(URL url) {
+        return createPng(url, false);
+    }
+
+    /**
+     * Create a PNG image from the given URL.
+     *
+     * @param url                    the URL of the image
+     * @param keep16BitsPerComponent whether 16-bit samples should be kept instead of being reduced to 8 bits.
+     *                               16 bits per component are only allowed in PDF 1.5 or later, so such an
+     *                               image cannot be added to a document of an earlier version.
+     * @return the created image
+     */
+    public static ImageData createPng(URL url, boolean keep16BitsPerComponent) {
         byte[] imageType = readImageType(url);
         if (imageTypeIs(imageType, png)) {
             ImageData image = new PngImageData(url);
-            PngImageHelper.processImage(image);
+            PngImageHelper.processImage(image, keep16BitsPerComponent);
             return image;
         }
         throw new IllegalArgumentException("PNG image expected.");
     }
 
     public static ImageData createPng(byte[] bytes) {
+        return createPng(bytes, false);
+    }
+
+    /**
+     * Create a PNG image from the given bytes.
+     *
+     * @param bytes                  the bytes of the image
+     * @param keep16BitsPerComponent whether 16-bit samples should be kept instead of being reduced to 8 bits.
+     *                               16 bits per component are only allowed in PDF 1.5 or later, so such an
+     *                               image cannot be added to a document of an earlier version.
+     * @return the created image
+     */
+    public static ImageData createPng(byte[] bytes, boolean keep16BitsPerComponent) {
         byte[] imageType = readImageType(bytes);
         if (imageTypeIs(imageType, png)) {
             ImageData image = new PngImageData(bytes);
-            PngImageHelper.processImage(image);
+            PngImageHelper.processImage(image, keep16BitsPerComponent);
             return image;
         }
         throw new IllegalArgumentException("PNG image expected.");
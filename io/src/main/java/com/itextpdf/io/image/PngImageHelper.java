@@ -46,6 +46,7 @@ package com.itextpdf.io.image;
 import com.itextpdf.io.IOException;
 import com.itextpdf.io.util.FilterUtil;
 import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.io.util.ZlibPool;
 import com.itextpdf.io.color.IccProfile;
 import com.itextpdf.io.font.PdfEncodings;
 import com.itextpdf.io.source.ByteArrayOutputStream;
@@ -56,6 +57,8 @@ import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 class PngImageHelper {
 
@@ -95,6 +98,10 @@ class PngImageHelper {
         float xW, yW, xR, yR, xG, yG, xB, yB;
         String intent;
         IccProfile iccProfile;
+        boolean keep16Bits;
+        boolean imageDataPredicted;
+        byte[] deflatedSmask;
+        boolean deflatedSmaskPredicted;
     }
 
     /**
@@ -153,6 +160,11 @@ class PngImageHelper {
     public static final String iCCP = "iCCP";
 
     private static final int TRANSFERSIZE = 4096;
+    private static final int DEFLATE_BUFFER_SIZE = 0x8000;
+    /**
+     * The number of bytes of a channel deflated both with and without PNG predictors to choose between them.
+     */
+    private static final int PREDICTOR_TRIAL_SIZE = 0x4000;
     private static final int PNG_FILTER_NONE = 0;
     private static final int PNG_FILTER_SUB = 1;
     private static final int PNG_FILTER_UP = 2;
@@ -162,6 +174,17 @@ class PngImageHelper {
             "/RelativeColorimetric", "/Saturation", "/AbsoluteColorimetric"};
 
     public static void processImage(ImageData image) {
+        processImage(image, false);
+    }
+
+    /**
+     * Processes a PNG image.
+     *
+     * @param image      the PNG image to process
+     * @param keep16Bits whether 16-bit samples should be kept as is instead of being reduced to 8 bits.
+     *                   16 bits per component require PDF 1.5 or later.
+     */
+    static void processImage(ImageData image, boolean keep16Bits) {
         if (image.getOriginalType() != ImageType.PNG)
             throw new IllegalArgumentException("PNG image expected");
         PngParameters png;
@@ -173,6 +196,7 @@ class PngImageHelper {
             pngStream = new ByteArrayInputStream(image.getData());
             image.imageSize = image.getData().length;
             png = new PngParameters((PngImageData) image);
+            png.keep16Bits = keep16Bits;
             processPng(pngStream, png);
         } catch (java.io.IOException e) {
             throw new IOException(IOException.PngImageException, e);
@@ -212,7 +236,12 @@ class PngImageHelper {
             if (!png.palShades && !png.genBWMask && pal0 == 1) {
                 png.additional.put("Mask", MessageFormat.format("[{0} {1}]", palIdx, palIdx));
             }
-            boolean needDecode = (png.interlaceMethod == 1) || (png.bitDepth == 16) || ((png.colorType & 4) != 0) || png.palShades || png.genBWMask;
+            // Non-interlaced images with an alpha channel are split row by row into deflated color and alpha data,
+            // 16-bit images without transparency can be embedded as is if 16 bits per component are allowed.
+            boolean splitAlpha = png.interlaceMethod != 1 && (png.colorType & 4) != 0;
+            boolean keepIdat = png.keep16Bits && png.interlaceMethod != 1 && !png.palShades && !png.genBWMask;
+            boolean needDecode = !splitAlpha && ((png.interlaceMethod == 1) || (png.bitDepth == 16 && !keepIdat)
+                    || ((png.colorType & 4) != 0) || png.palShades || png.genBWMask);
             switch (png.colorType) {
                 case 0:
                     png.inputBands = 1;
@@ -230,29 +259,27 @@ class PngImageHelper {
                     png.inputBands = 4;
                     break;
             }
-            if (needDecode)
+            if (splitAlpha)
+                splitAlphaChannel(png);
+            else if (needDecode)
                 decodeIdat(png);
             int components = png.inputBands;
             if ((png.colorType & 4) != 0)
                 --components;
             int bpc = png.bitDepth;
-            if (bpc == 16)
+            // decoded samples are always reduced to 8 bits
+            if (bpc == 16 && (!png.keep16Bits || needDecode))
                 bpc = 8;
-            if (png.imageData != null) {
+            if (splitAlpha) {
+                updateDeflatedImageParameters(png.image, png.width, png.height, components, bpc, png.imageData, png.imageDataPredicted);
+            } else if (png.imageData != null) {
                 if (png.colorType == 3) {
                     RawImageHelper.updateRawImageParameters(png.image, png.width, png.height, components, bpc, png.imageData);
                 } else {
                     RawImageHelper.updateRawImageParameters(png.image, png.width, png.height, components, bpc, png.imageData, null);
                 }
             } else {
-                RawImageHelper.updateRawImageParameters(png.image, png.width, png.height, components, bpc, png.idat.toByteArray());
-                png.image.setDeflated(true);
-                Map<String, Object> decodeparms = new HashMap<>();
-                decodeparms.put("BitsPerComponent", png.bitDepth);
-                decodeparms.put("Predictor", 15);
-                decodeparms.put("Columns", png.width);
-                decodeparms.put("Colors", (png.colorType == 3 || (png.colorType & 2) == 0) ? 1 : 3);
-                png.image.decodeParms = decodeparms;
+                updateDeflatedImageParameters(png.image, png.width, png.height, components, bpc, png.idat.toByteArray(), true);
             }
             if (png.additional.get("ColorSpace") == null)
                 png.additional.put("ColorSpace", getColorspace(png));
@@ -260,7 +287,12 @@ class PngImageHelper {
                 png.additional.put("Intent", png.intent);
             if (png.iccProfile != null)
                 png.image.setProfile(png.iccProfile);
-            if (png.palShades) {
+            if (png.deflatedSmask != null) {
+                RawImageData im2 = (RawImageData) ImageDataFactory.createRawImage(null);
+                updateDeflatedImageParameters(im2, png.width, png.height, 1, bpc, png.deflatedSmask, png.deflatedSmaskPredicted);
+                im2.makeMask();
+                png.image.setImageMask(im2);
+            } else if (png.palShades) {
                 RawImageData im2 = (RawImageData) ImageDataFactory.createRawImage(null);
                 RawImageHelper.updateRawImageParameters(im2, png.width, png.height, 1, 8, png.smask);
                 im2.makeMask();
@@ -523,6 +555,168 @@ class PngImageHelper {
         return true;
     }
 
+    /**
+     * Sets the parameters of an image whose data is deflated, optionally with PNG predictors applied to each row.
+     */
+    private static void updateDeflatedImageParameters(RawImageData image, int width, int height, int components,
+                                                      int bpc, byte[] data, boolean predicted) {
+        if (bpc == 16) {
+            // 16 bits per component are not accepted by RawImageHelper, as they can not be produced from raw samples
+            image.setHeight(height);
+            image.setWidth(width);
+            image.setColorSpace(components);
+            image.setBpc(bpc);
+            image.data = data;
+        } else {
+            RawImageHelper.updateRawImageParameters(image, width, height, components, bpc, data);
+        }
+        image.setDeflated(true);
+        if (!predicted) {
+            return;
+        }
+        Map<String, Object> decodeparms = new HashMap<>();
+        decodeparms.put("BitsPerComponent", bpc);
+        decodeparms.put("Predictor", 15);
+        decodeparms.put("Columns", width);
+        decodeparms.put("Colors", components);
+        image.decodeParms = decodeparms;
+    }
+
+    /**
+     * Splits the samples of a non-interlaced image with an alpha channel into color and alpha data.
+     * The rows are processed one at a time and deflated right away, so the inflated image is never held in memory
+     * as a whole. If PNG predictors are used for a channel, the filter type of each row is chosen anew,
+     * as the filter of the original row was chosen for the interleaved samples. As the filter type bytes hinder
+     * the compression of flat images, predictors are used only if they compress the first rows better.
+     */
+    private static void splitAlphaChannel(PngParameters png) throws java.io.IOException {
+        int inputBytes = png.bitDepth / 8;
+        int outputBytes = png.keep16Bits ? inputBytes : 1;
+        int colorBands = png.inputBands - 1;
+        png.bytesPerPixel = png.inputBands * inputBytes;
+        int bytesPerRow = png.bytesPerPixel * png.width;
+        int colorBytesPerPixel = colorBands * outputBytes;
+
+        byte[] curr = new byte[bytesPerRow];
+        byte[] prior = new byte[bytesPerRow];
+        byte[] color = new byte[colorBytesPerPixel * png.width];
+        byte[] priorColor = new byte[color.length];
+        byte[] alpha = new byte[outputBytes * png.width];
+        byte[] priorAlpha = new byte[alpha.length];
+
+        ChannelDeflater colorZip = new ChannelDeflater(color.length, colorBytesPerPixel);
+        ChannelDeflater alphaZip = new ChannelDeflater(alpha.length, outputBytes);
+        png.dataStream = FilterUtil.getInflaterInputStream(new ByteArrayInputStream(png.idat.toByteArray()));
+        for (int y = 0; y < png.height; ++y) {
+            int filter = 0;
+            try {
+                filter = png.dataStream.read();
+                StreamUtil.readFully(png.dataStream, curr, 0, bytesPerRow);
+            } catch (Exception e) {
+                // empty on purpose
+            }
+            decodeFilter(filter, curr, prior, bytesPerRow, png.bytesPerPixel);
+
+            int colorPos = 0;
+            int alphaPos = 0;
+            for (int k = 0; k < bytesPerRow; ) {
+                for (int band = 0; band < colorBands; ++band, k += inputBytes) {
+                    for (int b = 0; b < outputBytes; ++b)
+                        color[colorPos++] = curr[k + b];
+                }
+                for (int b = 0; b < outputBytes; ++b)
+                    alpha[alphaPos++] = curr[k + b];
+                k += inputBytes;
+            }
+
+            colorZip.writeRow(color, priorColor);
+            alphaZip.writeRow(alpha, priorAlpha);
+
+            byte[] tmp = prior;
+            prior = curr;
+            curr = tmp;
+            tmp = priorColor;
+            priorColor = color;
+            color = tmp;
+            tmp = priorAlpha;
+            priorAlpha = alpha;
+            alpha = tmp;
+        }
+        colorZip.close();
+        alphaZip.close();
+        png.imageData = colorZip.toByteArray();
+        png.imageDataPredicted = colorZip.isPredicted();
+        png.deflatedSmask = alphaZip.toByteArray();
+        png.deflatedSmaskPredicted = alphaZip.isPredicted();
+    }
+
+    /**
+     * Deflates the rows of a channel, either filtered with PNG predictors or as plain samples.
+     * Both ways are tried on the first rows only, and the rest of the channel is deflated
+     * in the way that compressed these rows better.
+     */
+    private static class ChannelDeflater {
+        private final int bytesPerPixel;
+        private final int trialRows;
+        private final byte[] filteredRow;
+        private final byte[] scratchRow;
+        private final ByteArrayOutputStream predicted = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        private final Deflater predictedDeflater = ZlibPool.acquireDeflater(Deflater.DEFAULT_COMPRESSION);
+        private final Deflater plainDeflater = ZlibPool.acquireDeflater(Deflater.DEFAULT_COMPRESSION);
+        private DeflaterOutputStream predictedZip = new DeflaterOutputStream(predicted, predictedDeflater, DEFLATE_BUFFER_SIZE, true);
+        private DeflaterOutputStream plainZip = new DeflaterOutputStream(plain, plainDeflater, DEFLATE_BUFFER_SIZE, true);
+        private int rows;
+
+        ChannelDeflater(int bytesPerRow, int bytesPerPixel) {
+            this.bytesPerPixel = bytesPerPixel;
+            this.trialRows = Math.max(1, PREDICTOR_TRIAL_SIZE / Math.max(1, bytesPerRow));
+            this.filteredRow = new byte[bytesPerRow + 1];
+            this.scratchRow = new byte[bytesPerRow + 1];
+        }
+
+        void writeRow(byte[] samples, byte[] priorSamples) throws java.io.IOException {
+            if (predictedZip != null) {
+                encodeRow(samples, priorSamples, filteredRow, scratchRow, bytesPerPixel);
+                predictedZip.write(filteredRow);
+            }
+            if (plainZip != null) {
+                plainZip.write(samples);
+            }
+            if (++rows == trialRows && predictedZip != null && plainZip != null) {
+                // the flushed output of both streams holds all the trial rows, so their sizes can be compared
+                predictedZip.flush();
+                plainZip.flush();
+                if (predicted.size() <= plain.size()) {
+                    ZlibPool.releaseDeflater(plainDeflater);
+                    plainZip = null;
+                } else {
+                    ZlibPool.releaseDeflater(predictedDeflater);
+                    predictedZip = null;
+                }
+            }
+        }
+
+        void close() throws java.io.IOException {
+            if (predictedZip != null) {
+                predictedZip.finish();
+                ZlibPool.releaseDeflater(predictedDeflater);
+            }
+            if (plainZip != null) {
+                plainZip.finish();
+                ZlibPool.releaseDeflater(plainDeflater);
+            }
+        }
+
+        boolean isPredicted() {
+            return predictedZip != null && (plainZip == null || predicted.size() <= plain.size());
+        }
+
+        byte[] toByteArray() {
+            return isPredicted() ? predicted.toByteArray() : plain.toByteArray();
+        }
+    }
+
     private static void decodeIdat(PngParameters png) {
         int nbitDepth = png.bitDepth;
         if (nbitDepth == 16)
@@ -598,25 +792,7 @@ class PngImageHelper {
                 // empty on purpose
             }
 
-            switch (filter) {
-                case PNG_FILTER_NONE:
-                    break;
-                case PNG_FILTER_SUB:
-                    decodeSubFilter(curr, bytesPerRow, png.bytesPerPixel);
-                    break;
-                case PNG_FILTER_UP:
-                    decodeUpFilter(curr, prior, bytesPerRow);
-                    break;
-                case PNG_FILTER_AVERAGE:
-                    decodeAverageFilter(curr, prior, bytesPerRow, png.bytesPerPixel);
-                    break;
-                case PNG_FILTER_PAETH:
-                    decodePaethFilter(curr, prior, bytesPerRow, png.bytesPerPixel);
-                    break;
-                default:
-                    // Error -- uknown filter type
-                    throw new IOException(IOException.UnknownPngFilter);
-            }
+            decodeFilter(filter, curr, prior, bytesPerRow, png.bytesPerPixel);
 
             processPixels(curr, xOffset, xStep, dstY, passWidth, png);
 
@@ -776,6 +952,89 @@ class PngImageHelper {
         }
     }
 
+    private static void decodeFilter(int filter, byte[] curr, byte[] prior, int bytesPerRow, int bytesPerPixel) {
+        switch (filter) {
+            case PNG_FILTER_NONE:
+                break;
+            case PNG_FILTER_SUB:
+                decodeSubFilter(curr, bytesPerRow, bytesPerPixel);
+                break;
+            case PNG_FILTER_UP:
+                decodeUpFilter(curr, prior, bytesPerRow);
+                break;
+            case PNG_FILTER_AVERAGE:
+                decodeAverageFilter(curr, prior, bytesPerRow, bytesPerPixel);
+                break;
+            case PNG_FILTER_PAETH:
+                decodePaethFilter(curr, prior, bytesPerRow, bytesPerPixel);
+                break;
+            default:
+                // Error -- uknown filter type
+                throw new IOException(IOException.UnknownPngFilter);
+        }
+    }
+
+    /**
+     * Filters a row of samples with the PNG filter type that gives the minimum sum of absolute differences,
+     * the heuristic recommended by the PNG specification.
+     *
+     * @param curr    the unfiltered samples of the current row
+     * @param prior   the unfiltered samples of the previous row
+     * @param dest    the destination of the filter type followed by the filtered samples
+     * @param scratch a buffer at least as long as {@code dest}
+     * @param bpp     the number of bytes per pixel
+     */
+    private static void encodeRow(byte[] curr, byte[] prior, byte[] dest, byte[] scratch, int bpp) {
+        long minSum = Long.MAX_VALUE;
+        for (int filter = PNG_FILTER_NONE; filter <= PNG_FILTER_PAETH; filter++) {
+            encodeFilter(filter, curr, prior, scratch, bpp);
+            long sum = 0;
+            for (int i = 1; i <= curr.length && sum < minSum; i++) {
+                sum += Math.abs(scratch[i]);
+            }
+            if (sum < minSum) {
+                minSum = sum;
+                scratch[0] = (byte) filter;
+                System.arraycopy(scratch, 0, dest, 0, curr.length + 1);
+            }
+        }
+    }
+
+    /**
+     * Applies a PNG filter to a row of samples.
+     *
+     * @param filter the filter type
+     * @param curr   the unfiltered samples of the current row
+     * @param prior  the unfiltered samples of the previous row
+     * @param dest   the destination of the filtered samples, starting at index 1
+     * @param bpp    the number of bytes per pixel
+     */
+    private static void encodeFilter(int filter, byte[] curr, byte[] prior, byte[] dest, int bpp) {
+        for (int i = 0; i < curr.length; i++) {
+            int left = i < bpp ? 0 : curr[i - bpp] & 0xff;
+            int up = prior[i] & 0xff;
+            int predicted;
+            switch (filter) {
+                case PNG_FILTER_SUB:
+                    predicted = left;
+                    break;
+                case PNG_FILTER_UP:
+                    predicted = up;
+                    break;
+                case PNG_FILTER_AVERAGE:
+                    predicted = (left + up) / 2;
+                    break;
+                case PNG_FILTER_PAETH:
+                    predicted = paethPredictor(left, up, i < bpp ? 0 : prior[i - bpp] & 0xff);
+                    break;
+                default:
+                    predicted = 0;
+                    break;
+            }
+            dest[i + 1] = (byte) ((curr[i] & 0xff) - predicted);
+        }
+    }
+
     private static void decodeSubFilter(byte[] curr, int count, int bpp) {
         for (int i = bpp; i < count; i++) {
             int val = curr[i] & 0xff;
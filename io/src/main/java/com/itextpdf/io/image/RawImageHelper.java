@@ -96,7 +96,7 @@ public final class RawImageHelper {
             if (additional != null) {
                 image.setImageAttributes(additional);
             }
-            if (image.isMask() && (image.getBpc() == 1 || image.getBpc() > 8))
+            if (image.isMask() && (image.getBpc() == 1 || image.getBpc() > 0xff))
                 image.setColorSpace(-1);
             if (image.isDeflated()) {
                 image.setFilter("FlateDecode");
@@ -43,14 +43,23 @@
  */
 package com.itextpdf.io.source;
 
+import com.itextpdf.io.util.ZlibPool;
+
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.Deflater;
 
+/**
+ * Compresses the data with a {@link java.util.zip.Deflater} taken from the {@link ZlibPool}.
+ * The deflater is returned to the pool when the stream is finished.
+ */
 public class DeflaterOutputStream extends java.util.zip.DeflaterOutputStream {
 
+    private boolean deflaterReleased;
+    private long bytesRead;
+    private long bytesWritten;
+
     public DeflaterOutputStream(OutputStream out, int level, int size) {
-        super(out, new Deflater(level), size);
+        super(out, ZlibPool.acquireDeflater(level), size);
     }
 
     public DeflaterOutputStream(OutputStream out, int level) {
@@ -61,6 +70,15 @@ public class DeflaterOutputStream extends java.util.zip.DeflaterOutputStream {
         this(out, -1);
     }
 
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (deflaterReleased) {
+            // the deflater may be already used by another stream
+            throw new IOException("write beyond end of stream");
+        }
+        super.write(b, off, len);
+    }
+
     @Override
     public void close() throws IOException {
         finish();
@@ -69,7 +87,34 @@ public class DeflaterOutputStream extends java.util.zip.DeflaterOutputStream {
 
     @Override
     public void finish() throws IOException {
-        super.finish();
-        def.end();
+        if (deflaterReleased) {
+            return;
+        }
+        try {
+            super.finish();
+        } finally {
+            bytesRead = def.getBytesRead();
+            bytesWritten = def.getBytesWritten();
+            deflaterReleased = true;
+            ZlibPool.releaseDeflater(def);
+        }
+    }
+
+    /**
+     * Gets the number of uncompressed bytes written to this stream. Available after the stream is finished.
+     *
+     * @return the number of uncompressed bytes
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Gets the number of compressed bytes written to the underlying stream. Available after the stream is finished.
+     *
+     * @return the number of compressed bytes
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
     }
 }
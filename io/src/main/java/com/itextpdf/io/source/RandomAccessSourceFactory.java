@@ -225,6 +225,17 @@ public final class RandomAccessSourceFactory implements Serializable {
         }
     }
 
+    /**
+     * Creates a {@link IRandomAccessSource} that reads the specified sources one after another, as if they were
+     * concatenated, without copying their content
+     * @param sources the sources to chain, there must be at least one
+     * @return the newly created {@link IRandomAccessSource}
+     * @throws java.io.IOException if there is a problem with IO
+     */
+    public IRandomAccessSource createGroupedSource(IRandomAccessSource[] sources) throws java.io.IOException {
+        return new GroupedRandomAccessSource(sources);
+    }
+
     public IRandomAccessSource createRanged(IRandomAccessSource source, long[] ranges) throws java.io.IOException {
         IRandomAccessSource[] sources = new IRandomAccessSource[ranges.length/2];
         for(int i = 0; i < ranges.length; i+=2){
@@ -45,12 +45,9 @@ package com.itextpdf.io.util;
 
 import com.itextpdf.io.IOException;
 import com.itextpdf.io.codec.Base64;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
@@ -61,8 +58,14 @@ import java.util.zip.InflaterInputStream;
  */
 public final class FilterUtil {
 
-    /** The Logger instance. */
-    private static final Logger LOGGER = LoggerFactory.getLogger(FilterUtil.class);
+    /** The maximal compression ratio of the deflate algorithm. */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    /**
+     * The maximal number of bytes inflated by a single call, which bounds the bytes
+     * to inflate again one at a time if the call fails on corrupted data.
+     */
+    private static final int MAX_INFLATE_CHUNK = 0x10000;
 
     private FilterUtil() {
     }
@@ -76,29 +79,56 @@ public final class FilterUtil {
      * @return the decoded data
      */
     public static byte[] flateDecode(byte[] input, boolean strict) {
-        ByteArrayInputStream stream = new ByteArrayInputStream(input);
-        InflaterInputStream zip = new InflaterInputStream(stream);
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        byte[] b = new byte[strict ? 4092 : 1];
+        return flateDecode(input, strict, -1);
+    }
+
+    /**
+     * A helper to FlateDecode, which decodes the data in a single pass with a pooled {@link Inflater}.
+     * <p>
+     * If the data is corrupted and {@code strict} is <CODE>false</CODE>, the bytes that can be decoded before the error
+     * are returned.
+     *
+     * @param input          the input data
+     * @param strict         <CODE>true</CODE> to read a correct stream. <CODE>false</CODE>
+     *                       to try to read a corrupted stream
+     * @param expectedLength the expected length of the decoded data, which is used to size the output buffer,
+     *                       or -1 if the length is unknown
+     * @return the decoded data or <CODE>null</CODE> if the data is corrupted and {@code strict} is <CODE>true</CODE>
+     */
+    public static byte[] flateDecode(byte[] input, boolean strict, int expectedLength) {
+        byte[] output = new byte[getInitialInflateBufferLength(input.length, expectedLength)];
+        int length = 0;
+        Inflater inflater = ZlibPool.acquireInflater();
         try {
-            int n;
-            while ((n = zip.read(b)) >= 0) {
-                output.write(b, 0, n);
-            }
-            zip.close();
-            output.close();
-            return output.toByteArray();
-        } catch (Exception e) {
-            return strict ? null : output.toByteArray();
-        }finally {
+            inflater.setInput(input);
             try {
-                zip.close();
-                output.close();
-            }catch(Exception e){
-                //Log the error
-                LOGGER.error(e.getMessage(),e);
+                while (!inflater.finished() && !inflater.needsDictionary()) {
+                    if (length == output.length) {
+                        output = grow(output);
+                    }
+                    int n = inflater.inflate(output, length, Math.min(output.length - length, MAX_INFLATE_CHUNK));
+                    if (n == 0 && inflater.needsInput()) {
+                        // unexpected end of the data
+                        if (strict) {
+                            return null;
+                        }
+                        break;
+                    }
+                    length += n;
+                }
+            } catch (DataFormatException e) {
+                if (strict) {
+                    return null;
+                }
+                byte[] recovered = inflateUpToError(input, 0, input.length, length);
+                output = Arrays.copyOf(output, length + recovered.length);
+                System.arraycopy(recovered, 0, output, length, recovered.length);
+                return output;
             }
+        } finally {
+            ZlibPool.releaseInflater(inflater);
         }
+        return length == output.length ? output : Arrays.copyOf(output, length);
     }
 
     /**
@@ -108,10 +138,7 @@ public final class FilterUtil {
      * @return the decoded data
      */
     public static byte[] flateDecode(byte[] input) {
-        byte[] b = flateDecode(input, true);
-        if (b == null)
-            return flateDecode(input, false);
-        return b;
+        return flateDecode(input, false);
     }
 
     /**
@@ -121,16 +148,78 @@ public final class FilterUtil {
      * @param inflated the buffer for the uncompressed data
      */
     public static void inflateData(byte[] deflated, byte[] inflated) {
-        Inflater inflater = new Inflater();
+        Inflater inflater = ZlibPool.acquireInflater();
         inflater.setInput(deflated);
         try {
             inflater.inflate(inflated);
         } catch (DataFormatException dfe) {
             throw new IOException(IOException.CannotInflateTiffImage);
+        } finally {
+            ZlibPool.releaseInflater(inflater);
         }
     }
 
     public static InputStream getInflaterInputStream(InputStream input) {
         return new InflaterInputStream(input, new Inflater());
     }
+
+    /**
+     * Inflates corrupted data up to the data error after an inflate call has failed. The bytes inflated by
+     * the failed call are not reported on all Java versions, so the data is inflated again: the bytes decoded
+     * before the failed call are inflated in bulk and dropped, and the rest is inflated one byte at a time,
+     * so all the bytes decoded before the error are kept.
+     *
+     * @param input         the deflated data
+     * @param off           the offset of the deflated data from its beginning
+     * @param len           the length of the deflated data
+     * @param decodedLength the number of bytes decoded before the failed call
+     * @return the bytes decoded after the first {@code decodedLength} bytes up to the error
+     */
+    public static byte[] inflateUpToError(byte[] input, int off, int len, long decodedLength) {
+        byte[] output = new byte[64];
+        int length = 0;
+        Inflater inflater = ZlibPool.acquireInflater();
+        try {
+            inflater.setInput(input, off, len);
+            byte[] skipped = new byte[(int) Math.min(decodedLength, MAX_INFLATE_CHUNK)];
+            long toSkip = decodedLength;
+            while (toSkip > 0) {
+                int n = inflater.inflate(skipped, 0, (int) Math.min(toSkip, skipped.length));
+                if (n == 0 && (inflater.needsInput() || inflater.finished() || inflater.needsDictionary())) {
+                    return new byte[0];
+                }
+                toSkip -= n;
+            }
+            while (!inflater.finished() && !inflater.needsDictionary()) {
+                if (length == output.length) {
+                    output = grow(output);
+                }
+                int n = inflater.inflate(output, length, 1);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                length += n;
+            }
+        } catch (DataFormatException ignored) {
+        } finally {
+            ZlibPool.releaseInflater(inflater);
+        }
+        return Arrays.copyOf(output, length);
+    }
+
+    private static byte[] grow(byte[] buffer) {
+        return Arrays.copyOf(buffer, buffer.length < (Integer.MAX_VALUE >> 1) ? buffer.length << 1 : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the initial size of the buffer for the inflated data. The expected length, e.g. the /DL entry
+     * of a stream, is trusted only as far as it is not greater than the maximal possible ratio of deflate.
+     */
+    private static int getInitialInflateBufferLength(int inputLength, int expectedLength) {
+        long maxLength = (long) inputLength * MAX_DEFLATE_RATIO + 1;
+        if (expectedLength >= 0 && expectedLength <= maxLength) {
+            return Math.max(expectedLength, 1);
+        }
+        return (int) Math.min(Math.max((long) inputLength * 4, 64), Math.min(maxLength, Integer.MAX_VALUE >> 1));
+    }
 }
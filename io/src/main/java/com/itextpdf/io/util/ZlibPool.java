@@ -0,0 +1,134 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.util;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This file is a helper class for internal usage only.
+ * Be aware that it's API and functionality may be changed in future.
+ * <p>
+ * Keeps a bounded number of {@link Deflater} and {@link Inflater} instances for reuse, so that the
+ * native zlib state is not allocated and freed for every compressed or decompressed stream.
+ * The pool may be used from any thread.
+ */
+public final class ZlibPool {
+
+    /**
+     * The maximal number of instances of each kind kept in the pool.
+     */
+    private static final int MAX_POOLED_INSTANCES = 8;
+
+    private static final ArrayDeque<Deflater> deflaters = new ArrayDeque<>();
+    private static final ArrayDeque<Inflater> inflaters = new ArrayDeque<>();
+
+    private ZlibPool() {
+    }
+
+    /**
+     * Gets a {@link Deflater} from the pool or creates a new one.
+     * The instance shall be returned with {@link #releaseDeflater(Deflater)} and not ended by the caller.
+     *
+     * @param level the compression level
+     * @return a {@link Deflater} ready to compress a new stream
+     */
+    public static Deflater acquireDeflater(int level) {
+        Deflater deflater;
+        synchronized (deflaters) {
+            deflater = deflaters.pollFirst();
+        }
+        if (deflater == null) {
+            return new Deflater(level);
+        }
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    /**
+     * Returns the {@link Deflater} to the pool. The instance is ended if the pool is full.
+     *
+     * @param deflater the instance acquired with {@link #acquireDeflater(int)}
+     */
+    public static void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        synchronized (deflaters) {
+            if (deflaters.size() < MAX_POOLED_INSTANCES) {
+                deflaters.addFirst(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    /**
+     * Gets an {@link Inflater} from the pool or creates a new one.
+     * The instance shall be returned with {@link #releaseInflater(Inflater)} and not ended by the caller.
+     *
+     * @return an {@link Inflater} ready to decompress a new stream
+     */
+    public static Inflater acquireInflater() {
+        Inflater inflater;
+        synchronized (inflaters) {
+            inflater = inflaters.pollFirst();
+        }
+        return inflater != null ? inflater : new Inflater();
+    }
+
+    /**
+     * Returns the {@link Inflater} to the pool. The instance is ended if the pool is full.
+     *
+     * @param inflater the instance acquired with {@link #acquireInflater()}
+     */
+    public static void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        synchronized (inflaters) {
+            if (inflaters.size() < MAX_POOLED_INSTANCES) {
+                inflaters.addFirst(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.font;
+
+import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+@Category(UnitTest.class)
+public class FontProgramCacheTest {
+
+    public static final String sourceFolder = "./src/test/resources/com/itextpdf/io/font/";
+
+    @Test
+    public void statisticsTest() throws IOException {
+        FontProgramCache cache = new FontProgramCache();
+        FontCacheKey key = FontCacheKey.create(FontConstants.HELVETICA);
+        FontProgram helvetica = FontProgramFactory.createFont(FontConstants.HELVETICA, false);
+
+        Assert.assertNull(cache.get(key));
+        Assert.assertSame(helvetica, cache.put(key, helvetica));
+        Assert.assertSame(helvetica, cache.put(key, FontProgramFactory.createFont(FontConstants.HELVETICA, false)));
+        Assert.assertSame(helvetica, cache.get(FontCacheKey.create(FontConstants.HELVETICA)));
+
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(1, cache.getLoads());
+        Assert.assertEquals(1, cache.getCount());
+        Assert.assertTrue(cache.getSize() > 0);
+
+        cache.clear();
+        Assert.assertEquals(0, cache.getCount());
+        Assert.assertEquals(0, cache.getSize());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertNull(cache.get(key));
+    }
+
+    @Test
+    public void evictionTest() throws IOException {
+        FontProgram helvetica = FontProgramFactory.createFont(FontConstants.HELVETICA, false);
+        FontProgram courier = FontProgramFactory.createFont(FontConstants.COURIER, false);
+        FontProgram times = FontProgramFactory.createFont(FontConstants.TIMES_ROMAN, false);
+
+        FontProgramCache sizeCache = new FontProgramCache();
+        sizeCache.put(FontCacheKey.create(FontConstants.HELVETICA), helvetica);
+        long helveticaSize = sizeCache.getSize();
+
+        // only one of the standard fonts, which have about the same number of glyphs, fits into the cache
+        FontProgramCache cache = new FontProgramCache(helveticaSize + helveticaSize / 2);
+        cache.put(FontCacheKey.create(FontConstants.HELVETICA), helvetica);
+        cache.put(FontCacheKey.create(FontConstants.COURIER), courier);
+        Assert.assertEquals(1, cache.getCount());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertTrue(cache.getSize() <= cache.getMaxSize());
+
+        // evicted font programs which are still reachable are taken back, evicting others
+        Assert.assertSame(helvetica, cache.get(FontCacheKey.create(FontConstants.HELVETICA)));
+        Assert.assertEquals(2, cache.getEvictions());
+        Assert.assertSame(courier, cache.put(FontCacheKey.create(FontConstants.COURIER), times));
+        Assert.assertEquals(2, cache.getLoads());
+    }
+
+    @Test
+    public void factoryUsesCacheTest() throws IOException {
+        IFontProgramCache defaultCache = FontCache.getFontProgramCache();
+        FontProgramCache cache = new FontProgramCache();
+        FontCache.setFontProgramCache(cache);
+        try {
+            FontProgram font = FontProgramFactory.createFont(FontConstants.COURIER_BOLD, true);
+            Assert.assertSame(font, FontProgramFactory.createFont(FontConstants.COURIER_BOLD, true));
+            Assert.assertEquals(1, cache.getLoads());
+            Assert.assertEquals(1, cache.getCount());
+        } finally {
+            FontCache.setFontProgramCache(defaultCache);
+        }
+    }
+
+    @Test
+    public void evictedClosedTrueTypeFontTest() throws IOException {
+        TrueTypeFont font = new TrueTypeFont(sourceFolder + "Symbols1.ttf");
+        FontCacheKey key = FontCacheKey.create(sourceFolder + "Symbols1.ttf");
+        FontProgramCache sizeCache = new FontProgramCache();
+        sizeCache.put(key, font);
+        long fontSize = sizeCache.getSize();
+
+        FontProgramCache cache = new FontProgramCache(fontSize);
+        cache.put(key, font);
+        cache.put(FontCacheKey.create(FontConstants.HELVETICA), FontProgramFactory.createFont(FontConstants.HELVETICA, false));
+        Assert.assertEquals(1, cache.getEvictions());
+        font.close();
+
+        // the size of the closed font is not estimated again when it is taken back
+        Assert.assertSame(font, cache.get(key));
+        Assert.assertEquals(fontSize, cache.getSize());
+    }
+
+    @Test
+    public void concurrentFactoryLoadsFontOnceTest() throws IOException, InterruptedException {
+        FileInputStream in = new FileInputStream(sourceFolder + "Symbols1.ttf");
+        final byte[] fontBytes = StreamUtil.inputStreamToArray(in);
+        in.close();
+        IFontProgramCache defaultCache = FontCache.getFontProgramCache();
+        FontProgramCache cache = new FontProgramCache();
+        FontCache.setFontProgramCache(cache);
+        try {
+            int threadCount = 8;
+            final FontProgram[] fonts = new FontProgram[threadCount];
+            final Exception[] errors = new Exception[1];
+            final CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                final int index = t;
+                threads[t] = new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            start.await();
+                            fonts[index] = FontProgramFactory.createFont(fontBytes, true);
+                        } catch (Exception e) {
+                            synchronized (errors) {
+                                errors[0] = e;
+                            }
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            Assert.assertNull(errors[0]);
+            for (FontProgram font : fonts) {
+                Assert.assertSame(fonts[0], font);
+            }
+            Assert.assertEquals(1, cache.getLoads());
+            Assert.assertEquals(1, cache.getCount());
+        } finally {
+            FontCache.setFontProgramCache(defaultCache);
+        }
+    }
+}
@@ -94,6 +94,17 @@ public class JpegTest {
         Assert.assertEquals(8, img.getBpc());
     }
 
+    @Test
+    public void openStreamedJpeg() throws IOException {
+        ImageData img = ImageDataFactory.createStreamed(sourceFolder + "WP_20140410_001.jpg");
+        Assert.assertTrue(img.isStreamed());
+        Assert.assertEquals(2592, img.getWidth(), 0);
+        Assert.assertEquals(1456, img.getHeight(), 0);
+        Assert.assertEquals(8, img.getBpc());
+        Assert.assertEquals("DCTDecode", img.getFilter());
+        Assert.assertArrayEquals(ImageDataFactory.create(sourceFolder + "WP_20140410_001.jpg").getData(), img.getData());
+    }
+
     @Test
     public void openJpeg6() throws IOException {
         ImageData img = ImageDataFactory.create(sourceFolder + "WP_20140410_001_year1980.jpg");
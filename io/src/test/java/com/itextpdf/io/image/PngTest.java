@@ -0,0 +1,188 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.image;
+
+import com.itextpdf.io.util.FilterUtil;
+import com.itextpdf.io.util.UrlUtil;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class PngTest {
+
+    public static final String sourceFolder = "./src/test/resources/com/itextpdf/io/image/";
+
+    @Test
+    public void rgbaImageIsSplitIntoDeflatedColorAndAlpha() throws IOException {
+        ImageData img = ImageDataFactory.create(sourceFolder + "rgba8.png");
+        Assert.assertEquals(32, img.getWidth(), 0);
+        Assert.assertEquals(16, img.getHeight(), 0);
+        Assert.assertEquals(8, img.getBpc());
+        Assert.assertEquals(3, img.getColorSpace());
+        Assert.assertEquals("FlateDecode", img.getFilter());
+        Assert.assertTrue(img.getImageMask().isSoftMask());
+        Assert.assertTrue(img.getImageMask().isDeflated());
+        checkSamples(img, 1, 1);
+    }
+
+    @Test
+    public void rgbaImageReducedTo8Bits() throws IOException {
+        ImageData img = ImageDataFactory.create(sourceFolder + "rgba16.png");
+        Assert.assertEquals(8, img.getBpc());
+        Assert.assertEquals(8, img.getImageMask().getBpc());
+        checkSamples(img, 1, 1);
+    }
+
+    @Test
+    public void rgbaImageKeeps16Bits() throws IOException {
+        ImageData img = ImageDataFactory.createPng(UrlUtil.toURL(sourceFolder + "rgba16.png"), true);
+        Assert.assertEquals(16, img.getBpc());
+        Assert.assertEquals(16, img.getImageMask().getBpc());
+        Assert.assertTrue(img.getImageMask().isSoftMask());
+        checkSamples(img, 2, 257);
+    }
+
+    @Test
+    public void tallImageChannelsDeflatedWithChosenPredictors() throws IOException {
+        // the predictors are chosen after the first rows of each channel, the rest is deflated only once
+        ImageData img = ImageDataFactory.create(sourceFolder + "rgba8tall.png");
+        Assert.assertNotNull(img.getDecodeParms());
+        Assert.assertNull(img.getImageMask().getDecodeParms());
+        byte[] color = unpredict(img, 3);
+        byte[] alpha = unpredict(img.getImageMask(), 1);
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 64; x++) {
+                int pixel = y * 64 + x;
+                Assert.assertEquals(x * 4, color[pixel * 3] & 0xff);
+                Assert.assertEquals(y, color[pixel * 3 + 1] & 0xff);
+                Assert.assertEquals((x * 3 + y * 5) & 0xff, color[pixel * 3 + 2] & 0xff);
+                Assert.assertEquals(200, alpha[pixel] & 0xff);
+            }
+        }
+    }
+
+    @Test
+    public void interlacedImageReducedTo8BitsWhenKeeping16Bits() throws IOException {
+        ImageData img = ImageDataFactory.createPng(UrlUtil.toURL(sourceFolder + "grey16interlaced.png"), true);
+        Assert.assertEquals(8, img.getBpc());
+        Assert.assertEquals(1, img.getColorSpace());
+        byte[] data = img.getData();
+        Assert.assertEquals(16 * 8, data.length);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 16; x++) {
+                Assert.assertEquals((x * 4000 + y * 300) >> 8, data[y * 16 + x] & 0xff);
+            }
+        }
+    }
+
+    private static void checkSamples(ImageData img, int bytesPerSample, int scale) {
+        byte[] color = unpredict(img, 3 * bytesPerSample);
+        byte[] alpha = unpredict(img.getImageMask(), bytesPerSample);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 32; x++) {
+                int pixel = y * 32 + x;
+                Assert.assertEquals(x * 8 * scale, getSample(color, pixel * 3, bytesPerSample));
+                Assert.assertEquals(y * 16 * scale, getSample(color, pixel * 3 + 1, bytesPerSample));
+                Assert.assertEquals((x + y) * 5 * scale, getSample(color, pixel * 3 + 2, bytesPerSample));
+                Assert.assertEquals((x < 16 ? 255 : 128) * scale, getSample(alpha, pixel, bytesPerSample));
+            }
+        }
+    }
+
+    private static int getSample(byte[] data, int index, int bytesPerSample) {
+        if (bytesPerSample == 2) {
+            return ((data[index * 2] & 0xff) << 8) | (data[index * 2 + 1] & 0xff);
+        }
+        return data[index] & 0xff;
+    }
+
+    private static byte[] unpredict(ImageData img, int bytesPerPixel) {
+        byte[] data = FilterUtil.flateDecode(img.getData());
+        int bytesPerRow = (int) img.getWidth() * bytesPerPixel;
+        int height = (int) img.getHeight();
+        Map<String, Object> decodeParms = img.getDecodeParms();
+        if (decodeParms == null) {
+            // the samples are deflated without predictors when this is smaller
+            Assert.assertEquals(bytesPerRow * height, data.length);
+            return data;
+        }
+        Assert.assertEquals(15, decodeParms.get("Predictor"));
+        Assert.assertEquals((bytesPerRow + 1) * height, data.length);
+        byte[] result = new byte[bytesPerRow * height];
+        for (int y = 0; y < height; y++) {
+            int filter = data[y * (bytesPerRow + 1)];
+            for (int i = 0; i < bytesPerRow; i++) {
+                int left = i < bytesPerPixel ? 0 : result[y * bytesPerRow + i - bytesPerPixel] & 0xff;
+                int up = y == 0 ? 0 : result[(y - 1) * bytesPerRow + i] & 0xff;
+                int upLeft = y == 0 || i < bytesPerPixel ? 0 : result[(y - 1) * bytesPerRow + i - bytesPerPixel] & 0xff;
+                int predicted = 0;
+                switch (filter) {
+                    case 1:
+                        predicted = left;
+                        break;
+                    case 2:
+                        predicted = up;
+                        break;
+                    case 3:
+                        predicted = (left + up) / 2;
+                        break;
+                    case 4:
+                        int p = left + up - upLeft;
+                        int pa = Math.abs(p - left);
+                        int pb = Math.abs(p - up);
+                        int pc = Math.abs(p - upLeft);
+                        predicted = pa <= pb && pa <= pc ? left : pb <= pc ? up : upLeft;
+                        break;
+                }
+                result[y * bytesPerRow + i] = (byte) (data[y * (bytesPerRow + 1) + 1 + i] + predicted);
+            }
+        }
+        return result;
+    }
+}
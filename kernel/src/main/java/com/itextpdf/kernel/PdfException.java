@@ -55,6 +55,7 @@ public class PdfException extends RuntimeException {
     private static final long serialVersionUID = 4348832109324449091L;
 
     public static final String _1IsAnUnknownGraphicsStateDictionary = "{0} is an unknown graphics state dictionary.";
+    public static final String _1IsNotADirectory = "{0} is not a directory.";
     public static final String _1IsNotAnAcceptableValueForTheField2 = "{0} is not an acceptable value for the field {1}.";
     public static final String _1IsNotAValidPlaceableWindowsMetafile = "{0} is not a valid placeable windows metafile.";
 
@@ -85,6 +86,7 @@ public class PdfException extends RuntimeException {
     public static final String CannotCreateLayoutImageByWmfImage = "Cannot create layout image by WmfImage instance. First convert the image into FormXObject and then use the corresponding layout image constructor.";
     public static final String CannotCreatePdfImageXObjectByWmfImage = "Cannot create PdfImageXObject instance by WmfImage. Use PdfFormXObject constructor instead.";
     public static final String CannotCreatePdfStreamByInputStreamWithoutPdfDocument = "Cannot create pdfstream by InputStream without PdfDocument.";
+    public static final String CannotExtractTextFromPage1 = "Cannot extract text from page {0}.";
     public static final String CannotGetContentBytes = "Cannot get content bytes.";
     public static final String CannotGetPdfStreamBytes = "Cannot get PdfStream bytes.";
     public static final String CannotOperateWithFlushedPdfStream = "Cannot operate with the flushed PdfStream.";
@@ -189,6 +191,7 @@ public class PdfException extends RuntimeException {
     public static final String IllegalPValue = "Illegal P value.";
     public static final String IllegalRValue = "Illegal R value.";
     public static final String IllegalVValue = "Illegal V value.";
+    public static final String ImagesWith16BitsPerComponentRequirePdf15 = "Images with 16 bits per component require PDF 1.5 or later.";
     public static final String InAPageLabelThePageNumbersMustBeGreaterOrEqualTo1 = "In a page label the page numbers must be greater or equal to 1.";
     public static final String InCodabarStartStopCharactersAreOnlyAllowedAtTheExtremes = "In Codabar, start/stop characters are only allowed at the extremes.";
     public static final String InvalidHttpResponse1 = "Invalid http response {0}.";
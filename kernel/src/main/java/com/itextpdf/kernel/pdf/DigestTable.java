@@ -0,0 +1,262 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.util.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A map with fixed-size byte array keys and values, used by the smart mode of {@link PdfWriter}.
+ * <p>
+ * Entries are kept in memory until their number exceeds the configured limit. After that all entries are moved
+ * to an open-addressing hash table stored in a temporary file, so that the memory consumption stays constant
+ * no matter how many objects are copied. The temporary file is deleted on {@link #close()}.
+ */
+class DigestTable {
+
+    private static final int INITIAL_FILE_CAPACITY = 1 << 12;
+    private static final String TEMP_FILE_PREFIX = "smartmode";
+    private static final String TEMP_FILE_SUFFIX = ".idx";
+
+    private final int keyLength;
+    private final int valueLength;
+    private final int recordLength;
+    private final String tempPath;
+    private final int maxInMemoryEntries;
+
+    private Map<Key, byte[]> memoryTable = new HashMap<>();
+
+    private File file;
+    private RandomAccessFile table;
+    private long capacity;
+    private int size;
+    private byte[] record;
+
+    /**
+     * Creates a new table.
+     *
+     * @param keyLength length of every key in bytes
+     * @param valueLength length of every value in bytes
+     * @param tempPath directory in which temporary files shall be created, or {@code null}
+     *                 to keep all entries in memory
+     * @param maxInMemoryEntries number of entries after which the table is moved to the temporary file
+     */
+    DigestTable(int keyLength, int valueLength, String tempPath, int maxInMemoryEntries) {
+        this.keyLength = keyLength;
+        this.valueLength = valueLength;
+        this.recordLength = 1 + keyLength + valueLength;
+        this.tempPath = tempPath;
+        this.maxInMemoryEntries = maxInMemoryEntries;
+    }
+
+    byte[] get(byte[] key) throws IOException {
+        assert key.length == keyLength;
+        if (memoryTable != null) {
+            return memoryTable.get(new Key(key));
+        }
+        findSlot(key);
+        if (record[0] == 0) {
+            return null;
+        }
+        return Arrays.copyOfRange(record, 1 + keyLength, recordLength);
+    }
+
+    void put(byte[] key, byte[] value) throws IOException {
+        assert key.length == keyLength && value.length == valueLength;
+        if (memoryTable != null) {
+            memoryTable.put(new Key(key), value);
+            if (tempPath != null && memoryTable.size() > maxInMemoryEntries) {
+                moveToFile();
+            }
+            return;
+        }
+        if ((size + 1) * 2 > capacity) {
+            rehash(capacity * 2);
+        }
+        writeRecord(findSlot(key), key, value);
+    }
+
+    int size() {
+        return memoryTable != null ? memoryTable.size() : size;
+    }
+
+    void close() throws IOException {
+        memoryTable = null;
+        if (table != null) {
+            try {
+                table.close();
+            } finally {
+                table = null;
+                file.delete();
+            }
+        }
+    }
+
+    private void moveToFile() throws IOException {
+        long newCapacity = INITIAL_FILE_CAPACITY;
+        while (newCapacity < memoryTable.size() * 4L) {
+            newCapacity <<= 1;
+        }
+        createTable(newCapacity);
+        Map<Key, byte[]> entries = memoryTable;
+        memoryTable = null;
+        for (Map.Entry<Key, byte[]> entry : entries.entrySet()) {
+            writeRecord(findSlot(entry.getKey().bytes), entry.getKey().bytes, entry.getValue());
+        }
+    }
+
+    private void rehash(long newCapacity) throws IOException {
+        File oldFile = file;
+        RandomAccessFile oldTable = table;
+        long oldCapacity = capacity;
+        try {
+            createTable(newCapacity);
+            byte[] oldRecord = new byte[recordLength];
+            byte[] key = new byte[keyLength];
+            byte[] value = new byte[valueLength];
+            oldTable.seek(0);
+            for (long i = 0; i < oldCapacity; i++) {
+                oldTable.readFully(oldRecord);
+                if (oldRecord[0] != 0) {
+                    System.arraycopy(oldRecord, 1, key, 0, keyLength);
+                    System.arraycopy(oldRecord, 1 + keyLength, value, 0, valueLength);
+                    writeRecord(findSlot(key), key, value);
+                }
+            }
+        } finally {
+            try {
+                oldTable.close();
+            } finally {
+                oldFile.delete();
+            }
+        }
+    }
+
+    private void createTable(long newCapacity) throws IOException {
+        // a new unique file, as the previous table is read while the new one is filled
+        File newFile = File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, new File(tempPath));
+        try {
+            table = FileUtil.getRandomAccessFile(newFile);
+        } catch (IOException e) {
+            newFile.delete();
+            throw e;
+        }
+        file = newFile;
+        table.setLength(newCapacity * recordLength);
+        capacity = newCapacity;
+        size = 0;
+        record = new byte[recordLength];
+    }
+
+    /**
+     * Finds the slot of the key using linear probing. On return {@link #record} contains the slot's content.
+     */
+    private long findSlot(byte[] key) throws IOException {
+        long slot = hash(key) & (capacity - 1);
+        while (true) {
+            table.seek(slot * recordLength);
+            table.readFully(record);
+            if (record[0] == 0 || keyEquals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    private void writeRecord(long slot, byte[] key, byte[] value) throws IOException {
+        if (record[0] == 0) {
+            size++;
+        }
+        record[0] = 1;
+        System.arraycopy(key, 0, record, 1, keyLength);
+        System.arraycopy(value, 0, record, 1 + keyLength, valueLength);
+        table.seek(slot * recordLength);
+        table.write(record);
+    }
+
+    private boolean keyEquals(byte[] key) {
+        for (int i = 0; i < keyLength; i++) {
+            if (record[1 + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(byte[] key) {
+        long h = 1125899906842597L;
+        for (byte b : key) {
+            h = 31 * h + (b & 0xff);
+        }
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return h;
+    }
+
+    private static class Key {
+        private final byte[] bytes;
+        private final int hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && hash == ((Key) obj).hash && Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of decoded object streams, used by {@link PdfReader} in order to avoid
+ * re-inflating and re-tokenizing a whole object stream when a single released object is read again.
+ */
+class ObjectStreamCache {
+
+    private final int maxSize;
+    private final Map<Integer, DecodedObjectStream> cache;
+
+    ObjectStreamCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    DecodedObjectStream get(int objectStreamNumber) {
+        return cache.get(objectStreamNumber);
+    }
+
+    void put(int objectStreamNumber, DecodedObjectStream decodedObjectStream) {
+        if (maxSize <= 0) {
+            return;
+        }
+        cache.put(objectStreamNumber, decodedObjectStream);
+        Iterator<Integer> eldest = cache.keySet().iterator();
+        while (cache.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Decoded bytes of an object stream together with its offset table.
+     */
+    static class DecodedObjectStream {
+        final byte[] bytes;
+        final int[] objNumbers;
+        final int[] addresses;
+
+        DecodedObjectStream(byte[] bytes, int[] objNumbers, int[] addresses) {
+            this.bytes = bytes;
+            this.objNumbers = objNumbers;
+            this.addresses = addresses;
+        }
+
+        int indexOf(int objNumber, int expectedIndex) {
+            if (expectedIndex >= 0 && expectedIndex < objNumbers.length && objNumbers[expectedIndex] == objNumber) {
+                return expectedIndex;
+            }
+            for (int k = 0; k < objNumbers.length; ++k) {
+                if (objNumbers[k] == objNumber) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+    }
+}
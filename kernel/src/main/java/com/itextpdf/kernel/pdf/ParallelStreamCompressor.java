@@ -0,0 +1,165 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.kernel.PdfException;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Compresses the content of flushed streams on a pool of worker threads for {@link PdfWriter}.
+ * <p>
+ * The writer defers writing of a stream until its content is compressed. All the objects flushed after
+ * a deferred stream are deferred as well, so the objects are written to the body in the same order
+ * as they were flushed and the output doesn't depend on the order in which the workers finish.
+ */
+class ParallelStreamCompressor {
+
+    /**
+     * Number of streams per worker thread which may be compressed or wait for writing at the same time.
+     */
+    private static final int MAX_PENDING_STREAMS_PER_THREAD = 4;
+
+    private final ExecutorService executor;
+    private final int maxPendingStreams;
+    private final Map<PdfStream, Future<ByteArrayOutputStream>> compressedContents = new IdentityHashMap<>();
+    private final Deque<PdfObject> deferredObjects = new ArrayDeque<>();
+
+    ParallelStreamCompressor(int threadCount) {
+        this.executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "PdfWriter stream compression");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.maxPendingStreams = threadCount * MAX_PENDING_STREAMS_PER_THREAD;
+    }
+
+    /**
+     * Starts compression of the stream content on a worker thread and defers writing of the stream.
+     */
+    void submit(final PdfStream stream, final int compressionLevel, final IStreamCompressionStrategy compressionStrategy) {
+        compressedContents.put(stream, executor.submit(new Callable<ByteArrayOutputStream>() {
+            @Override
+            public ByteArrayOutputStream call() throws IOException {
+                return PdfOutputStream.compressContent(stream, compressionLevel, compressionStrategy);
+            }
+        }));
+        deferredObjects.addLast(stream);
+    }
+
+    /**
+     * Defers writing of the object until the previously deferred objects are written.
+     */
+    void defer(PdfObject object) {
+        deferredObjects.addLast(object);
+    }
+
+    boolean hasDeferredObjects() {
+        return !deferredObjects.isEmpty();
+    }
+
+    /**
+     * Gets the next object which can be written without waiting.
+     *
+     * @return the first deferred object if it is not a stream which is still being compressed,
+     * or if there are too many pending streams; otherwise {@code null}
+     */
+    PdfObject pollReadyObject() {
+        PdfObject object = deferredObjects.peekFirst();
+        if (object == null) {
+            return null;
+        }
+        Future<ByteArrayOutputStream> content = compressedContents.get(object);
+        if (content != null && !content.isDone() && compressedContents.size() <= maxPendingStreams) {
+            return null;
+        }
+        return deferredObjects.pollFirst();
+    }
+
+    PdfObject pollObject() {
+        return deferredObjects.pollFirst();
+    }
+
+    /**
+     * Gets the compressed content of the stream, waiting for the compression to finish if needed.
+     *
+     * @return the compressed content or {@code null} if the stream was not submitted for compression
+     */
+    ByteArrayOutputStream takeCompressedContent(PdfStream stream) throws IOException {
+        Future<ByteArrayOutputStream> content = compressedContents.remove(stream);
+        if (content == null) {
+            return null;
+        }
+        try {
+            return content.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PdfException(PdfException.CannotWriteToPdfStream, e, stream);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new PdfException(PdfException.CannotWriteToPdfStream, e.getCause(), stream);
+        }
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        compressedContents.clear();
+        deferredObjects.clear();
+    }
+}
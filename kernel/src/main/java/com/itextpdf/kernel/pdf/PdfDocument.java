@@ -360,6 +360,9 @@ public class PdfDocument implements IEventDispatcher, Closeable, Serializable {
 
     /**
      * Gets the page by page number.
+     * <p>
+     * The pages tree of a read document is loaded lazily: only the nodes on the path to the requested page are read.
+     * A read page which is not needed anymore can be released with {@link PdfPage#release()}.
      *
      * @param pageNum page number.
      * @return page by page number.
@@ -806,7 +809,8 @@ public class PdfDocument implements IEventDispatcher, Closeable, Serializable {
                     }
 
                 }
-                
+                writer.writeDeferredObjects();
+
                 PdfObject fileId = getFileId(crypto, writer.properties);
 
                 if (crypto == null && writer.crypto != null) {
@@ -2071,7 +2075,7 @@ public class PdfDocument implements IEventDispatcher, Closeable, Serializable {
         }
     }
 
-    private long getDocumentId() {
+    long getDocumentId() {
         return documentId;
     }
 
@@ -2097,6 +2101,12 @@ public class PdfDocument implements IEventDispatcher, Closeable, Serializable {
             this.genNr = reference.getGenNumber();
         }
 
+        IndirectRefDescription(long docId, int objNr, int genNr) {
+            this.docId = docId;
+            this.objNr = objNr;
+            this.genNr = genNr;
+        }
+
         @Override
         public int hashCode() {
             int result = (int) docId;
@@ -63,7 +63,7 @@ public class PdfIndirectReference extends PdfObject implements Comparable<PdfInd
     /**
      * PdfObject that current PdfIndirectReference instance refers to.
      */
-    protected PdfObject refersTo = null;
+    protected volatile PdfObject refersTo = null;
 
     /**
      * Indirect reference number of object stream containing refersTo object.
@@ -123,10 +123,13 @@ public class PdfIndirectReference extends PdfObject implements Comparable<PdfInd
      */
     public PdfObject getRefersTo(boolean recursively) {
         if (!recursively) {
-            if (refersTo == null && !checkState(FLUSHED) && !checkState(MODIFIED) && getReader() != null) {
-                refersTo = getReader().readObject(this);
+            PdfObject currentRefersTo = refersTo;
+            if (currentRefersTo == null && !checkState(FLUSHED) && !checkState(MODIFIED) && getReader() != null) {
+                // the reader binds the read object to this reference
+                getReader().readObject(this);
+                currentRefersTo = refersTo;
             }
-            return refersTo;
+            return currentRefersTo;
         } else {
             PdfObject currentRefersTo = getRefersTo(false);
             for (int i = 0; i < LENGTH_OF_INDIRECTS_CHAIN; i++) {
@@ -255,10 +255,7 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
         try {
             boolean userDefinedCompression = pdfStream.getCompressionLevel() != CompressionConstants.UNDEFINED_COMPRESSION;
             if (!userDefinedCompression) {
-                int defaultCompressionLevel = document != null ?
-                        document.getWriter().getCompressionLevel() :
-                        CompressionConstants.DEFAULT_COMPRESSION;
-                pdfStream.setCompressionLevel(defaultCompressionLevel);
+                pdfStream.setCompressionLevel(getDefaultCompressionLevel(pdfStream));
             }
             boolean toCompress = pdfStream.getCompressionLevel() != CompressionConstants.NO_COMPRESSION;
             boolean allowCompression = !pdfStream.containsKey(PdfName.Filter) && isNotMetadataPdfStream(pdfStream);
@@ -274,9 +271,14 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
                     updateCompressionFilter(pdfStream);
                     fout = def = new DeflaterOutputStream(fout, pdfStream.getCompressionLevel(), 0x8000);
                 }
+                if (pdfStream.get(PdfName.Length, false) == null) {
+                    // the stream was created without a document, its length is known only after it is written
+                    pdfStream.put(PdfName.Length, new PdfNumber(-1).makeIndirect(document));
+                }
                 this.write((PdfDictionary) pdfStream);
                 writeBytes(PdfOutputStream.stream);
                 long beginStreamContent = getCurrentPos();
+                long compressionStartTime = def != null ? System.nanoTime() : 0;
                 byte[] buf = new byte[4192];
                 while (true) {
                     int n = pdfStream.getInputStream().read(buf);
@@ -286,6 +288,11 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
                 }
                 if (def != null) {
                     def.finish();
+                    IStreamCompressionStrategy compressionStrategy = getCompressionStrategy();
+                    if (compressionStrategy != null) {
+                        compressionStrategy.onStreamCompressed(pdfStream, pdfStream.getCompressionLevel(),
+                                def.getBytesRead(), def.getBytesWritten(), System.nanoTime() - compressionStartTime);
+                    }
                 }
                 if (ose != null) {
                     ose.finish();
@@ -312,17 +319,10 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
                 try {
                     if (toCompress && !containsFlateFilter(pdfStream) && (allowCompression || userDefinedCompression)) { // compress
                         updateCompressionFilter(pdfStream);
-                        byteArrayStream = new ByteArrayOutputStream();
-                        DeflaterOutputStream zip = new DeflaterOutputStream(byteArrayStream, pdfStream.getCompressionLevel());
-                        if (pdfStream instanceof PdfObjectStream) {
-                            PdfObjectStream objectStream = (PdfObjectStream) pdfStream;
-                            ((ByteArrayOutputStream) objectStream.getIndexStream().getOutputStream()).writeTo(zip);
-                            ((ByteArrayOutputStream) objectStream.getOutputStream().getOutputStream()).writeTo(zip);
-                        } else {
-                            assert pdfStream.getOutputStream() != null : "Error in outputStream";
-                            ((ByteArrayOutputStream) pdfStream.getOutputStream().getOutputStream()).writeTo(zip);
+                        byteArrayStream = getCompressedContent(pdfStream);
+                        if (byteArrayStream == null) {
+                            byteArrayStream = compressContent(pdfStream, pdfStream.getCompressionLevel(), getCompressionStrategy());
                         }
-                        zip.finish();
                     } else {
                         if (pdfStream instanceof PdfObjectStream) {
                             PdfObjectStream objectStream = (PdfObjectStream) pdfStream;
@@ -357,6 +357,97 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
         }
     }
 
+    /**
+     * Checks if the content of the stream is kept in memory and will be compressed with FlateDecode when
+     * the stream is written.
+     *
+     * @param pdfStream the stream to check
+     * @return the compression level the content will be compressed with, or {@link CompressionConstants#NO_COMPRESSION}
+     * if the content won't be compressed in memory
+     */
+    int getInMemoryCompressionLevel(PdfStream pdfStream) {
+        if (pdfStream.getInputStream() != null || pdfStream.getOutputStream() == null
+                || !(pdfStream.getOutputStream().getOutputStream() instanceof ByteArrayOutputStream)) {
+            return CompressionConstants.NO_COMPRESSION;
+        }
+        if (pdfStream instanceof PdfObjectStream
+                && !(((PdfObjectStream) pdfStream).getIndexStream().getOutputStream() instanceof ByteArrayOutputStream)) {
+            return CompressionConstants.NO_COMPRESSION;
+        }
+        int compressionLevel = pdfStream.getCompressionLevel();
+        boolean userDefinedCompression = compressionLevel != CompressionConstants.UNDEFINED_COMPRESSION;
+        if (!userDefinedCompression) {
+            compressionLevel = getDefaultCompressionLevel(pdfStream);
+        }
+        boolean allowCompression = !pdfStream.containsKey(PdfName.Filter) && isNotMetadataPdfStream(pdfStream);
+        if (compressionLevel != CompressionConstants.NO_COMPRESSION && !containsFlateFilter(pdfStream)
+                && (allowCompression || userDefinedCompression)) {
+            return compressionLevel;
+        }
+        return CompressionConstants.NO_COMPRESSION;
+    }
+
+    /**
+     * Gets the strategy, which chooses the compression level of the streams.
+     *
+     * @return the compression strategy of the document or {@code null} if it is not set
+     */
+    IStreamCompressionStrategy getCompressionStrategy() {
+        return document != null ? document.getWriter().properties.compressionStrategy : null;
+    }
+
+    /**
+     * Gets the compression level for the stream which has no compression level set.
+     */
+    private int getDefaultCompressionLevel(PdfStream pdfStream) {
+        if (document == null) {
+            return CompressionConstants.DEFAULT_COMPRESSION;
+        }
+        int compressionLevel = document.getWriter().getCompressionLevel();
+        IStreamCompressionStrategy compressionStrategy = getCompressionStrategy();
+        return compressionStrategy != null ? compressionStrategy.getCompressionLevel(pdfStream, compressionLevel) : compressionLevel;
+    }
+
+    /**
+     * Gets the content of the stream, which was already compressed before the stream is written.
+     *
+     * @param pdfStream the stream being written
+     * @return the compressed content or {@code null} if the content shall be compressed now
+     */
+    ByteArrayOutputStream getCompressedContent(PdfStream pdfStream) throws IOException {
+        return null;
+    }
+
+    /**
+     * Compresses the in-memory content of the stream with FlateDecode.
+     * Doesn't change the stream, so it can be called from any thread once the stream content is complete.
+     *
+     * @param pdfStream           the stream whose content shall be compressed
+     * @param compressionLevel    the compression level
+     * @param compressionStrategy the strategy which is notified about the compressed stream, may be {@code null}
+     * @return the compressed content
+     */
+    static ByteArrayOutputStream compressContent(PdfStream pdfStream, int compressionLevel,
+                                                 IStreamCompressionStrategy compressionStrategy) throws IOException {
+        long compressionStartTime = compressionStrategy != null ? System.nanoTime() : 0;
+        ByteArrayOutputStream byteArrayStream = new ByteArrayOutputStream();
+        DeflaterOutputStream zip = new DeflaterOutputStream(byteArrayStream, compressionLevel);
+        if (pdfStream instanceof PdfObjectStream) {
+            PdfObjectStream objectStream = (PdfObjectStream) pdfStream;
+            ((ByteArrayOutputStream) objectStream.getIndexStream().getOutputStream()).writeTo(zip);
+            ((ByteArrayOutputStream) objectStream.getOutputStream().getOutputStream()).writeTo(zip);
+        } else {
+            assert pdfStream.getOutputStream() != null : "Error in outputStream";
+            ((ByteArrayOutputStream) pdfStream.getOutputStream().getOutputStream()).writeTo(zip);
+        }
+        zip.finish();
+        if (compressionStrategy != null) {
+            compressionStrategy.onStreamCompressed(pdfStream, compressionLevel, zip.getBytesRead(), zip.getBytesWritten(),
+                    System.nanoTime() - compressionStartTime);
+        }
+        return byteArrayStream;
+    }
+
     protected boolean checkEncryption(PdfStream pdfStream) {
         if (crypto == null || crypto.isEmbeddedFilesOnly()) {
             return false;
@@ -459,9 +550,7 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
         }
 
         // decode
-        byte[] res = FlateDecodeFilter.flateDecode(bytes, true);
-        if (res == null)
-            res = FlateDecodeFilter.flateDecode(bytes, false);
+        byte[] res = FlateDecodeFilter.flateDecode(bytes, false);
         bytes = FlateDecodeFilter.decodePredictor(res, decodeParams);
 
 
@@ -455,6 +455,24 @@ public class PdfPage extends PdfObjectWrapper<PdfDictionary> {
         flush(false);
     }
 
+    /**
+     * Releases the page dictionary and its content streams which were read from the document, so that they
+     * don't occupy memory anymore, e.g. when the page is not needed after its content was processed.
+     * Unlike {@link #flush()}, nothing is written and no {@link PdfDocumentEvent#END_PAGE} event is dispatched.
+     * The page is not released if it was modified, flushed or not read from the document.
+     * <br>
+     * This instance shall not be used after the page is released. The page is read again by
+     * {@link PdfDocument#getPage(int)}.
+     *
+     * @return {@code true} if the page was released, {@code false} otherwise
+     */
+    public boolean release() {
+        if (isFlushed()) {
+            return false;
+        }
+        return getDocument().getCatalog().getPageTree().releasePage(this);
+    }
+
     /**
      * Flushes page and its content stream. If <code>flushResourcesContentStreams</code> is true, all content streams that are
      * rendered on this page (like FormXObjects, annotation appearance streams, patterns) and also all images associated
@@ -62,7 +62,11 @@ class PdfPagesTree implements Serializable {
 
     private final int leafSize = 10;
 
-    private List<PdfDictionary> pageRefs;
+    /**
+     * References to the page dictionaries. Pages are not read until they are requested.
+     * The direct page dictionaries of a document which is only read are stored as they are.
+     */
+    private List<PdfObject> pageRefs;
     private List<PdfPages> parents;
     private List<PdfPage> pages;
     private PdfDocument document;
@@ -103,7 +107,7 @@ class PdfPagesTree implements Serializable {
      * @param pageNum one-based index of the element to return
      * @return the {@see PdfPage} at the specified position in this list
      */
-    public PdfPage getPage(int pageNum) {
+    public synchronized PdfPage getPage(int pageNum) {
         if (pageNum < 1 || pageNum > getNumberOfPages()) {
             throw new IndexOutOfBoundsException(MessageFormat.format(PdfException.RequestedPageNumberIsOutOfBounds, pageNum));
         }
@@ -111,7 +115,23 @@ class PdfPagesTree implements Serializable {
         PdfPage pdfPage = pages.get(pageNum);
         if (pdfPage == null) {
             loadPage(pageNum);
-            pdfPage = new PdfPage(pageRefs.get(pageNum));
+            PdfObject pageObject = pageRefs.get(pageNum);
+            if (pageObject != null && pageObject.isIndirectReference()) {
+                pageObject = ((PdfIndirectReference) pageObject).getRefersTo();
+            }
+            while (pageObject != null && pageObject.getType() == PdfObject.DICTIONARY
+                    && ((PdfDictionary) pageObject).get(PdfName.Kids) != null) {
+                // the kids of the parent node were expected to be pages only, so the node is loaded again
+                reloadPageParent(pageNum);
+                pageObject = pageRefs.get(pageNum);
+                if (pageObject != null && pageObject.isIndirectReference()) {
+                    pageObject = ((PdfIndirectReference) pageObject).getRefersTo();
+                }
+            }
+            if (pageObject == null || pageObject.getType() != PdfObject.DICTIONARY) {
+                throw new PdfException(PdfException.InvalidPageStructure1).setMessageParams(pageNum + 1);
+            }
+            pdfPage = new PdfPage((PdfDictionary) pageObject);
             int parentIndex = findPageParent(pageNum);
             PdfPages parentPages = parents.get(parentIndex);
             pdfPage.parentPages = parentPages;
@@ -149,7 +169,12 @@ class PdfPagesTree implements Serializable {
      * in this tree, or 0 if this tree does not contain the page.
      */
     public int getPageNumber(PdfPage page) {
-        return pages.indexOf(page) + 1;
+        int pageNum = pages.indexOf(page);
+        if (pageNum >= 0) {
+            return pageNum + 1;
+        }
+        // the wrapper may be already released, while the page is still in the tree
+        return page.getPdfObject().getIndirectReference() != null ? getPageNumber(page.getPdfObject()) : 0;
     }
 
     /**
@@ -157,15 +182,18 @@ class PdfPagesTree implements Serializable {
      * specified by it's PdfDictionary, or 0 if this tree does not contain the page.
      */
     public int getPageNumber(PdfDictionary pageDictionary) {
-        int pageNum = pageRefs.indexOf(pageDictionary);
-        if (pageNum >= 0) {
-            return pageNum + 1;
+        PdfIndirectReference pageRef = pageDictionary.getIndirectReference();
+        if (pageRef != null) {
+            int pageNum = pageRefs.indexOf(pageRef);
+            if (pageNum >= 0) {
+                return pageNum + 1;
+            }
         }
         for (int i = 0; i < pageRefs.size(); i++) {
             if (pageRefs.get(i) == null) {
                 loadPage(i);
             }
-            if (pageRefs.get(i).equals(pageDictionary)) {
+            if (pageRefs.get(i) == pageDictionary || (pageRef != null && pageRef.equals(pageRefs.get(i)))) {
                 return i + 1;
             }
         }
@@ -199,7 +227,7 @@ class PdfPagesTree implements Serializable {
         pdfPage.makeIndirect(document);
         pdfPages.addPage(pdfPage.getPdfObject());
         pdfPage.parentPages = pdfPages;
-        pageRefs.add(pdfPage.getPdfObject());
+        pageRefs.add(pdfPage.getPdfObject().getIndirectReference());
         pages.add(pdfPage);
     }
 
@@ -224,7 +252,7 @@ class PdfPagesTree implements Serializable {
         parentPages.addPage(index, pdfPage);
         pdfPage.parentPages = parentPages;
         correctPdfPagesFromProperty(parentIndex + 1, +1);
-        pageRefs.add(index, pdfPage.getPdfObject());
+        pageRefs.add(index, pdfPage.getPdfObject().getIndirectReference());
         pages.add(index, pdfPage);
     }
 
@@ -249,6 +277,40 @@ class PdfPagesTree implements Serializable {
         }
     }
 
+    /**
+     * Releases the page of the document opened for reading, so that its wrapper and dictionary can be garbage
+     * collected. The page will be read again if it is requested later.
+     *
+     * @param pdfPage the page to release
+     * @return {@code true} if the page was released, {@code false} if it was modified or it is not read from the document
+     */
+    protected synchronized boolean releasePage(PdfPage pdfPage) {
+        int pageNum = pages.indexOf(pdfPage);
+        if (pageNum < 0) {
+            return false;
+        }
+        if (!pageRefs.get(pageNum).isIndirectReference()) {
+            return false;
+        }
+        PdfIndirectReference pageRef = (PdfIndirectReference) pageRefs.get(pageNum);
+        if (pageRef.getReader() == null || pageRef.checkState(PdfObject.MODIFIED) || pageRef.checkState(PdfObject.FLUSHED)
+                || pageRef.getRefersTo(false) != pdfPage.getPdfObject()) {
+            return false;
+        }
+        pages.set(pageNum, null);
+        PdfObject contents = pdfPage.getPdfObject().get(PdfName.Contents, false);
+        if (contents != null && contents.isArray()) {
+            for (int i = 0; i < ((PdfArray) contents).size(); i++) {
+                releaseIfRead(((PdfArray) contents).get(i, false));
+            }
+        } else {
+            releaseIfRead(contents);
+        }
+        pdfPage.unsetForbidRelease();
+        pdfPage.getPdfObject().release();
+        return true;
+    }
+
     /**
      * Generate PdfPages tree.
      *
@@ -310,7 +372,19 @@ class PdfPagesTree implements Serializable {
     }
 
     private void loadPage(int pageNum) {
-        PdfDictionary targetPage = pageRefs.get(pageNum);
+        loadPage(pageNum, false);
+    }
+
+    /**
+     * Loads the reference to the page, descending the pages tree by the /Count values of its nodes.
+     * A node which has as many kids as pages is expected to have only pages as kids, so they are not read
+     * until they are requested. Otherwise the kids of the node are read to split it into the nodes below it.
+     *
+     * @param pageNum   zero-based index of the page
+     * @param checkKids true to read the kids of the node containing the page to check their type in any case
+     */
+    private void loadPage(int pageNum, boolean checkKids) {
+        PdfObject targetPage = pageRefs.get(pageNum);
         if (targetPage != null)
             return;
         //if we go here, we have to split PdfPages that contains pageNum
@@ -324,8 +398,9 @@ class PdfPagesTree implements Serializable {
         // we should handle separated pages, it means every PdfArray kids must contain either PdfPage or PdfPages,
         // mix of PdfPage and PdfPages not allowed.
         boolean findPdfPages = false;
-        // NOTE optimization? when we already found needed index
-        for (int i = 0; i < kids.size(); i++) {
+        for (int i = 0; (checkKids || kids.size() != kidsCount) && i < kids.size(); i++) {
+            PdfObject kid = kids.get(i, false);
+            boolean kidWasRead = kid == null || !kid.isIndirectReference() || ((PdfIndirectReference) kid).refersTo != null;
             PdfDictionary page = kids.getAsDictionary(i);
             if (page == null) {                                             // null values not allowed in pages tree.
                 throw new PdfException(PdfException.InvalidPageStructure1).setMessageParams(pageNum + 1);
@@ -337,6 +412,9 @@ class PdfPagesTree implements Serializable {
                 } else {                                                    // kids must be of type array
                     throw new PdfException(PdfException.InvalidPageStructure1).setMessageParams(pageNum + 1);
                 }
+            } else if (!kidWasRead && i != pageNum - parent.getFrom()) {
+                // the page was read only to check its type, it will be read again when it is requested
+                page.release();
             }
         }
         if (findPdfPages) {
@@ -378,7 +456,50 @@ class PdfPagesTree implements Serializable {
             // In any case parent.getCount() has higher priority.
             // NOTE optimization? when we already found needed index
             for (int i = 0; i < parent.getCount(); i++) {
-                pageRefs.set(from + i, kids.getAsDictionary(i));
+                PdfObject kid = kids.get(i, false);
+                if (kid != null && !kid.isIndirectReference()) {
+                    // Pages shall be indirect objects. A direct page is converted to an indirect one only
+                    // if the document is written, a document which is only read is not changed.
+                    if (kid.getIndirectReference() == null && document.getWriter() != null) {
+                        kid.makeIndirect(document);
+                        kids.set(i, kid);
+                        parent.getPdfObject().setModified();
+                    }
+                    if (kid.getIndirectReference() != null) {
+                        kid = kid.getIndirectReference();
+                    }
+                }
+                pageRefs.set(from + i, kid);
+            }
+        }
+    }
+
+    /**
+     * Loads the node containing the page again, checking the type of its kids, after one of them, which was
+     * expected to be a page, turned out to be a pages node.
+     */
+    private void reloadPageParent(int pageNum) {
+        PdfPages parent = parents.get(findPageParent(pageNum));
+        int from = parent.getFrom();
+        int to = from + parent.getCount();
+        for (int i = from; i < to; i++) {
+            pageRefs.set(i, null);
+        }
+        loadPage(pageNum, true);
+        for (int i = from; i < to; i++) {
+            if (pages.get(i) != null) {
+                loadPage(i);
+                pages.get(i).parentPages = parents.get(findPageParent(i));
+            }
+        }
+    }
+
+    private static void releaseIfRead(PdfObject obj) {
+        if (obj != null && obj.isIndirectReference()) {
+            PdfIndirectReference reference = (PdfIndirectReference) obj;
+            if (reference.refersTo != null && !reference.checkState(PdfObject.MODIFIED)
+                    && !reference.refersTo.checkState(PdfObject.FORBID_RELEASE)) {
+                reference.refersTo.release();
             }
         }
     }
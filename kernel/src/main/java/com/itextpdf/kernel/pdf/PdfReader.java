@@ -44,16 +44,19 @@
 package com.itextpdf.kernel.pdf;
 
 import com.itextpdf.io.LogMessageConstant;
+import com.itextpdf.io.util.StreamUtil;
 import com.itextpdf.io.source.ByteBuffer;
 import com.itextpdf.io.source.ByteUtils;
 import com.itextpdf.io.source.IRandomAccessSource;
 import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RASInputStream;
 import com.itextpdf.io.source.RandomAccessFileOrArray;
 import com.itextpdf.io.source.RandomAccessSourceFactory;
 import com.itextpdf.io.source.WindowRandomAccessSource;
 import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.pdf.filters.FilterHandlers;
 import com.itextpdf.kernel.pdf.filters.IFilterHandler;
+import com.itextpdf.kernel.pdf.filters.IStreamingFilterHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,6 +67,10 @@ import java.util.Map;
 
 /**
  * Reads a PDF document.
+ * <p>
+ * Lazy reading of objects and stream bytes is serialized on the reader instance, while stream decoding
+ * is performed outside of the lock. Thus the pages of a document opened in reading mode may be processed
+ * (e.g. for text extraction) by several threads at once.
  */
 public class PdfReader implements Closeable, Serializable {
 
@@ -86,6 +93,8 @@ public class PdfReader implements Closeable, Serializable {
     // For internal usage only
     private String sourcePath;
 
+    private transient ObjectStreamCache objectStreamCache;
+
     protected PdfTokenizer tokens;
     protected PdfEncryption decrypt;
 
@@ -186,6 +195,9 @@ public class PdfReader implements Closeable, Serializable {
      */
     public void close() throws IOException {
         tokens.close();
+        if (objectStreamCache != null) {
+            objectStreamCache.clear();
+        }
     }
 
     /**
@@ -287,7 +299,7 @@ public class PdfReader implements Closeable, Serializable {
      * @return byte[] array.
      * @throws IOException on error.
      */
-    public byte[] readStreamBytesRaw(PdfStream stream) throws IOException {
+    public synchronized byte[] readStreamBytesRaw(PdfStream stream) throws IOException {
         PdfName type = stream.getAsName(PdfName.Type);
         if (!PdfName.XRefStm.equals(type) && !PdfName.ObjStm.equals(type))
             checkPdfStreamLength(stream);
@@ -303,24 +315,8 @@ public class PdfReader implements Closeable, Serializable {
             file.seek(stream.getOffset());
             bytes = new byte[length];
             file.readFully(bytes);
-            if (decrypt != null && !decrypt.isEmbeddedFilesOnly()) {
-                PdfObject filter = stream.get(PdfName.Filter, true);
-                boolean skip = false;
-                if (filter != null) {
-                    if (PdfName.Crypt.equals(filter)) {
-                        skip = true;
-                    } else if (filter.getType() == PdfObject.ARRAY) {
-                        PdfArray filters = (PdfArray) filter;
-                        for (int k = 0; k < filters.size(); k++) {
-                            if (!filters.isEmpty() && PdfName.Crypt.equals(filters.get(k, true))) {
-                                skip = true;
-                                break;
-                            }
-                        }
-                    }
-                    filter.release();
-                }
-                if (!skip) {
+            if (isDecryptionNeeded(stream)) {
+                synchronized (decrypt) {
                     decrypt.setHashKeyForNextObject(stream.getIndirectReference().getObjNumber(), stream.getIndirectReference().getGenNumber());
                     bytes = decrypt.decryptByteArray(bytes);
                 }
@@ -335,16 +331,77 @@ public class PdfReader implements Closeable, Serializable {
     }
 
     /**
-     * Reads, decrypt and optionally decode stream bytes into {@link ByteArrayInputStream}.
-     * User is responsible for closing returned stream.
+     * Reads, decrypt and optionally decode stream bytes into an {@link InputStream}.
+     * The stream bytes are read from the document and decoded lazily while the returned stream is read,
+     * so that even very large streams are processed with bounded memory as long as all stream filters
+     * implement {@link IStreamingFilterHandler}.
+     * User is responsible for closing returned stream. The returned stream shall be consumed
+     * before the reader is closed.
      *
      * @param decode true if to get decoded stream, false if to leave it originally encoded.
      * @return InputStream or {@code null} if reading was failed.
      * @throws IOException on error.
      */
     public InputStream readStream(PdfStream stream, boolean decode) throws IOException {
-        byte[] bytes = readStreamBytes(stream, decode);
-        return bytes != null ? new ByteArrayInputStream(bytes) : null;
+        InputStream is = readStreamRaw(stream);
+        if (decode && is != null) {
+            return decodeStream(is, stream);
+        } else {
+            return is;
+        }
+    }
+
+    /**
+     * Decode a stream applying the filters specified in the provided dictionary using default filter handlers.
+     *
+     * @param is               the stream of encoded bytes
+     * @param streamDictionary the dictionary that contains filter information
+     * @return the stream of decoded bytes
+     * @throws PdfException if there are any problems decoding the stream
+     * @see #decodeStream(InputStream, PdfDictionary, Map)
+     */
+    public static InputStream decodeStream(InputStream is, PdfDictionary streamDictionary) {
+        return decodeStream(is, streamDictionary, FilterHandlers.getDefaultFilterHandlers());
+    }
+
+    /**
+     * Decode a stream applying the filters specified in the provided dictionary using the provided filter handlers.
+     * Filters implementing {@link IStreamingFilterHandler} decode the data incrementally while the returned
+     * stream is read. The input of any other filter is read to the end and decoded in memory.
+     *
+     * @param is               the stream of encoded bytes
+     * @param streamDictionary the dictionary that contains filter information
+     * @param filterHandlers   the map used to look up a handler for each type of filter
+     * @return the stream of decoded bytes
+     * @throws PdfException if there are any problems decoding the stream
+     */
+    public static InputStream decodeStream(InputStream is, PdfDictionary streamDictionary, Map<PdfName, IFilterHandler> filterHandlers) {
+        if (is == null) {
+            return null;
+        }
+        PdfArray filters = getFilters(streamDictionary);
+        PdfArray dp = getDecodeParams(streamDictionary);
+        for (int j = 0; j < filters.size(); ++j) {
+            PdfName filterName = (PdfName) filters.get(j);
+            IFilterHandler filterHandler = filterHandlers.get(filterName);
+            if (filterHandler == null)
+                throw new PdfException(PdfException.Filter1IsNotSupported).setMessageParams(filterName);
+
+            PdfDictionary decodeParams = getDecodeParams(dp, j);
+            if (filterHandler instanceof IStreamingFilterHandler) {
+                is = ((IStreamingFilterHandler) filterHandler).decodeStream(is, filterName, decodeParams, streamDictionary);
+            } else {
+                byte[] b;
+                try {
+                    b = StreamUtil.inputStreamToArray(is);
+                    is.close();
+                } catch (IOException e) {
+                    throw new PdfException(PdfException.IoException, e);
+                }
+                is = new ByteArrayInputStream(filterHandler.decode(b, filterName, decodeParams, streamDictionary));
+            }
+        }
+        return is;
     }
 
     /**
@@ -372,48 +429,15 @@ public class PdfReader implements Closeable, Serializable {
         if (b == null) {
             return null;
         }
-        PdfObject filter = streamDictionary.get(PdfName.Filter);
-        PdfArray filters = new PdfArray();
-        if (filter != null) {
-            if (filter.getType() == PdfObject.NAME) {
-                filters.add(filter);
-            } else if (filter.getType() == PdfObject.ARRAY) {
-                filters = ((PdfArray) filter);
-            }
-        }
-        PdfArray dp = new PdfArray();
-        PdfObject dpo = streamDictionary.get(PdfName.DecodeParms);
-        if (dpo == null || (dpo.getType() != PdfObject.DICTIONARY && dpo.getType() != PdfObject.ARRAY)) {
-            if (dpo != null) dpo.release();
-            dpo = streamDictionary.get(PdfName.DP);
-        }
-        if (dpo != null) {
-            if (dpo.getType() == PdfObject.DICTIONARY) {
-                dp.add(dpo);
-            } else if (dpo.getType() == PdfObject.ARRAY) {
-                dp = ((PdfArray) dpo);
-            }
-            dpo.release();
-        }
+        PdfArray filters = getFilters(streamDictionary);
+        PdfArray dp = getDecodeParams(streamDictionary);
         for (int j = 0; j < filters.size(); ++j) {
             PdfName filterName = (PdfName) filters.get(j);
             IFilterHandler filterHandler = filterHandlers.get(filterName);
             if (filterHandler == null)
                 throw new PdfException(PdfException.Filter1IsNotSupported).setMessageParams(filterName);
 
-            PdfDictionary decodeParams;
-            if (j < dp.size()) {
-                PdfObject dpEntry = dp.get(j, true);
-                if (dpEntry == null || dpEntry.getType() == PdfObject.NULL) {
-                    decodeParams = null;
-                } else if (dpEntry.getType() == PdfObject.DICTIONARY) {
-                    decodeParams = (PdfDictionary) dpEntry;
-                } else {
-                    throw new PdfException(PdfException.DecodeParameterType1IsNotSupported).setMessageParams(dpEntry.getClass().toString());
-                }
-            } else {
-                decodeParams = null;
-            }
+            PdfDictionary decodeParams = getDecodeParams(dp, j);
             b = filterHandler.decode(b, filterName, decodeParams, streamDictionary);
         }
         return b;
@@ -541,48 +565,16 @@ public class PdfReader implements Closeable, Serializable {
 
     protected void readObjectStream(PdfStream objectStream) throws IOException {
         int objectStreamNumber = objectStream.getIndirectReference().getObjNumber();
-        int first = objectStream.getAsNumber(PdfName.First).intValue();
-        int n = objectStream.getAsNumber(PdfName.N).intValue();
-        byte[] bytes = readStreamBytes(objectStream, true);
+        ObjectStreamCache.DecodedObjectStream decoded = decodeObjectStream(objectStream);
         PdfTokenizer saveTokens = tokens;
         try {
-            tokens = new PdfTokenizer(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(bytes)));
-            int[] address = new int[n];
-            int[] objNumber = new int[n];
-            boolean ok = true;
-            for (int k = 0; k < n; ++k) {
-                ok = tokens.nextToken();
-                if (!ok)
-                    break;
-                if (tokens.getTokenType() != PdfTokenizer.TokenType.Number) {
-                    ok = false;
-                    break;
-                }
-                objNumber[k] = tokens.getIntValue();
-                ok = tokens.nextToken();
-                if (!ok)
-                    break;
-                if (tokens.getTokenType() != PdfTokenizer.TokenType.Number) {
-                    ok = false;
-                    break;
-                }
-                address[k] = tokens.getIntValue() + first;
-            }
-            if (!ok)
-                throw new PdfException(PdfException.ErrorWhileReadingObjectStream);
-            for (int k = 0; k < n; ++k) {
-                tokens.seek(address[k]);
-                tokens.nextToken();
-                PdfObject obj;
-                if (tokens.getTokenType() == PdfTokenizer.TokenType.Number) {
-                    obj = new PdfNumber(tokens.getByteContent());
-                } else {
-                    tokens.seek(address[k]);
-                    obj = readObject(false, true);
-                }
-                PdfIndirectReference reference = pdfDocument.getXref().get(objNumber[k]);
-                // Check if this object has no incremental updates (e.g. no append mode)
-                if (reference.getObjStreamNumber() == objectStreamNumber) {
+            tokens = new PdfTokenizer(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(decoded.bytes)));
+            for (int k = 0; k < decoded.objNumbers.length; ++k) {
+                PdfIndirectReference reference = pdfDocument.getXref().get(decoded.objNumbers[k]);
+                // Check if this object has no incremental updates (e.g. no append mode).
+                // An object which is already read is kept, it may be in use, e.g. by another thread.
+                if (reference.getObjStreamNumber() == objectStreamNumber && reference.refersTo == null) {
+                    PdfObject obj = readObjectStreamEntry(decoded.addresses[k]);
                     reference.setRefersTo(obj);
                     obj.setIndirectReference(reference);
                 }
@@ -593,7 +585,7 @@ public class PdfReader implements Closeable, Serializable {
         }
     }
 
-    protected PdfObject readObject(PdfIndirectReference reference) {
+    protected synchronized PdfObject readObject(PdfIndirectReference reference) {
         return readObject(reference, true);
     }
 
@@ -1095,6 +1087,9 @@ public class PdfReader implements Closeable, Serializable {
         try {
             currentIndirectReference = reference;
             if (reference.getObjStreamNumber() > 0) {
+                if (readObjectFromCachedObjectStream(reference)) {
+                    return reference.refersTo;
+                }
                 PdfStream objectStream = (PdfStream) pdfDocument.getXref().
                         get(reference.getObjStreamNumber()).getRefersTo(false);
                 readObjectStream(objectStream);
@@ -1118,7 +1113,12 @@ public class PdfReader implements Closeable, Serializable {
                         throw ex;
                     }
                 }
-                return object != null ? object.setIndirectReference(reference) : null;
+                if (object != null) {
+                    // the object is bound to the reference under the reader lock,
+                    // so the threads resolving the same reference get the same object
+                    reference.refersTo = object.setIndirectReference(reference);
+                }
+                return object;
             } else {
                 return null;
             }
@@ -1127,6 +1127,186 @@ public class PdfReader implements Closeable, Serializable {
         }
     }
 
+    /**
+     * Reads a single object from an already decoded object stream, if the latter is still in the cache.
+     *
+     * @return true if the object was read, false if the object stream has to be decoded again.
+     */
+    private boolean readObjectFromCachedObjectStream(PdfIndirectReference reference) throws IOException {
+        ObjectStreamCache.DecodedObjectStream decoded = getObjectStreamCache().get(reference.getObjStreamNumber());
+        if (decoded == null) {
+            return false;
+        }
+        int k = decoded.indexOf(reference.getObjNumber(), reference.getIndex());
+        if (k < 0) {
+            return false;
+        }
+        PdfTokenizer saveTokens = tokens;
+        try {
+            tokens = new PdfTokenizer(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(decoded.bytes)));
+            PdfObject obj = readObjectStreamEntry(decoded.addresses[k]);
+            reference.setRefersTo(obj);
+            obj.setIndirectReference(reference);
+        } finally {
+            tokens = saveTokens;
+        }
+        return true;
+    }
+
+    private ObjectStreamCache.DecodedObjectStream decodeObjectStream(PdfStream objectStream) throws IOException {
+        int objectStreamNumber = objectStream.getIndirectReference().getObjNumber();
+        ObjectStreamCache.DecodedObjectStream decoded = getObjectStreamCache().get(objectStreamNumber);
+        if (decoded != null) {
+            return decoded;
+        }
+        int first = objectStream.getAsNumber(PdfName.First).intValue();
+        int n = objectStream.getAsNumber(PdfName.N).intValue();
+        byte[] bytes = readStreamBytes(objectStream, true);
+        PdfTokenizer saveTokens = tokens;
+        try {
+            tokens = new PdfTokenizer(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(bytes)));
+            int[] address = new int[n];
+            int[] objNumber = new int[n];
+            boolean ok = true;
+            for (int k = 0; k < n; ++k) {
+                ok = tokens.nextToken();
+                if (!ok)
+                    break;
+                if (tokens.getTokenType() != PdfTokenizer.TokenType.Number) {
+                    ok = false;
+                    break;
+                }
+                objNumber[k] = tokens.getIntValue();
+                ok = tokens.nextToken();
+                if (!ok)
+                    break;
+                if (tokens.getTokenType() != PdfTokenizer.TokenType.Number) {
+                    ok = false;
+                    break;
+                }
+                address[k] = tokens.getIntValue() + first;
+            }
+            if (!ok)
+                throw new PdfException(PdfException.ErrorWhileReadingObjectStream);
+            decoded = new ObjectStreamCache.DecodedObjectStream(bytes, objNumber, address);
+        } finally {
+            tokens = saveTokens;
+        }
+        getObjectStreamCache().put(objectStreamNumber, decoded);
+        return decoded;
+    }
+
+    private PdfObject readObjectStreamEntry(int address) throws IOException {
+        tokens.seek(address);
+        tokens.nextToken();
+        if (tokens.getTokenType() == PdfTokenizer.TokenType.Number) {
+            return new PdfNumber(tokens.getByteContent());
+        } else {
+            tokens.seek(address);
+            return readObject(false, true);
+        }
+    }
+
+    private ObjectStreamCache getObjectStreamCache() {
+        if (objectStreamCache == null) {
+            objectStreamCache = new ObjectStreamCache(properties.objectStreamCacheSize);
+        }
+        return objectStreamCache;
+    }
+
+    private static PdfArray getFilters(PdfDictionary streamDictionary) {
+        PdfObject filter = streamDictionary.get(PdfName.Filter);
+        PdfArray filters = new PdfArray();
+        if (filter != null) {
+            if (filter.getType() == PdfObject.NAME) {
+                filters.add(filter);
+            } else if (filter.getType() == PdfObject.ARRAY) {
+                filters = ((PdfArray) filter);
+            }
+        }
+        return filters;
+    }
+
+    private static PdfArray getDecodeParams(PdfDictionary streamDictionary) {
+        PdfArray dp = new PdfArray();
+        PdfObject dpo = streamDictionary.get(PdfName.DecodeParms);
+        if (dpo == null || (dpo.getType() != PdfObject.DICTIONARY && dpo.getType() != PdfObject.ARRAY)) {
+            if (dpo != null) dpo.release();
+            dpo = streamDictionary.get(PdfName.DP);
+        }
+        if (dpo != null) {
+            if (dpo.getType() == PdfObject.DICTIONARY) {
+                dp.add(dpo);
+            } else if (dpo.getType() == PdfObject.ARRAY) {
+                dp = ((PdfArray) dpo);
+            }
+            dpo.release();
+        }
+        return dp;
+    }
+
+    private static PdfDictionary getDecodeParams(PdfArray dp, int filterIndex) {
+        if (filterIndex < dp.size()) {
+            PdfObject dpEntry = dp.get(filterIndex, true);
+            if (dpEntry == null || dpEntry.getType() == PdfObject.NULL) {
+                return null;
+            } else if (dpEntry.getType() == PdfObject.DICTIONARY) {
+                return (PdfDictionary) dpEntry;
+            } else {
+                throw new PdfException(PdfException.DecodeParameterType1IsNotSupported).setMessageParams(dpEntry.getClass().toString());
+            }
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Opens a stream over the raw bytes of the stream object in the document, decrypting them on the fly if needed.
+     */
+    private synchronized InputStream readStreamRaw(PdfStream stream) throws IOException {
+        PdfName type = stream.getAsName(PdfName.Type);
+        if (!PdfName.XRefStm.equals(type) && !PdfName.ObjStm.equals(type))
+            checkPdfStreamLength(stream);
+        long offset = stream.getOffset();
+        if (offset <= 0)
+            return null;
+        int length = stream.getLength();
+        if (length <= 0)
+            return new ByteArrayInputStream(new byte[0]);
+        IRandomAccessSource window = new WindowRandomAccessSource(tokens.getSafeFile().createSourceView(), offset, length);
+        InputStream is = new BufferedInputStream(new RASInputStream(window));
+        if (isDecryptionNeeded(stream)) {
+            synchronized (decrypt) {
+                decrypt.setHashKeyForNextObject(stream.getIndirectReference().getObjNumber(), stream.getIndirectReference().getGenNumber());
+                is = decrypt.getDecryptionStream(is);
+            }
+        }
+        return is;
+    }
+
+    private boolean isDecryptionNeeded(PdfStream stream) {
+        if (decrypt == null || decrypt.isEmbeddedFilesOnly()) {
+            return false;
+        }
+        PdfObject filter = stream.get(PdfName.Filter, true);
+        boolean skip = false;
+        if (filter != null) {
+            if (PdfName.Crypt.equals(filter)) {
+                skip = true;
+            } else if (filter.getType() == PdfObject.ARRAY) {
+                PdfArray filters = (PdfArray) filter;
+                for (int k = 0; k < filters.size(); k++) {
+                    if (!filters.isEmpty() && PdfName.Crypt.equals(filters.get(k, true))) {
+                        skip = true;
+                        break;
+                    }
+                }
+            }
+            filter.release();
+        }
+        return !skip;
+    }
+
     private void checkPdfStreamLength(PdfStream pdfStream) throws IOException {
         if (!correctStreamLength)
             return;
@@ -143,13 +143,32 @@ public class PdfStream extends PdfDictionary {
         this(doc, inputStream, CompressionConstants.UNDEFINED_COMPRESSION);
     }
 
+    /**
+     * Creates an efficient stream, which content is read from the {@code InputStream} only when the stream is written.
+     * Unlike {@link #PdfStream(PdfDocument, InputStream, int)} the stream doesn't need a document on creation,
+     * its {@code Length} is added as an indirect object when the stream is written.
+     * The {@code InputStream} is totally consumed but is not closed.
+     *
+     * @param inputStream      the data to write to this stream
+     * @param compressionLevel the compression level (0 = best speed, 9 = best compression, -1 is default)
+     */
+    public PdfStream(InputStream inputStream, int compressionLevel) {
+        super();
+        if (inputStream == null) {
+            throw new NullPointerException("inputStream");
+        }
+        setState(MUST_BE_INDIRECT);
+        this.inputStream = inputStream;
+        this.compressionLevel = compressionLevel;
+    }
+
     /**
      * Constructs a {@code PdfStream}-object.
      *
      * @param compressionLevel the compression level (0 = best speed, 9 = best compression, -1 is default)
      */
     public PdfStream(int compressionLevel) {
-        this(null, compressionLevel);
+        this((byte[]) null, compressionLevel);
     }
 
     /**
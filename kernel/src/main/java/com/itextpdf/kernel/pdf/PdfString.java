@@ -305,13 +305,18 @@ public class PdfString extends PdfPrimitiveObject {
         this.decryption = decryption;
     }
 
-    protected void generateValue() {
+    protected synchronized void generateValue() {
+        if (value != null) {
+            // generated by a concurrent thread
+            return;
+        }
         assert content != null : "No byte[] content to generate value";
-        value = PdfEncodings.convertToString(decodeContent(), null);
+        String generatedValue = PdfEncodings.convertToString(decodeContent(), null);
         if (decryption != null) {
             decryption = null;
             content = null;
         }
+        value = generatedValue;
     }
 
     @Override
@@ -360,11 +365,14 @@ public class PdfString extends PdfPrimitiveObject {
         return false;
     }
 
-    protected byte[] decodeContent() {
+    protected synchronized byte[] decodeContent() {
         byte[] decodedBytes = PdfTokenizer.decodeStringContent(content, hexWriting);
         if (decryption != null && !checkState(PdfObject.UNENCRYPTED)) {
-            decryption.setHashKeyForNextObject(decryptInfoNum, decryptInfoGen);
-            decodedBytes = decryption.decryptByteArray(decodedBytes);
+            // the decryption state is shared by all objects of the document
+            synchronized (decryption) {
+                decryption.setHashKeyForNextObject(decryptInfoNum, decryptInfoGen);
+                decodedBytes = decryption.decryptByteArray(decodedBytes);
+            }
         }
         return decodedBytes;
     }
@@ -51,8 +51,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.security.MessageDigest;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -84,10 +82,15 @@ public class PdfWriter extends PdfOutputStream implements Serializable {
     private Map<PdfDocument.IndirectRefDescription, PdfIndirectReference> copiedObjects = new HashMap<>();
 
     /**
-     * Is used in smart mode to store serialized objects content.
+     * Is used in smart mode to find already copied objects with the same content.
      */
-    private HashMap<SerializedPdfObject, PdfIndirectReference> serializedContentToObjectRef = new HashMap<>();
-    private HashMap<PdfDocument.IndirectRefDescription, byte[]> objectRefToSerializedContent = new HashMap<>();
+    private transient SmartModeIndex smartModeIndex;
+
+    /**
+     * Is used to compress streams on worker threads if parallel compression is enabled.
+     */
+    private transient ParallelStreamCompressor streamCompressor;
+    private boolean deferredObjectsWritten;
 
     //forewarned is forearmed
     protected boolean isUserWarnedAboutAcroFormCopying;
@@ -248,6 +251,19 @@ public class PdfWriter extends PdfOutputStream implements Serializable {
         try {
             super.close();
         } finally {
+            if (streamCompressor != null) {
+                streamCompressor.shutdown();
+                streamCompressor = null;
+            }
+            try {
+                if (smartModeIndex != null) {
+                    smartModeIndex.close();
+                    smartModeIndex = null;
+                }
+            } catch (Exception ex) {
+                Logger logger = LoggerFactory.getLogger(PdfWriter.class);
+                logger.error("Closing of the smart mode index failed.", ex);
+            }
             try {
                 if (duplicateStream != null) {
                     duplicateStream.close();
@@ -272,7 +288,12 @@ public class PdfWriter extends PdfOutputStream implements Serializable {
             objectStream = new PdfObjectStream(document);
         } else if (objectStream.getSize() == PdfObjectStream.MAX_OBJ_STREAM_SIZE) {
             objectStream.flush();
-            objectStream = new PdfObjectStream(objectStream);
+            if (streamCompressor != null && streamCompressor.hasDeferredObjects()) {
+                // buffers of the flushed object stream can't be reused until it's compressed and written
+                objectStream = new PdfObjectStream(document);
+            } else {
+                objectStream = new PdfObjectStream(objectStream);
+            }
         }
         return objectStream;
     }
@@ -286,35 +307,26 @@ public class PdfWriter extends PdfOutputStream implements Serializable {
      */
     protected void flushObject(PdfObject pdfObject, boolean canBeInObjStm) throws IOException {
         PdfIndirectReference indirectReference = pdfObject.getIndirectReference();
+        boolean deferred = false;
         if (isFullCompression() && canBeInObjStm) {
             PdfObjectStream objectStream = getObjectStream();
             objectStream.addObject(pdfObject);
+        } else if (deferWriting(pdfObject)) {
+            deferred = true;
         } else {
             indirectReference.setOffset(getCurrentPos());
             writeToBody(pdfObject);
         }
         indirectReference.setState(PdfObject.FLUSHED).clearState(PdfObject.MUST_BE_FLUSHED);
-        switch (pdfObject.getType()) {
-            case PdfObject.BOOLEAN:
-            case PdfObject.NAME:
-            case PdfObject.NULL:
-            case PdfObject.NUMBER:
-            case PdfObject.STRING:
-                ((PdfPrimitiveObject) pdfObject).content = null;
-                break;
-            case PdfObject.ARRAY:
-                PdfArray array = ((PdfArray) pdfObject);
-                markArrayContentToFlush(array);
-                array.releaseContent();
-                break;
-            case PdfObject.STREAM:
-            case PdfObject.DICTIONARY:
-                PdfDictionary dictionary = ((PdfDictionary) pdfObject);
-                markDictionaryContentToFlush(dictionary);
-                dictionary.releaseContent();
-                break;
-            case PdfObject.INDIRECT_REFERENCE:
-                markObjectToFlush(((PdfIndirectReference) pdfObject).getRefersTo(false));
+        markContentToFlush(pdfObject);
+        if (deferred) {
+            PdfObject readyObject;
+            while ((readyObject = streamCompressor.pollReadyObject()) != null) {
+                writeDeferredObject(readyObject);
+            }
+        } else {
+            releaseContent(pdfObject);
+            document.getXref().compact(indirectReference);
         }
     }
 
@@ -352,9 +364,9 @@ public class PdfWriter extends PdfOutputStream implements Serializable {
 
         }
         if (properties.smartMode && tryToFindDuplicate && !checkTypeOfPdfDictionary(obj, PdfName.Page)) {
-            PdfIndirectReference copiedObjectRef = tryToFindPreviouslyCopiedEqualObject(obj);
+            PdfDocument.IndirectRefDescription copiedObjectRef = tryToFindPreviouslyCopiedEqualObject(obj);
             if (copiedObjectRef != null) {
-                PdfIndirectReference copiedIndirectReference = copiedObjects.get(new PdfDocument.IndirectRefDescription(copiedObjectRef));
+                PdfIndirectReference copiedIndirectReference = copiedObjects.get(copiedObjectRef);
                 copiedObjects.put(copiedObjectKey, copiedIndirectReference);
                 return copiedIndirectReference.getRefersTo();
             }
@@ -472,26 +484,107 @@ public class PdfWriter extends PdfOutputStream implements Serializable {
 
     /**
      * Used in the smart mode.
-     * It serializes given object content and tries to find previously copied object with the same content.
-     * If already copied object is not found, it saves current object serialized content into the map.
+     * It calculates the digest of the given object content and tries to find previously copied object with the same content.
+     * If already copied object is not found, it saves current object digest into the smart mode index.
      *
      * @param object an object to check if some other object with the same content was already copied.
-     * @return indirect reference of the object with the same content, which already has a copy in the new document.
+     * @return description of the object with the same content, which already has a copy in the new document.
      */
-    private PdfIndirectReference tryToFindPreviouslyCopiedEqualObject(PdfObject object) {
-        SerializedPdfObject objectKey;
-        if (object.isStream() || object.isDictionary()) {
-            objectKey = new SerializedPdfObject(object, objectRefToSerializedContent);
-            PdfIndirectReference objectRef = serializedContentToObjectRef.get(objectKey);
-            if (objectRef != null) {
-                return objectRef;
+    private PdfDocument.IndirectRefDescription tryToFindPreviouslyCopiedEqualObject(PdfObject object) {
+        if ((object.isStream() || object.isDictionary()) && object.getIndirectReference() != null) {
+            if (smartModeIndex == null) {
+                smartModeIndex = new SmartModeIndex(properties.smartModeIndexTempPath, properties.smartModeIndexMaxInMemoryEntries);
             }
-            serializedContentToObjectRef.put(objectKey, object.getIndirectReference());
+            return smartModeIndex.findObjectWithSameContent(object);
         }
 
         return null;
     }
 
+    /**
+     * Writes all the objects which were deferred because of the parallel compression of streams.
+     * Objects flushed after this call are written immediately.
+     *
+     * @throws IOException
+     */
+    void writeDeferredObjects() throws IOException {
+        if (streamCompressor != null) {
+            PdfObject deferredObject;
+            while ((deferredObject = streamCompressor.pollObject()) != null) {
+                writeDeferredObject(deferredObject);
+            }
+            streamCompressor.shutdown();
+            streamCompressor = null;
+        }
+        deferredObjectsWritten = true;
+    }
+
+    @Override
+    ByteArrayOutputStream getCompressedContent(PdfStream pdfStream) throws IOException {
+        return streamCompressor != null ? streamCompressor.takeCompressedContent(pdfStream) : null;
+    }
+
+    private boolean deferWriting(PdfObject pdfObject) {
+        if (properties.compressionThreadCount <= 0 || deferredObjectsWritten) {
+            return false;
+        }
+        if (streamCompressor == null) {
+            streamCompressor = new ParallelStreamCompressor(properties.compressionThreadCount);
+        }
+        if (pdfObject.isStream()) {
+            int compressionLevel = getInMemoryCompressionLevel((PdfStream) pdfObject);
+            if (compressionLevel != CompressionConstants.NO_COMPRESSION) {
+                streamCompressor.submit((PdfStream) pdfObject, compressionLevel, getCompressionStrategy());
+                return true;
+            }
+        }
+        if (streamCompressor.hasDeferredObjects()) {
+            streamCompressor.defer(pdfObject);
+            return true;
+        }
+        return false;
+    }
+
+    private void writeDeferredObject(PdfObject pdfObject) throws IOException {
+        pdfObject.getIndirectReference().setOffset(getCurrentPos());
+        writeToBody(pdfObject);
+        releaseContent(pdfObject);
+        document.getXref().compact(pdfObject.getIndirectReference());
+    }
+
+    private void markContentToFlush(PdfObject pdfObject) {
+        switch (pdfObject.getType()) {
+            case PdfObject.ARRAY:
+                markArrayContentToFlush((PdfArray) pdfObject);
+                break;
+            case PdfObject.STREAM:
+            case PdfObject.DICTIONARY:
+                markDictionaryContentToFlush((PdfDictionary) pdfObject);
+                break;
+            case PdfObject.INDIRECT_REFERENCE:
+                markObjectToFlush(((PdfIndirectReference) pdfObject).getRefersTo(false));
+        }
+    }
+
+    private void releaseContent(PdfObject pdfObject) {
+        switch (pdfObject.getType()) {
+            case PdfObject.BOOLEAN:
+            case PdfObject.NAME:
+            case PdfObject.NULL:
+            case PdfObject.NUMBER:
+            case PdfObject.STRING:
+                ((PdfPrimitiveObject) pdfObject).content = null;
+                break;
+            case PdfObject.ARRAY:
+                ((PdfArray) pdfObject).releaseContent();
+                break;
+            case PdfObject.STREAM:
+            case PdfObject.DICTIONARY:
+                ((PdfDictionary) pdfObject).releaseContent();
+                break;
+        }
+    }
+
     private void markArrayContentToFlush(PdfArray array) {
         for (int i = 0; i < array.size(); i++) {
             markObjectToFlush(array.get(i, false));
@@ -565,131 +658,4 @@ public class PdfWriter extends PdfOutputStream implements Serializable {
         out.defaultWriteObject();
         outputStream = tempOutputStream;
     }
-
-    static class SerializedPdfObject {
-        private final byte[] serializedContent;
-        private final int hash;
-
-        private MessageDigest md5;
-        private HashMap<PdfDocument.IndirectRefDescription, byte[]> objToSerializedContent;
-
-        SerializedPdfObject(PdfObject obj, HashMap<PdfDocument.IndirectRefDescription, byte[]> objToSerializedContent) {
-            assert obj.isDictionary() || obj.isStream();
-
-            this.objToSerializedContent = objToSerializedContent;
-            try {
-                md5 = MessageDigest.getInstance("MD5");
-            } catch (Exception e) {
-                throw new PdfException(e);
-            }
-            ByteBufferOutputStream bb = new ByteBufferOutputStream();
-            int level = 100;
-            serObject(obj, level, bb);
-            this.serializedContent = bb.toByteArray();
-            hash = calculateHash(this.serializedContent);
-            md5 = null;
-        }
-
-        // TODO 2: object is not checked if it was already serialized on start, double work could be done
-        // TODO 3: indirect objects often stored multiple times as parts of the other objects
-        private void serObject(PdfObject obj, int level, ByteBufferOutputStream bb) {
-            if (level <= 0)
-                return;
-            if (obj == null) {
-                bb.append("$Lnull");
-                return;
-            }
-            PdfIndirectReference reference = null;
-            ByteBufferOutputStream savedBb = null;
-            PdfDocument.IndirectRefDescription indRefKey = null;
-
-            if (obj.isIndirectReference()) {
-                reference = (PdfIndirectReference) obj;
-                indRefKey = new PdfDocument.IndirectRefDescription(reference);
-                byte[] cached = objToSerializedContent.get(indRefKey);
-                if (cached != null) {
-                    bb.append(cached);
-                    return;
-                } else {
-                    savedBb = bb;
-                    bb = new ByteBufferOutputStream();
-                    obj = reference.getRefersTo();
-                }
-            }
-
-            if (obj.isStream()) {
-                bb.append("$B");
-                serDic((PdfDictionary) obj, level - 1, bb);
-                if (level > 0) {
-                    md5.reset();
-                    bb.append(md5.digest(((PdfStream) obj).getBytes(false)));
-                }
-            } else if (obj.isDictionary()) {
-                serDic((PdfDictionary) obj, level - 1, bb);
-            } else if (obj.isArray()) {
-                serArray((PdfArray) obj, level - 1, bb);
-            } else if (obj.isString()) {
-                bb.append("$S").append(obj.toString());
-            } else if (obj.isName()) {
-                bb.append("$N").append(obj.toString());
-            } else
-                bb.append("$L").append(obj.toString()); // PdfNull case is also here
-
-            if (savedBb != null) {
-                objToSerializedContent.put(indRefKey, bb.getBuffer());
-                savedBb.append(bb);
-            }
-        }
-
-        private void serDic(PdfDictionary dic, int level, ByteBufferOutputStream bb) {
-            bb.append("$D");
-            if (level <= 0)
-                return;
-            PdfName[] keys = new PdfName[dic.keySet().size()];
-            keys = dic.keySet().toArray(keys);
-            Arrays.sort(keys);
-            for (Object key : keys) {
-                if (key.equals(PdfName.P) && (dic.get((PdfName) key).isIndirectReference() || dic.get((PdfName) key).isDictionary()) || key.equals(PdfName.Parent)) // ignore recursive call
-                    continue;
-                serObject((PdfObject) key, level, bb);
-                serObject(dic.get((PdfName) key, false), level, bb);
-
-            }
-        }
-
-        private void serArray(PdfArray array, int level, ByteBufferOutputStream bb) {
-            bb.append("$A");
-            if (level <= 0)
-                return;
-            for (int k = 0; k < array.size(); ++k) {
-                serObject(array.get(k, false), level, bb);
-            }
-        }
-
-        private static int calculateHash(byte[] b) {
-            int hash = 0;
-            int len = b.length;
-            for (int k = 0; k < len; ++k) {
-                hash = hash * 31 + (b[k] & 0xff);
-            }
-            return hash;
-        }
-
-        /**
-         * Compares this PdfWriter to the obj.
-         * Two PdfWriters are equal if their hashcodes are equal and their serialized content are equal.
-         *
-         * @param obj obj to compare
-         * @return True if this and obj are equal, false otherwise
-         */
-        @Override
-        public boolean equals(Object obj) {
-            return obj instanceof SerializedPdfObject && hashCode() == obj.hashCode() && Arrays.equals(serializedContent, ((SerializedPdfObject) obj).serializedContent);
-        }
-
-        @Override
-        public int hashCode() {
-            return hash;
-        }
-    }
 }
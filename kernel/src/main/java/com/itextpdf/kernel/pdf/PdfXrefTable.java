@@ -52,8 +52,8 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.TreeSet;
 
 class PdfXrefTable implements Serializable {
 
@@ -68,7 +68,25 @@ class PdfXrefTable implements Serializable {
     private PdfIndirectReference[] xref;
     private int count = 0;
 
-    private final TreeSet<Integer> freeReferences;
+    /**
+     * Numbers of the free references, which can be reused for new objects.
+     */
+    private final BitSet freeReferences;
+
+    /**
+     * The smallest number of a free reference is not less than this value.
+     */
+    private int firstFreeReference;
+
+    /**
+     * Flushed references of the documents without reader are not kept as {@link PdfIndirectReference} instances.
+     * Their numbers are marked in this set and the data needed for the cross-reference table is stored
+     * in the following arrays. Instances are created on request in {@link #get(int)}.
+     */
+    private BitSet compactReferences;
+    private long[] compactOffsetsOrIndices;
+    private int[] compactObjectStreamNumbers;
+    private PdfDocument document;
 
     public PdfXrefTable() {
         this(INITIAL_CAPACITY);
@@ -79,7 +97,7 @@ class PdfXrefTable implements Serializable {
             capacity = INITIAL_CAPACITY;
         }
         xref = new PdfIndirectReference[capacity];
-        freeReferences = new TreeSet<>();
+        freeReferences = new BitSet();
         add(new PdfIndirectReference(null, 0, MAX_GENERATION, 0).setState(PdfObject.FREE));
     }
 
@@ -96,6 +114,9 @@ class PdfXrefTable implements Serializable {
         this.count = Math.max(this.count, objNr);
         ensureCount(objNr);
         xref[objNr] = reference;
+        if (compactReferences != null) {
+            compactReferences.clear(objNr);
+        }
         return reference;
     }
 
@@ -107,7 +128,39 @@ class PdfXrefTable implements Serializable {
         if (index > count) {
             return null;
         }
-        return xref[index];
+        PdfIndirectReference reference = xref[index];
+        if (reference == null && compactReferences != null && compactReferences.get(index)) {
+            reference = new PdfIndirectReference(document, index);
+            reference.objectStreamNumber = compactObjectStreamNumbers[index];
+            reference.offsetOrIndex = compactOffsetsOrIndices[index];
+            reference.setState(PdfObject.FLUSHED);
+        }
+        return reference;
+    }
+
+    /**
+     * Replaces the flushed reference of a document without reader with its compact representation, so that
+     * the {@link PdfIndirectReference} instance and the released object it refers to can be garbage collected.
+     *
+     * @param reference the flushed reference
+     */
+    void compact(PdfIndirectReference reference) {
+        int objNr = reference.getObjNumber();
+        if (reference.getDocument() == null || reference.getDocument().getReader() != null
+                || reference.getGenNumber() != 0 || !reference.checkState(PdfObject.FLUSHED) || reference.isFree()
+                || objNr > count || xref[objNr] != reference) {
+            return;
+        }
+        if (compactReferences == null) {
+            document = reference.getDocument();
+            compactReferences = new BitSet();
+            compactOffsetsOrIndices = new long[xref.length];
+            compactObjectStreamNumbers = new int[xref.length];
+        }
+        compactReferences.set(objNr);
+        compactOffsetsOrIndices[objNr] = reference.offsetOrIndex;
+        compactObjectStreamNumbers[objNr] = reference.objectStreamNumber;
+        xref[objNr] = null;
     }
 
     /**
@@ -117,8 +170,10 @@ class PdfXrefTable implements Serializable {
      */
     protected PdfIndirectReference createNextIndirectReference(PdfDocument document) {
         PdfIndirectReference reference;
-        if (freeReferences.size() > 0) {
-            int num = (int) freeReferences.pollFirst();
+        int num = freeReferences.nextSetBit(firstFreeReference);
+        if (num >= 0) {
+            freeReferences.clear(num);
+            firstFreeReference = num + 1;
             reference = xref[num];
             if (reference == null) {
                 reference = new PdfIndirectReference(document, num);
@@ -141,6 +196,10 @@ class PdfXrefTable implements Serializable {
     }
 
     protected void freeReference(PdfIndirectReference reference) {
+        if (compactReferences != null && compactReferences.get(reference.getObjNumber())) {
+            compactReferences.clear(reference.getObjNumber());
+            xref[reference.getObjNumber()] = reference;
+        }
         reference.setOffset(0);
         reference.setState(PdfObject.FREE);
         if (!reference.checkState(PdfObject.FLUSHED)) {
@@ -149,7 +208,8 @@ class PdfXrefTable implements Serializable {
                 reference.refersTo = null;
             }
             if (reference.getGenNumber() < MAX_GENERATION) {
-                freeReferences.add(reference.getObjNumber());
+                freeReferences.set(reference.getObjNumber());
+                firstFreeReference = Math.min(firstFreeReference, reference.getObjNumber());
                 ensureCount(Math.max(this.count, reference.getObjNumber()));
                 xref[reference.getObjNumber()] = null;
             }
@@ -172,19 +232,20 @@ class PdfXrefTable implements Serializable {
         PdfWriter writer = document.getWriter();
         if (document.isAppendMode()) {
             // Increment generation number for all freed references.
-            for (Integer objNr : freeReferences) {
-                xref[(int) objNr].genNr++;
+            for (int objNr = freeReferences.nextSetBit(0); objNr >= 0; objNr = freeReferences.nextSetBit(objNr + 1)) {
+                xref[objNr].genNr++;
             }
         } else {
-            for (Integer objNr : freeReferences) {
-                xref[(int) objNr] = null;
+            for (int objNr = freeReferences.nextSetBit(0); objNr >= 0; objNr = freeReferences.nextSetBit(objNr + 1)) {
+                xref[objNr] = null;
             }
         }
         freeReferences.clear();
+        firstFreeReference = 0;
 
 
         for (int i = count; i > 0; --i) {
-            PdfIndirectReference lastRef = xref[i];
+            PdfIndirectReference lastRef = get(i);
             if (lastRef == null
                     || (lastRef.isFree() && lastRef.getGenNumber() == 0)
                     || (!lastRef.checkState(PdfObject.FLUSHED)
@@ -203,7 +264,7 @@ class PdfXrefTable implements Serializable {
             len = 0;
         }
         for (int i = 1; i < size(); i++) {
-            PdfIndirectReference reference = xref[i];
+            PdfIndirectReference reference = get(i);
             if (reference != null) {
                 if ((document.properties.appendMode && !reference.checkState(PdfObject.MODIFIED)) ||
                         (reference.isFree() && reference.getGenNumber() == 0) ||
@@ -233,6 +294,7 @@ class PdfXrefTable implements Serializable {
         }
         if (document.properties.appendMode && sections.size() == 0) { // no modifications.
             xref = null;
+            compactReferences = null;
             return;
         }
 
@@ -332,6 +394,7 @@ class PdfXrefTable implements Serializable {
                 writeLong(startxref).
                 writeString("\n%%EOF\n");
         xref = null;
+        compactReferences = null;
     }
 
     void clear() {
@@ -341,6 +404,9 @@ class PdfXrefTable implements Serializable {
             }
             xref[i] = null;
         }
+        if (compactReferences != null) {
+            compactReferences.clear();
+        }
         count = 1;
     }
 
@@ -364,6 +430,14 @@ class PdfXrefTable implements Serializable {
         PdfIndirectReference[] newXref = new PdfIndirectReference[capacity];
         System.arraycopy(xref, 0, newXref, 0, xref.length);
         xref = newXref;
+        if (compactReferences != null) {
+            long[] newOffsetsOrIndices = new long[capacity];
+            System.arraycopy(compactOffsetsOrIndices, 0, newOffsetsOrIndices, 0, compactOffsetsOrIndices.length);
+            compactOffsetsOrIndices = newOffsetsOrIndices;
+            int[] newObjectStreamNumbers = new int[capacity];
+            System.arraycopy(compactObjectStreamNumbers, 0, newObjectStreamNumbers, 0, compactObjectStreamNumbers.length);
+            compactObjectStreamNumbers = newObjectStreamNumbers;
+        }
     }
 
     private static byte[] shortToBytes(int n) {
@@ -59,6 +59,13 @@ public class ReaderProperties implements Serializable {
     protected String certificateKeyProvider; //added by Aiken Sam for certificate decryption
     protected IExternalDecryptionProcess externalDecryptionProcess;
 
+    /**
+     * The default number of decoded object streams kept in memory by a {@link PdfReader}.
+     */
+    public static final int DEFAULT_OBJECT_STREAM_CACHE_SIZE = 16;
+
+    protected int objectStreamCacheSize = DEFAULT_OBJECT_STREAM_CACHE_SIZE;
+
     /**
      * Defines the password which will be used if the document is encrypted with standard encryption.
      * This could be either user or owner password.
@@ -94,6 +101,18 @@ public class ReaderProperties implements Serializable {
         return this;
     }
 
+    /**
+     * Defines how many decoded object streams are kept in memory by the reader.
+     * When an object which is stored in a compressed object stream is released and read again,
+     * it is parsed from the cached decoded bytes instead of decoding the whole object stream once more.
+     * Cached object streams are evicted in least-recently-used order.
+     * @param objectStreamCacheSize the maximum number of cached object streams, 0 disables caching.
+     */
+    public ReaderProperties setObjectStreamCacheSize(int objectStreamCacheSize) {
+        this.objectStreamCacheSize = objectStreamCacheSize;
+        return this;
+    }
+
     private void clearEncryptionParams() {
         this.password = null;
         this.certificate = null;
@@ -0,0 +1,293 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.kernel.PdfException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.itextpdf.io.source.ByteUtils.getIsoBytes;
+
+/**
+ * Finds already copied objects with the same content for the smart mode of {@link PdfWriter}.
+ * <p>
+ * Only fixed-size SHA-256 digests of the copied objects are kept. The digest of an indirect object is calculated once
+ * and then reused whenever the object is referenced by other copied objects, instead of serializing its content again.
+ * Both the digests of the objects and the index from a digest to the first copied object with such digest
+ * can be moved to temporary files, see {@link WriterProperties#setSmartModeIndexTempPath(String, int)}.
+ */
+class SmartModeIndex {
+
+    private static final int DIGEST_LENGTH = 32;
+    private static final int REFERENCE_LENGTH = 16;
+    private static final int MAX_LEVEL = 100;
+
+    private static final byte[] NULL = getIsoBytes("$Lnull");
+    private static final byte[] STREAM = getIsoBytes("$B");
+    private static final byte[] DICTIONARY = getIsoBytes("$D");
+    private static final byte[] ARRAY = getIsoBytes("$A");
+    private static final byte[] STRING = getIsoBytes("$S");
+    private static final byte[] NAME = getIsoBytes("$N");
+    private static final byte[] LITERAL = getIsoBytes("$L");
+    private static final byte[] INDIRECT = getIsoBytes("$I");
+    private static final byte[] RECURSION = getIsoBytes("$R");
+
+    /**
+     * Digests of the already processed indirect objects.
+     */
+    private final DigestTable objectDigests;
+
+    /**
+     * The first processed indirect object for each digest.
+     */
+    private final DigestTable digestToObject;
+
+    private final Set<PdfDocument.IndirectRefDescription> objectsInProgress = new HashSet<>();
+
+    private boolean lastDigestComplete;
+
+    SmartModeIndex(String tempPath, int maxInMemoryEntries) {
+        objectDigests = new DigestTable(REFERENCE_LENGTH, DIGEST_LENGTH, tempPath, maxInMemoryEntries);
+        digestToObject = new DigestTable(DIGEST_LENGTH, REFERENCE_LENGTH, tempPath, maxInMemoryEntries);
+    }
+
+    /**
+     * Calculates the digest of the object content and tries to find a previously processed object with the same digest.
+     * If there is no such object, the given one is stored in the index.
+     *
+     * @param object the dictionary or stream to check
+     * @return description of the object with the same content, which was processed before, or {@code null}
+     */
+    PdfDocument.IndirectRefDescription findObjectWithSameContent(PdfObject object) {
+        assert object.isDictionary() || object.isStream();
+        try {
+            byte[] reference = encodeReference(object.getIndirectReference());
+            byte[] digest = getDigest(object, object.getIndirectReference(), reference, MAX_LEVEL);
+            byte[] sameObject = digestToObject.get(digest);
+            if (sameObject != null) {
+                if (!Arrays.equals(sameObject, reference)) {
+                    return decodeReference(sameObject);
+                }
+            } else {
+                digestToObject.put(digest, reference);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new PdfException(PdfException.IoException, e);
+        }
+    }
+
+    void close() throws IOException {
+        try {
+            objectDigests.close();
+        } finally {
+            digestToObject.close();
+        }
+    }
+
+    /**
+     * Gets the digest of the indirect object content, calculating it if it is not known yet.
+     * {@link #lastDigestComplete} is set to {@code false} if the calculated digest can't be reused.
+     */
+    private byte[] getDigest(PdfObject obj, PdfIndirectReference reference, byte[] encodedReference, int level) throws IOException {
+        byte[] digest = objectDigests.get(encodedReference);
+        if (digest != null) {
+            lastDigestComplete = true;
+            return digest;
+        }
+        PdfDocument.IndirectRefDescription description = new PdfDocument.IndirectRefDescription(reference);
+        objectsInProgress.add(description);
+        MessageDigest md = createMessageDigest();
+        boolean complete = serObject(obj, level, md);
+        objectsInProgress.remove(description);
+        digest = md.digest();
+        // Digests cut by the recursion depth or by a cyclic reference depend on the place the object is met at
+        if (complete) {
+            objectDigests.put(encodedReference, digest);
+        }
+        lastDigestComplete = complete;
+        return digest;
+    }
+
+    /**
+     * Feeds the object content to the digest.
+     *
+     * @return {@code false} if the content was cut because of the recursion depth or a cyclic reference
+     */
+    private boolean serObject(PdfObject obj, int level, MessageDigest md) throws IOException {
+        if (level <= 0)
+            return false;
+        if (obj == null) {
+            md.update(NULL);
+            return true;
+        }
+        if (obj.isIndirectReference()) {
+            PdfIndirectReference reference = (PdfIndirectReference) obj;
+            if (objectsInProgress.contains(new PdfDocument.IndirectRefDescription(reference))) {
+                md.update(RECURSION);
+                return false;
+            }
+            byte[] digest = getDigest(reference.getRefersTo(), reference, encodeReference(reference), level);
+            md.update(INDIRECT);
+            md.update(digest);
+            return lastDigestComplete;
+        }
+
+        boolean complete = true;
+        if (obj.isStream()) {
+            md.update(STREAM);
+            complete = serDic((PdfDictionary) obj, level - 1, md);
+            serStreamBytes((PdfStream) obj, md);
+        } else if (obj.isDictionary()) {
+            complete = serDic((PdfDictionary) obj, level - 1, md);
+        } else if (obj.isArray()) {
+            complete = serArray((PdfArray) obj, level - 1, md);
+        } else if (obj.isString()) {
+            md.update(STRING);
+            md.update(getIsoBytes(obj.toString()));
+        } else if (obj.isName()) {
+            md.update(NAME);
+            md.update(getIsoBytes(obj.toString()));
+        } else {
+            // PdfNull case is also here
+            md.update(LITERAL);
+            md.update(getIsoBytes(obj.toString()));
+        }
+        return complete;
+    }
+
+    private boolean serDic(PdfDictionary dic, int level, MessageDigest md) throws IOException {
+        md.update(DICTIONARY);
+        if (level <= 0)
+            return false;
+        boolean complete = true;
+        PdfName[] keys = new PdfName[dic.keySet().size()];
+        keys = dic.keySet().toArray(keys);
+        Arrays.sort(keys);
+        for (PdfName key : keys) {
+            if (key.equals(PdfName.P) && (dic.get(key).isIndirectReference() || dic.get(key).isDictionary()) || key.equals(PdfName.Parent)) // ignore recursive call
+                continue;
+            complete &= serObject(key, level, md);
+            complete &= serObject(dic.get(key, false), level, md);
+        }
+        return complete;
+    }
+
+    private boolean serArray(PdfArray array, int level, MessageDigest md) throws IOException {
+        md.update(ARRAY);
+        if (level <= 0)
+            return false;
+        boolean complete = true;
+        for (int k = 0; k < array.size(); ++k) {
+            complete &= serObject(array.get(k, false), level, md);
+        }
+        return complete;
+    }
+
+    private static void serStreamBytes(PdfStream stream, MessageDigest md) throws IOException {
+        PdfReader reader = stream.getIndirectReference() != null ? stream.getIndirectReference().getReader() : null;
+        InputStream is = null;
+        if (stream.getOutputStream() == null && reader != null) {
+            is = reader.readStream(stream, false);
+        }
+        if (is != null) {
+            try {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = is.read(buffer)) > 0) {
+                    md.update(buffer, 0, n);
+                }
+            } finally {
+                is.close();
+            }
+        } else {
+            byte[] bytes = stream.getBytes(false);
+            if (bytes != null) {
+                md.update(bytes);
+            }
+        }
+    }
+
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new PdfException(e);
+        }
+    }
+
+    private static byte[] encodeReference(PdfIndirectReference reference) {
+        long docId = reference.getDocument().getDocumentId();
+        int objNr = reference.getObjNumber();
+        int genNr = reference.getGenNumber();
+        byte[] bytes = new byte[REFERENCE_LENGTH];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (docId >>> (56 - 8 * i));
+        }
+        for (int i = 0; i < 4; i++) {
+            bytes[8 + i] = (byte) (objNr >>> (24 - 8 * i));
+            bytes[12 + i] = (byte) (genNr >>> (24 - 8 * i));
+        }
+        return bytes;
+    }
+
+    private static PdfDocument.IndirectRefDescription decodeReference(byte[] bytes) {
+        long docId = 0;
+        for (int i = 0; i < 8; i++) {
+            docId = (docId << 8) | (bytes[i] & 0xff);
+        }
+        int objNr = 0;
+        int genNr = 0;
+        for (int i = 0; i < 4; i++) {
+            objNr = (objNr << 8) | (bytes[8 + i] & 0xff);
+            genNr = (genNr << 8) | (bytes[12 + i] & 0xff);
+        }
+        return new PdfDocument.IndirectRefDescription(docId, objNr, genNr);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import java.io.Serializable;
+
+/**
+ * An {@link IStreamCompressionStrategy}, which chooses the compression level by the type of the stream
+ * and collects the compression statistics for each type.
+ * <p/>
+ * The type of a stream is determined by the entries of its dictionary. For example, a fast level may be used
+ * for the content streams, while the font programs are compressed with the best level:
+ * <pre>
+ * new StreamCompressionStrategy()
+ *         .setCompressionLevel(StreamCompressionStrategy.StreamType.CONTENT, CompressionConstants.BEST_SPEED)
+ *         .setCompressionLevel(StreamCompressionStrategy.StreamType.FONT, CompressionConstants.BEST_COMPRESSION);
+ * </pre>
+ */
+public class StreamCompressionStrategy implements IStreamCompressionStrategy, Serializable {
+
+    private static final long serialVersionUID = -5471330296227604561L;
+
+    private static final PdfName Type1C = new PdfName("Type1C");
+    private static final PdfName CIDFontType0C = new PdfName("CIDFontType0C");
+    private static final PdfName OpenType = new PdfName("OpenType");
+
+    /**
+     * The types of streams, which may be compressed with different compression levels.
+     */
+    public enum StreamType {
+        /**
+         * Page content streams, form XObjects and tiling patterns, and other streams without type specific entries.
+         */
+        CONTENT,
+        /**
+         * Embedded font programs.
+         */
+        FONT,
+        /**
+         * Image XObjects.
+         */
+        IMAGE,
+        /**
+         * ICC profiles.
+         */
+        ICC_PROFILE,
+        /**
+         * Object streams and cross-reference streams.
+         */
+        OBJECT_STREAM,
+        /**
+         * All the other streams, e.g. functions and embedded files.
+         */
+        OTHER
+    }
+
+    private final int[] compressionLevels;
+    private final long[] compressedStreams;
+    private final long[] uncompressedBytes;
+    private final long[] compressedBytes;
+    private final long[] compressionTime;
+
+    /**
+     * Creates a strategy, which uses the compression level of the writer for all types of streams.
+     */
+    public StreamCompressionStrategy() {
+        int count = StreamType.values().length;
+        compressionLevels = new int[count];
+        for (int i = 0; i < count; i++) {
+            compressionLevels[i] = CompressionConstants.UNDEFINED_COMPRESSION;
+        }
+        compressedStreams = new long[count];
+        uncompressedBytes = new long[count];
+        compressedBytes = new long[count];
+        compressionTime = new long[count];
+    }
+
+    /**
+     * Sets the compression level for the streams of the given type.
+     *
+     * @param type             the type of streams
+     * @param compressionLevel the compression level, see {@link CompressionConstants}. {@link CompressionConstants#UNDEFINED_COMPRESSION}
+     *                         means the compression level of the writer
+     * @return this {@code StreamCompressionStrategy} instance
+     */
+    public StreamCompressionStrategy setCompressionLevel(StreamType type, int compressionLevel) {
+        compressionLevels[type.ordinal()] = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Gets the compression level for the streams of the given type.
+     *
+     * @param type the type of streams
+     * @return the compression level or {@link CompressionConstants#UNDEFINED_COMPRESSION} if the compression level
+     * of the writer is used
+     */
+    public int getCompressionLevel(StreamType type) {
+        return compressionLevels[type.ordinal()];
+    }
+
+    @Override
+    public int getCompressionLevel(PdfStream stream, int defaultCompressionLevel) {
+        int compressionLevel = compressionLevels[getStreamType(stream).ordinal()];
+        return compressionLevel != CompressionConstants.UNDEFINED_COMPRESSION ? compressionLevel : defaultCompressionLevel;
+    }
+
+    @Override
+    public void onStreamCompressed(PdfStream stream, int compressionLevel, long uncompressedBytes, long compressedBytes, long nanoTime) {
+        int index = getStreamType(stream).ordinal();
+        synchronized (this) {
+            this.compressedStreams[index]++;
+            this.uncompressedBytes[index] += uncompressedBytes;
+            this.compressedBytes[index] += compressedBytes;
+            this.compressionTime[index] += nanoTime;
+        }
+    }
+
+    /**
+     * Gets the number of compressed streams of the given type.
+     *
+     * @param type the type of streams
+     * @return the number of streams
+     */
+    public synchronized long getCompressedStreams(StreamType type) {
+        return compressedStreams[type.ordinal()];
+    }
+
+    /**
+     * Gets the total length of the compressed streams of the given type before compression.
+     *
+     * @param type the type of streams
+     * @return the number of bytes
+     */
+    public synchronized long getUncompressedBytes(StreamType type) {
+        return uncompressedBytes[type.ordinal()];
+    }
+
+    /**
+     * Gets the total length of the compressed streams of the given type after compression.
+     *
+     * @param type the type of streams
+     * @return the number of bytes
+     */
+    public synchronized long getCompressedBytes(StreamType type) {
+        return compressedBytes[type.ordinal()];
+    }
+
+    /**
+     * Gets the total time spent on compression of the streams of the given type.
+     *
+     * @param type the type of streams
+     * @return the time in nanoseconds
+     */
+    public synchronized long getCompressionTime(StreamType type) {
+        return compressionTime[type.ordinal()];
+    }
+
+    /**
+     * Determines the type of the stream by the entries of its dictionary.
+     *
+     * @param stream the stream
+     * @return the type of the stream
+     */
+    protected StreamType getStreamType(PdfStream stream) {
+        PdfName type = stream.getAsName(PdfName.Type);
+        PdfName subtype = stream.getAsName(PdfName.Subtype);
+        if (PdfName.ObjStm.equals(type) || PdfName.XRef.equals(type)) {
+            return StreamType.OBJECT_STREAM;
+        }
+        if (PdfName.Image.equals(subtype)) {
+            return StreamType.IMAGE;
+        }
+        if (PdfName.Form.equals(subtype) || PdfName.Pattern.equals(type) || stream.containsKey(PdfName.PatternType)) {
+            return StreamType.CONTENT;
+        }
+        if (stream.containsKey(PdfName.Length1) || Type1C.equals(subtype) || CIDFontType0C.equals(subtype) || OpenType.equals(subtype)) {
+            return StreamType.FONT;
+        }
+        if (type != null || subtype != null || stream.containsKey(PdfName.FunctionType)) {
+            return StreamType.OTHER;
+        }
+        if (stream.containsKey(PdfName.N)) {
+            return StreamType.ICC_PROFILE;
+        }
+        for (PdfName key : stream.keySet()) {
+            if (!PdfName.Length.equals(key) && !PdfName.Filter.equals(key) && !PdfName.DecodeParms.equals(key)) {
+                return StreamType.OTHER;
+            }
+        }
+        return StreamType.CONTENT;
+    }
+}
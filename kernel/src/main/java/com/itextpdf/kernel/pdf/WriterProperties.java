@@ -43,6 +43,9 @@
  */
 package com.itextpdf.kernel.pdf;
 
+import com.itextpdf.kernel.PdfException;
+
+import java.io.File;
 import java.io.Serializable;
 import java.security.cert.Certificate;
 
@@ -52,6 +55,11 @@ public class WriterProperties implements Serializable {
 
     protected int compressionLevel;
 
+    /**
+     * Chooses the compression level of each stream, or {@code null} if the {@link #compressionLevel} is used for all streams.
+     */
+    protected IStreamCompressionStrategy compressionStrategy;
+
     /**
      * Indicates if to use full compression (using object streams).
      */
@@ -62,7 +70,22 @@ public class WriterProperties implements Serializable {
      * and reused if there's an object with the same content later.
      */
     protected boolean smartMode;
+
+    /**
+     * Directory for the temporary files of the smart mode index, or {@code null} if the index is kept in memory.
+     */
+    protected String smartModeIndexTempPath;
+
+    /**
+     * Number of objects the smart mode index keeps in memory before moving to the temporary files.
+     */
+    protected int smartModeIndexMaxInMemoryEntries;
     protected boolean debugMode;
+
+    /**
+     * Number of threads compressing streams in parallel, or {@code 0} if streams are compressed when they are written.
+     */
+    protected int compressionThreadCount;
     protected boolean addXmpMetadata;
     protected PdfVersion pdfVersion;
     protected EncryptionProperties encryptionProperties;
@@ -111,6 +134,28 @@ public class WriterProperties implements Serializable {
         return this;
     }
 
+    /**
+     * Allows the smart mode index to be moved to temporary files.
+     * <p/>
+     * In smart mode only the fixed-size digests of the copied objects are stored. When the number of copied objects
+     * exceeds {@code maxInMemoryEntries}, the digests are moved to temporary files in the given directory,
+     * which keeps the memory usage bounded when a lot of documents are merged. The files are deleted
+     * when the writer is closed.
+     *
+     * @param tempPath           the existing directory in which the temporary files shall be created
+     * @param maxInMemoryEntries the number of objects which are kept in memory
+     * @return this {@code WriterProperties} instance
+     * @throws PdfException if {@code tempPath} is not a directory
+     */
+    public WriterProperties setSmartModeIndexTempPath(String tempPath, int maxInMemoryEntries) {
+        if (!new File(tempPath).isDirectory()) {
+            throw new PdfException(PdfException._1IsNotADirectory).setMessageParams(tempPath);
+        }
+        this.smartModeIndexTempPath = tempPath;
+        this.smartModeIndexMaxInMemoryEntries = maxInMemoryEntries;
+        return this;
+    }
+
     /**
      * If true, default XMPMetadata based on {@link PdfDocumentInfo} will be added.
      *
@@ -121,6 +166,22 @@ public class WriterProperties implements Serializable {
         return this;
     }
 
+    /**
+     * Enables compression of streams on a pool of worker threads.
+     * <p/>
+     * Streams, which content is kept in memory, are compressed in parallel as soon as they are flushed.
+     * Writing of such a stream and of all the objects flushed after it is deferred until the stream is compressed,
+     * so the objects are still written in the order they were flushed and the resultant document is exactly the same
+     * as without this option. Deferred objects are kept in memory until they are written.
+     *
+     * @param threadCount the number of threads compressing streams, {@code 0} to compress streams on the writing thread
+     * @return this {@code WriterProperties} instance
+     */
+    public WriterProperties useParallelCompression(int threadCount) {
+        this.compressionThreadCount = threadCount;
+        return this;
+    }
+
     /**
      * Defines the level of compression for the document.
      * See {@link CompressionConstants}
@@ -133,6 +194,21 @@ public class WriterProperties implements Serializable {
         return this;
     }
 
+    /**
+     * Sets the strategy, which chooses the compression level of each stream, e.g. depending on the type of the stream,
+     * and which is notified about the compressed streams. The strategy is used for the streams which compression level
+     * was not set with {@link PdfStream#setCompressionLevel(int)}.
+     * See {@link StreamCompressionStrategy}.
+     *
+     * @param compressionStrategy the compression strategy or {@code null} to use the compression level of the document
+     *                            for all streams
+     * @return this {@code WriterProperties} instance
+     */
+    public WriterProperties setCompressionStrategy(IStreamCompressionStrategy compressionStrategy) {
+        this.compressionStrategy = compressionStrategy;
+        return this;
+    }
+
     /**
      * Defines if full compression mode is enabled. If enabled, not only the content of the pdf document will be
      * compressed, but also the pdf document inner structure.
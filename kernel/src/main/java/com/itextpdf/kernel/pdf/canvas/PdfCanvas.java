@@ -69,6 +69,7 @@ import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfResources;
 import com.itextpdf.kernel.pdf.PdfStream;
 import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.PdfVersion;
 import com.itextpdf.kernel.pdf.canvas.wmf.WmfImageHelper;
 import com.itextpdf.kernel.pdf.colorspace.PdfColorSpace;
 import com.itextpdf.kernel.pdf.colorspace.PdfDeviceCs;
@@ -2194,6 +2195,7 @@ public class PdfCanvas implements Serializable {
      */
     protected void addInlineImage(PdfImageXObject imageXObject, float a, float b, float c, float d, float e, float f) {
         document.checkIsoConformance(imageXObject.getPdfObject(), IsoKey.INLINE_IMAGE, resources);
+        checkImageBitsPerComponent(imageXObject.getPdfObject());
         saveState();
         concatMatrix(a, b, c, d, e, f);
         PdfOutputStream os = contentStream.getOutputStream();
@@ -2304,6 +2306,7 @@ public class PdfCanvas implements Serializable {
      * @return canvas a reference to this object.
      */
     private PdfCanvas addImage(PdfImageXObject image, float a, float b, float c, float d, float e, float f) {
+        checkImageBitsPerComponent(image.getPdfObject());
         saveState();
         concatMatrix(a, b, c, d, e, f);
         PdfName name = resources.addImage(image);
@@ -2321,6 +2324,27 @@ public class PdfCanvas implements Serializable {
         return this;
     }
 
+    /**
+     * Checks that an image, or its soft mask, has 16 bits per component only if the document is PDF 1.5 or later.
+     * Such images can be created with {@link com.itextpdf.io.image.ImageDataFactory#createPng(java.net.URL, boolean)}.
+     *
+     * @param image the image stream
+     */
+    private void checkImageBitsPerComponent(PdfStream image) {
+        if (document.getPdfVersion().compareTo(PdfVersion.PDF_1_5) >= 0 || image.isFlushed()) {
+            return;
+        }
+        PdfStream softMask = image.getAsStream(PdfName.SMask);
+        if (hasSixteenBitsPerComponent(image) || softMask != null && !softMask.isFlushed() && hasSixteenBitsPerComponent(softMask)) {
+            throw new PdfException(PdfException.ImagesWith16BitsPerComponentRequirePdf15);
+        }
+    }
+
+    private static boolean hasSixteenBitsPerComponent(PdfStream image) {
+        PdfNumber bpc = image.getAsNumber(PdfName.BitsPerComponent);
+        return bpc != null && bpc.intValue() == 16;
+    }
+
     /**
      * Adds {@code PdfImageXObject} to the specified position.
      *
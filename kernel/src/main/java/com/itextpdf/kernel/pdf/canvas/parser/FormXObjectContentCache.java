@@ -0,0 +1,214 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser;
+
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the parsed content of Form XObjects, so that a form which is painted on many pages of a document
+ * (a letterhead, a watermark, a logo) is decoded and parsed only once.
+ * <br>
+ * The content is cached per indirect reference of the form stream, so an instance shall only be shared between
+ * the {@link PdfCanvasProcessor}s processing the pages of the same document, and the document shall not be modified
+ * while the cache is in use. The size of the cache is bounded by the total number of cached operations;
+ * the least recently used forms are evicted first.
+ * <br>
+ * This class is thread-safe.
+ *
+ * @see PdfCanvasProcessor#setFormXObjectCache(FormXObjectContentCache)
+ */
+public class FormXObjectContentCache {
+
+    /**
+     * The default maximum number of cached operations.
+     */
+    public static final int DEFAULT_CAPACITY = 200000;
+
+    private final int capacity;
+    private final LinkedHashMap<PdfIndirectReference, ParsedContent> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedOperations;
+
+    /**
+     * Creates a cache which keeps up to {@link #DEFAULT_CAPACITY} operations.
+     */
+    public FormXObjectContentCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache which keeps up to the specified number of operations.
+     *
+     * @param capacity the maximum number of cached operations
+     */
+    public FormXObjectContentCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the maximum number of cached operations.
+     *
+     * @return the capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of forms currently in the cache.
+     *
+     * @return the number of cached forms
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the total number of operations of the forms currently in the cache.
+     *
+     * @return the number of cached operations
+     */
+    public synchronized int getCachedOperations() {
+        return cachedOperations;
+    }
+
+    /**
+     * Removes all forms from the cache.
+     */
+    public synchronized void clear() {
+        cache.clear();
+        cachedOperations = 0;
+    }
+
+    synchronized ParsedContent get(PdfIndirectReference reference) {
+        ParsedContent content = cache.get(reference);
+        // references of different documents may be equal, so check that it is the very same reference
+        return content != null && content.reference == reference ? content : null;
+    }
+
+    synchronized void put(ParsedContent content) {
+        if (content.size() > capacity) {
+            return;
+        }
+        ParsedContent previous = cache.put(content.reference, content);
+        if (previous != null) {
+            cachedOperations -= previous.size();
+        }
+        cachedOperations += content.size();
+        Iterator<Map.Entry<PdfIndirectReference, ParsedContent>> iterator = cache.entrySet().iterator();
+        while (cachedOperations > capacity && iterator.hasNext()) {
+            cachedOperations -= iterator.next().getValue().size();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * The operations of a content stream in the order they appear.
+     * Once built, the content is not modified, so it may be replayed by several processors at once.
+     */
+    static class ParsedContent {
+        private final PdfIndirectReference reference;
+        private final List<String> operatorNames = new ArrayList<>();
+        private final List<PdfLiteral> operators = new ArrayList<>();
+        private final List<PdfObject[]> operands = new ArrayList<>();
+        private final List<double[]> numericOperands = new ArrayList<>();
+
+        ParsedContent(PdfIndirectReference reference) {
+            this.reference = reference;
+        }
+
+        /**
+         * Adds an operation.
+         *
+         * @param operator        the operator
+         * @param operands        the operands without the operator
+         * @param numericOperands the values of the operands if they are all numbers, <CODE>null</CODE> otherwise
+         */
+        void addOperation(PdfLiteral operator, PdfObject[] operands, double[] numericOperands) {
+            this.operatorNames.add(operator.toString());
+            this.operators.add(operator);
+            this.operands.add(operands);
+            this.numericOperands.add(numericOperands);
+        }
+
+        int size() {
+            return operators.size();
+        }
+
+        String getOperatorName(int index) {
+            return operatorNames.get(index);
+        }
+
+        PdfLiteral getOperator(int index) {
+            return operators.get(index);
+        }
+
+        double[] getNumericOperands(int index) {
+            return numericOperands.get(index);
+        }
+
+        /**
+         * Fills the list with the operands of the operation followed by its operator,
+         * as expected by {@link IContentOperator}.
+         *
+         * @param index the index of the operation
+         * @param list  the list to fill, it is cleared first
+         * @return the filled list
+         */
+        List<PdfObject> getOperands(int index, List<PdfObject> list) {
+            list.clear();
+            for (PdfObject operand : operands.get(index)) {
+                list.add(operand);
+            }
+            list.add(operators.get(index));
+            return list;
+        }
+    }
+}
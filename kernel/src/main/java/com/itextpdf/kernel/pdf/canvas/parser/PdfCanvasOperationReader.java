@@ -0,0 +1,354 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser;
+
+import com.itextpdf.io.source.ByteUtils;
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RandomAccessFileOrArray;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.canvas.parser.util.InlineImageParsingUtils;
+import com.itextpdf.kernel.pdf.canvas.parser.util.PdfCanvasParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the operations of a content stream for the allocation-light parsing mode of {@link PdfCanvasProcessor}.
+ * <br>
+ * Numeric operands are parsed into a primitive buffer instead of {@link PdfNumber} objects, and operators are interned
+ * to the integer opcodes of the processor, so that no {@link PdfLiteral} or {@link String} is created for them.
+ * Operands of other types are read with {@link PdfCanvasParser}. {@link PdfNumber} objects are only created
+ * when an operation is passed on to an {@link IContentOperator} as a list of operands.
+ */
+class PdfCanvasOperationReader {
+
+    private static final byte[] BI = ByteUtils.getIsoBytes("BI");
+    private static final byte[] EI = ByteUtils.getIsoBytes("EI");
+
+    private static final int INITIAL_OPERANDS_CAPACITY = 8;
+
+    /**
+     * The largest mantissa for which the digits of a number can be accumulated in a double without rounding.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten which are exactly representable as a double.
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final OperandTokenizer tokeniser;
+    private final PdfCanvasParser parser;
+    private final PdfResources resources;
+    private final PdfCanvasProcessor processor;
+
+    private int operandCount;
+    private double[] numbers = new double[INITIAL_OPERANDS_CAPACITY];
+    /**
+     * Operands which are not numbers, a {@code null} entry stands for a number.
+     */
+    private PdfObject[] objects = new PdfObject[INITIAL_OPERANDS_CAPACITY];
+    /**
+     * The raw content of the numeric operands is kept in case {@link PdfNumber} objects have to be created for them.
+     * The content of the operand with the index i ends at contentEnds[i] and starts where the previous one ends.
+     */
+    private int[] contentEnds = new int[INITIAL_OPERANDS_CAPACITY];
+    private byte[] numbersContent = new byte[16 * INITIAL_OPERANDS_CAPACITY];
+    private int numbersContentLength;
+
+    private int opcode;
+    private PdfLiteral operator;
+    private final List<PdfObject> operands = new ArrayList<>(INITIAL_OPERANDS_CAPACITY);
+
+    /**
+     * Creates a reader of the specified content.
+     *
+     * @param source    the content stream data
+     * @param resources the resources of the content stream
+     * @param processor the processor that interns the operators
+     */
+    PdfCanvasOperationReader(IRandomAccessSource source, PdfResources resources, PdfCanvasProcessor processor) {
+        this.tokeniser = new OperandTokenizer(new RandomAccessFileOrArray(source));
+        this.parser = new PdfCanvasParser(tokeniser, resources);
+        this.resources = resources;
+        this.processor = processor;
+    }
+
+    /**
+     * Reads the next operation. Operands that are not followed by an operator at the end of the content are dropped.
+     * <br>
+     * As in {@link PdfCanvasParser#parse(List)}, an inline image is read as a single EI operation, which has
+     * the image as its only operand.
+     *
+     * @return <CODE>true</CODE> if an operation was read, <CODE>false</CODE> if the end of content was reached
+     * @throws IOException on error
+     */
+    boolean readOperation() throws IOException {
+        Arrays.fill(objects, 0, operandCount, null);
+        operandCount = 0;
+        numbersContentLength = 0;
+        while (parser.nextValidToken()) {
+            switch (tokeniser.getTokenType()) {
+                case Number:
+                    addNumber(tokeniser.getContentBuffer(), tokeniser.getContentLength());
+                    break;
+                case Other:
+                    if (tokeniser.tokenValueEqualsTo(BI)) {
+                        PdfStream inlineImage = InlineImageParsingUtils.parse(parser, resources.getResource(PdfName.ColorSpace));
+                        operandCount = 0;
+                        addObject(inlineImage);
+                        setOperator(EI, EI.length);
+                    } else {
+                        setOperator(tokeniser.getContentBuffer(), tokeniser.getContentLength());
+                    }
+                    return true;
+                case StartDic:
+                    addObject(parser.readDictionary());
+                    break;
+                case StartArray:
+                    addObject(parser.readArray());
+                    break;
+                case String:
+                    addObject(new PdfString(tokeniser.getDecodedStringContent()).setHexWriting(tokeniser.isHexString()));
+                    break;
+                case Name:
+                    addObject(new PdfName(tokeniser.getByteContent()));
+                    break;
+                default:
+                    addObject(new PdfLiteral(tokeniser.getByteContent()));
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the opcode of the operator of the last read operation.
+     *
+     * @return the opcode, or -1 if the operator was not interned
+     */
+    int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * Gets the operator of the last read operation.
+     *
+     * @return the operator
+     */
+    PdfLiteral getOperator() {
+        return operator;
+    }
+
+    /**
+     * Gets the number of operands of the last read operation.
+     *
+     * @return the number of operands
+     */
+    int getOperandCount() {
+        return operandCount;
+    }
+
+    /**
+     * Checks whether the last read operation has at least the specified number of operands
+     * and whether the first of them are all numbers.
+     *
+     * @param count the number of numeric operands
+     * @return <CODE>true</CODE> if the operands can be taken from {@link #getNumericOperands()}
+     */
+    boolean hasNumericOperands(int count) {
+        if (operandCount < count) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (objects[i] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the values of the numeric operands of the last read operation. The buffer is reused by the next operation
+     * and it may be longer than the number of operands.
+     *
+     * @return the buffer with the values of the operands
+     */
+    double[] getNumericOperands() {
+        return numbers;
+    }
+
+    /**
+     * Gets the operands of the last read operation in the form expected by {@link IContentOperator}, i.e. followed
+     * by the operator. The list is reused by the next operation.
+     *
+     * @return the list with the operands and the operator
+     */
+    List<PdfObject> getOperands() {
+        operands.clear();
+        for (int i = 0; i < operandCount; i++) {
+            if (objects[i] != null) {
+                operands.add(objects[i]);
+            } else {
+                int contentStart = i == 0 ? 0 : contentEnds[i - 1];
+                operands.add(new PdfNumber(Arrays.copyOfRange(numbersContent, contentStart, contentEnds[i])));
+            }
+        }
+        operands.add(operator);
+        return operands;
+    }
+
+    /**
+     * Parses a number with the same result as {@link Double#parseDouble(String)} would give. Numbers with
+     * up to 15 significant digits are parsed without creating any objects.
+     *
+     * @param content the buffer with the number
+     * @param length  the length of the number
+     * @return the value of the number, or {@link Double#NaN} if the number is malformed
+     */
+    static double parseNumber(byte[] content, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (content[0] == '-' || content[0] == '+')) {
+            negative = content[0] == '-';
+            ++i;
+        }
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean hasDigits = false;
+        boolean hasPoint = false;
+        for (; i < length; ++i) {
+            int ch = content[i];
+            if (ch >= '0' && ch <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                    return parseNumberSlow(content, length);
+                }
+                mantissa = mantissa * 10 + ch - '0';
+                hasDigits = true;
+                if (hasPoint) {
+                    ++fractionDigits;
+                }
+            } else if (ch == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                return parseNumberSlow(content, length);
+            }
+        }
+        if (!hasDigits || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseNumberSlow(content, length);
+        }
+        // both the mantissa and the power of ten are exact, so the division is rounded correctly
+        double value = fractionDigits == 0 ? (double) mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double parseNumberSlow(byte[] content, int length) {
+        try {
+            return Double.parseDouble(new String(content, 0, length));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private void addNumber(byte[] content, int length) {
+        ensureOperandsCapacity();
+        numbers[operandCount] = parseNumber(content, length);
+        objects[operandCount] = null;
+        if (numbersContentLength + length > numbersContent.length) {
+            numbersContent = Arrays.copyOf(numbersContent, Math.max(numbersContent.length * 2, numbersContentLength + length));
+        }
+        System.arraycopy(content, 0, numbersContent, numbersContentLength, length);
+        numbersContentLength += length;
+        contentEnds[operandCount++] = numbersContentLength;
+    }
+
+    private void addObject(PdfObject object) {
+        ensureOperandsCapacity();
+        objects[operandCount] = object;
+        contentEnds[operandCount++] = numbersContentLength;
+    }
+
+    private void ensureOperandsCapacity() {
+        if (operandCount == objects.length) {
+            int capacity = objects.length * 2;
+            numbers = Arrays.copyOf(numbers, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+            contentEnds = Arrays.copyOf(contentEnds, capacity);
+        }
+    }
+
+    private void setOperator(byte[] content, int length) {
+        opcode = processor.internOperator(content, length);
+        operator = opcode >= 0 ? processor.getInternedOperator(opcode) : new PdfLiteral(Arrays.copyOf(content, length));
+    }
+
+    /**
+     * Gives access to the content of the current token without copying it.
+     */
+    private static class OperandTokenizer extends PdfTokenizer {
+
+        private static final long serialVersionUID = 3860767533368411328L;
+
+        OperandTokenizer(RandomAccessFileOrArray file) {
+            super(file);
+        }
+
+        byte[] getContentBuffer() {
+            return outBuf.getInternalBuffer();
+        }
+
+        int getContentLength() {
+            return outBuf.size();
+        }
+    }
+}
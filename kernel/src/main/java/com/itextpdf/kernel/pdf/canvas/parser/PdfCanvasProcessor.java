@@ -43,9 +43,11 @@
  */
 package com.itextpdf.kernel.pdf.canvas.parser;
 
+import com.itextpdf.io.source.IRandomAccessSource;
 import com.itextpdf.io.source.PdfTokenizer;
 import com.itextpdf.io.source.RandomAccessFileOrArray;
 import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.io.util.IntHashtable;
 import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.color.CalGray;
 import com.itextpdf.kernel.color.CalRgb;
@@ -93,6 +95,7 @@ import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -106,6 +109,13 @@ public class PdfCanvasProcessor {
 
     public static final String DEFAULT_OPERATOR = "DefaultOperator";
 
+    /**
+     * The operators up to this length are interned by packing their bytes into an int.
+     */
+    private static final int MAX_INTERNED_OPERATOR_LENGTH = 4;
+
+    private static final byte[] CONTENT_STREAMS_SEPARATOR = {(byte) '\n'};
+
     /**
      * Listener that will be notified of render events
      */
@@ -135,6 +145,25 @@ public class PdfCanvasProcessor {
      */
     private Map<String, IContentOperator> operators;
 
+    /**
+     * Indicates whether the content is parsed in the allocation-light mode.
+     */
+    private boolean allocationLightParsing;
+
+    /**
+     * Opcodes of the operators interned by the allocation-light parsing mode. The keys are the operator bytes packed
+     * into an int, the values are the opcodes incremented by one. An opcode is the index of the operator
+     * in {@link #internedOperators} and of its handler in {@link #internedOperatorHandlers}.
+     */
+    private final IntHashtable operatorOpcodes = new IntHashtable();
+    private final List<PdfLiteral> internedOperators = new ArrayList<>();
+    private final List<IContentOperator> internedOperatorHandlers = new ArrayList<>();
+
+    /**
+     * The cache of the parsed Form XObjects content, {@code null} if the forms are parsed on every use.
+     */
+    private FormXObjectContentCache formXObjectCache;
+
     /**
      * Resources for the content stream.
      * Current resources are always at the top of the stack.
@@ -161,11 +190,21 @@ public class PdfCanvasProcessor {
      */
     private Map<Integer, WeakReference<PdfFont>> cachedFonts = new HashMap<>();
 
+    /**
+     * The fonts shared with the processors of other pages, {@code null} if the fonts are not shared.
+     */
+    private Map<Integer, PdfFont> sharedFonts;
+
     /**
      * A stack containing marked content info.
      */
     private Stack<CanvasTag> markedContentStack = new Stack<>();
 
+    /**
+     * An unmodifiable copy of {@link #markedContentStack}, shared by the text render events until the stack changes.
+     */
+    private List<CanvasTag> canvasTagHierarchy;
+
     /**
      * Creates a new PDF Content Stream Processor that will send its output to the
      * designated render listener.
@@ -223,6 +262,9 @@ public class PdfCanvasProcessor {
      * @return the existing registered operator, if any
      */
     public IContentOperator registerContentOperator(String operatorString, IContentOperator operator) {
+        operatorOpcodes.clear();
+        internedOperators.clear();
+        internedOperatorHandlers.clear();
         return operators.put(operatorString, operator);
     }
 
@@ -235,6 +277,66 @@ public class PdfCanvasProcessor {
         return new ArrayList<String>(operators.keySet());
     }
 
+    /**
+     * Enables or disables the allocation-light parsing mode. It is disabled by default.
+     * <br>
+     * In this mode the page content streams are read one after another instead of being concatenated, numeric
+     * operands are kept in a primitive buffer and operators are interned to integer opcodes. The built-in handlers of
+     * the operators with numeric operands take the operands straight from the buffer; other {@link IContentOperator}
+     * implementations get the usual list of {@link PdfObject} operands. Unregistered operators are skipped without
+     * their operands being materialized.
+     * <br>
+     * <strong>Note:</strong> {@link #invokeOperator(PdfLiteral, List)} is not called in this mode, so subclasses
+     * that override it should not enable it.
+     *
+     * @param allocationLightParsing <CODE>true</CODE> to enable the allocation-light parsing mode
+     */
+    public void setAllocationLightParsing(boolean allocationLightParsing) {
+        this.allocationLightParsing = allocationLightParsing;
+    }
+
+    /**
+     * Checks whether the allocation-light parsing mode is enabled.
+     *
+     * @return <CODE>true</CODE> if the allocation-light parsing mode is enabled
+     * @see #setAllocationLightParsing(boolean)
+     */
+    public boolean isAllocationLightParsing() {
+        return allocationLightParsing;
+    }
+
+    /**
+     * Sets the cache of the parsed Form XObjects content. With a cache, a form painted on several pages
+     * is only decoded and parsed once. The cache may be shared between the processors of the pages of one document.
+     * The content of the forms without their own resources is not cached.
+     *
+     * @param formXObjectCache the cache, or {@code null} to parse the forms on every use
+     */
+    public void setFormXObjectCache(FormXObjectContentCache formXObjectCache) {
+        this.formXObjectCache = formXObjectCache;
+    }
+
+    /**
+     * Gets the cache of the parsed Form XObjects content.
+     *
+     * @return the cache, or {@code null} if the forms are parsed on every use
+     * @see #setFormXObjectCache(FormXObjectContentCache)
+     */
+    public FormXObjectContentCache getFormXObjectCache() {
+        return formXObjectCache;
+    }
+
+    /**
+     * Makes the processor take the fonts from the specified map and put the fonts it creates there, so that the fonts
+     * of a document are parsed once for several pages. The map is keyed by the object number of the font dictionary.
+     * {@link PdfFont} instances are not thread-safe, so the map shall not be used by processors working concurrently.
+     *
+     * @param sharedFonts the fonts shared with other processors, or {@code null} to keep the fonts in this processor
+     */
+    void setSharedFonts(Map<Integer, PdfFont> sharedFonts) {
+        this.sharedFonts = sharedFonts;
+    }
+
     /**
      * Resets the graphics state stack, matrices and resources.
      */
@@ -268,6 +370,10 @@ public class PdfCanvasProcessor {
         if (resources == null) {
             throw new PdfException(PdfException.ResourcesCannotBeNull);
         }
+        if (allocationLightParsing) {
+            processContent(new RandomAccessSourceFactory().createSource(contentBytes), resources);
+            return;
+        }
         this.resourcesStack.push(resources);
         PdfTokenizer tokeniser = new PdfTokenizer(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(contentBytes)));
         PdfCanvasParser ps = new PdfCanvasParser(tokeniser, resources);
@@ -296,7 +402,15 @@ public class PdfCanvasProcessor {
         initClippingPath(page);
         ParserGraphicsState gs = getGraphicsState();
         eventOccurred(new ClippingPathInfo(gs.getClippingPath(), gs.getCtm()), EventType.CLIP_PATH_CHANGED);
-        processContent(page.getContentBytes(), page.getResources());
+        if (allocationLightParsing) {
+            PdfResources resources = page.getResources();
+            if (resources == null) {
+                throw new PdfException(PdfException.ResourcesCannotBeNull);
+            }
+            processContent(getContentSource(page), resources);
+        } else {
+            processContent(page.getContentBytes(), page.getResources());
+        }
     }
 
     /**
@@ -443,9 +557,7 @@ public class PdfCanvasProcessor {
      * @param operands a list with operands
      */
     protected void invokeOperator(PdfLiteral operator, List<PdfObject> operands) {
-        IContentOperator op = operators.get(operator.toString());
-        if (op == null)
-            op = operators.get(DEFAULT_OPERATOR);
+        IContentOperator op = getContentOperator(operator.toString());
         op.invoke(this, operator, operands);
     }
 
@@ -476,6 +588,14 @@ public class PdfCanvasProcessor {
      */
     protected PdfFont getFont(PdfDictionary fontDict) {
         int n = fontDict.getIndirectReference().getObjNumber();
+        if (sharedFonts != null) {
+            PdfFont font = sharedFonts.get(n);
+            if (font == null) {
+                font = PdfFontFactory.createFont(fontDict);
+                sharedFonts.put(n, font);
+            }
+            return font;
+        }
         WeakReference<PdfFont> fontRef = cachedFonts.get(n);
         PdfFont font = (PdfFont) (fontRef == null ? null : fontRef.get());
         if (font == null) {
@@ -493,6 +613,7 @@ public class PdfCanvasProcessor {
      */
     protected void beginMarkedContent(PdfName tag, PdfDictionary dict) {
         markedContentStack.push(new CanvasTag(tag).setProperties(dict));
+        canvasTagHierarchy = null;
     }
 
     /**
@@ -500,6 +621,7 @@ public class PdfCanvasProcessor {
      */
     protected void endMarkedContent() {
         markedContentStack.pop();
+        canvasTagHierarchy = null;
     }
 
     /**
@@ -539,7 +661,12 @@ public class PdfCanvasProcessor {
      * @param string the text to display
      */
     private void displayPdfString(PdfString string) {
-        TextRenderInfo renderInfo = new TextRenderInfo(string, getGraphicsState(), textMatrix, markedContentStack);
+        if (canvasTagHierarchy == null) {
+            canvasTagHierarchy = markedContentStack.isEmpty()
+                    ? Collections.<CanvasTag>emptyList()
+                    : Collections.<CanvasTag>unmodifiableList(new ArrayList<>(markedContentStack));
+        }
+        TextRenderInfo renderInfo = new TextRenderInfo(string, getGraphicsState(), textMatrix, canvasTagHierarchy);
         textMatrix = new Matrix(renderInfo.getUnscaledWidth(), 0).multiply(textMatrix);
         eventOccurred(renderInfo, EventType.RENDER_TEXT);
     }
@@ -578,12 +705,213 @@ public class PdfCanvasProcessor {
         textMatrix = new Matrix(adjustBy, 0).multiply(textMatrix);
     }
 
+    /**
+     * Interns an operator for the allocation-light parsing mode.
+     *
+     * @param content the buffer with the operator bytes
+     * @param length  the length of the operator
+     * @return the opcode of the operator, or -1 if the operator is too long to be interned
+     */
+    int internOperator(byte[] content, int length) {
+        if (length > MAX_INTERNED_OPERATOR_LENGTH) {
+            return -1;
+        }
+        int key = 0;
+        for (int i = 0; i < length; i++) {
+            key = (key << 8) | (content[i] & 0xff);
+        }
+        int opcode = operatorOpcodes.get(key) - 1;
+        if (opcode < 0) {
+            PdfLiteral operator = new PdfLiteral(Arrays.copyOf(content, length));
+            opcode = internedOperators.size();
+            internedOperators.add(operator);
+            internedOperatorHandlers.add(getContentOperator(operator.toString()));
+            operatorOpcodes.put(key, opcode + 1);
+        }
+        return opcode;
+    }
+
+    /**
+     * Gets the operator interned by {@link #internOperator(byte[], int)}.
+     *
+     * @param opcode the opcode of the operator
+     * @return the operator
+     */
+    PdfLiteral getInternedOperator(int opcode) {
+        return internedOperators.get(opcode);
+    }
+
+    private IContentOperator getContentOperator(String operatorString) {
+        IContentOperator op = operators.get(operatorString);
+        if (op == null)
+            op = operators.get(DEFAULT_OPERATOR);
+        return op;
+    }
+
+    /**
+     * Processes the content in the allocation-light parsing mode.
+     *
+     * @param contentSource the content stream data
+     * @param resources     the resources of the content stream
+     */
+    private void processContent(IRandomAccessSource contentSource, PdfResources resources) {
+        this.resourcesStack.push(resources);
+        PdfCanvasOperationReader reader = new PdfCanvasOperationReader(contentSource, resources, this);
+        try {
+            while (reader.readOperation()) {
+                int opcode = reader.getOpcode();
+                IContentOperator op = opcode >= 0 ? internedOperatorHandlers.get(opcode) : getContentOperator(reader.getOperator().toString());
+                if (op instanceof IgnoreOperator) {
+                    continue;
+                }
+                if (op instanceof NumericOperandsOperator && reader.hasNumericOperands(((NumericOperandsOperator) op).numberOfOperands)) {
+                    ((NumericOperandsOperator) op).invoke(this, reader.getOperator(), reader.getNumericOperands());
+                } else {
+                    op.invoke(this, reader.getOperator(), reader.getOperands());
+                }
+            }
+        } catch (IOException e) {
+            throw new PdfException(PdfException.CannotParseContentStream, e);
+        }
+
+        this.resourcesStack.pop();
+    }
+
+    /**
+     * Gets the parsed content of a Form XObject from the cache, parsing the form if it is not cached yet.
+     *
+     * @param formStream the Form XObject stream
+     * @param resources  the resources of the form
+     * @return the parsed content
+     */
+    private FormXObjectContentCache.ParsedContent getParsedContent(PdfStream formStream, PdfResources resources) {
+        PdfIndirectReference reference = formStream.getIndirectReference();
+        FormXObjectContentCache.ParsedContent content = formXObjectCache.get(reference);
+        if (content == null) {
+            content = new FormXObjectContentCache.ParsedContent(reference);
+            IRandomAccessSource contentSource = new RandomAccessSourceFactory().createSource(formStream.getBytes());
+            PdfCanvasOperationReader reader = new PdfCanvasOperationReader(contentSource, resources, this);
+            try {
+                while (reader.readOperation()) {
+                    int operandCount = reader.getOperandCount();
+                    double[] numericOperands = reader.hasNumericOperands(operandCount)
+                            ? Arrays.copyOf(reader.getNumericOperands(), operandCount) : null;
+                    List<PdfObject> operands = reader.getOperands();
+                    for (int i = 0; i < operandCount; i++) {
+                        // parse the numbers now, as the content may be shared between threads later
+                        if (operands.get(i) instanceof PdfNumber) {
+                            ((PdfNumber) operands.get(i)).getValue();
+                        }
+                    }
+                    content.addOperation(reader.getOperator(), operands.subList(0, operandCount).toArray(new PdfObject[operandCount]), numericOperands);
+                }
+            } catch (IOException e) {
+                throw new PdfException(PdfException.CannotParseContentStream, e);
+            }
+            formXObjectCache.put(content);
+        }
+        return content;
+    }
+
+    /**
+     * Processes the content parsed in advance.
+     *
+     * @param content   the parsed content
+     * @param resources the resources of the content
+     */
+    private void processContent(FormXObjectContentCache.ParsedContent content, PdfResources resources) {
+        this.resourcesStack.push(resources);
+        List<PdfObject> operands = new ArrayList<>();
+        for (int i = 0; i < content.size(); i++) {
+            if (!allocationLightParsing) {
+                invokeOperator(content.getOperator(i), content.getOperands(i, operands));
+                continue;
+            }
+            IContentOperator op = getContentOperator(content.getOperatorName(i));
+            if (op instanceof IgnoreOperator) {
+                continue;
+            }
+            double[] numericOperands = content.getNumericOperands(i);
+            if (op instanceof NumericOperandsOperator && numericOperands != null
+                    && numericOperands.length >= ((NumericOperandsOperator) op).numberOfOperands) {
+                ((NumericOperandsOperator) op).invoke(this, content.getOperator(i), numericOperands);
+            } else {
+                op.invoke(this, content.getOperator(i), content.getOperands(i, operands));
+            }
+        }
+        this.resourcesStack.pop();
+    }
+
+    /**
+     * Chains the page content streams without concatenating them. As in {@link PdfPage#getContentBytes()},
+     * a stream that does not end with a whitespace is separated from the next one by a new line.
+     */
+    private static IRandomAccessSource getContentSource(PdfPage page) {
+        RandomAccessSourceFactory sourceFactory = new RandomAccessSourceFactory();
+        int streamCount = page.getContentStreamCount();
+        List<IRandomAccessSource> sources = new ArrayList<>(streamCount);
+        for (int i = 0; i < streamCount; i++) {
+            byte[] streamBytes = page.getStreamBytes(i);
+            sources.add(sourceFactory.createSource(streamBytes));
+            if (0 != streamBytes.length && !Character.isWhitespace((char) streamBytes[streamBytes.length - 1])) {
+                sources.add(sourceFactory.createSource(CONTENT_STREAMS_SEPARATOR));
+            }
+        }
+        if (sources.size() == 0) {
+            return sourceFactory.createSource(new byte[0]);
+        } else if (sources.size() == 1) {
+            return sources.get(0);
+        }
+        try {
+            return sourceFactory.createGroupedSource(sources.toArray(new IRandomAccessSource[sources.size()]));
+        } catch (IOException e) {
+            throw new PdfException(PdfException.CannotGetContentBytes, e, page);
+        }
+    }
+
     private void initClippingPath(PdfPage page) {
         Path clippingPath = new Path();
         clippingPath.rectangle(page.getCropBox());
         getGraphicsState().setClippingPath(clippingPath);
     }
 
+    /**
+     * A base class for the handlers of operators that take only numeric operands. In the allocation-light parsing mode
+     * such handlers are invoked with the operands taken straight from the numeric operand buffer.
+     */
+    private static abstract class NumericOperandsOperator implements IContentOperator {
+        private final int numberOfOperands;
+
+        /**
+         * Creates the new instance of this handler.
+         *
+         * @param numberOfOperands the number of operands the operator takes
+         */
+        NumericOperandsOperator(int numberOfOperands) {
+            this.numberOfOperands = numberOfOperands;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
+            double[] values = new double[numberOfOperands];
+            for (int i = 0; i < numberOfOperands; i++) {
+                values[i] = ((PdfNumber) operands.get(i)).getValue();
+            }
+            invoke(processor, operator, values);
+        }
+
+        /**
+         * Called when the operator should be processed.
+         *
+         * @param processor the processor that is dealing with the PDF content stream
+         * @param operator  the literal PDF syntax of the operator
+         * @param operands  the values of the operands, the array may be longer than the number of operands
+         */
+        public abstract void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands);
+    }
+
     /**
      * A handler that implements operator (unregistered).
      */
@@ -706,38 +1034,41 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (T*). For more information see Table 51 ISO-32000-1
      */
-    private static class TextMoveNextLineOperator implements IContentOperator {
+    private static class TextMoveNextLineOperator extends NumericOperandsOperator {
         private final TextMoveStartNextLineOperator moveStartNextLine;
 
         public TextMoveNextLineOperator(TextMoveStartNextLineOperator moveStartNextLine) {
+            super(0);
             this.moveStartNextLine = moveStartNextLine;
         }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            List<PdfObject> tdoperands = new ArrayList<PdfObject>(2);
-            tdoperands.add(0, new PdfNumber(0));
-            tdoperands.add(1, new PdfNumber(-processor.getGraphicsState().getLeading()));
-            moveStartNextLine.invoke(processor, null, tdoperands);
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            double[] tdOperands = {0, -processor.getGraphicsState().getLeading()};
+            moveStartNextLine.invoke(processor, null, tdOperands);
         }
     }
 
     /**
      * A handler that implements operator (Tm). For more information see Table 51 ISO-32000-1
      */
-    private static class TextSetTextMatrixOperator implements IContentOperator {
+    private static class TextSetTextMatrixOperator extends NumericOperandsOperator {
+        TextSetTextMatrixOperator() {
+            super(6);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float a = ((PdfNumber) operands.get(0)).floatValue();
-            float b = ((PdfNumber) operands.get(1)).floatValue();
-            float c = ((PdfNumber) operands.get(2)).floatValue();
-            float d = ((PdfNumber) operands.get(3)).floatValue();
-            float e = ((PdfNumber) operands.get(4)).floatValue();
-            float f = ((PdfNumber) operands.get(5)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float a = (float) operands[0];
+            float b = (float) operands[1];
+            float c = (float) operands[2];
+            float d = (float) operands[3];
+            float e = (float) operands[4];
+            float f = (float) operands[5];
 
             processor.textLineMatrix = new Matrix(a, b, c, d, e, f);
             processor.textMatrix = processor.textLineMatrix;
@@ -747,11 +1078,12 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (TD). For more information see Table 51 ISO-32000-1
      */
-    private static class TextMoveStartNextLineWithLeadingOperator implements IContentOperator {
+    private static class TextMoveStartNextLineWithLeadingOperator extends NumericOperandsOperator {
         private final TextMoveStartNextLineOperator moveStartNextLine;
         private final SetTextLeadingOperator setTextLeading;
 
         public TextMoveStartNextLineWithLeadingOperator(TextMoveStartNextLineOperator moveStartNextLine, SetTextLeadingOperator setTextLeading) {
+            super(2);
             this.moveStartNextLine = moveStartNextLine;
             this.setTextLeading = setTextLeading;
         }
@@ -759,11 +1091,10 @@ public class PdfCanvasProcessor {
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float ty = ((PdfNumber) operands.get(1)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float ty = (float) operands[1];
 
-            List<PdfObject> tlOperands = new ArrayList<PdfObject>(1);
-            tlOperands.add(0, new PdfNumber(-ty));
+            double[] tlOperands = {-ty};
             setTextLeading.invoke(processor, null, tlOperands);
             moveStartNextLine.invoke(processor, null, operands);
         }
@@ -772,13 +1103,17 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (Td). For more information see Table 51 ISO-32000-1
      */
-    private static class TextMoveStartNextLineOperator implements IContentOperator {
+    private static class TextMoveStartNextLineOperator extends NumericOperandsOperator {
+        TextMoveStartNextLineOperator() {
+            super(2);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float tx = ((PdfNumber) operands.get(0)).floatValue();
-            float ty = ((PdfNumber) operands.get(1)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float tx = (float) operands[0];
+            float ty = (float) operands[1];
 
             Matrix translationMatrix = new Matrix(tx, ty);
             processor.textMatrix = translationMatrix.multiply(processor.textLineMatrix);
@@ -811,78 +1146,102 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (Tr). For more information see Table 51 ISO-32000-1
      */
-    private static class SetTextRenderModeOperator implements IContentOperator {
+    private static class SetTextRenderModeOperator extends NumericOperandsOperator {
+        SetTextRenderModeOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            PdfNumber render = (PdfNumber) operands.get(0);
-            processor.getGraphicsState().setTextRenderingMode(render.intValue());
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            int render = (int) operands[0];
+            processor.getGraphicsState().setTextRenderingMode(render);
         }
     }
 
     /**
      * A handler that implements operator (Ts). For more information see Table 51 ISO-32000-1
      */
-    private static class SetTextRiseOperator implements IContentOperator {
+    private static class SetTextRiseOperator extends NumericOperandsOperator {
+        SetTextRiseOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            PdfNumber rise = (PdfNumber) operands.get(0);
-            processor.getGraphicsState().setTextRise(rise.floatValue());
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float rise = (float) operands[0];
+            processor.getGraphicsState().setTextRise(rise);
         }
     }
 
     /**
      * A handler that implements operator (TL). For more information see Table 51 ISO-32000-1
      */
-    private static class SetTextLeadingOperator implements IContentOperator {
+    private static class SetTextLeadingOperator extends NumericOperandsOperator {
+        SetTextLeadingOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            PdfNumber leading = (PdfNumber) operands.get(0);
-            processor.getGraphicsState().setLeading(leading.floatValue());
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float leading = (float) operands[0];
+            processor.getGraphicsState().setLeading(leading);
         }
     }
 
     /**
      * A handler that implements operator (Tz). For more information see Table 51 ISO-32000-1
      */
-    private static class SetTextHorizontalScalingOperator implements IContentOperator {
+    private static class SetTextHorizontalScalingOperator extends NumericOperandsOperator {
+        SetTextHorizontalScalingOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            PdfNumber scale = (PdfNumber) operands.get(0);
-            processor.getGraphicsState().setHorizontalScaling(scale.floatValue());
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float scale = (float) operands[0];
+            processor.getGraphicsState().setHorizontalScaling(scale);
         }
     }
 
     /**
      * A handler that implements operator (Tc). For more information see Table 51 ISO-32000-1
      */
-    private static class SetTextCharacterSpacingOperator implements IContentOperator {
+    private static class SetTextCharacterSpacingOperator extends NumericOperandsOperator {
+        SetTextCharacterSpacingOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            PdfNumber charSpace = (PdfNumber) operands.get(0);
-            processor.getGraphicsState().setCharSpacing(charSpace.floatValue());
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float charSpace = (float) operands[0];
+            processor.getGraphicsState().setCharSpacing(charSpace);
         }
     }
 
     /**
      * A handler that implements operator (Tw). For more information see Table 51 ISO-32000-1
      */
-    private static class SetTextWordSpacingOperator implements IContentOperator {
+    private static class SetTextWordSpacingOperator extends NumericOperandsOperator {
+        SetTextWordSpacingOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            PdfNumber wordSpace = (PdfNumber) operands.get(0);
-            processor.getGraphicsState().setWordSpacing(wordSpace.floatValue());
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float wordSpace = (float) operands[0];
+            processor.getGraphicsState().setWordSpacing(wordSpace);
         }
     }
 
@@ -933,17 +1292,21 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (cm). For more information see Table 51 ISO-32000-1
      */
-    private static class ModifyCurrentTransformationMatrixOperator implements IContentOperator {
+    private static class ModifyCurrentTransformationMatrixOperator extends NumericOperandsOperator {
+        ModifyCurrentTransformationMatrixOperator() {
+            super(6);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float a = ((PdfNumber) operands.get(0)).floatValue();
-            float b = ((PdfNumber) operands.get(1)).floatValue();
-            float c = ((PdfNumber) operands.get(2)).floatValue();
-            float d = ((PdfNumber) operands.get(3)).floatValue();
-            float e = ((PdfNumber) operands.get(4)).floatValue();
-            float f = ((PdfNumber) operands.get(5)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float a = (float) operands[0];
+            float b = (float) operands[1];
+            float c = (float) operands[2];
+            float d = (float) operands[3];
+            float e = (float) operands[4];
+            float f = (float) operands[5];
             Matrix matrix = new Matrix(a, b, c, d, e, f);
             processor.getGraphicsState().updateCtm(matrix);
         }
@@ -1013,10 +1376,10 @@ public class PdfCanvasProcessor {
     /**
      * Gets a color based on a list of operands.
      */
-    private static Color getColor(int nOperands, List<PdfObject> operands) {
+    private static Color getColor(int nOperands, double[] operands) {
         float[] c = new float[nOperands];
         for (int i = 0; i < nOperands; i++) {
-            c[i] = ((PdfNumber) operands.get(i)).floatValue();
+            c[i] = (float) operands[i];
         }
 
         switch (nOperands) {
@@ -1055,11 +1418,15 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (g). For more information see Table 51 ISO-32000-1
      */
-    private static class SetGrayFillOperator implements IContentOperator {
+    private static class SetGrayFillOperator extends NumericOperandsOperator {
+        SetGrayFillOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
             processor.getGraphicsState().setFillColor(getColor(1, operands));
         }
     }
@@ -1067,11 +1434,15 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (G). For more information see Table 51 ISO-32000-1
      */
-    private static class SetGrayStrokeOperator implements IContentOperator {
+    private static class SetGrayStrokeOperator extends NumericOperandsOperator {
+        SetGrayStrokeOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
             processor.getGraphicsState().setStrokeColor(getColor(1, operands));
         }
     }
@@ -1079,11 +1450,15 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (rg). For more information see Table 51 ISO-32000-1
      */
-    private static class SetRGBFillOperator implements IContentOperator {
+    private static class SetRGBFillOperator extends NumericOperandsOperator {
+        SetRGBFillOperator() {
+            super(3);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
             processor.getGraphicsState().setFillColor(getColor(3, operands));
         }
     }
@@ -1091,11 +1466,15 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (RG). For more information see Table 51 ISO-32000-1
      */
-    private static class SetRGBStrokeOperator implements IContentOperator {
+    private static class SetRGBStrokeOperator extends NumericOperandsOperator {
+        SetRGBStrokeOperator() {
+            super(3);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
             processor.getGraphicsState().setStrokeColor(getColor(3, operands));
         }
     }
@@ -1103,11 +1482,15 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (k). For more information see Table 51 ISO-32000-1
      */
-    private static class SetCMYKFillOperator implements IContentOperator {
+    private static class SetCMYKFillOperator extends NumericOperandsOperator {
+        SetCMYKFillOperator() {
+            super(4);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
             processor.getGraphicsState().setFillColor(getColor(4, operands));
         }
     }
@@ -1115,11 +1498,15 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (K). For more information see Table 51 ISO-32000-1
      */
-    private static class SetCMYKStrokeOperator implements IContentOperator {
+    private static class SetCMYKStrokeOperator extends NumericOperandsOperator {
+        SetCMYKStrokeOperator() {
+            super(4);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
             processor.getGraphicsState().setStrokeColor(getColor(4, operands));
         }
     }
@@ -1299,12 +1686,16 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (w). For more information see Table 51 ISO-32000-1
      */
-    private static class SetLineWidthOperator implements IContentOperator {
+    private static class SetLineWidthOperator extends NumericOperandsOperator {
+        SetLineWidthOperator() {
+            super(1);
+        }
+
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral oper, List<PdfObject> operands) {
-            float lineWidth = ((PdfNumber) operands.get(0)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral oper, double[] operands) {
+            float lineWidth = (float) operands[0];
             processor.getGraphicsState().setLineWidth(lineWidth);
         }
     }
@@ -1312,13 +1703,16 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (J). For more information see Table 51 ISO-32000-1
      */
-    private static class SetLineCapOperator implements IContentOperator {
+    private static class SetLineCapOperator extends NumericOperandsOperator {
+        SetLineCapOperator() {
+            super(1);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral oper, List<PdfObject> operands) {
-            int lineCap = ((PdfNumber) operands.get(0)).intValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral oper, double[] operands) {
+            int lineCap = (int) operands[0];
             processor.getGraphicsState().setLineCapStyle(lineCap);
         }
     }
@@ -1326,13 +1720,16 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (j). For more information see Table 51 ISO-32000-1
      */
-    private static class SetLineJoinOperator implements IContentOperator {
+    private static class SetLineJoinOperator extends NumericOperandsOperator {
+        SetLineJoinOperator() {
+            super(1);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral oper, List<PdfObject> operands) {
-            int lineJoin = ((PdfNumber) operands.get(0)).intValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral oper, double[] operands) {
+            int lineJoin = (int) operands[0];
             processor.getGraphicsState().setLineJoinStyle(lineJoin);
         }
     }
@@ -1340,13 +1737,16 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (M). For more information see Table 51 ISO-32000-1
      */
-    private static class SetMiterLimitOperator implements IContentOperator {
+    private static class SetMiterLimitOperator extends NumericOperandsOperator {
+        SetMiterLimitOperator() {
+            super(1);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral oper, List<PdfObject> operands) {
-            float miterLimit = ((PdfNumber) operands.get(0)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral oper, double[] operands) {
+            float miterLimit = (float) operands[0];
             processor.getGraphicsState().setMiterLimit(miterLimit);
         }
     }
@@ -1381,8 +1781,14 @@ public class PdfCanvasProcessor {
             // we read the content bytes up here so if it fails we don't leave the graphics state stack corrupted
             // this is probably not necessary (if we fail on this, probably the entire content stream processing
             // operation should be rejected
-            byte[] contentBytes;
-            contentBytes = stream.getBytes();
+            byte[] contentBytes = null;
+            FormXObjectContentCache.ParsedContent parsedContent = null;
+            // a form without resources uses the resources of the caller, which may affect the parsing of inline images
+            if (processor.formXObjectCache != null && resourcesDic != null && stream.getIndirectReference() != null) {
+                parsedContent = processor.getParsedContent(stream, resources);
+            } else {
+                contentBytes = stream.getBytes();
+            }
             final PdfArray matrix = stream.getAsArray(PdfName.Matrix);
 
             new PushGraphicsStateOperator().invoke(processor, null, null);
@@ -1398,7 +1804,11 @@ public class PdfCanvasProcessor {
                 processor.getGraphicsState().updateCtm(formMatrix);
             }
 
-            processor.processContent(contentBytes, resources);
+            if (parsedContent != null) {
+                processor.processContent(parsedContent, resources);
+            } else {
+                processor.processContent(contentBytes, resources);
+            }
 
             new PopGraphicsStateOperator().invoke(processor, null, null);
 
@@ -1428,14 +1838,17 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (m). For more information see Table 51 ISO-32000-1
      */
-    private static class MoveToOperator implements IContentOperator {
+    private static class MoveToOperator extends NumericOperandsOperator {
+        MoveToOperator() {
+            super(2);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float x = ((PdfNumber) operands.get(0)).floatValue();
-            float y = ((PdfNumber) operands.get(1)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float x = (float) operands[0];
+            float y = (float) operands[1];
             processor.currentPath.moveTo(x, y);
         }
     }
@@ -1443,14 +1856,17 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (l). For more information see Table 51 ISO-32000-1
      */
-    private static class LineToOperator implements IContentOperator {
+    private static class LineToOperator extends NumericOperandsOperator {
+        LineToOperator() {
+            super(2);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float x = ((PdfNumber) operands.get(0)).floatValue();
-            float y = ((PdfNumber) operands.get(1)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float x = (float) operands[0];
+            float y = (float) operands[1];
             processor.currentPath.lineTo(x, y);
         }
     }
@@ -1458,18 +1874,21 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (c). For more information see Table 51 ISO-32000-1
      */
-    private static class CurveOperator implements IContentOperator {
+    private static class CurveOperator extends NumericOperandsOperator {
+        CurveOperator() {
+            super(6);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float x1 = ((PdfNumber) operands.get(0)).floatValue();
-            float y1 = ((PdfNumber) operands.get(1)).floatValue();
-            float x2 = ((PdfNumber) operands.get(2)).floatValue();
-            float y2 = ((PdfNumber) operands.get(3)).floatValue();
-            float x3 = ((PdfNumber) operands.get(4)).floatValue();
-            float y3 = ((PdfNumber) operands.get(5)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float x1 = (float) operands[0];
+            float y1 = (float) operands[1];
+            float x2 = (float) operands[2];
+            float y2 = (float) operands[3];
+            float x3 = (float) operands[4];
+            float y3 = (float) operands[5];
             processor.currentPath.curveTo(x1, y1, x2, y2, x3, y3);
         }
     }
@@ -1477,16 +1896,19 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (v). For more information see Table 51 ISO-32000-1
      */
-    private static class CurveFirstPointDuplicatedOperator implements IContentOperator {
+    private static class CurveFirstPointDuplicatedOperator extends NumericOperandsOperator {
+        CurveFirstPointDuplicatedOperator() {
+            super(4);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float x2 = ((PdfNumber) operands.get(0)).floatValue();
-            float y2 = ((PdfNumber) operands.get(1)).floatValue();
-            float x3 = ((PdfNumber) operands.get(2)).floatValue();
-            float y3 = ((PdfNumber) operands.get(3)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float x2 = (float) operands[0];
+            float y2 = (float) operands[1];
+            float x3 = (float) operands[2];
+            float y3 = (float) operands[3];
             processor.currentPath.curveTo(x2, y2, x3, y3);
         }
     }
@@ -1494,16 +1916,19 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (y). For more information see Table 51 ISO-32000-1
      */
-    private static class CurveFourhPointDuplicatedOperator implements IContentOperator {
+    private static class CurveFourhPointDuplicatedOperator extends NumericOperandsOperator {
+        CurveFourhPointDuplicatedOperator() {
+            super(4);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float x1 = ((PdfNumber) operands.get(0)).floatValue();
-            float y1 = ((PdfNumber) operands.get(1)).floatValue();
-            float x3 = ((PdfNumber) operands.get(2)).floatValue();
-            float y3 = ((PdfNumber) operands.get(3)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float x1 = (float) operands[0];
+            float y1 = (float) operands[1];
+            float x3 = (float) operands[2];
+            float y3 = (float) operands[3];
             processor.currentPath.curveFromTo(x1, y1, x3, y3);
         }
     }
@@ -1524,16 +1949,19 @@ public class PdfCanvasProcessor {
     /**
      * A handler that implements operator (re). For more information see Table 51 ISO-32000-1
      */
-    private static class RectangleOperator implements IContentOperator {
+    private static class RectangleOperator extends NumericOperandsOperator {
+        RectangleOperator() {
+            super(4);
+        }
 
         /**
          * {@inheritDoc}
          */
-        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            float x = ((PdfNumber) operands.get(0)).floatValue();
-            float y = ((PdfNumber) operands.get(1)).floatValue();
-            float w = ((PdfNumber) operands.get(2)).floatValue();
-            float h = ((PdfNumber) operands.get(3)).floatValue();
+        public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, double[] operands) {
+            float x = (float) operands[0];
+            float y = (float) operands[1];
+            float w = (float) operands[2];
+            float h = (float) operands[3];
             processor.currentPath.rectangle(x, y, w, h);
         }
     }
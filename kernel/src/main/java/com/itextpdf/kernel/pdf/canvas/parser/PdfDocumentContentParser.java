@@ -57,10 +57,24 @@ public class PdfDocumentContentParser {
 
     private final PdfDocument pdfDocument;
 
+    /**
+     * The Form XObjects parsed for one page are reused on the other pages of the document.
+     */
+    private final FormXObjectContentCache formXObjectCache = new FormXObjectContentCache();
+
     public PdfDocumentContentParser(PdfDocument pdfDocument) {
         this.pdfDocument = pdfDocument;
     }
 
+    /**
+     * Gets the cache of the Form XObjects content shared by the pages processed with this parser.
+     *
+     * @return the cache of the Form XObjects content
+     */
+    public FormXObjectContentCache getFormXObjectCache() {
+        return formXObjectCache;
+    }
+
     /**
      * Processes content from the specified page number using the specified listener.
      * Also allows registration of custom IContentOperators that can influence
@@ -74,6 +88,8 @@ public class PdfDocumentContentParser {
      */
     public <E extends IEventListener> E processContent(int pageNumber, E renderListener, Map<String, IContentOperator> additionalContentOperators) {
         PdfCanvasProcessor processor = new PdfCanvasProcessor(renderListener, additionalContentOperators);
+        processor.setAllocationLightParsing(true);
+        processor.setFormXObjectCache(formXObjectCache);
         processor.processPageContent(pdfDocument.getPage(pageNumber));
         return renderListener;
     }
@@ -43,12 +43,26 @@
  */
 package com.itextpdf.kernel.pdf.canvas.parser;
 
+import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.ITextExtractionStrategyFactory;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.LocationTextExtractionStrategy;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.ITextExtractionStrategy;
 import com.itextpdf.kernel.pdf.PdfPage;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 public final class PdfTextExtractor {
 
@@ -67,6 +81,7 @@ public final class PdfTextExtractor {
      */
     public static String getTextFromPage(PdfPage page, ITextExtractionStrategy strategy, Map<String, IContentOperator> additionalContentOperators) {
         PdfCanvasProcessor parser = new PdfCanvasProcessor(strategy, additionalContentOperators);
+        parser.setAllocationLightParsing(true);
         parser.processPageContent(page);
         return strategy.getResultantText();
     }
@@ -93,4 +108,123 @@ public final class PdfTextExtractor {
     public static String getTextFromPage(PdfPage page) {
         return getTextFromPage(page, new LocationTextExtractionStrategy());
     }
+
+    /**
+     * Extracts text from a range of pages, processing the pages concurrently on the specified executor.
+     * <br>
+     * A new strategy is created for every page. The pages are read from the shared document, so the document
+     * shall not be modified during the extraction. The Form XObjects are parsed once for the whole range and the fonts
+     * are parsed once per concurrently processed page.
+     *
+     * @param pdfDocument     the document to extract text from
+     * @param fromPage        the number of the first page of the range
+     * @param toPage          the number of the last page of the range, inclusive
+     * @param strategyFactory the factory of the strategies used for the pages
+     * @param executor        the executor which processes the pages
+     * @param consumer        the consumer which receives the text of the pages in page order, on the calling thread
+     */
+    public static void getTextFromPages(final PdfDocument pdfDocument, int fromPage, int toPage, final ITextExtractionStrategyFactory strategyFactory,
+                                        ExecutorService executor, IPageTextConsumer consumer) {
+        final FormXObjectContentCache formXObjectCache = new FormXObjectContentCache();
+        // each page being processed takes a font map for itself, so the maps are not used concurrently
+        final Queue<Map<Integer, PdfFont>> fontMaps = new ConcurrentLinkedQueue<>();
+        List<Future<String>> pageTexts = new ArrayList<>();
+        try {
+            for (int i = fromPage; i <= toPage; i++) {
+                final int pageNumber = i;
+                pageTexts.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        Map<Integer, PdfFont> fonts = fontMaps.poll();
+                        if (fonts == null) {
+                            fonts = new HashMap<>();
+                        }
+                        try {
+                            ITextExtractionStrategy strategy = strategyFactory.createStrategy();
+                            PdfCanvasProcessor processor = new PdfCanvasProcessor(strategy);
+                            processor.setAllocationLightParsing(true);
+                            processor.setFormXObjectCache(formXObjectCache);
+                            processor.setSharedFonts(fonts);
+                            processor.processPageContent(pdfDocument.getPage(pageNumber));
+                            return strategy.getResultantText();
+                        } finally {
+                            fontMaps.add(fonts);
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < pageTexts.size(); i++) {
+                consumer.pageTextExtracted(fromPage + i, getPageText(pageTexts.get(i), fromPage + i));
+            }
+        } finally {
+            for (Future<String> pageText : pageTexts) {
+                pageText.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Extracts text from a range of pages, processing the pages concurrently on the specified executor.
+     * See {@link #getTextFromPages(PdfDocument, int, int, ITextExtractionStrategyFactory, ExecutorService, IPageTextConsumer)}.
+     *
+     * @param pdfDocument     the document to extract text from
+     * @param fromPage        the number of the first page of the range
+     * @param toPage          the number of the last page of the range, inclusive
+     * @param strategyFactory the factory of the strategies used for the pages
+     * @param executor        the executor which processes the pages
+     * @return the list with the text of the pages in page order
+     */
+    public static List<String> getTextFromPages(PdfDocument pdfDocument, int fromPage, int toPage, ITextExtractionStrategyFactory strategyFactory,
+                                                ExecutorService executor) {
+        final List<String> texts = new ArrayList<>();
+        getTextFromPages(pdfDocument, fromPage, toPage, strategyFactory, executor, new IPageTextConsumer() {
+            @Override
+            public void pageTextExtracted(int pageNumber, String text) {
+                texts.add(text);
+            }
+        });
+        return texts;
+    }
+
+    /**
+     * Extracts text from a range of pages, processing up to the specified number of pages concurrently.
+     * See {@link #getTextFromPages(PdfDocument, int, int, ITextExtractionStrategyFactory, ExecutorService, IPageTextConsumer)}.
+     *
+     * @param pdfDocument     the document to extract text from
+     * @param fromPage        the number of the first page of the range
+     * @param toPage          the number of the last page of the range, inclusive
+     * @param strategyFactory the factory of the strategies used for the pages
+     * @param parallelism     the number of threads which process the pages
+     * @return the list with the text of the pages in page order
+     */
+    public static List<String> getTextFromPages(PdfDocument pdfDocument, int fromPage, int toPage, ITextExtractionStrategyFactory strategyFactory,
+                                                int parallelism) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "PdfTextExtractor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            return getTextFromPages(pdfDocument, fromPage, toPage, strategyFactory, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String getPageText(Future<String> pageText, int pageNumber) {
+        try {
+            return pageText.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PdfException(PdfException.CannotExtractTextFromPage1, e).setMessageParams(pageNumber);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new PdfException(PdfException.CannotExtractTextFromPage1, e.getCause()).setMessageParams(pageNumber);
+        }
+    }
 }
@@ -0,0 +1,150 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.data;
+
+/**
+ * Holds the positions of the glyphs of a text render operation, as computed by
+ * {@link TextRenderInfo#getCharacterPositions(CharacterPositions)}.
+ * <br><br>
+ * The positions are stored in primitive arrays which are reused, and only grown when needed,
+ * each time the object is passed to {@link TextRenderInfo#getCharacterPositions(CharacterPositions)}.
+ * Hence the values are only valid until the next such call.
+ */
+public class CharacterPositions {
+
+    private int size;
+
+    /**
+     * start offsets of the glyphs in the value of the rendered PDF string, followed by the end offset of the last glyph
+     */
+    private int[] stringOffsets = new int[1];
+
+    /**
+     * start x, start y, end x and end y of the baseline of each glyph, in user space
+     */
+    private float[] baselines = new float[0];
+
+    /**
+     * Creates an empty object, to be filled by {@link TextRenderInfo#getCharacterPositions(CharacterPositions)}.
+     */
+    public CharacterPositions() {
+    }
+
+    /**
+     * @return the number of glyphs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the index in the value of the rendered {@link com.itextpdf.kernel.pdf.PdfString} at which the glyph starts.
+     *
+     * @param glyph the index of the glyph
+     * @return the start index of the glyph codes, inclusive
+     */
+    public int getStringStart(int glyph) {
+        return stringOffsets[glyph];
+    }
+
+    /**
+     * Gets the index in the value of the rendered {@link com.itextpdf.kernel.pdf.PdfString} at which the glyph ends.
+     *
+     * @param glyph the index of the glyph
+     * @return the end index of the glyph codes, exclusive
+     */
+    public int getStringEnd(int glyph) {
+        return stringOffsets[glyph + 1];
+    }
+
+    /**
+     * @param glyph the index of the glyph
+     * @return the x coordinate of the start point of the glyph baseline, in user space
+     */
+    public float getStartX(int glyph) {
+        return baselines[glyph * 4];
+    }
+
+    /**
+     * @param glyph the index of the glyph
+     * @return the y coordinate of the start point of the glyph baseline, in user space
+     */
+    public float getStartY(int glyph) {
+        return baselines[glyph * 4 + 1];
+    }
+
+    /**
+     * @param glyph the index of the glyph
+     * @return the x coordinate of the end point of the glyph baseline, in user space
+     */
+    public float getEndX(int glyph) {
+        return baselines[glyph * 4 + 2];
+    }
+
+    /**
+     * @param glyph the index of the glyph
+     * @return the y coordinate of the end point of the glyph baseline, in user space
+     */
+    public float getEndY(int glyph) {
+        return baselines[glyph * 4 + 3];
+    }
+
+    void reset(int capacity) {
+        size = 0;
+        if (stringOffsets.length < capacity + 1) {
+            stringOffsets = new int[capacity + 1];
+            baselines = new float[capacity * 4];
+        }
+    }
+
+    void add(int stringStart, int stringEnd, float startX, float startY, float endX, float endY) {
+        stringOffsets[size] = stringStart;
+        stringOffsets[size + 1] = stringEnd;
+        int i = size * 4;
+        baselines[i] = startX;
+        baselines[i + 1] = startY;
+        baselines[i + 2] = endX;
+        baselines[i + 3] = endY;
+        size++;
+    }
+}
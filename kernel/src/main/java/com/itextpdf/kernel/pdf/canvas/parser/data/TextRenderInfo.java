@@ -81,6 +81,12 @@ public class TextRenderInfo implements IEventData {
     private double[] fontMatrix = null;
     private boolean graphicsStateIsPreserved;
 
+    /**
+     * The TextRenderInfo this one was split from by {@link #getCharacterRenderInfos()}, if any.
+     * All the character TextRenderInfos of the same parent share its preserved graphics state.
+     */
+    private final TextRenderInfo parent;
+
     /**
      * Hierarchy of nested canvas tags for the text from the most inner (nearest to text) tag to the most outer.
      */
@@ -95,11 +101,28 @@ public class TextRenderInfo implements IEventData {
      * @param canvasTagHierarchy the marked content tags sequence, if available
      */
     public TextRenderInfo(PdfString str, CanvasGraphicsState gs, Matrix textMatrix, Stack<CanvasTag> canvasTagHierarchy) {
+        this(str, gs, textMatrix, canvasTagHierarchy.isEmpty()
+                ? Collections.<CanvasTag>emptyList()
+                : Collections.<CanvasTag>unmodifiableList(new ArrayList<>(canvasTagHierarchy)));
+    }
+
+    /**
+     * Creates a new TextRenderInfo object. Unlike {@link #TextRenderInfo(PdfString, CanvasGraphicsState, Matrix, Stack)},
+     * the marked content tags sequence is not copied, so the same unmodifiable list may be shared by all the
+     * TextRenderInfo objects created while the marked content stays the same.
+     *
+     * @param str                the PDF string that should be displayed
+     * @param gs                 the graphics state (note: at this time, this is not immutable, so don't cache it)
+     * @param textMatrix         the text matrix at the time of the render operation
+     * @param canvasTagHierarchy the unmodifiable marked content tags sequence
+     */
+    public TextRenderInfo(PdfString str, CanvasGraphicsState gs, Matrix textMatrix, List<CanvasTag> canvasTagHierarchy) {
         this.string = str;
         this.textToUserSpaceTransformMatrix = textMatrix.multiply(gs.getCtm());
         this.gs = gs;
-        this.canvasTagHierarchy = Collections.<CanvasTag>unmodifiableList(new ArrayList<>(canvasTagHierarchy));
+        this.canvasTagHierarchy = canvasTagHierarchy;
         this.fontMatrix = gs.getFont().getFontMatrix();
+        this.parent = null;
     }
 
     /**
@@ -108,13 +131,16 @@ public class TextRenderInfo implements IEventData {
      * @param parent           the parent TextRenderInfo
      * @param string           the content of a TextRenderInfo
      * @param horizontalOffset the unscaled horizontal offset of the character that this TextRenderInfo represents
+     * @param unscaledWidth    the unscaled width of the character, as calculated by the parent
      */
-    private TextRenderInfo(TextRenderInfo parent, PdfString string, float horizontalOffset) {
+    private TextRenderInfo(TextRenderInfo parent, PdfString string, float horizontalOffset, float unscaledWidth) {
         this.string = string;
         this.textToUserSpaceTransformMatrix = new Matrix(horizontalOffset, 0).multiply(parent.textToUserSpaceTransformMatrix);
         this.gs = parent.gs;
         this.canvasTagHierarchy = parent.canvasTagHierarchy;
-        this.fontMatrix = gs.getFont().getFontMatrix();
+        this.fontMatrix = parent.fontMatrix;
+        this.unscaledWidth = unscaledWidth;
+        this.parent = parent;
     }
 
     /**
@@ -283,20 +309,73 @@ public class TextRenderInfo implements IEventData {
         if (null == gs) {
             throw new IllegalStateException(LogMessageConstant.GRAPHICS_STATE_WAS_DELETED);
         }
-        List<TextRenderInfo> rslt = new ArrayList<>(string.getValue().length());
         PdfString[] strings = splitString(string);
+        List<TextRenderInfo> rslt = new ArrayList<>(strings.length);
         float totalWidth = 0;
         for (PdfString str : strings) {
             float[] widthAndWordSpacing = getWidthAndWordSpacing(str);
-            TextRenderInfo subInfo = new TextRenderInfo(this, str, totalWidth);
+            float unscaledCharWidth = (widthAndWordSpacing[0] * gs.getFontSize() + gs.getCharSpacing() + widthAndWordSpacing[1]) * gs.getHorizontalScaling() / 100f;
+            TextRenderInfo subInfo = new TextRenderInfo(this, str, totalWidth, unscaledCharWidth);
             rslt.add(subInfo);
             totalWidth += (widthAndWordSpacing[0] * gs.getFontSize() + gs.getCharSpacing() + widthAndWordSpacing[1]) * (gs.getHorizontalScaling() / 100f);
         }
-        for (TextRenderInfo tri : rslt)
-            tri.getUnscaledWidth();
         return rslt;
     }
 
+    /**
+     * Provides the position of each individual glyph in the text render operation without creating
+     * a {@link TextRenderInfo} per glyph, which is what {@link #getCharacterRenderInfos()} does.
+     * The glyphs are the same, and their baselines the same as the ones of the character render infos.
+     * <br><br>
+     * The positions are written into the arrays of the passed {@link CharacterPositions} object, which
+     * are only reallocated when they are too small. A listener interested in glyph positions only
+     * can thus reuse one object for all the events it receives.
+     *
+     * @param positions the object to write the glyph positions to, or <code>null</code> to create a new one
+     * @return the object holding the glyph positions
+     */
+    public CharacterPositions getCharacterPositions(CharacterPositions positions) {
+        // check if graphics state was released
+        if (null == gs) {
+            throw new IllegalStateException(LogMessageConstant.GRAPHICS_STATE_WAS_DELETED);
+        }
+        if (positions == null) {
+            positions = new CharacterPositions();
+        }
+        String stringValue = string.getValue();
+        positions.reset(stringValue.length());
+
+        Matrix m = textToUserSpaceTransformMatrix;
+        float rise = gs.getTextRise();
+        float horizontalScaling = gs.getHorizontalScaling() / 100f;
+        float totalWidth = 0;
+        int start = 0;
+        while (start < stringValue.length()) {
+            int end = start + 1;
+            PdfString str = new PdfString(stringValue.substring(start, end), string.getEncoding());
+            if (gs.getFont().decode(str).length() == 0 && end < stringValue.length()) {
+                end++;
+                str = new PdfString(stringValue.substring(start, end), string.getEncoding());
+            }
+            float[] widthAndWordSpacing = getWidthAndWordSpacing(str);
+            float advance = (widthAndWordSpacing[0] * gs.getFontSize() + gs.getCharSpacing() + widthAndWordSpacing[1]) * horizontalScaling;
+            float unscaledCharWidth = (widthAndWordSpacing[0] * gs.getFontSize() + gs.getCharSpacing() + widthAndWordSpacing[1]) * gs.getHorizontalScaling() / 100f;
+            // the baseline does not include the character and word spacing, see getUnscaledBaselineWithOffset
+            float baselineWidth = unscaledCharWidth - (gs.getCharSpacing() + (endsWithSpace(str) ? gs.getWordSpacing() : 0)) * horizontalScaling;
+
+            float startX = totalWidth;
+            float endX = totalWidth + baselineWidth;
+            positions.add(start, end,
+                    startX * m.get(Matrix.I11) + rise * m.get(Matrix.I21) + m.get(Matrix.I31),
+                    startX * m.get(Matrix.I12) + rise * m.get(Matrix.I22) + m.get(Matrix.I32),
+                    endX * m.get(Matrix.I11) + rise * m.get(Matrix.I21) + m.get(Matrix.I31),
+                    endX * m.get(Matrix.I12) + rise * m.get(Matrix.I22) + m.get(Matrix.I32));
+            totalWidth += advance;
+            start = end;
+        }
+        return positions;
+    }
+
     /**
      * @return The width, in user space units, of a single space character in the current font
      */
@@ -464,8 +543,16 @@ public class TextRenderInfo implements IEventData {
         if (null == gs) {
             throw new IllegalStateException(LogMessageConstant.GRAPHICS_STATE_WAS_DELETED);
         }
-        this.graphicsStateIsPreserved = true;
-        gs = new CanvasGraphicsState(gs);
+        if (!graphicsStateIsPreserved) {
+            // character infos share the copy of their parent, as long as the parent still holds the state
+            if (parent != null && parent.gs != null) {
+                parent.preserveGraphicsState();
+                gs = parent.gs;
+            } else {
+                gs = new CanvasGraphicsState(gs);
+            }
+            this.graphicsStateIsPreserved = true;
+        }
     }
 
     public void releaseGraphicsState() {
@@ -481,14 +568,17 @@ public class TextRenderInfo implements IEventData {
         }
         // we need to correct the width so we don't have an extra character and word spaces at the end.  The extra character and word spaces
         // are important for tracking relative text coordinate systems, but should not be part of the baseline
-        String unicodeStr = string.toUnicodeString();
-
         float correctedUnscaledWidth = getUnscaledWidth() - (gs.getCharSpacing() +
-                (unicodeStr.length() > 0 && unicodeStr.charAt(unicodeStr.length() - 1) == ' ' ? gs.getWordSpacing() : 0)) * (gs.getHorizontalScaling() / 100f);
+                (endsWithSpace(string) ? gs.getWordSpacing() : 0)) * (gs.getHorizontalScaling() / 100f);
 
         return new LineSegment(new Vector(0, yOffset, 1), new Vector(correctedUnscaledWidth, yOffset, 1));
     }
 
+    private static boolean endsWithSpace(PdfString string) {
+        String unicodeStr = string.toUnicodeString();
+        return unicodeStr.length() > 0 && unicodeStr.charAt(unicodeStr.length() - 1) == ' ';
+    }
+
     /**
      * @param width the width, in text space
      * @return the width in user space
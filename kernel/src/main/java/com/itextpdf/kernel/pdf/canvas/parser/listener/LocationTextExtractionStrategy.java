@@ -55,6 +55,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -275,45 +276,44 @@ public class LocationTextExtractionStrategy implements ITextExtractionStrategy {
 
     private void sortWithMarks(List<TextChunk> textChunks) {
         Map<TextChunk, TextChunkMarks> marks = new HashMap<>();
-        List<TextChunk> toSort = new ArrayList<>();
+        Set<TextChunk> attachedMarks = new HashSet<>();
+        Map<Integer, List<Integer>> basesByDistPerpendicular = null;
 
         for (int markInd = 0; markInd < textChunks.size(); markInd++) {
             ITextChunkLocation location = textChunks.get(markInd).getLocation();
             if (location.getStartLocation().equals(location.getEndLocation())) {
-                boolean foundBaseToAttachTo = false;
-                for (int baseInd = 0; baseInd < textChunks.size(); baseInd++) {
-                    if (markInd != baseInd) {
-                        ITextChunkLocation baseLocation = textChunks.get(baseInd).getLocation();
-                        if (!baseLocation.getStartLocation().equals(baseLocation.getEndLocation()) && containsMark(baseLocation, location)) {
-                            TextChunkMarks currentMarks = marks.get(textChunks.get(baseInd));
-                            if (currentMarks == null) {
-                                currentMarks = new TextChunkMarks();
-                                marks.put(textChunks.get(baseInd), currentMarks);
-                            }
-
-                            if (markInd < baseInd) {
-                                currentMarks.preceding.add(textChunks.get(markInd));
-                            } else {
-                                currentMarks.succeeding.add(textChunks.get(markInd));
-                            }
-
-                            foundBaseToAttachTo = true;
-                            break;
-                        }
-                    }
+                if (basesByDistPerpendicular == null) {
+                    basesByDistPerpendicular = groupBasesByDistPerpendicular(textChunks);
                 }
+                int baseInd = findBaseToAttachTo(textChunks, basesByDistPerpendicular, location);
+                if (baseInd >= 0) {
+                    TextChunkMarks currentMarks = marks.get(textChunks.get(baseInd));
+                    if (currentMarks == null) {
+                        currentMarks = new TextChunkMarks();
+                        marks.put(textChunks.get(baseInd), currentMarks);
+                    }
 
-                if (!foundBaseToAttachTo) {
-                    toSort.add(textChunks.get(markInd));
+                    if (markInd < baseInd) {
+                        currentMarks.preceding.add(textChunks.get(markInd));
+                    } else {
+                        currentMarks.succeeding.add(textChunks.get(markInd));
+                    }
+                    attachedMarks.add(textChunks.get(markInd));
                 }
-            } else {
-                toSort.add(textChunks.get(markInd));
             }
         }
 
-        if (rightToLeftRunDirection) {
-            Collections.sort(toSort, new TextChunkComparator(new TextChunkLocationComparator(false)));
+        List<TextChunk> toSort;
+        if (rightToLeftRunDirection || hasDefaultLocationsOnly(textChunks)) {
+            // the order is fully defined by the lines, so only the chunks of the same line may need sorting
+            toSort = getChunksOrderedByLines(textChunks, attachedMarks);
         } else {
+            toSort = new ArrayList<>(textChunks.size() - attachedMarks.size());
+            for (TextChunk chunk : textChunks) {
+                if (!attachedMarks.contains(chunk)) {
+                    toSort.add(chunk);
+                }
+            }
             Collections.sort(toSort);
         }
 
@@ -347,6 +347,101 @@ public class LocationTextExtractionStrategy implements ITextExtractionStrategy {
         }
     }
 
+    /**
+     * Checks whether all the chunks use {@link TextChunkLocationDefaultImp} locations, so that their natural
+     * ordering is known to be the one of {@link #getChunksOrderedByLines(List, Set)}.
+     */
+    private static boolean hasDefaultLocationsOnly(List<TextChunk> textChunks) {
+        for (TextChunk chunk : textChunks) {
+            if (chunk.getLocation().getClass() != TextChunkLocationDefaultImp.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the chunks line by line, in the order defined by {@link TextChunkLocationComparator}. The chunks are
+     * grouped by line, i.e. by orientation and perpendicular distance, in the order they were found. The lines are
+     * sorted once and the chunks within each line are only sorted if they were not found in reading order already.
+     */
+    private List<TextChunk> getChunksOrderedByLines(List<TextChunk> textChunks, Set<TextChunk> excludedChunks) {
+        Map<Long, TextChunkLine> lines = new HashMap<>();
+        for (TextChunk chunk : textChunks) {
+            if (!excludedChunks.contains(chunk)) {
+                ITextChunkLocation location = chunk.getLocation();
+                // the signed orientation goes to the high bits and the perpendicular distance, shifted to be unsigned,
+                // to the low ones, so that the natural order of the keys is the order of the lines
+                long key = ((long) location.orientationMagnitude() << 32) | ((location.distPerpendicular() ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+                TextChunkLine line = lines.get(key);
+                if (line == null) {
+                    line = new TextChunkLine();
+                    lines.put(key, line);
+                }
+                line.add(chunk);
+            }
+        }
+        List<Long> keys = new ArrayList<>(lines.keySet());
+        Collections.sort(keys);
+        Comparator<TextChunk> lineComparator = new TextChunkComparator(new TextChunkLocationComparator(!rightToLeftRunDirection));
+
+        List<TextChunk> ordered = new ArrayList<>(textChunks.size() - excludedChunks.size());
+        for (Long key : keys) {
+            TextChunkLine line = lines.get(key);
+            int lineStart = ordered.size();
+            ordered.addAll(line.chunks);
+            if (!line.isInOrder(rightToLeftRunDirection)) {
+                Collections.sort(ordered.subList(lineStart, ordered.size()), lineComparator);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Groups the indices of the chunks that are not marks by their perpendicular distance, in ascending order.
+     */
+    private static Map<Integer, List<Integer>> groupBasesByDistPerpendicular(List<TextChunk> textChunks) {
+        Map<Integer, List<Integer>> bases = new HashMap<>();
+        for (int baseInd = 0; baseInd < textChunks.size(); baseInd++) {
+            ITextChunkLocation baseLocation = textChunks.get(baseInd).getLocation();
+            if (!baseLocation.getStartLocation().equals(baseLocation.getEndLocation())) {
+                List<Integer> sameDistBases = bases.get(baseLocation.distPerpendicular());
+                if (sameDistBases == null) {
+                    sameDistBases = new ArrayList<>();
+                    bases.put(baseLocation.distPerpendicular(), sameDistBases);
+                }
+                sameDistBases.add(baseInd);
+            }
+        }
+        return bases;
+    }
+
+    /**
+     * Finds the first chunk the mark may be attached to. Only the chunks within the allowed vertical deviation
+     * of the mark are examined.
+     *
+     * @return the index of the chunk, or -1 if there is none
+     */
+    private int findBaseToAttachTo(List<TextChunk> textChunks, Map<Integer, List<Integer>> basesByDistPerpendicular, ITextChunkLocation markLocation) {
+        int deviation = (int) DIACRITICAL_MARKS_ALLOWED_VERTICAL_DEVIATION;
+        int baseToAttachTo = -1;
+        for (int distPerpendicular = markLocation.distPerpendicular() - deviation; distPerpendicular <= markLocation.distPerpendicular() + deviation; distPerpendicular++) {
+            List<Integer> sameDistBases = basesByDistPerpendicular.get(distPerpendicular);
+            if (sameDistBases != null) {
+                for (int baseInd : sameDistBases) {
+                    if (baseToAttachTo >= 0 && baseInd > baseToAttachTo) {
+                        break;
+                    }
+                    if (containsMark(textChunks.get(baseInd).getLocation(), markLocation)) {
+                        baseToAttachTo = baseInd;
+                        break;
+                    }
+                }
+            }
+        }
+        return baseToAttachTo;
+    }
+
     private boolean containsMark(ITextChunkLocation baseLocation, ITextChunkLocation markLocation) {
         return baseLocation.getStartLocation().get(Vector.I1) <= markLocation.getStartLocation().get(Vector.I1) && baseLocation.getEndLocation().get(Vector.I1) >= markLocation.getEndLocation().get(Vector.I1) &&
                 Math.abs(baseLocation.distPerpendicular() - markLocation.distPerpendicular()) <= DIACRITICAL_MARKS_ALLOWED_VERTICAL_DEVIATION;
@@ -437,10 +532,6 @@ public class LocationTextExtractionStrategy implements ITextExtractionStrategy {
          * the ending location of the chunk
          */
         private final Vector endLocation;
-        /**
-         * unit vector in the orientation of the chunk
-         */
-        private final Vector orientationVector;
         /**
          * the orientation as a scalar for quick sorting
          */
@@ -472,7 +563,8 @@ public class LocationTextExtractionStrategy implements ITextExtractionStrategy {
             if (oVector.length() == 0) {
                 oVector = new Vector(1, 0, 0);
             }
-            orientationVector = oVector.normalize();
+            // unit vector in the orientation of the chunk, only needed to compute the distances, so it is not kept
+            Vector orientationVector = oVector.normalize();
             orientationMagnitude = (int) (Math.atan2(orientationVector.get(Vector.I2), orientationVector.get(Vector.I1)) * 1000);
 
             // see http://mathworld.wolfram.com/Point-LineDistance2-Dimensional.html
@@ -633,4 +725,28 @@ public class LocationTextExtractionStrategy implements ITextExtractionStrategy {
         List<TextChunk> succeeding = new ArrayList<>();
     }
 
+    /**
+     * Chunks sharing orientation and perpendicular distance, kept in the order they were found. Tracks whether
+     * that order is already the reading order, which is the usual case, so that sorting can be skipped.
+     */
+    private static class TextChunkLine {
+        final List<TextChunk> chunks = new ArrayList<>();
+        boolean leftToRightOrdered = true;
+        boolean rightToLeftOrdered = true;
+
+        void add(TextChunk chunk) {
+            if (!chunks.isEmpty()) {
+                ITextChunkLocation last = chunks.get(chunks.size() - 1).getLocation();
+                ITextChunkLocation location = chunk.getLocation();
+                leftToRightOrdered = leftToRightOrdered && Float.compare(last.distParallelStart(), location.distParallelStart()) <= 0;
+                rightToLeftOrdered = rightToLeftOrdered && Float.compare(last.distParallelEnd(), location.distParallelEnd()) >= 0;
+            }
+            chunks.add(chunk);
+        }
+
+        boolean isInOrder(boolean rightToLeft) {
+            return rightToLeft ? rightToLeftOrdered : leftToRightOrdered;
+        }
+    }
+
 }
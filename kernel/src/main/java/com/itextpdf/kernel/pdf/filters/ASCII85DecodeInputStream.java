@@ -0,0 +1,166 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.kernel.PdfException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes ASCII85 data while the underlying stream is read.
+ *
+ * @see ASCII85DecodeFilter#ASCII85Decode(byte[])
+ */
+class ASCII85DecodeInputStream extends FilterInputStream {
+
+    private final int[] chn = new int[5];
+    private final byte[] decoded = new byte[4];
+    private int decodedLength;
+    private int decodedPosition;
+    private int state;
+    private boolean finished;
+
+    ASCII85DecodeInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (decodedPosition >= decodedLength) {
+            if (finished) {
+                return -1;
+            }
+            decodeNext();
+        }
+        return decoded[decodedPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            int ch = read();
+            if (ch < 0) {
+                return n == 0 ? -1 : n;
+            }
+            b[off + n++] = (byte) ch;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && read() >= 0) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return decodedLength - decodedPosition;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void decodeNext() throws IOException {
+        decodedPosition = 0;
+        decodedLength = 0;
+        int ch = in.read();
+        if (ch < 0 || ch == '~') {
+            finish();
+            return;
+        }
+        if (PdfTokenizer.isWhitespace(ch))
+            return;
+        if (ch == 'z' && state == 0) {
+            decoded[0] = 0;
+            decoded[1] = 0;
+            decoded[2] = 0;
+            decoded[3] = 0;
+            decodedLength = 4;
+            return;
+        }
+        if (ch < '!' || ch > 'u')
+            throw new PdfException(PdfException.IllegalCharacterInAscii85decode);
+        chn[state] = ch - '!';
+        ++state;
+        if (state == 5) {
+            state = 0;
+            int r = 0;
+            for (int j = 0; j < 5; ++j)
+                r = r * 85 + chn[j];
+            writeDecoded(r, 4);
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        if (state == 2) {
+            int r = chn[0] * 85 * 85 * 85 * 85 + chn[1] * 85 * 85 * 85 + 85 * 85 * 85  + 85 * 85 + 85;
+            writeDecoded(r, 1);
+        } else if (state == 3) {
+            int r = chn[0] * 85 * 85 * 85 * 85 + chn[1] * 85 * 85 * 85  + chn[2] * 85 * 85 + 85 * 85 + 85;
+            writeDecoded(r, 2);
+        } else if (state == 4) {
+            int r = chn[0] * 85 * 85 * 85 * 85 + chn[1] * 85 * 85 * 85  + chn[2] * 85 * 85  + chn[3] * 85 + 85;
+            writeDecoded(r, 3);
+        }
+        state = 0;
+    }
+
+    private void writeDecoded(int r, int length) {
+        decoded[0] = (byte) (r >> 24);
+        decoded[1] = (byte) (r >> 16);
+        decoded[2] = (byte) (r >> 8);
+        decoded[3] = (byte) r;
+        decodedLength = length;
+    }
+}
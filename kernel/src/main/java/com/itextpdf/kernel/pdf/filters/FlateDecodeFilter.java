@@ -43,32 +43,33 @@
  */
 package com.itextpdf.kernel.pdf.filters;
 
+import com.itextpdf.io.util.FilterUtil;
 import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfNumber;
 import com.itextpdf.kernel.pdf.PdfObject;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.IOException;
-import java.util.zip.InflaterInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
 
 /**
  * Handles FlateDecode filter.
  */
-public class FlateDecodeFilter implements IFilterHandler {
+public class FlateDecodeFilter implements IStreamingFilterHandler {
 
     @Override
     public byte[] decode(byte[] b, PdfName filterName, PdfObject decodeParams, PdfDictionary streamDictionary) {
-        byte[] res = flateDecode(b, true);
-        if (res == null)
-            res = flateDecode(b, false);
-        b = decodePredictor(res, decodeParams);
+        byte[] res = FilterUtil.flateDecode(b, false, getDecodedLengthHint(decodeParams, streamDictionary));
+        b = decodePredictor(res, decodeParams, true);
         return b;
     }
 
+    @Override
+    public InputStream decodeStream(InputStream encoded, PdfName filterName, PdfObject decodeParams, PdfDictionary streamDictionary) {
+        return decodePredictorStream(new FlateDecodeInputStream(encoded), decodeParams);
+    }
+
     /**
      * A helper to flateDecode.
      *
@@ -77,32 +78,46 @@ public class FlateDecodeFilter implements IFilterHandler {
      * @return the decoded data
      */
     public static byte[] flateDecode(byte[] in, boolean strict) {
-        ByteArrayInputStream stream = new ByteArrayInputStream(in);
-        InflaterInputStream zip = new InflaterInputStream(stream);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        byte[] b = new byte[strict ? 4092 : 1];
-        try {
-            int n;
-            while ((n = zip.read(b)) >= 0) {
-                out.write(b, 0, n);
-            }
-            zip.close();
-            out.close();
-            return out.toByteArray();
+        return FilterUtil.flateDecode(in, strict);
+    }
+
+    /**
+     * Gets the length of the decoded data from the /DL entry of the stream dictionary. The entry is
+     * the length of the data after all the filters are applied, so it is used only if FlateDecode is the only filter.
+     *
+     * @return the expected length of the inflated data or -1 if it is unknown
+     */
+    private static int getDecodedLengthHint(PdfObject decodeParams, PdfDictionary streamDictionary) {
+        if (streamDictionary == null || (decodeParams != null && decodeParams.getType() != PdfObject.NULL)) {
+            return -1;
         }
-        catch (Exception e) {
-            if (strict)
-                return null;
-            return out.toByteArray();
+        PdfNumber decodedLength = streamDictionary.getAsNumber(PdfName.DL);
+        if (decodedLength == null || !PdfName.FlateDecode.equals(streamDictionary.get(PdfName.Filter))) {
+            return -1;
         }
+        return decodedLength.intValue();
     }
 
     /**
+     * Decodes the predictor given in the decode parameters. The input array is not modified.
+     *
      * @param in Input byte array.
      * @param decodeParams PdfDictionary of decodeParams.
      * @return a byte array
      */
     public static byte[] decodePredictor(byte[] in, PdfObject decodeParams) {
+        return decodePredictor(in, decodeParams, false);
+    }
+
+    /**
+     * Decodes the predictor given in the decode parameters.
+     *
+     * @param in Input byte array.
+     * @param decodeParams PdfDictionary of decodeParams.
+     * @param inPlace {@code true} to decode the data in the input array, which is then overwritten.
+     * @return a byte array
+     */
+    static byte[] decodePredictor(byte[] in, PdfObject decodeParams, boolean inPlace) {
         if (decodeParams == null || decodeParams.getType() != PdfObject.DICTIONARY)
             return in;
         PdfDictionary dic = (PdfDictionary)decodeParams;
@@ -124,14 +139,13 @@ public class FlateDecodeFilter implements IFilterHandler {
         obj = dic.get(PdfName.BitsPerComponent);
         if (obj != null && obj.getType() == PdfObject.NUMBER)
             bpc = ((PdfNumber)obj).intValue();
-        DataInputStream dataStream = new DataInputStream(new ByteArrayInputStream(in));
-        ByteArrayOutputStream fout = new ByteArrayOutputStream(in.length);
         int bytesPerPixel = colors * bpc / 8;
         int bytesPerRow = (colors * width * bpc + 7)/8;
-        byte[] curr = new byte[bytesPerRow];
-        byte[] prior = new byte[bytesPerRow];
         if (predictor == 2) {
             if (bpc == 8) {
+                if (!inPlace) {
+                    in = Arrays.copyOf(in, in.length);
+                }
                 int numRows = in.length / bytesPerRow;
                 for (int row = 0; row < numRows; row++) {
                     int rowStart = row * bytesPerRow;
@@ -142,84 +156,164 @@ public class FlateDecodeFilter implements IFilterHandler {
             }
             return in;
         }
-        // Decode the (sub)image row-by-row
-        while (true) {
-            // Read the filter type byte and a row of data
-            int filter;
-            try {
-                filter = dataStream.read();
-                if (filter < 0) {
-                    return fout.toByteArray();
-                }
-                dataStream.readFully(curr, 0, bytesPerRow);
-            } catch (Exception e) {
-                return fout.toByteArray();
+        // Decode the (sub)image row-by-row. Each row is moved to its final position, over the filter type bytes
+        // of the previous rows when decoding in place, and decoded there, the previous decoded row being the prior one.
+        // An incomplete last row is dropped.
+        int numRows = in.length / (bytesPerRow + 1);
+        byte[] out = inPlace ? in : new byte[numRows * bytesPerRow];
+        byte[] zeroRow = new byte[bytesPerRow];
+        for (int row = 0; row < numRows; row++) {
+            int rowStart = row * bytesPerRow;
+            int filter = in[rowStart + row] & 0xff;
+            System.arraycopy(in, rowStart + row + 1, out, rowStart, bytesPerRow);
+            if (row == 0) {
+                decodePngRow(filter, out, rowStart, zeroRow, 0, bytesPerPixel, bytesPerRow);
+            } else {
+                decodePngRow(filter, out, rowStart, out, rowStart - bytesPerRow, bytesPerPixel, bytesPerRow);
             }
+        }
+        return out.length == numRows * bytesPerRow ? out : Arrays.copyOf(out, numRows * bytesPerRow);
+    }
+
+    /**
+     * Reverts the PNG filtering of a single row.
+     *
+     * @param filter the PNG filter type of the row
+     * @param curr the filtered row, which is decoded in place
+     * @param prior the previous decoded row, filled with zeros for the first row
+     * @param bytesPerPixel number of bytes per complete pixel
+     * @param bytesPerRow number of bytes in a row
+     */
+    static void decodePngRow(int filter, byte[] curr, byte[] prior, int bytesPerPixel, int bytesPerRow) {
+        decodePngRow(filter, curr, 0, prior, 0, bytesPerPixel, bytesPerRow);
+    }
 
-            switch (filter) {
-                case 0: //PNG_FILTER_NONE
-                    break;
-                case 1: //PNG_FILTER_SUB
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
+    /**
+     * Reverts the PNG filtering of a single row, which is stored in a larger buffer.
+     * The rows with one byte per pixel, e.g. of cross-reference streams and grayscale images,
+     * are decoded with dedicated loops, which keep the left pixel in a local variable.
+     *
+     * @param filter the PNG filter type of the row
+     * @param curr the buffer with the filtered row, which is decoded in place
+     * @param currOffset the offset of the row in {@code curr}
+     * @param prior the buffer with the previous decoded row
+     * @param priorOffset the offset of the previous row in {@code prior}
+     * @param bytesPerPixel number of bytes per complete pixel
+     * @param bytesPerRow number of bytes in a row
+     */
+    static void decodePngRow(int filter, byte[] curr, int currOffset, byte[] prior, int priorOffset, int bytesPerPixel, int bytesPerRow) {
+        int rowEnd = currOffset + bytesPerRow;
+        int priorShift = priorOffset - currOffset;
+        switch (filter) {
+            case 0: //PNG_FILTER_NONE
+                break;
+            case 1: //PNG_FILTER_SUB
+                if (bytesPerPixel == 1) {
+                    if (bytesPerRow > 0) {
+                        byte left = curr[currOffset];
+                        for (int i = currOffset + 1; i < rowEnd; i++) {
+                            left += curr[i];
+                            curr[i] = left;
+                        }
+                    }
+                } else {
+                    for (int i = currOffset + bytesPerPixel; i < rowEnd; i++) {
                         curr[i] += curr[i - bytesPerPixel];
                     }
-                    break;
-                case 2: //PNG_FILTER_UP
-                    for (int i = 0; i < bytesPerRow; i++) {
-                        curr[i] += prior[i];
+                }
+                break;
+            case 2: //PNG_FILTER_UP
+                for (int i = currOffset; i < rowEnd; i++) {
+                    curr[i] += prior[i + priorShift];
+                }
+                break;
+            case 3: //PNG_FILTER_AVERAGE
+                if (bytesPerPixel == 1) {
+                    int left = 0;
+                    for (int i = currOffset; i < rowEnd; i++) {
+                        left = (curr[i] + ((left + (prior[i + priorShift] & 0xff)) >> 1)) & 0xff;
+                        curr[i] = (byte) left;
                     }
-                    break;
-                case 3: //PNG_FILTER_AVERAGE
-                    for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += (byte) (prior[i] / 2);
+                } else {
+                    for (int i = currOffset; i < currOffset + bytesPerPixel && i < rowEnd; i++) {
+                        curr[i] += (byte) ((prior[i + priorShift] & 0xff) >> 1);
                     }
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        curr[i] += (byte) (((curr[i - bytesPerPixel] & 0xff) + (prior[i] & 0xff))/2);
+                    for (int i = currOffset + bytesPerPixel; i < rowEnd; i++) {
+                        curr[i] += (byte) (((curr[i - bytesPerPixel] & 0xff) + (prior[i + priorShift] & 0xff)) >> 1);
                     }
-                    break;
-                case 4: //PNG_FILTER_PAETH
-                    for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += prior[i];
+                }
+                break;
+            case 4: //PNG_FILTER_PAETH
+                if (bytesPerPixel == 1) {
+                    int a = 0;
+                    int c = 0;
+                    for (int i = currOffset; i < rowEnd; i++) {
+                        int b = prior[i + priorShift] & 0xff;
+                        a = (curr[i] + paethPredictor(a, b, c)) & 0xff;
+                        curr[i] = (byte) a;
+                        c = b;
                     }
-
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        int a = curr[i - bytesPerPixel] & 0xff;
-                        int b = prior[i] & 0xff;
-                        int c = prior[i - bytesPerPixel] & 0xff;
-
-                        int p = a + b - c;
-                        int pa = Math.abs(p - a);
-                        int pb = Math.abs(p - b);
-                        int pc = Math.abs(p - c);
-
-                        int ret;
-
-                        if (pa <= pb && pa <= pc) {
-                            ret = a;
-                        } else if (pb <= pc) {
-                            ret = b;
-                        } else {
-                            ret = c;
-                        }
-                        curr[i] += (byte)ret;
+                } else {
+                    for (int i = currOffset; i < currOffset + bytesPerPixel && i < rowEnd; i++) {
+                        curr[i] += prior[i + priorShift];
                     }
-                    break;
-                default:
-                    // Error -- unknown filter type
-                    throw new PdfException(PdfException.PngFilterUnknown);
-            }
-            try {
-                fout.write(curr);
-            }
-            catch (IOException ioe) {
-                // Never happens
-                assert true: "Happens!";
-            }
+                    for (int i = currOffset + bytesPerPixel; i < rowEnd; i++) {
+                        curr[i] += (byte) paethPredictor(curr[i - bytesPerPixel] & 0xff, prior[i + priorShift] & 0xff,
+                                prior[i + priorShift - bytesPerPixel] & 0xff);
+                    }
+                }
+                break;
+            default:
+                // Error -- unknown filter type
+                throw new PdfException(PdfException.PngFilterUnknown);
+        }
+    }
 
-            // Swap curr and prior
-            byte[] tmp = prior;
-            prior = curr;
-            curr = tmp;
+    private static int paethPredictor(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        } else if (pb <= pc) {
+            return b;
+        } else {
+            return c;
         }
     }
+
+    /**
+     * Wraps the stream with a stream which reverts the predictor specified in decodeParams.
+     *
+     * @param in the stream of predicted data
+     * @param decodeParams PdfDictionary of decodeParams.
+     * @return the stream of decoded data, or the same stream if no predictor is used
+     */
+    static InputStream decodePredictorStream(InputStream in, PdfObject decodeParams) {
+        if (decodeParams == null || decodeParams.getType() != PdfObject.DICTIONARY)
+            return in;
+        PdfDictionary dic = (PdfDictionary)decodeParams;
+        PdfObject obj = dic.get(PdfName.Predictor);
+        if (obj == null || obj.getType() != PdfObject.NUMBER)
+            return in;
+        int predictor = ((PdfNumber)obj).intValue();
+        if (predictor < 10 && predictor != 2)
+            return in;
+        int width = 1;
+        obj = dic.get(PdfName.Columns);
+        if (obj != null && obj.getType() == PdfObject.NUMBER)
+            width = ((PdfNumber)obj).intValue();
+        int colors = 1;
+        obj = dic.get(PdfName.Colors);
+        if (obj != null && obj.getType() == PdfObject.NUMBER)
+            colors = ((PdfNumber)obj).intValue();
+        int bpc = 8;
+        obj = dic.get(PdfName.BitsPerComponent);
+        if (obj != null && obj.getType() == PdfObject.NUMBER)
+            bpc = ((PdfNumber)obj).intValue();
+        if (predictor == 2 && bpc != 8)
+            return in;
+        return new PredictorDecodeInputStream(in, predictor, colors * bpc / 8, (colors * width * bpc + 7) / 8);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.io.util.FilterUtil;
+import com.itextpdf.io.util.ZlibPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a FlateDecode stream. Corrupted data is handled like in
+ * {@link FlateDecodeFilter#flateDecode(byte[], boolean)} in non-strict mode: the bytes decoded
+ * before the error are returned and the error is treated as the end of the stream. As the output
+ * of the failed inflate call is lost, the deflated data read so far is kept to inflate it again
+ * with {@link FilterUtil#inflateUpToError(byte[], int, int, long)}, so this stream holds as much
+ * memory as the deflated data. Truncated data ends the stream too, but the errors of the underlying
+ * stream are rethrown.
+ */
+class FlateDecodeInputStream extends InflaterInputStream {
+
+    private final ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+    private long decodedLength;
+    private byte[] recovered;
+    private int recoveredPos;
+    private boolean truncated;
+    private boolean inflaterReleased;
+
+    FlateDecodeInputStream(InputStream in) {
+        super(in, ZlibPool.acquireInflater(), 4096);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (recovered != null) {
+            if (recoveredPos == recovered.length) {
+                return -1;
+            }
+            int n = Math.min(len, recovered.length - recoveredPos);
+            System.arraycopy(recovered, recoveredPos, b, off, n);
+            recoveredPos += n;
+            return n;
+        }
+        if (inflaterReleased) {
+            return -1;
+        }
+        try {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                decodedLength += n;
+            }
+            return n;
+        } catch (ZipException e) {
+            recovered = FilterUtil.inflateUpToError(deflated.toByteArray(), 0, deflated.size(), decodedLength);
+            return read(b, off, len);
+        } catch (EOFException e) {
+            if (!truncated) {
+                throw e;
+            }
+            recovered = new byte[0];
+            return -1;
+        }
+    }
+
+    @Override
+    protected void fill() throws IOException {
+        len = in.read(buf, 0, buf.length);
+        if (len == -1) {
+            truncated = true;
+            throw new EOFException("Unexpected end of ZLIB input stream");
+        }
+        deflated.write(buf, 0, len);
+        inf.setInput(buf, 0, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!inflaterReleased) {
+            inflaterReleased = true;
+            ZlibPool.releaseInflater(inf);
+        }
+        super.close();
+    }
+}
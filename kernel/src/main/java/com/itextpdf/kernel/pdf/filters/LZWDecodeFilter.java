@@ -48,19 +48,25 @@ import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfObject;
 
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 
 /**
  * Handles LZWDECODE filter
  */
-public class LZWDecodeFilter implements IFilterHandler {
+public class LZWDecodeFilter implements IStreamingFilterHandler {
 
     @Override
     public byte[] decode(byte[] b, PdfName filterName, PdfObject decodeParams, PdfDictionary streamDictionary) {
         b = LZWDecode(b);
-        b = FlateDecodeFilter.decodePredictor(b, decodeParams);
+        b = FlateDecodeFilter.decodePredictor(b, decodeParams, true);
         return b;
     }
 
+    @Override
+    public InputStream decodeStream(InputStream encoded, PdfName filterName, PdfObject decodeParams, PdfDictionary streamDictionary) {
+        return FlateDecodeFilter.decodePredictorStream(new LZWDecodeInputStream(encoded), decodeParams);
+    }
+
     /**
      * Decodes a byte[] according to the LZW encoding.
      *
@@ -0,0 +1,225 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.kernel.PdfException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes LZW data while the underlying stream is read.
+ *
+ * @see LZWDecoder
+ */
+class LZWDecodeInputStream extends FilterInputStream {
+
+    private static final int[] andTable = {
+            511,
+            1023,
+            2047,
+            4095
+    };
+
+    private byte[][] stringTable;
+    private int tableIndex;
+    private int bitsToGet = 9;
+    private int nextData;
+    private int nextBits;
+    private int oldCode;
+
+    private int[] header;
+    private int headerPosition;
+
+    private byte[] string;
+    private int stringPosition;
+    private boolean finished;
+
+    LZWDecodeInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (string == null || stringPosition >= string.length) {
+            if (finished || !nextString()) {
+                return -1;
+            }
+        }
+        return string[stringPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < len) {
+            while (string == null || stringPosition >= string.length) {
+                if (finished || !nextString()) {
+                    return n == 0 ? -1 : n;
+                }
+            }
+            int count = Math.min(len - n, string.length - stringPosition);
+            System.arraycopy(string, stringPosition, b, off + n, count);
+            stringPosition += count;
+            n += count;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && read() >= 0) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return string == null ? 0 : string.length - stringPosition;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private boolean nextString() throws IOException {
+        if (stringTable == null) {
+            header = new int[] {in.read(), in.read()};
+            if (header[0] == 0x00 && header[1] == 0x01) {
+                throw new PdfException(PdfException.LzwFlavourNotSupported);
+            }
+            initializeStringTable();
+        }
+        int code = getNextCode();
+        if (code == 257) {
+            finished = true;
+            return false;
+        }
+        if (code == 256) {
+            initializeStringTable();
+            code = getNextCode();
+            if (code == 257) {
+                finished = true;
+                return false;
+            }
+            string = stringTable[code];
+        } else if (code < tableIndex) {
+            string = stringTable[code];
+            addStringToTable(composeString(stringTable[oldCode], string[0]));
+        } else {
+            string = composeString(stringTable[oldCode], stringTable[oldCode][0]);
+            addStringToTable(string);
+        }
+        oldCode = code;
+        stringPosition = 0;
+        return true;
+    }
+
+    private void initializeStringTable() {
+        stringTable = new byte[8192][];
+        for (int i = 0; i < 256; i++) {
+            stringTable[i] = new byte[] {(byte) i};
+        }
+        tableIndex = 258;
+        bitsToGet = 9;
+    }
+
+    private void addStringToTable(byte[] string) {
+        stringTable[tableIndex++] = string;
+        if (tableIndex == 511) {
+            bitsToGet = 10;
+        } else if (tableIndex == 1023) {
+            bitsToGet = 11;
+        } else if (tableIndex == 2047) {
+            bitsToGet = 12;
+        }
+    }
+
+    private static byte[] composeString(byte[] oldString, byte newString) {
+        int length = oldString.length;
+        byte[] string = new byte[length + 1];
+        System.arraycopy(oldString, 0, string, 0, length);
+        string[length] = newString;
+        return string;
+    }
+
+    /**
+     * Gets the next 9, 10, 11 or 12 bits. A missing EndOfInformation code at the end of the data
+     * is tolerated the same way {@link LZWDecoder#getNextCode()} does.
+     */
+    private int getNextCode() throws IOException {
+        int b = nextByte();
+        if (b < 0) {
+            return 257;
+        }
+        nextData = (nextData << 8) | b;
+        nextBits += 8;
+
+        if (nextBits < bitsToGet) {
+            b = nextByte();
+            if (b < 0) {
+                return 257;
+            }
+            nextData = (nextData << 8) | b;
+            nextBits += 8;
+        }
+
+        int code = (nextData >> (nextBits - bitsToGet)) & andTable[bitsToGet - 9];
+        nextBits -= bitsToGet;
+        return code;
+    }
+
+    private int nextByte() throws IOException {
+        if (headerPosition < header.length) {
+            return header[headerPosition++];
+        }
+        return in.read();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reverts TIFF (2) or PNG (10 and higher) predictors row by row while the underlying stream is read.
+ * Only two rows are kept in memory at any time.
+ */
+class PredictorDecodeInputStream extends FilterInputStream {
+
+    private final int predictor;
+    private final int bytesPerPixel;
+    private final int bytesPerRow;
+
+    private byte[] curr;
+    private byte[] prior;
+    private int rowLength;
+    private int rowPosition;
+    private boolean finished;
+
+    PredictorDecodeInputStream(InputStream in, int predictor, int bytesPerPixel, int bytesPerRow) {
+        super(in);
+        this.predictor = predictor;
+        this.bytesPerPixel = bytesPerPixel;
+        this.bytesPerRow = bytesPerRow;
+        this.curr = new byte[bytesPerRow];
+        this.prior = new byte[bytesPerRow];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRow()) {
+            return -1;
+        }
+        return curr[rowPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRow()) {
+            return -1;
+        }
+        int n = Math.min(len, rowLength - rowPosition);
+        System.arraycopy(curr, rowPosition, b, off, n);
+        rowPosition += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && ensureRow()) {
+            int step = (int) Math.min(n - skipped, rowLength - rowPosition);
+            rowPosition += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return rowLength - rowPosition;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private boolean ensureRow() throws IOException {
+        while (rowPosition >= rowLength) {
+            if (finished) {
+                return false;
+            }
+            if (predictor == 2) {
+                readTiffRow();
+            } else {
+                readPngRow();
+            }
+        }
+        return true;
+    }
+
+    private void readTiffRow() throws IOException {
+        int n = readFully(curr);
+        rowPosition = 0;
+        rowLength = n;
+        if (n == 0 || n < bytesPerRow) {
+            // Trailing incomplete row is passed as is
+            finished = true;
+            return;
+        }
+        for (int col = bytesPerPixel; col < bytesPerRow; col++) {
+            curr[col] = (byte) (curr[col] + curr[col - bytesPerPixel]);
+        }
+    }
+
+    private void readPngRow() throws IOException {
+        // Swap curr and prior
+        byte[] tmp = prior;
+        prior = curr;
+        curr = tmp;
+        rowPosition = 0;
+        rowLength = 0;
+
+        int filter = in.read();
+        if (filter < 0 || readFully(curr) < bytesPerRow) {
+            // Incomplete rows are dropped
+            finished = true;
+            return;
+        }
+        FlateDecodeFilter.decodePngRow(filter, curr, prior, bytesPerPixel, bytesPerRow);
+        rowLength = bytesPerRow;
+    }
+
+    private int readFully(byte[] row) throws IOException {
+        int total = 0;
+        while (total < row.length) {
+            int n = in.read(row, total, row.length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
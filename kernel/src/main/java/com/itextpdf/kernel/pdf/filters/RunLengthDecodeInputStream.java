@@ -0,0 +1,155 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes RunLength data while the underlying stream is read.
+ */
+class RunLengthDecodeInputStream extends FilterInputStream {
+
+    private boolean literal;
+    private int runValue;
+    private int runRemaining;
+    private boolean finished;
+
+    RunLengthDecodeInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (runRemaining == 0) {
+            if (finished || !nextRun()) {
+                return -1;
+            }
+        }
+        runRemaining--;
+        if (literal) {
+            int ch = in.read();
+            if (ch < 0) {
+                finished = true;
+                runRemaining = 0;
+            }
+            return ch;
+        }
+        return runValue;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < len) {
+            while (runRemaining == 0) {
+                if (finished || !nextRun()) {
+                    return n == 0 ? -1 : n;
+                }
+            }
+            int count = Math.min(len - n, runRemaining);
+            if (literal) {
+                int read = in.read(b, off + n, count);
+                if (read < 0) {
+                    finished = true;
+                    runRemaining = 0;
+                    return n == 0 ? -1 : n;
+                }
+                count = read;
+            } else {
+                for (int i = 0; i < count; i++) {
+                    b[off + n + i] = (byte) runValue;
+                }
+            }
+            n += count;
+            runRemaining -= count;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && read() >= 0) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return literal ? 0 : runRemaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private boolean nextRun() throws IOException {
+        int dupCount = in.read();
+        // 128 is implicit end of data
+        if (dupCount < 0 || dupCount == 0x80) {
+            finished = true;
+            return false;
+        }
+        if (dupCount < 0x80) {
+            literal = true;
+            runRemaining = dupCount + 1;
+        } else {
+            int value = in.read();
+            if (value < 0) {
+                finished = true;
+                return false;
+            }
+            literal = false;
+            runValue = value;
+            runRemaining = 257 - dupCount;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,334 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.xobject;
+
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.io.source.DeflaterOutputStream;
+import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.io.util.UrlUtil;
+import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of image XObjects, which can be shared by any number of documents, also across threads.
+ * <br><br>
+ * Images are identified by the digest of their bytes and the parameters they are converted with.
+ * On the first request the image is parsed and converted as usual and its streams are compressed,
+ * so that the cache keeps the encoded stream bytes and dictionary entries ready to be written.
+ * Every request returns a new {@link PdfImageXObject}, which is a copy of the cached one and can be added
+ * to a single document, so any subsequent request only copies bytes.
+ * <br><br>
+ * The cache may be bounded by the size of the cached stream bytes. When the limit is exceeded,
+ * the least recently used image XObjects are evicted.
+ */
+public class ImageXObjectCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final long IMAGE_XOBJECT_SIZE_ESTIMATE = 1024;
+
+    private final long maxSize;
+    private long size;
+
+    private final Map<ImageKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache without the size limit.
+     */
+    public ImageXObjectCache() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache which keeps the size of the cached image XObjects under the limit.
+     * @param maxSize the maximum size in bytes
+     */
+    public ImageXObjectCache(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the image XObject for the image bytes.
+     * @param imageBytes the bytes of the image in any of the formats supported by {@link ImageDataFactory}
+     * @return a new {@link PdfImageXObject}, which is not yet added to any document
+     */
+    public PdfImageXObject getImageXObject(byte[] imageBytes) {
+        return getImageXObject(imageBytes, false);
+    }
+
+    /**
+     * Gets the image XObject for the image bytes.
+     * @param imageBytes   the bytes of the image in any of the formats supported by {@link ImageDataFactory}
+     * @param recoverImage whether to recover from a image error (for TIFF-images)
+     * @return a new {@link PdfImageXObject}, which is not yet added to any document
+     */
+    public PdfImageXObject getImageXObject(byte[] imageBytes, boolean recoverImage) {
+        ImageKey key = new ImageKey(digest(imageBytes), recoverImage);
+        PdfImageXObject imageXObject = get(key);
+        if (imageXObject == null) {
+            imageXObject = put(key, createImageXObject(imageBytes, recoverImage));
+        }
+        return imageXObject.copyUnattached();
+    }
+
+    /**
+     * Gets the image XObject for the image located at the url. The image bytes are read on every call
+     * in order to compute their digest.
+     * @param url location of the image
+     * @return a new {@link PdfImageXObject}, which is not yet added to any document
+     * @throws IOException if the image can not be read
+     */
+    public PdfImageXObject getImageXObject(URL url) throws IOException {
+        InputStream stream = UrlUtil.openStream(url);
+        try {
+            return getImageXObject(StreamUtil.inputStreamToArray(stream));
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Removes all image XObjects from the cache and resets the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * @return the maximum size of the cached image XObjects in bytes
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the estimated size of the cached image XObjects in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of the cached image XObjects
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of requests which found an image XObject in the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of requests which had to create an image XObject
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of image XObjects which were evicted because the size limit was exceeded
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Creates the image XObject for the image bytes which are not found in the cache.
+     * The streams of the returned image XObject are compressed before it is cached.
+     * @param imageBytes   the bytes of the image
+     * @param recoverImage whether to recover from a image error (for TIFF-images)
+     * @return the created image XObject
+     */
+    protected PdfImageXObject createImageXObject(byte[] imageBytes, boolean recoverImage) {
+        return new PdfImageXObject(ImageDataFactory.create(imageBytes, recoverImage));
+    }
+
+    private synchronized PdfImageXObject get(ImageKey key) {
+        CacheEntry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            return entry.imageXObject;
+        }
+        misses++;
+        return null;
+    }
+
+    private PdfImageXObject put(ImageKey key, PdfImageXObject imageXObject) {
+        // compressing is done outside of the lock, the cached streams are never modified afterwards
+        long imageSize = IMAGE_XOBJECT_SIZE_ESTIMATE + compressStreams(imageXObject.getPdfObject());
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                return entry.imageXObject;
+            }
+            entry = new CacheEntry(imageXObject, imageSize);
+            entries.put(key, entry);
+            size += entry.size;
+            Iterator<Map.Entry<ImageKey, CacheEntry>> iterator = entries.entrySet().iterator();
+            // the just added image XObject is always kept, even if it exceeds the limit by itself
+            while (size > maxSize && entries.size() > 1) {
+                Map.Entry<ImageKey, CacheEntry> eldest = iterator.next();
+                iterator.remove();
+                size -= eldest.getValue().size;
+                evictions++;
+            }
+            return imageXObject;
+        }
+    }
+
+    /**
+     * Compresses all the streams of the object which have no filter, the same way they would be compressed
+     * when written with the default compression level.
+     * @return the total length of the stream bytes
+     */
+    private static long compressStreams(PdfObject object) {
+        long length = 0;
+        if (object.isStream()) {
+            PdfStream stream = (PdfStream) object;
+            byte[] bytes = stream.getBytes(false);
+            if (!stream.containsKey(PdfName.Filter) && stream.getCompressionLevel() != CompressionConstants.NO_COMPRESSION) {
+                bytes = deflate(bytes);
+                stream.setData(bytes);
+                stream.put(PdfName.Filter, PdfName.FlateDecode);
+            }
+            length += bytes.length;
+        }
+        if (object.isStream() || object.isDictionary()) {
+            for (PdfObject value : ((PdfDictionary) object).values()) {
+                length += compressStreams(value);
+            }
+        } else if (object.isArray()) {
+            for (PdfObject value : (PdfArray) object) {
+                length += compressStreams(value);
+            }
+        }
+        return length;
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DeflaterOutputStream zip = new DeflaterOutputStream(stream, CompressionConstants.DEFAULT_COMPRESSION);
+        try {
+            zip.write(bytes);
+            zip.close();
+        } catch (IOException e) {
+            throw new PdfException(PdfException.IoException, e);
+        }
+        return stream.toByteArray();
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new PdfException(PdfException.UnknownHashAlgorithm1, e).setMessageParams(DIGEST_ALGORITHM);
+        }
+    }
+
+    private static class ImageKey {
+        private final byte[] digest;
+        private final boolean recoverImage;
+
+        ImageKey(byte[] digest, boolean recoverImage) {
+            this.digest = digest;
+            this.recoverImage = recoverImage;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ImageKey that = (ImageKey) o;
+            return recoverImage == that.recoverImage && Arrays.equals(digest, that.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(digest) + (recoverImage ? 1 : 0);
+        }
+    }
+
+    private static class CacheEntry {
+        final PdfImageXObject imageXObject;
+        final long size;
+
+        CacheEntry(PdfImageXObject imageXObject, long size) {
+            this.imageXObject = imageXObject;
+            this.size = size;
+        }
+    }
+}
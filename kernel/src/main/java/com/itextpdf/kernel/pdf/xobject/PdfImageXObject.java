@@ -71,6 +71,7 @@ import com.itextpdf.kernel.pdf.filters.IFilterHandler;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import javax.imageio.ImageIO;
@@ -184,6 +185,20 @@ public class PdfImageXObject extends PdfXObject {
         return image;
     }
 
+    /**
+     * Creates a copy of this Image XObject, which is not added to any document.
+     * The stream content and all direct objects are copied, so the copy may be used in a document
+     * independently of this instance.
+     *
+     * @return just created instance of {@link PdfImageXObject}.
+     */
+    PdfImageXObject copyUnattached() {
+        PdfImageXObject image = new PdfImageXObject((PdfStream) copyUnattached(getPdfObject()));
+        image.mask = mask;
+        image.softMask = softMask;
+        return image;
+    }
+
     /**
      * Gets image bytes, wrapped with buffered image.
      *
@@ -320,7 +335,11 @@ public class PdfImageXObject extends PdfXObject {
         if (image.getOriginalType() == ImageType.RAW) {
             RawImageHelper.updateImageAttributes((RawImageData) image, null);
         }
-        stream = new PdfStream(image.getData());
+        if (image.isStreamed()) {
+            stream = new PdfStream(new ImageDataInputStream(image), CompressionConstants.UNDEFINED_COMPRESSION);
+        } else {
+            stream = new PdfStream(image.getData());
+        }
         String filter = image.getFilter();
         if (filter != null && filter.equals("JPXDecode") && image.getColorSpace() <= 0) {
             stream.setCompressionLevel(CompressionConstants.NO_COMPRESSION);
@@ -622,10 +641,77 @@ public class PdfImageXObject extends PdfXObject {
         }
     }
 
+    /**
+     * Copies the object deeply. Unlike {@link PdfObject#clone()} the nested streams, e.g. soft masks
+     * or ICC profiles, are copied as well instead of being shared.
+     */
+    private static PdfObject copyUnattached(PdfObject object) {
+        if (object.isStream() || object.isDictionary()) {
+            PdfDictionary dictionary = (PdfDictionary) object;
+            PdfDictionary copy = object.isStream() ? new PdfStream(((PdfStream) object).getBytes(false)) : new PdfDictionary();
+            for (PdfName key : dictionary.keySet()) {
+                copy.put(key, copyUnattached(dictionary.get(key, false)));
+            }
+            return copy;
+        } else if (object.isArray()) {
+            PdfArray copy = new PdfArray();
+            for (PdfObject item : (PdfArray) object) {
+                copy.add(copyUnattached(item));
+            }
+            return copy;
+        }
+        return object.clone();
+    }
+
     private static ImageData checkImageType(ImageData image) {
         if (image instanceof WmfImageData) {
             throw new PdfException(PdfException.CannotCreatePdfImageXObjectByWmfImage);
         }
         return image;
     }
+
+    /**
+     * Reads the bytes of a streamed image. The source of the image is opened on the first read only,
+     * i.e. when the stream is written, and it is closed as soon as all the bytes are read.
+     */
+    private static class ImageDataInputStream extends InputStream {
+
+        private ImageData image;
+        private InputStream source;
+        private boolean finished;
+
+        ImageDataInputStream(ImageData image) {
+            this.image = image;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == 1 ? b[0] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            if (source == null) {
+                source = image.openDataStream();
+            }
+            int n = source.read(b, off, len);
+            if (n < 0) {
+                close();
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finished = true;
+            if (source != null) {
+                source.close();
+                source = null;
+            }
+        }
+    }
 }
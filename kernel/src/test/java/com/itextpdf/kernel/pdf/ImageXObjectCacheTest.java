@@ -0,0 +1,121 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.ImageXObjectCache;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class ImageXObjectCacheTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/pdf/PdfXObjectTest/";
+
+    @Test
+    public void imageXObjectIsSharedByDocuments() throws IOException {
+        byte[] imageBytes = Files.readAllBytes(Paths.get(sourceFolder + "itext.png"));
+        ImageXObjectCache cache = new ImageXObjectCache();
+
+        PdfImageXObject expected = new PdfImageXObject(ImageDataFactory.create(imageBytes));
+        for (int i = 0; i < 3; i++) {
+            PdfImageXObject image = readImage(createDocument(cache.getImageXObject(imageBytes)));
+            Assert.assertArrayEquals(expected.getImageBytes(), image.getImageBytes());
+            PdfImageXObject mask = new PdfImageXObject(image.getPdfObject().getAsStream(PdfName.SMask));
+            Assert.assertArrayEquals(new PdfImageXObject(expected.getPdfObject().getAsStream(PdfName.SMask)).getImageBytes(),
+                    mask.getImageBytes());
+        }
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedImageXObjectIsEvicted() throws IOException {
+        byte[] png = Files.readAllBytes(Paths.get(sourceFolder + "itext.png"));
+        byte[] jpg = Files.readAllBytes(Paths.get(sourceFolder + "itext.jpg"));
+        ImageXObjectCache cache = new ImageXObjectCache(1);
+
+        cache.getImageXObject(png);
+        cache.getImageXObject(jpg);
+        Assert.assertEquals(1, cache.getCount());
+        Assert.assertEquals(1, cache.getEvictions());
+
+        cache.getImageXObject(jpg);
+        cache.getImageXObject(png);
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+        Assert.assertEquals(2, cache.getEvictions());
+    }
+
+    private static byte[] createDocument(PdfImageXObject image) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument document = new PdfDocument(new PdfWriter(baos));
+        new PdfCanvas(document.addNewPage()).addXObject(image, PageSize.A4);
+        document.close();
+        return baos.toByteArray();
+    }
+
+    private static PdfImageXObject readImage(byte[] pdf) throws IOException {
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+        PdfResources resources = document.getFirstPage().getResources();
+        PdfName imageName = resources.getResourceNames(PdfName.XObject).iterator().next();
+        PdfImageXObject image = new PdfImageXObject((PdfStream) resources.getResourceObject(PdfName.XObject, imageName));
+        // the bytes are read before the document is closed
+        image.getImageBytes();
+        return image;
+    }
+}
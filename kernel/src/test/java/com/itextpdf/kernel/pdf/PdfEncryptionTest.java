@@ -43,6 +43,7 @@
 package com.itextpdf.kernel.pdf;
 
 import com.itextpdf.io.font.FontConstants;
+import com.itextpdf.io.util.StreamUtil;
 import com.itextpdf.kernel.crypto.CryptoUtil;
 import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.crypto.BadPasswordException;
@@ -66,14 +67,20 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.PrivateKey;
 import java.security.Security;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
 
 import static org.junit.Assert.fail;
 
@@ -422,6 +429,53 @@ public class PdfEncryptionTest extends ExtendedITextTest {
         encryptWithPassword(filename, encryptionType, CompressionConstants.DEFAULT_COMPRESSION);
     }
 
+    @Test
+    public void readEncryptedStreamsIncrementally() throws IOException {
+        int[] encryptionTypes = {EncryptionConstants.STANDARD_ENCRYPTION_40, EncryptionConstants.STANDARD_ENCRYPTION_128,
+                EncryptionConstants.ENCRYPTION_AES_128, EncryptionConstants.ENCRYPTION_AES_256};
+        PdfName dataKey = new PdfName("TestData");
+        byte[] data = new byte[20000];
+        new Random(42).nextBytes(data);
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        DeflaterOutputStream deflater = new DeflaterOutputStream(deflated);
+        deflater.write(data);
+        deflater.close();
+        StringBuilder hex = new StringBuilder();
+        for (byte b : deflated.toByteArray()) {
+            hex.append(String.format("%02x ", b & 0xff));
+        }
+        hex.append('>');
+
+        for (int encryptionType : encryptionTypes) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            PdfDocument document = new PdfDocument(new PdfWriter(baos,
+                    new WriterProperties().setStandardEncryption(USER, OWNER, EncryptionConstants.ALLOW_SCREENREADERS, encryptionType)));
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 500; i++) {
+                text.append("Line ").append(i).append(' ');
+            }
+            writeTextBytesOnPageContent(document.addNewPage(), text.toString());
+            PdfStream dataStream = new PdfStream(hex.toString().getBytes(StandardCharsets.ISO_8859_1), CompressionConstants.NO_COMPRESSION);
+            dataStream.put(PdfName.Filter, new PdfArray(Arrays.asList((PdfObject) PdfName.ASCIIHexDecode, PdfName.FlateDecode)));
+            document.getCatalog().put(dataKey, dataStream.makeIndirect(document));
+            document.close();
+
+            PdfReader reader = new PdfReader(new ByteArrayInputStream(baos.toByteArray()), new ReaderProperties().setPassword(USER));
+            document = new PdfDocument(reader);
+            PdfStream[] streams = {document.getPage(1).getFirstContentStream(), document.getCatalog().getPdfObject().getAsStream(dataKey)};
+            for (PdfStream stream : streams) {
+                InputStream decoded = reader.readStream(stream, true);
+                Assert.assertArrayEquals(reader.readStreamBytes(stream, true), StreamUtil.inputStreamToArray(decoded));
+                decoded.close();
+                InputStream raw = reader.readStream(stream, false);
+                Assert.assertArrayEquals(reader.readStreamBytesRaw(stream), StreamUtil.inputStreamToArray(raw));
+                raw.close();
+            }
+            Assert.assertArrayEquals(data, StreamUtil.inputStreamToArray(reader.readStream(streams[1], true)));
+            document.close();
+        }
+    }
+
     public void encryptWithPassword(String filename, int encryptionType, int compression) throws XMPException, IOException, InterruptedException {
         String outFileName = destinationFolder + filename;
         int permissions = EncryptionConstants.ALLOW_SCREENREADERS;
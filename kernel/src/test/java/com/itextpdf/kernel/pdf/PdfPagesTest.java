@@ -55,6 +55,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
@@ -415,5 +416,149 @@ public class PdfPagesTest extends ExtendedITextTest{
         pdfDoc.close();
     }
 
+    @Test
+    public void readPagesLazily() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos));
+        for (int i = 1; i <= 1000; i++) {
+            PdfPage page = pdfDoc.addNewPage();
+            page.getPdfObject().put(PageNum, new PdfNumber(i));
+            page.flush();
+        }
+        pdfDoc.close();
+
+        pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        PdfPage page = pdfDoc.getPage(555);
+        Assert.assertEquals(555, page.getPdfObject().getAsNumber(PageNum).intValue());
+        Assert.assertEquals(1, countReadPages(pdfDoc));
+        Assert.assertEquals(555, pdfDoc.getPageNumber(page));
+
+        Assert.assertTrue(page.release());
+        Assert.assertEquals(0, countReadPages(pdfDoc));
+
+        PdfPage reread = pdfDoc.getPage(555);
+        Assert.assertNotSame(page, reread);
+        Assert.assertEquals(555, reread.getPdfObject().getAsNumber(PageNum).intValue());
+        Assert.assertEquals(555, pdfDoc.getPageNumber(reread));
+        Assert.assertEquals(556, pdfDoc.getPage(556).getPdfObject().getAsNumber(PageNum).intValue());
+        Assert.assertEquals(2, countReadPages(pdfDoc));
+        pdfDoc.close();
+    }
+
+    @Test
+    public void directPageIsNotConvertedWhenRead() throws IOException {
+        byte[] source = createDocumentWithDirectPage();
+        PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(source)));
+        int xrefSize = pdfDoc.getXref().size();
+        Assert.assertEquals(2, pdfDoc.getPage(2).getPdfObject().getAsNumber(PageNum).intValue());
+        Assert.assertEquals(xrefSize, pdfDoc.getXref().size());
+        PdfArray kids = pdfDoc.getCatalog().getPdfObject().getAsDictionary(PdfName.Pages).getAsArray(PdfName.Kids);
+        Assert.assertFalse(kids.get(0, false).isIndirectReference());
+        Assert.assertNull(kids.get(0, false).getIndirectReference());
+        pdfDoc.close();
+    }
+
+    @Test
+    public void directPageIsConvertedInAppendMode() throws IOException {
+        byte[] source = createDocumentWithDirectPage();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(source)), new PdfWriter(baos),
+                new StampingProperties().useAppendMode());
+        pdfDoc.getPage(1).getPdfObject().put(new PdfName("Edited"), PdfBoolean.TRUE);
+        pdfDoc.close();
 
+        pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        Assert.assertEquals(2, pdfDoc.getNumberOfPages());
+        PdfDictionary page = pdfDoc.getPage(1).getPdfObject();
+        Assert.assertEquals(1, page.getAsNumber(PageNum).intValue());
+        Assert.assertEquals(PdfBoolean.TRUE, page.getAsBoolean(new PdfName("Edited")));
+        Assert.assertEquals(2, pdfDoc.getPage(2).getPdfObject().getAsNumber(PageNum).intValue());
+        pdfDoc.close();
+    }
+
+    @Test
+    public void flatPagesTreeIsReadLazily() throws IOException {
+        String[] objects = createFlatPagesTreeObjects(2000);
+        // the kids which are not requested are not read, so an invalid one doesn't fail the reading
+        objects[3] = "(not a page)";
+        PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(createDocument(objects))));
+        Assert.assertEquals(2000, pdfDoc.getNumberOfPages());
+        Assert.assertEquals(1500, pdfDoc.getPage(1500).getPdfObject().getAsNumber(PageNum).intValue());
+        Assert.assertEquals(1, countReadPages(pdfDoc));
+        Assert.assertEquals(1, pdfDoc.getPage(1).getPdfObject().getAsNumber(PageNum).intValue());
+        Assert.assertEquals(2, countReadPages(pdfDoc));
+        pdfDoc.close();
+    }
+
+    @Test
+    public void pagesNodeAmongKidsExpectedToBePages() throws IOException {
+        // the root has as many kids as pages, but its second kid is a pages node
+        byte[] pdf = createDocument(
+                "<</Type/Catalog/Pages 2 0 R>>",
+                "<</Type/Pages/Count 3/Kids[3 0 R 4 0 R 5 0 R]>>",
+                "<</Type/Page/Parent 2 0 R/MediaBox[0 0 595 842]/PageNum 1>>",
+                "<</Type/Pages/Parent 2 0 R/Count 1/Kids[6 0 R]>>",
+                "<</Type/Page/Parent 2 0 R/MediaBox[0 0 595 842]/PageNum 3>>",
+                "<</Type/Page/Parent 4 0 R/MediaBox[0 0 595 842]/PageNum 2>>");
+        PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)), new PdfWriter(new ByteArrayOutputStream()));
+        PdfPage first = pdfDoc.getPage(1);
+        for (int i = 1; i <= 3; i++) {
+            Assert.assertEquals(i, pdfDoc.getPage(i).getPdfObject().getAsNumber(PageNum).intValue());
+        }
+        Assert.assertSame(first, pdfDoc.getPage(1));
+        Assert.assertEquals(1, pdfDoc.getPageNumber(first));
+        pdfDoc.close();
+    }
+
+    /**
+     * Creates a document with two pages, the first of which is a direct object in /Kids.
+     */
+    private static byte[] createDocumentWithDirectPage() {
+        return createDocument(
+                "<</Type/Catalog/Pages 2 0 R>>",
+                "<</Type/Pages/Count 2/Kids[<</Type/Page/Parent 2 0 R/MediaBox[0 0 595 842]/PageNum 1>> 3 0 R]>>",
+                "<</Type/Page/Parent 2 0 R/MediaBox[0 0 595 842]/PageNum 2>>");
+    }
+
+    /**
+     * Creates the objects of a document with a single /Pages node, which has all the pages as kids.
+     */
+    private static String[] createFlatPagesTreeObjects(int numberOfPages) {
+        String[] objects = new String[numberOfPages + 2];
+        StringBuilder kids = new StringBuilder();
+        for (int i = 1; i <= numberOfPages; i++) {
+            kids.append(i + 2).append(" 0 R ");
+            objects[i + 1] = "<</Type/Page/Parent 2 0 R/MediaBox[0 0 595 842]/PageNum " + i + ">>";
+        }
+        objects[0] = "<</Type/Catalog/Pages 2 0 R>>";
+        objects[1] = "<</Type/Pages/Count " + numberOfPages + "/Kids[" + kids + "]>>";
+        return objects;
+    }
+
+    /**
+     * Creates a document of the given objects, the first of which is the catalog.
+     */
+    private static byte[] createDocument(String... objects) {
+        StringBuilder pdf = new StringBuilder("%PDF-1.7\n");
+        StringBuilder xref = new StringBuilder("xref\n0 " + (objects.length + 1) + "\n0000000000 65535 f \n");
+        for (int i = 0; i < objects.length; i++) {
+            xref.append(String.format("%010d 00000 n \n", pdf.length()));
+            pdf.append(i + 1).append(" 0 obj\n").append(objects[i]).append("\nendobj\n");
+        }
+        int startxref = pdf.length();
+        pdf.append(xref).append("trailer\n<</Size " + (objects.length + 1) + "/Root 1 0 R>>\nstartxref\n").append(startxref).append("\n%%EOF\n");
+        return pdf.toString().getBytes();
+    }
+
+    private static int countReadPages(PdfDocument pdfDoc) {
+        int count = 0;
+        for (int i = 1; i < pdfDoc.getXref().size(); i++) {
+            PdfIndirectReference reference = pdfDoc.getXref().get(i);
+            if (reference != null && reference.refersTo instanceof PdfDictionary
+                    && PdfName.Page.equals(((PdfDictionary) reference.refersTo).getAsName(PdfName.Type))) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
@@ -45,7 +45,9 @@ package com.itextpdf.kernel.pdf;
 import com.itextpdf.io.LogMessageConstant;
 import com.itextpdf.io.source.ByteArrayOutputStream;
 import com.itextpdf.io.source.ByteUtils;
+import com.itextpdf.io.util.StreamUtil;
 import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.pdf.filters.FlateDecodeFilter;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.LogMessage;
 import com.itextpdf.test.annotations.LogMessages;
@@ -56,12 +58,17 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
 
 @Category(IntegrationTest.class)
 public class PdfReaderTest extends ExtendedITextTest {
@@ -146,6 +153,60 @@ public class PdfReaderTest extends ExtendedITextTest {
         pdfDoc.close();
     }
 
+    @Test
+    public void rereadReleasedObjectFromObjectStream() throws IOException {
+        String filename = sourceFolder + "simpleCanvasWithFullCompression.pdf";
+        for (int cacheSize : new int[] {0, 1}) {
+            ObjectStreamDecodingCountingReader reader = new ObjectStreamDecodingCountingReader(filename,
+                    new ReaderProperties().setObjectStreamCacheSize(cacheSize));
+            PdfDocument pdfDoc = new PdfDocument(reader);
+
+            PdfIndirectReference pageRef = pdfDoc.getPdfObject(4).getIndirectReference();
+            Assert.assertTrue(pageRef.getObjStreamNumber() > 0);
+            int decodedCount = reader.objectStreamDecodedCount;
+            pdfDoc.getPdfObject(4).release();
+            Assert.assertNull(pageRef.refersTo);
+
+            PdfObject object = pdfDoc.getPdfObject(4);
+            Assert.assertEquals(PdfObject.DICTIONARY, object.getType());
+            Assert.assertTrue(objectTypeEqualTo(object, PdfName.Page));
+            Assert.assertSame(pageRef, object.getIndirectReference());
+            // the object stream is decoded again only if it is not cached
+            Assert.assertEquals(cacheSize == 0 ? decodedCount + 1 : decodedCount, reader.objectStreamDecodedCount);
+
+            Assert.assertFalse("No need in rebuildXref()", reader.hasRebuiltXref());
+            pdfDoc.close();
+        }
+    }
+
+    @Test
+    public void rereadObjectStreamKeepsReadObjects() throws IOException {
+        String filename = sourceFolder + "simpleCanvasWithFullCompression.pdf";
+        // without cache the object stream is parsed again when the released page is read
+        PdfReader reader = new PdfReader(filename, new ReaderProperties().setObjectStreamCacheSize(0));
+        PdfDocument pdfDoc = new PdfDocument(reader);
+
+        PdfIndirectReference pageRef = pdfDoc.getPdfObject(4).getIndirectReference();
+        PdfIndirectReference siblingRef = null;
+        for (int i = 1; i < pdfDoc.getXref().size() && siblingRef == null; i++) {
+            PdfIndirectReference reference = pdfDoc.getXref().get(i);
+            if (i != 4 && reference != null && reference.getObjStreamNumber() == pageRef.getObjStreamNumber()) {
+                siblingRef = reference;
+            }
+        }
+        Assert.assertNotNull(siblingRef);
+        PdfObject sibling = siblingRef.getRefersTo();
+
+        pdfDoc.getPdfObject(4).release();
+        Assert.assertNull(pageRef.refersTo);
+        PdfObject page = pdfDoc.getPdfObject(4);
+        Assert.assertTrue(objectTypeEqualTo(page, PdfName.Page));
+        Assert.assertSame(sibling, siblingRef.refersTo);
+
+        Assert.assertFalse("No need in rebuildXref()", reader.hasRebuiltXref());
+        pdfDoc.close();
+    }
+
     @Test
     public void openDocWithFlateFilter() throws IOException {
         String filename = sourceFolder + "100PagesDocumentWithFlateFilter.pdf";
@@ -175,6 +236,230 @@ public class PdfReaderTest extends ExtendedITextTest {
         document.close();
     }
 
+    @Test
+    public void readStreamIncrementally() throws IOException {
+        String filename = sourceFolder + "100PagesDocumentWithFlateFilter.pdf";
+        PdfReader reader = new PdfReader(filename);
+        PdfDocument document = new PdfDocument(reader);
+
+        for (int i = 1; i <= document.getNumberOfPages(); i++) {
+            PdfStream contentStream = document.getPage(i).getFirstContentStream();
+            InputStream decoded = reader.readStream(contentStream, true);
+            Assert.assertArrayEquals("Page content " + i, reader.readStreamBytes(contentStream, true), StreamUtil.inputStreamToArray(decoded));
+            decoded.close();
+
+            InputStream raw = reader.readStream(contentStream, false);
+            Assert.assertArrayEquals("Raw page content " + i, reader.readStreamBytesRaw(contentStream), StreamUtil.inputStreamToArray(raw));
+            raw.close();
+        }
+
+        document.close();
+    }
+
+    @Test
+    public void concurrentlyResolvedReferencesAreReadOnce() throws IOException, InterruptedException {
+        for (String file : new String[] {"100PagesDocumentWithFlateFilter.pdf", "1000PagesDocumentWithFullCompression.pdf"}) {
+            final PdfDocument document = new PdfDocument(new PdfReader(sourceFolder + file));
+            final int threadCount = 4;
+            final int size = document.getXref().size();
+            final PdfObject[][] resolved = new PdfObject[threadCount][size];
+            final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+            final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+            Thread[] threads = new Thread[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                final int threadIndex = i;
+                threads[i] = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int objNr = 1; objNr < size; objNr++) {
+                                PdfIndirectReference reference = document.getXref().get(objNr);
+                                if (reference != null && !reference.isFree()) {
+                                    barrier.await();
+                                    resolved[threadIndex][objNr] = reference.getRefersTo(false);
+                                }
+                            }
+                        } catch (Throwable e) {
+                            errors.add(e);
+                        }
+                    }
+                };
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assert.assertTrue(errors.toString(), errors.isEmpty());
+            for (int objNr = 1; objNr < size; objNr++) {
+                for (int i = 1; i < threadCount; i++) {
+                    Assert.assertSame(file + ", object " + objNr, resolved[0][objNr], resolved[i][objNr]);
+                }
+            }
+            document.close();
+        }
+    }
+
+    @Test
+    public void decodeCorruptedFlateStream() throws IOException {
+        byte[] data = new byte[100000];
+        Random random = new Random(17);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(10));
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        java.util.zip.DeflaterOutputStream zip = new java.util.zip.DeflaterOutputStream(baos);
+        zip.write(data);
+        zip.close();
+        byte[] compressed = baos.toByteArray();
+
+        PdfDictionary streamDictionary = new PdfDictionary();
+        streamDictionary.put(PdfName.Filter, PdfName.FlateDecode);
+        Assert.assertArrayEquals(data, PdfReader.decodeBytes(compressed, streamDictionary));
+        streamDictionary.put(PdfName.DL, new PdfNumber(data.length));
+        Assert.assertArrayEquals(data, PdfReader.decodeBytes(compressed, streamDictionary));
+
+        for (int corruptedByte : new int[] {compressed.length / 2, compressed.length - 1}) {
+            byte[] corrupted = Arrays.copyOf(compressed, compressed.length);
+            corrupted[corruptedByte] ^= 0x55;
+            Assert.assertNull(FlateDecodeFilter.flateDecode(corrupted, true));
+
+            // the data decoded up to the corrupted byte is recovered
+            byte[] expected = inflateByteByByte(corrupted);
+            Assert.assertTrue(expected.length > data.length / 4);
+            Assert.assertArrayEquals(Arrays.copyOf(data, data.length / 4), Arrays.copyOf(expected, data.length / 4));
+            Assert.assertArrayEquals(expected, PdfReader.decodeBytes(corrupted, streamDictionary));
+            InputStream decoded = PdfReader.decodeStream(new ByteArrayInputStream(corrupted), streamDictionary);
+            Assert.assertArrayEquals(expected, StreamUtil.inputStreamToArray(decoded));
+            decoded.close();
+        }
+
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        byte[] expected = inflateByteByByte(truncated);
+        Assert.assertTrue(expected.length > data.length / 4);
+        Assert.assertArrayEquals(Arrays.copyOf(data, expected.length), expected);
+        Assert.assertArrayEquals(expected, PdfReader.decodeBytes(truncated, streamDictionary));
+        InputStream decoded = PdfReader.decodeStream(new ByteArrayInputStream(truncated), streamDictionary);
+        Assert.assertArrayEquals(expected, StreamUtil.inputStreamToArray(decoded));
+        decoded.close();
+    }
+
+    @Test
+    public void decodeFlateStreamRethrowsReadError() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        java.util.zip.DeflaterOutputStream zip = new java.util.zip.DeflaterOutputStream(baos);
+        zip.write(new byte[100000]);
+        zip.close();
+        final byte[] compressed = baos.toByteArray();
+        InputStream failing = new InputStream() {
+            private int pos;
+
+            @Override
+            public int read() throws IOException {
+                if (pos == compressed.length / 2) {
+                    throw new IOException("read error");
+                }
+                return compressed[pos++] & 0xff;
+            }
+        };
+
+        PdfDictionary streamDictionary = new PdfDictionary();
+        streamDictionary.put(PdfName.Filter, PdfName.FlateDecode);
+        InputStream decoded = PdfReader.decodeStream(failing, streamDictionary);
+        try {
+            StreamUtil.inputStreamToArray(decoded);
+            Assert.fail("IOException expected");
+        } catch (IOException e) {
+            Assert.assertEquals("read error", e.getMessage());
+        }
+    }
+
+    private static byte[] inflateByteByByte(byte[] compressed) {
+        java.util.zip.InflaterInputStream inflater = new java.util.zip.InflaterInputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try {
+            int b;
+            while ((b = inflater.read()) >= 0) {
+                result.write(b);
+            }
+        } catch (IOException ignored) {
+        }
+        return result.toByteArray();
+    }
+
+    @Test
+    public void decodePngPredictor() throws IOException {
+        Random random = new Random(23);
+        for (int colors = 1; colors <= 4; colors++) {
+            int columns = 37;
+            int rows = 25;
+            int bytesPerRow = columns * colors;
+            byte[] data = new byte[rows * bytesPerRow];
+            random.nextBytes(data);
+            // each row is predicted with its own filter type, the last row is incomplete
+            byte[] predicted = new byte[rows * (bytesPerRow + 1) + bytesPerRow / 2];
+            for (int row = 0; row < rows; row++) {
+                int filter = row % 5;
+                predicted[row * (bytesPerRow + 1)] = (byte) filter;
+                for (int i = 0; i < bytesPerRow; i++) {
+                    int a = i >= colors ? data[row * bytesPerRow + i - colors] & 0xff : 0;
+                    int b = row > 0 ? data[(row - 1) * bytesPerRow + i] & 0xff : 0;
+                    int c = i >= colors && row > 0 ? data[(row - 1) * bytesPerRow + i - colors] & 0xff : 0;
+                    int prediction;
+                    switch (filter) {
+                        case 1:
+                            prediction = a;
+                            break;
+                        case 2:
+                            prediction = b;
+                            break;
+                        case 3:
+                            prediction = (a + b) / 2;
+                            break;
+                        case 4:
+                            int p = a + b - c;
+                            prediction = Math.abs(p - a) <= Math.abs(p - b) && Math.abs(p - a) <= Math.abs(p - c) ? a
+                                    : Math.abs(p - b) <= Math.abs(p - c) ? b : c;
+                            break;
+                        default:
+                            prediction = 0;
+                    }
+                    predicted[row * (bytesPerRow + 1) + 1 + i] = (byte) (data[row * bytesPerRow + i] - prediction);
+                }
+            }
+
+            PdfDictionary decodeParams = new PdfDictionary();
+            decodeParams.put(PdfName.Predictor, new PdfNumber(15));
+            decodeParams.put(PdfName.Colors, new PdfNumber(colors));
+            decodeParams.put(PdfName.Columns, new PdfNumber(columns));
+            byte[] input = Arrays.copyOf(predicted, predicted.length);
+            Assert.assertArrayEquals("Colors " + colors, data, FlateDecodeFilter.decodePredictor(input, decodeParams));
+            Assert.assertArrayEquals("Colors " + colors, predicted, input);
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            java.util.zip.DeflaterOutputStream zip = new java.util.zip.DeflaterOutputStream(baos);
+            zip.write(predicted);
+            zip.close();
+            PdfDictionary streamDictionary = new PdfDictionary();
+            streamDictionary.put(PdfName.Filter, PdfName.FlateDecode);
+            streamDictionary.put(PdfName.DecodeParms, decodeParams);
+            InputStream decoded = PdfReader.decodeStream(new ByteArrayInputStream(baos.toByteArray()), streamDictionary);
+            Assert.assertArrayEquals("Colors " + colors, data, StreamUtil.inputStreamToArray(decoded));
+            decoded.close();
+        }
+    }
+
+    @Test
+    public void decodeTiffPredictor() {
+        byte[] predicted = new byte[]{10, 20, 30, 1, 2, 3, 5, 5, 5, -1, -2, -3};
+        byte[] input = Arrays.copyOf(predicted, predicted.length);
+        PdfDictionary decodeParams = new PdfDictionary();
+        decodeParams.put(PdfName.Predictor, new PdfNumber(2));
+        decodeParams.put(PdfName.Colors, new PdfNumber(3));
+        decodeParams.put(PdfName.Columns, new PdfNumber(2));
+        Assert.assertArrayEquals(new byte[]{10, 20, 30, 11, 22, 33, 5, 5, 5, 4, 3, 2}, FlateDecodeFilter.decodePredictor(input, decodeParams));
+        Assert.assertArrayEquals(predicted, input);
+    }
+
     @Test
     public void primitivesRead() throws IOException {
         String filename = destinationFolder + "primitivesRead.pdf";
@@ -586,9 +871,11 @@ public class PdfReaderTest extends ExtendedITextTest {
         PdfDocument document = new PdfDocument(reader);
         int pageCount = document.getNumberOfPages();
         Assert.assertEquals(2, pageCount);
+        String content = new String(document.getPage(1).getContentStream(0).getBytes());
+        Assert.assertTrue(content.startsWith("100"));
         boolean exception = false;
         try {
-            document.getPage(1);
+            document.getPage(2);
         } catch (PdfException e) {
             exception = true;
         }
@@ -1568,4 +1855,21 @@ public class PdfReaderTest extends ExtendedITextTest {
         tmpMap.put(new PdfName("b"), new PdfName("c"));
         return new PdfDictionary(tmpMap);
     }
+
+    private static class ObjectStreamDecodingCountingReader extends PdfReader {
+
+        int objectStreamDecodedCount;
+
+        ObjectStreamDecodingCountingReader(String filename, ReaderProperties properties) throws IOException {
+            super(filename, properties);
+        }
+
+        @Override
+        public byte[] readStreamBytes(PdfStream stream, boolean decode) throws IOException {
+            if (PdfName.ObjStm.equals(stream.getAsName(PdfName.Type))) {
+                objectStreamDecodedCount++;
+            }
+            return super.readStreamBytes(stream, decode);
+        }
+    }
 }
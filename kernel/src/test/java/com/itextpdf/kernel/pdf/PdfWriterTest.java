@@ -45,6 +45,7 @@ package com.itextpdf.kernel.pdf;
 import com.itextpdf.io.source.ByteUtils;
 import com.itextpdf.io.util.DateTimeUtil;
 import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.type.IntegrationTest;
 import org.junit.Assert;
@@ -53,8 +54,12 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.TreeMap;
@@ -626,4 +631,203 @@ public class PdfWriterTest extends ExtendedITextTest {
         Assert.assertArrayEquals("Stream by InputStream", streamContent.getBytes(), pdfStream.getBytes());
         document.close();
     }
+
+    @Test
+    public void smartModeIndexInTempFiles() throws IOException {
+        ByteArrayOutputStream source = new ByteArrayOutputStream();
+        PdfDocument sourceDoc = new PdfDocument(new PdfWriter(source));
+        for (int i = 0; i < 10; i++) {
+            PdfPage page = sourceDoc.addNewPage();
+            PdfStream stream = new PdfStream("Same content".getBytes());
+            stream.makeIndirect(sourceDoc);
+            PdfDictionary resource = new PdfDictionary();
+            resource.put(new PdfName("Data"), stream);
+            resource.put(new PdfName("Index"), new PdfNumber(i % 2));
+            resource.makeIndirect(sourceDoc);
+            page.getPdfObject().put(new PdfName("Custom"), resource);
+        }
+        sourceDoc.close();
+
+        File tempDir = new File(destinationFolder + "smartModeIndexInTempFiles");
+        tempDir.mkdirs();
+
+        byte[] inMemory = copyPagesTwice(source.toByteArray(), new WriterProperties().useSmartMode());
+        byte[] inFiles = copyPagesTwice(source.toByteArray(), new WriterProperties().useSmartMode()
+                .setSmartModeIndexTempPath(tempDir.getPath(), 0));
+        Assert.assertEquals("Temporary files are not deleted", 0, tempDir.list().length);
+
+        for (byte[] result : new byte[][] {inMemory, inFiles}) {
+            PdfDocument resultDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(result)));
+            Assert.assertEquals(20, resultDoc.getNumberOfPages());
+            PdfIndirectReference even = resultDoc.getPage(1).getPdfObject().getAsDictionary(new PdfName("Custom")).getIndirectReference();
+            PdfIndirectReference odd = resultDoc.getPage(2).getPdfObject().getAsDictionary(new PdfName("Custom")).getIndirectReference();
+            Assert.assertNotEquals(even, odd);
+            for (int i = 1; i <= 20; i++) {
+                PdfDictionary resource = resultDoc.getPage(i).getPdfObject().getAsDictionary(new PdfName("Custom"));
+                Assert.assertEquals(i % 2 == 1 ? even : odd, resource.getIndirectReference());
+                Assert.assertEquals(resultDoc.getPage(1).getPdfObject().getAsDictionary(new PdfName("Custom")).getAsStream(new PdfName("Data")).getIndirectReference(),
+                        resource.getAsStream(new PdfName("Data")).getIndirectReference());
+            }
+            resultDoc.close();
+        }
+        Assert.assertEquals(inMemory.length, inFiles.length);
+    }
+
+    @Test
+    public void smartModeIndexTempFilesAreRehashed() throws IOException {
+        File tempDir = new File(destinationFolder + "smartModeIndexTempFilesAreRehashed");
+        tempDir.mkdirs();
+        DigestTable table = new DigestTable(4, 4, tempDir.getPath(), 0);
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            table.put(ByteBuffer.allocate(4).putInt(i).array(), ByteBuffer.allocate(4).putInt(-i).array());
+        }
+        Assert.assertEquals(count, table.size());
+        Assert.assertEquals(1, tempDir.list().length);
+        for (int i = 0; i < count; i++) {
+            Assert.assertArrayEquals(ByteBuffer.allocate(4).putInt(-i).array(), table.get(ByteBuffer.allocate(4).putInt(i).array()));
+        }
+        Assert.assertNull(table.get(ByteBuffer.allocate(4).putInt(count).array()));
+        table.close();
+        Assert.assertEquals("Temporary files are not deleted", 0, tempDir.list().length);
+    }
+
+    @Test
+    public void smartModeIndexTempPathMustBeDirectory() throws IOException {
+        File file = new File(destinationFolder + "smartModeIndexTempPathMustBeDirectory.tmp");
+        new FileOutputStream(file).close();
+        try {
+            new WriterProperties().setSmartModeIndexTempPath(file.getPath(), 0);
+            Assert.fail("PdfException expected");
+        } catch (PdfException e) {
+            Assert.assertEquals(MessageFormat.format(PdfException._1IsNotADirectory, file.getPath()), e.getMessage());
+        }
+        Assert.assertTrue(file.exists());
+    }
+
+    private static byte[] copyPagesTwice(byte[] source, WriterProperties properties) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument outDoc = new PdfDocument(new PdfWriter(baos, properties));
+        for (int i = 0; i < 2; i++) {
+            PdfDocument sourceDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(source)));
+            sourceDoc.copyPagesTo(1, sourceDoc.getNumberOfPages(), outDoc);
+            sourceDoc.close();
+        }
+        outDoc.close();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void parallelCompression() throws IOException {
+        for (boolean fullCompression : new boolean[] {false, true}) {
+            byte[] sequential = createDocumentWithManyPages(new WriterProperties().setFullCompressionMode(fullCompression));
+            byte[] parallel = createDocumentWithManyPages(new WriterProperties().setFullCompressionMode(fullCompression)
+                    .useParallelCompression(4));
+            Assert.assertEquals(sequential.length, parallel.length);
+
+            PdfReader sequentialReader = new PdfReader(new ByteArrayInputStream(sequential));
+            PdfDocument sequentialDoc = new PdfDocument(sequentialReader);
+            PdfReader parallelReader = new PdfReader(new ByteArrayInputStream(parallel));
+            PdfDocument parallelDoc = new PdfDocument(parallelReader);
+            Assert.assertFalse(parallelReader.hasRebuiltXref());
+            Assert.assertEquals(sequentialDoc.getNumberOfPdfObjects(), parallelDoc.getNumberOfPdfObjects());
+            for (int i = 1; i < sequentialDoc.getNumberOfPdfObjects(); i++) {
+                PdfIndirectReference expected = sequentialDoc.getXref().get(i);
+                PdfIndirectReference actual = parallelDoc.getXref().get(i);
+                Assert.assertEquals(expected.getOffset(), actual.getOffset());
+                Assert.assertEquals(expected.getObjStreamNumber(), actual.getObjStreamNumber());
+            }
+            for (int i = 1; i <= sequentialDoc.getNumberOfPages(); i++) {
+                Assert.assertArrayEquals(sequentialDoc.getPage(i).getContentBytes(), parallelDoc.getPage(i).getContentBytes());
+            }
+            sequentialDoc.close();
+            parallelDoc.close();
+        }
+    }
+
+    @Test
+    public void compressionStrategyByStreamType() throws IOException {
+        for (int threadCount : new int[] {0, 2}) {
+            StreamCompressionStrategy strategy = new StreamCompressionStrategy()
+                    .setCompressionLevel(StreamCompressionStrategy.StreamType.CONTENT, CompressionConstants.NO_COMPRESSION)
+                    .setCompressionLevel(StreamCompressionStrategy.StreamType.OBJECT_STREAM, CompressionConstants.BEST_COMPRESSION);
+            byte[] pdf = createDocumentWithManyPages(new WriterProperties().setFullCompressionMode(true)
+                    .setCompressionStrategy(strategy).useParallelCompression(threadCount));
+
+            Assert.assertEquals(0, strategy.getCompressedStreams(StreamCompressionStrategy.StreamType.CONTENT));
+            Assert.assertTrue(strategy.getCompressedStreams(StreamCompressionStrategy.StreamType.OBJECT_STREAM) > 0);
+            Assert.assertTrue(strategy.getCompressedBytes(StreamCompressionStrategy.StreamType.OBJECT_STREAM)
+                    < strategy.getUncompressedBytes(StreamCompressionStrategy.StreamType.OBJECT_STREAM));
+
+            PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+            Assert.assertNull(pdfDoc.getPage(1).getFirstContentStream().get(PdfName.Filter));
+            pdfDoc.close();
+        }
+
+        StreamCompressionStrategy strategy = new StreamCompressionStrategy();
+        PdfStream fontStream = new PdfStream();
+        fontStream.put(PdfName.Length1, new PdfNumber(10));
+        Assert.assertEquals(StreamCompressionStrategy.StreamType.FONT, strategy.getStreamType(fontStream));
+        PdfStream iccStream = new PdfStream();
+        iccStream.put(PdfName.N, new PdfNumber(3));
+        Assert.assertEquals(StreamCompressionStrategy.StreamType.ICC_PROFILE, strategy.getStreamType(iccStream));
+        Assert.assertEquals(StreamCompressionStrategy.StreamType.CONTENT, strategy.getStreamType(new PdfStream()));
+    }
+
+    private static byte[] createDocumentWithManyPages(WriterProperties properties) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos, properties));
+        for (int i = 0; i < 200; i++) {
+            PdfPage page = pdfDoc.addNewPage();
+            PdfCanvas canvas = new PdfCanvas(page);
+            for (int j = 0; j < 50; j++) {
+                canvas.moveTo(36, 36 + j * 10).lineTo(500 - i, 36 + j * 10 + i % 7).stroke();
+            }
+            canvas.release();
+            if (i % 3 == 0) {
+                page.flush();
+            }
+        }
+        pdfDoc.close();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void flushedReferencesAreCompacted() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos));
+        pdfDoc.addNewPage();
+        PdfArray objects = new PdfArray();
+        for (int i = 0; i < 1000; i++) {
+            PdfDictionary dictionary = new PdfDictionary();
+            dictionary.put(new PdfName("Index"), new PdfNumber(i));
+            dictionary.makeIndirect(pdfDoc).flush();
+            objects.add(dictionary.getIndirectReference());
+        }
+        pdfDoc.getCatalog().put(new PdfName("Objects"), objects);
+
+        PdfIndirectReference flushed = (PdfIndirectReference) objects.get(10, false);
+        PdfIndirectReference fromXref = pdfDoc.getXref().get(flushed.getObjNumber());
+        Assert.assertNotSame(flushed, fromXref);
+        Assert.assertEquals(flushed, fromXref);
+        Assert.assertTrue(fromXref.checkState(PdfObject.FLUSHED));
+        Assert.assertEquals(flushed.getOffset(), fromXref.getOffset());
+
+        PdfIndirectReference freed = (PdfIndirectReference) objects.get(20, false);
+        freed.setFree();
+        Assert.assertSame(freed, pdfDoc.getXref().get(freed.getObjNumber()));
+        Assert.assertTrue(pdfDoc.getXref().get(freed.getObjNumber()).isFree());
+        pdfDoc.close();
+
+        PdfReader reader = new PdfReader(new ByteArrayInputStream(baos.toByteArray()));
+        pdfDoc = new PdfDocument(reader);
+        Assert.assertFalse(reader.hasRebuiltXref());
+        objects = pdfDoc.getCatalog().getPdfObject().getAsArray(new PdfName("Objects"));
+        for (int i = 0; i < 1000; i++) {
+            if (i != 20) {
+                Assert.assertEquals(i, objects.getAsDictionary(i).getAsNumber(new PdfName("Index")).intValue());
+            }
+        }
+        pdfDoc.close();
+    }
 }
@@ -46,6 +46,8 @@ import com.itextpdf.io.LogMessageConstant;
 import com.itextpdf.io.image.ImageData;
 import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.io.util.FileUtil;
+import com.itextpdf.io.util.UrlUtil;
+import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
@@ -62,9 +64,12 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 @Category(IntegrationTest.class)
 public class PdfXObjectTest extends ExtendedITextTest{
@@ -116,6 +121,64 @@ public class PdfXObjectTest extends ExtendedITextTest{
         Assert.assertNull(new CompareTool().compareByContent(destinationDocument, sourceFolder + "cmp_documentFromImages1.pdf", destinationFolder, "diff_"));
     }
 
+    @Test
+    public void createDocumentFromStreamedImage() throws IOException {
+        final String destinationDocument = destinationFolder + "documentFromStreamedImage.pdf";
+        PdfDocument document = new PdfDocument(new PdfWriter(destinationDocument));
+        ImageData image = ImageDataFactory.createStreamed(images[2]);
+        Assert.assertTrue(image.isStreamed());
+        PdfImageXObject xObject = new PdfImageXObject(image);
+        PdfCanvas canvas = new PdfCanvas(document.addNewPage());
+        canvas.addXObject(xObject, PageSize.Default);
+        canvas.release();
+        document.close();
+
+        document = new PdfDocument(new PdfReader(destinationDocument));
+        PdfResources resources = document.getFirstPage().getResources();
+        PdfName imageName = resources.getResourceNames(PdfName.XObject).iterator().next();
+        PdfImageXObject readImage = new PdfImageXObject((PdfStream) resources.getResourceObject(PdfName.XObject, imageName));
+        Assert.assertEquals(PdfName.DCTDecode, readImage.getPdfObject().getAsName(PdfName.Filter));
+        Assert.assertArrayEquals(Files.readAllBytes(Paths.get(images[2])), readImage.getImageBytes(false));
+        document.close();
+    }
+
+    @Test
+    public void sixteenBitImageIsKeptInPdf15() throws IOException {
+        final String destinationDocument = destinationFolder + "sixteenBitImage.pdf";
+        PdfDocument document = new PdfDocument(new PdfWriter(destinationDocument,
+                new WriterProperties().setPdfVersion(PdfVersion.PDF_1_5)));
+        ImageData image = ImageDataFactory.createPng(UrlUtil.toURL(sourceFolder + "rgba16.png"), true);
+        PdfCanvas canvas = new PdfCanvas(document.addNewPage());
+        canvas.addImage(image, PageSize.Default, false);
+        canvas.release();
+        document.close();
+
+        document = new PdfDocument(new PdfReader(destinationDocument));
+        PdfResources resources = document.getFirstPage().getResources();
+        PdfName imageName = resources.getResourceNames(PdfName.XObject).iterator().next();
+        PdfStream readImage = (PdfStream) resources.getResourceObject(PdfName.XObject, imageName);
+        Assert.assertEquals(16, readImage.getAsNumber(PdfName.BitsPerComponent).intValue());
+        Assert.assertEquals(16, readImage.getAsStream(PdfName.SMask).getAsNumber(PdfName.BitsPerComponent).intValue());
+        document.close();
+    }
+
+    @Test
+    public void sixteenBitImageRequiresPdf15() throws IOException {
+        String message = "";
+        PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream(),
+                new WriterProperties().setPdfVersion(PdfVersion.PDF_1_4)));
+        ImageData image = ImageDataFactory.createPng(UrlUtil.toURL(sourceFolder + "rgba16.png"), true);
+        PdfCanvas canvas = new PdfCanvas(document.addNewPage());
+        try {
+            canvas.addImage(image, PageSize.Default, false);
+        } catch (PdfException e) {
+            message = e.getMessage();
+        }
+        canvas.release();
+        document.close();
+        Assert.assertEquals(PdfException.ImagesWith16BitsPerComponentRequirePdf15, message);
+    }
+
     @Test
     @LogMessages(messages = {
             @LogMessage(messageTemplate = LogMessageConstant.IMAGE_SIZE_CANNOT_BE_MORE_4KB)
@@ -50,18 +50,38 @@ import com.itextpdf.kernel.pdf.canvas.parser.data.ImageRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.data.PathRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.ITextExtractionStrategy;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.ITextExtractionStrategyFactory;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.SimpleTextExtractionStrategy;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
 import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.test.annotations.LogMessage;
 import com.itextpdf.test.annotations.LogMessages;
 import com.itextpdf.test.annotations.type.IntegrationTest;
 import com.itextpdf.test.ExtendedITextTest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
@@ -140,4 +160,235 @@ public class PdfCanvasProcessorTest extends ExtendedITextTest {
         }
     }
 
+
+    @Test
+    public void parallelTextExtractionTest() throws IOException, InterruptedException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos, new WriterProperties().setFullCompressionMode(true)));
+        PdfFont font = PdfFontFactory.createFont();
+        int numberOfPages = 60;
+        for (int i = 1; i <= numberOfPages; i++) {
+            PdfCanvas canvas = new PdfCanvas(pdfDoc.addNewPage());
+            for (int line = 0; line < 20; line++) {
+                canvas.beginText().setFontAndSize(font, 12).moveText(36, 800 - 20 * line)
+                        .showText("Page " + i + " line " + line).endText();
+            }
+        }
+        pdfDoc.close();
+        byte[] pdfBytes = baos.toByteArray();
+
+        final String[] expected = new String[numberOfPages];
+        PdfDocument sequentialDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes)));
+        for (int i = 1; i <= numberOfPages; i++) {
+            expected[i - 1] = PdfTextExtractor.getTextFromPage(sequentialDoc.getPage(i));
+        }
+        sequentialDoc.close();
+
+        final PdfDocument sharedDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes)));
+        final String[] extracted = new String[numberOfPages];
+        final Throwable[] errors = new Throwable[1];
+        final int threadCount = 4;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int firstPage = t + 1;
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (int i = firstPage; i <= extracted.length; i += threadCount) {
+                            PdfPage page = sharedDoc.getPage(i);
+                            extracted[i - 1] = PdfTextExtractor.getTextFromPage(page);
+                            page.release();
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors[0] = e;
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        sharedDoc.close();
+
+        Assert.assertNull(errors[0]);
+        Assert.assertArrayEquals(expected, extracted);
+    }
+
+    @Test
+    public void getTextFromPagesTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos));
+        PdfFont font = PdfFontFactory.createFont();
+        PdfFormXObject header = new PdfFormXObject(new Rectangle(500, 30));
+        new PdfCanvas(header, pdfDoc).beginText().setFontAndSize(font, 14).moveText(0, 10).showText("Statement").endText();
+        int numberOfPages = 40;
+        for (int i = 1; i <= numberOfPages; i++) {
+            PdfCanvas canvas = new PdfCanvas(pdfDoc.addNewPage()).addXObject(header, 36, 780);
+            canvas.beginText().setFontAndSize(font, 12).moveText(36, 700).showText("Page " + i).endText();
+        }
+        pdfDoc.close();
+
+        byte[] pdfBytes = baos.toByteArray();
+
+        // the expected texts come from a separate document, so the parallel extraction starts with no page or resource read
+        PdfDocument sequentialDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes)));
+        final List<String> expected = new ArrayList<>();
+        for (int i = 5; i <= 35; i++) {
+            expected.add(PdfTextExtractor.getTextFromPage(sequentialDoc.getPage(i), new SimpleTextExtractionStrategy()));
+        }
+        sequentialDoc.close();
+
+        ITextExtractionStrategyFactory strategyFactory = new ITextExtractionStrategyFactory() {
+            public ITextExtractionStrategy createStrategy() {
+                return new SimpleTextExtractionStrategy();
+            }
+        };
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes)));
+        Assert.assertEquals(expected, PdfTextExtractor.getTextFromPages(document, 5, 35, strategyFactory, 3));
+        document.close();
+
+        final List<Integer> pageNumbers = new ArrayList<>();
+        document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            PdfTextExtractor.getTextFromPages(document, 5, 35, strategyFactory, executor, new IPageTextConsumer() {
+                public void pageTextExtracted(int pageNumber, String text) {
+                    Assert.assertEquals(expected.get(pageNumbers.size()), text);
+                    pageNumbers.add(pageNumber);
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+        document.close();
+
+        Assert.assertEquals(31, pageNumbers.size());
+        Assert.assertEquals(Integer.valueOf(5), pageNumbers.get(0));
+        Assert.assertEquals(Integer.valueOf(35), pageNumbers.get(30));
+        Assert.assertEquals("Statement\nPage 20", expected.get(15));
+    }
+
+    @Test
+    public void allocationLightParsingTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos));
+        PdfFont font = PdfFontFactory.createFont();
+        PdfPage page = pdfDoc.addNewPage();
+        PdfCanvas canvas = new PdfCanvas(page);
+        canvas.beginText().setFontAndSize(font, 12).setCharacterSpacing(0.5f).setWordSpacing(2).setHorizontalScaling(90)
+                .setLeading(14).setTextRise(1.25f).setTextRenderingMode(2).moveText(36, 800).showText("first line")
+                .newlineShowText("second line").endText();
+        canvas.setFillColorRgb(0.2f, 0.4f, 0.6f).rectangle(36, 600, 100.5, 50.25).fill()
+                .setLineWidth(1.5f).moveTo(36, 500).curveTo(50, 520, 70, 480, 90, 500).stroke();
+        PdfName fontName = page.getResources().addFont(pdfDoc, font);
+        // the stream ends within the operands of the re operator, so the streams separator matters
+        page.newContentStreamAfter().setData(("q 0.5 0 0 0.5 10 10 cm 1 0 0 RG --5 w .5 j 10 10 m 100 100 l S Q BT /"
+                + fontName.getValue() + " 12 Tf 1 0 0 1 50 400 Tm (raw) Tj -.5 Tc 0 -14 TD (moved) Tj ET 0.25 g 10 10 20")
+                .getBytes());
+        page.newContentStreamAfter().setData(("2 re f 1.2.3 w 0 0 m 5 5 l S BT /" + fontName.getValue()
+                + " 10 Tf 20 TL 100 300 Td (next) ' 2 1 (quote) \" [(a) -250 (b)] TJ T* (star) Tj ET unknownOperator 1 2 3 re"
+                + " BI /W 1 /H 1 /BPC 8 /CS /G ID \u0080 EI").getBytes("ISO-8859-1"));
+        pdfDoc.close();
+
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        List<String> defaultEvents = processPageContent(document.getPage(1), false);
+        List<String> allocationLightEvents = processPageContent(document.getPage(1), true);
+        document.close();
+
+        Assert.assertTrue(defaultEvents.size() > 20);
+        Assert.assertEquals(defaultEvents, allocationLightEvents);
+    }
+
+    @Test
+    public void parseNumberTest() {
+        String[] numbers = {"0", "-0", "12", "+12", "-12.5", ".5", "-.5", "5.", "0.1", "3.14159265358979", "123456789012345678",
+                "0.0000000000000000000000001", "1.2.3", "-", ".", "-0.000001", "98765.4321"};
+        for (String number : numbers) {
+            double expected;
+            try {
+                expected = Double.parseDouble(number);
+            } catch (NumberFormatException e) {
+                expected = Double.NaN;
+            }
+            byte[] content = Arrays.copyOf(number.getBytes(), number.length() + 3);
+            Assert.assertEquals(number, Double.doubleToLongBits(expected),
+                    Double.doubleToLongBits(PdfCanvasOperationReader.parseNumber(content, number.length())));
+        }
+    }
+
+    @Test
+    public void formXObjectCacheTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos));
+        PdfFormXObject logo = new PdfFormXObject(new Rectangle(200, 100));
+        new PdfCanvas(logo, pdfDoc).setFillColorRgb(0.5f, 0, 0).rectangle(0, 0, 200, 100).fill()
+                .beginText().setFontAndSize(PdfFontFactory.createFont(), 20).moveText(10, 40).showText("Logo").endText();
+        int numberOfPages = 5;
+        for (int i = 0; i < numberOfPages; i++) {
+            new PdfCanvas(pdfDoc.addNewPage()).addXObject(logo, 36, 700).addXObject(logo, 300, 700 - 50 * i);
+        }
+        pdfDoc.close();
+
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        FormXObjectContentCache cache = new FormXObjectContentCache();
+        FormXObjectContentCache smallCache = new FormXObjectContentCache(3);
+        for (int i = 1; i <= numberOfPages; i++) {
+            List<String> expected = processPageContent(document.getPage(i), false, null);
+            Assert.assertEquals(expected, processPageContent(document.getPage(i), false, cache));
+            Assert.assertEquals(expected, processPageContent(document.getPage(i), true, cache));
+            Assert.assertEquals(expected, processPageContent(document.getPage(i), true, smallCache));
+        }
+        document.close();
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertTrue(cache.getCachedOperations() > 3);
+        Assert.assertEquals(0, smallCache.size());
+    }
+
+    private static List<String> processPageContent(PdfPage page, boolean allocationLightParsing) {
+        return processPageContent(page, allocationLightParsing, null);
+    }
+
+    private static List<String> processPageContent(PdfPage page, boolean allocationLightParsing, FormXObjectContentCache formXObjectCache) {
+        final List<String> events = new ArrayList<>();
+        IEventListener listener = new IEventListener() {
+            public void eventOccurred(IEventData data, EventType type) {
+                StringBuilder event = new StringBuilder(type.toString());
+                if (data instanceof TextRenderInfo) {
+                    TextRenderInfo renderInfo = (TextRenderInfo) data;
+                    event.append(' ').append(renderInfo.getText()).append(' ').append(renderInfo.getBaseline().getStartPoint())
+                            .append(' ').append(renderInfo.getAscentLine().getEndPoint()).append(' ').append(renderInfo.getTextRenderMode())
+                            .append(' ').append(renderInfo.getRise());
+                } else if (data instanceof PathRenderInfo) {
+                    PathRenderInfo renderInfo = (PathRenderInfo) data;
+                    event.append(' ').append(renderInfo.getOperation()).append(' ').append(renderInfo.getCtm())
+                            .append(' ').append(renderInfo.getLineWidth()).append(' ').append(renderInfo.getLineJoinStyle())
+                            .append(' ').append(Arrays.toString(renderInfo.getFillColor().getColorValue()))
+                            .append(' ').append(Arrays.toString(renderInfo.getStrokeColor().getColorValue()))
+                            .append(' ').append(renderInfo.getPath().getSubpaths().size())
+                            .append(' ').append(renderInfo.getPath().getCurrentPoint());
+                } else if (data instanceof ImageRenderInfo) {
+                    event.append(' ').append(((ImageRenderInfo) data).getImageCtm());
+                }
+                events.add(event.toString());
+            }
+
+            public Set<EventType> getSupportedEvents() {
+                return null;
+            }
+        };
+        IContentOperator countingOperator = new IContentOperator() {
+            public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
+                events.add("re operands " + operands);
+            }
+        };
+        PdfCanvasProcessor processor = new PdfCanvasProcessor(listener, Collections.singletonMap("re", countingOperator));
+        processor.setAllocationLightParsing(allocationLightParsing);
+        processor.setFormXObjectCache(formXObjectCache);
+        processor.processPageContent(page);
+        return events;
+    }
 }
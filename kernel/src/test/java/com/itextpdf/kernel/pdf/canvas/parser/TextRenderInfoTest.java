@@ -47,6 +47,7 @@ import com.itextpdf.kernel.geom.LineSegment;
 import com.itextpdf.kernel.geom.Vector;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.data.CharacterPositions;
 import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
 import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
@@ -80,6 +81,14 @@ public class TextRenderInfoTest extends ExtendedITextTest {
         parser.processPageContent(new PdfDocument(new PdfReader(sourceFolder + "simple_text.pdf")).getPage(FIRST_PAGE));
     }
 
+    @Test
+    public void testCharacterPositions() throws Exception {
+        CharacterPositionsEventListener listener = new CharacterPositionsEventListener();
+        PdfCanvasProcessor parser = new PdfCanvasProcessor(listener);
+        parser.processPageContent(new PdfDocument(new PdfReader(sourceFolder + "simple_text.pdf")).getPage(FIRST_PAGE));
+        Assert.assertTrue(listener.glyphCount > 0);
+    }
+
     /**
      * Test introduced to exclude a bug related to a Unicode quirk for
      * Japanese. TextRenderInfo threw an AIOOBE for some characters.
@@ -143,6 +152,38 @@ public class TextRenderInfoTest extends ExtendedITextTest {
         }
     }
 
+    private static class CharacterPositionsEventListener implements IEventListener {
+        private CharacterPositions positions = new CharacterPositions();
+        private int glyphCount;
+
+        @Override
+        public void eventOccurred(IEventData data, EventType type) {
+            if (type.equals(EventType.RENDER_TEXT)) {
+                TextRenderInfo renderInfo = (TextRenderInfo) data;
+                Assert.assertSame(positions, renderInfo.getCharacterPositions(positions));
+                List<TextRenderInfo> subs = renderInfo.getCharacterRenderInfos();
+                Assert.assertEquals(subs.size(), positions.size());
+
+                for (int i = 0; i < subs.size(); i++) {
+                    TextRenderInfo charInfo = subs.get(i);
+                    String glyphCodes = renderInfo.getPdfString().getValue().substring(positions.getStringStart(i), positions.getStringEnd(i));
+                    Assert.assertEquals(charInfo.getPdfString().getValue(), glyphCodes);
+                    LineSegment baseline = charInfo.getBaseline();
+                    Assert.assertEquals(baseline.getStartPoint().get(Vector.I1), positions.getStartX(i), 1e-3f);
+                    Assert.assertEquals(baseline.getStartPoint().get(Vector.I2), positions.getStartY(i), 1e-3f);
+                    Assert.assertEquals(baseline.getEndPoint().get(Vector.I1), positions.getEndX(i), 1e-3f);
+                    Assert.assertEquals(baseline.getEndPoint().get(Vector.I2), positions.getEndY(i), 1e-3f);
+                }
+                glyphCount += positions.size();
+            }
+        }
+
+        @Override
+        public Set<EventType> getSupportedEvents() {
+            return new LinkedHashSet<>(Collections.singletonList(EventType.RENDER_TEXT));
+        }
+    }
+
     private static class CharacterPositionEventListener implements ITextExtractionStrategy {
 
         @Override
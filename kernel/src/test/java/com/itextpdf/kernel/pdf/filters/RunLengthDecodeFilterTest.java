@@ -0,0 +1,119 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+@Category(UnitTest.class)
+public class RunLengthDecodeFilterTest extends ExtendedITextTest {
+
+    @Test
+    public void decodeLiteralAndRepeatedRuns() {
+        byte[] encoded = {2, 'a', 'b', 'c', (byte) -3, 'x', 0, 'y', (byte) 0x80, 'z'};
+        byte[] decoded = new RunLengthDecodeFilter().decode(encoded, PdfName.RunLengthDecode, null, new PdfDictionary());
+        Assert.assertArrayEquals("abcxxxxy".getBytes(StandardCharsets.ISO_8859_1), decoded);
+    }
+
+    @Test
+    public void roundTrip() {
+        byte[] data = createData();
+        byte[] decoded = new RunLengthDecodeFilter().decode(encode(data), PdfName.RunLengthDecode, null, new PdfDictionary());
+        Assert.assertArrayEquals(data, decoded);
+    }
+
+    /**
+     * Creates data with literal and repeated runs, both shorter and longer than the 128 bytes of a single run.
+     */
+    static byte[] createData() {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < i * 17; j++) {
+                data.write(j * 31 + i);
+            }
+            for (int j = 0; j < i * 23 % 300; j++) {
+                data.write(i);
+            }
+        }
+        return data.toByteArray();
+    }
+
+    /**
+     * Encodes the data with literal runs for distinct bytes and repeated runs for two or more equal bytes.
+     */
+    static byte[] encode(byte[] data) {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < data.length) {
+            int run = 1;
+            while (i + run < data.length && run < 128 && data[i + run] == data[i]) {
+                run++;
+            }
+            if (run > 1) {
+                encoded.write(257 - run);
+                encoded.write(data[i]);
+                i += run;
+            } else {
+                int start = i;
+                while (i < data.length && i - start < 128 && (i + 1 == data.length || data[i + 1] != data[i])) {
+                    i++;
+                }
+                if (i == start) {
+                    i++;
+                }
+                encoded.write(i - start - 1);
+                encoded.write(data, start, i - start);
+            }
+        }
+        encoded.write(0x80);
+        return encoded.toByteArray();
+    }
+}
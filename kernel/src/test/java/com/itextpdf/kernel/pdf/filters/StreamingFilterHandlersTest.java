@@ -0,0 +1,331 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.io.codec.LZWCompressor;
+import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNull;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+
+@Category(UnitTest.class)
+public class StreamingFilterHandlersTest extends ExtendedITextTest {
+
+    private static final int COLUMNS = 50;
+    private static final int COLORS = 3;
+    private static final int ROWS = 400;
+
+    @Test
+    public void ascii85DecodeStream() throws IOException {
+        byte[] data = createData();
+        assertDecodeStream(data, encodeAscii85(data), createDictionary(PdfName.ASCII85Decode));
+    }
+
+    @Test
+    public void asciiHexDecodeStream() throws IOException {
+        byte[] data = createData();
+        assertDecodeStream(data, encodeAsciiHex(data), createDictionary(PdfName.ASCIIHexDecode));
+    }
+
+    @Test
+    public void lzwDecodeStream() throws IOException {
+        byte[] data = createData();
+        assertDecodeStream(data, encodeLzw(data), createDictionary(PdfName.LZWDecode));
+    }
+
+    @Test
+    public void runLengthDecodeStream() throws IOException {
+        byte[] data = RunLengthDecodeFilterTest.createData();
+        assertDecodeStream(data, RunLengthDecodeFilterTest.encode(data), createDictionary(PdfName.RunLengthDecode));
+    }
+
+    @Test
+    public void flateDecodeStreamWithPngPredictor() throws IOException {
+        byte[] data = createData();
+        PdfDictionary dictionary = createDictionary(PdfName.FlateDecode);
+        dictionary.put(PdfName.DecodeParms, createDecodeParams(15));
+        assertDecodeStream(data, encodeFlate(encodePngPredictor(data)), dictionary);
+    }
+
+    @Test
+    public void flateDecodeStreamWithTiffPredictor() throws IOException {
+        byte[] data = createData();
+        PdfDictionary dictionary = createDictionary(PdfName.FlateDecode);
+        dictionary.put(PdfName.DecodeParms, createDecodeParams(2));
+        assertDecodeStream(data, encodeFlate(encodeTiffPredictor(data)), dictionary);
+    }
+
+    @Test
+    public void lzwDecodeStreamWithPngPredictor() throws IOException {
+        byte[] data = createData();
+        PdfDictionary dictionary = createDictionary(PdfName.LZWDecode);
+        dictionary.put(PdfName.DecodeParms, createDecodeParams(12));
+        assertDecodeStream(data, encodeLzw(encodePngPredictor(data)), dictionary);
+    }
+
+    @Test
+    public void chainedAscii85AndFlateDecodeStream() throws IOException {
+        byte[] data = createData();
+        PdfDictionary dictionary = createDictionary(PdfName.ASCII85Decode, PdfName.FlateDecode);
+        PdfArray decodeParams = new PdfArray();
+        decodeParams.add(PdfNull.PDF_NULL);
+        decodeParams.add(createDecodeParams(15));
+        dictionary.put(PdfName.DecodeParms, decodeParams);
+        assertDecodeStream(data, encodeAscii85(encodeFlate(encodePngPredictor(data))), dictionary);
+    }
+
+    @Test
+    public void chainedAsciiHexLzwAndRunLengthDecodeStream() throws IOException {
+        byte[] data = RunLengthDecodeFilterTest.createData();
+        PdfDictionary dictionary = createDictionary(PdfName.ASCIIHexDecode, PdfName.LZWDecode, PdfName.RunLengthDecode);
+        assertDecodeStream(data, encodeAsciiHex(encodeLzw(RunLengthDecodeFilterTest.encode(data))), dictionary);
+    }
+
+    /**
+     * Checks that the stream decoded incrementally equals the data decoded in memory by {@link PdfReader#decodeBytes},
+     * both when it is read at once and when it is read byte by byte from an input returning a single byte per call.
+     */
+    private static void assertDecodeStream(byte[] data, byte[] encoded, PdfDictionary dictionary) throws IOException {
+        byte[] decoded = PdfReader.decodeBytes(encoded, dictionary);
+        Assert.assertArrayEquals(data, decoded);
+
+        InputStream is = PdfReader.decodeStream(new ByteArrayInputStream(encoded), dictionary);
+        Assert.assertArrayEquals(decoded, StreamUtil.inputStreamToArray(is));
+        is.close();
+
+        is = PdfReader.decodeStream(new SingleByteInputStream(encoded), dictionary);
+        ByteArrayOutputStream readByByte = new ByteArrayOutputStream();
+        int b;
+        while ((b = is.read()) >= 0) {
+            readByByte.write(b);
+        }
+        is.close();
+        Assert.assertArrayEquals(decoded, readByByte.toByteArray());
+
+        is = PdfReader.decodeStream(new SingleByteInputStream(encoded), dictionary);
+        ByteArrayOutputStream readInChunks = new ByteArrayOutputStream();
+        byte[] buffer = new byte[127];
+        int n;
+        for (int len = 1; (n = is.read(buffer, 0, len)) >= 0; len = len % buffer.length + 1) {
+            readInChunks.write(buffer, 0, n);
+        }
+        is.close();
+        Assert.assertArrayEquals(decoded, readInChunks.toByteArray());
+    }
+
+    private static PdfDictionary createDictionary(PdfName... filters) {
+        PdfDictionary dictionary = new PdfDictionary();
+        if (filters.length == 1) {
+            dictionary.put(PdfName.Filter, filters[0]);
+        } else {
+            PdfArray filterArray = new PdfArray();
+            for (PdfName filter : filters) {
+                filterArray.add(filter);
+            }
+            dictionary.put(PdfName.Filter, filterArray);
+        }
+        return dictionary;
+    }
+
+    private static PdfDictionary createDecodeParams(int predictor) {
+        PdfDictionary decodeParams = new PdfDictionary();
+        decodeParams.put(PdfName.Predictor, new PdfNumber(predictor));
+        decodeParams.put(PdfName.Colors, new PdfNumber(COLORS));
+        decodeParams.put(PdfName.Columns, new PdfNumber(COLUMNS));
+        return decodeParams;
+    }
+
+    /**
+     * Creates a smooth image with noise, large enough to span several buffers of the decoders.
+     */
+    private static byte[] createData() {
+        Random random = new Random(42);
+        byte[] data = new byte[ROWS * COLUMNS * COLORS];
+        for (int i = 0; i < data.length; i++) {
+            int row = i / (COLUMNS * COLORS);
+            data[i] = (byte) (row + i % (COLUMNS * COLORS) + (random.nextInt(8) == 0 ? random.nextInt(256) : 0));
+        }
+        for (int i = 0; i < 32; i++) {
+            data[i * 113] = 0;
+        }
+        return data;
+    }
+
+    private static byte[] encodeAscii85(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < data.length; i += 4) {
+            int n = Math.min(4, data.length - i);
+            long value = 0;
+            for (int j = 0; j < 4; j++) {
+                value = value << 8 | (j < n ? data[i + j] & 0xff : 0);
+            }
+            if (value == 0 && n == 4) {
+                out.write('z');
+            } else {
+                char[] chars = new char[5];
+                for (int j = 4; j >= 0; j--) {
+                    chars[j] = (char) ('!' + value % 85);
+                    value /= 85;
+                }
+                for (int j = 0; j <= n; j++) {
+                    out.write(chars[j]);
+                }
+            }
+            if (i % 64 == 60) {
+                out.write('\n');
+            }
+        }
+        out.write('~');
+        out.write('>');
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeAsciiHex(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String digits = "0123456789abcdef";
+        for (int i = 0; i < data.length; i++) {
+            out.write(digits.charAt(data[i] >> 4 & 0xf));
+            // an odd number of digits at the end of the data is completed with a zero
+            if (i < data.length - 1 || (data[i] & 0xf) != 0) {
+                out.write(digits.charAt(data[i] & 0xf));
+            }
+            out.write(i % 32 == 31 ? '\n' : ' ');
+        }
+        out.write('>');
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeLzw(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LZWCompressor compressor = new LZWCompressor(out, 8, true);
+        compressor.compress(data, 0, data.length);
+        compressor.flush();
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeFlate(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+        deflater.write(data);
+        deflater.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * Applies the PNG filter types in turn to the rows.
+     */
+    private static byte[] encodePngPredictor(byte[] data) {
+        int bytesPerRow = COLUMNS * COLORS;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int row = 0; row < ROWS; row++) {
+            int filter = row % 5;
+            out.write(filter);
+            for (int i = 0; i < bytesPerRow; i++) {
+                int x = data[row * bytesPerRow + i] & 0xff;
+                int a = i >= COLORS ? data[row * bytesPerRow + i - COLORS] & 0xff : 0;
+                int b = row > 0 ? data[(row - 1) * bytesPerRow + i] & 0xff : 0;
+                int c = i >= COLORS && row > 0 ? data[(row - 1) * bytesPerRow + i - COLORS] & 0xff : 0;
+                switch (filter) {
+                    case 1:
+                        x -= a;
+                        break;
+                    case 2:
+                        x -= b;
+                        break;
+                    case 3:
+                        x -= (a + b) / 2;
+                        break;
+                    case 4:
+                        int p = a + b - c;
+                        int pa = Math.abs(p - a);
+                        int pb = Math.abs(p - b);
+                        int pc = Math.abs(p - c);
+                        x -= pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+                        break;
+                }
+                out.write(x);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeTiffPredictor(byte[] data) {
+        int bytesPerRow = COLUMNS * COLORS;
+        byte[] out = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            out[i] = (byte) (i % bytesPerRow >= COLORS ? data[i] - data[i - COLORS] : data[i]);
+        }
+        return out;
+    }
+
+    /**
+     * Provides at most one byte per call to check the decoders on input which is not available at once.
+     */
+    private static class SingleByteInputStream extends FilterInputStream {
+
+        SingleByteInputStream(byte[] data) {
+            super(new ByteArrayInputStream(data));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(1, len));
+        }
+    }
+}
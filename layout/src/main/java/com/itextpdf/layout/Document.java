@@ -51,9 +51,11 @@ import com.itextpdf.layout.element.AreaBreak;
 import com.itextpdf.layout.element.IBlockElement;
 import com.itextpdf.layout.element.IElement;
 import com.itextpdf.layout.element.ILargeElement;
+import com.itextpdf.layout.property.Property;
 import com.itextpdf.layout.renderer.DocumentRenderer;
 import com.itextpdf.layout.renderer.IRenderer;
 import com.itextpdf.layout.renderer.RootRenderer;
+import com.itextpdf.layout.renderer.TextLayoutCache;
 
 /**
  * Document is the default root element when creating a self-sufficient PDF. It
@@ -167,6 +169,28 @@ public class Document extends RootElement<Document> {
         this.rootRenderer = documentRenderer;
     }
 
+    /**
+     * Sets a cache which text renderers use to reuse the layout of identical text, e.g. of table header rows
+     * repeated on every page. The cache is not used by default.
+     *
+     * @param textLayoutCache the cache to use, or <code>null</code> to stop using a cache
+     * @return this element
+     * @see TextLayoutCache
+     */
+    public Document setTextLayoutCache(TextLayoutCache textLayoutCache) {
+        setProperty(Property.TEXT_LAYOUT_CACHE, textLayoutCache);
+        return this;
+    }
+
+    /**
+     * Gets the cache set with {@link #setTextLayoutCache(TextLayoutCache)}, e.g. to check its hit rate.
+     *
+     * @return the text layout cache, or <code>null</code> if none is used
+     */
+    public TextLayoutCache getTextLayoutCache() {
+        return this.<TextLayoutCache>getProperty(Property.TEXT_LAYOUT_CACHE);
+    }
+
     /**
      * Forces all registered renderers (including child element renderers) to
      * flush their contents to the content stream.
@@ -0,0 +1,138 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.layout.hyphenation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compiles hyphenation pattern XML files into the binary form which {@link Hyphenator} prefers over the XML files,
+ * see {@link HyphenationTree#storeCompiledPatterns(OutputStream)}. It is meant to be run at build time, e.g.
+ * by the build of the hyph module:
+ * <pre>
+ * java com.itextpdf.layout.hyphenation.HyphenationPatternCompiler &lt;source directory&gt; &lt;destination directory&gt;
+ * </pre>
+ */
+public final class HyphenationPatternCompiler {
+
+    private static final String XML_EXTENSION = ".xml";
+
+    private static Logger log = LoggerFactory.getLogger(HyphenationPatternCompiler.class);
+
+    private HyphenationPatternCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: HyphenationPatternCompiler <source directory> <destination directory>");
+            System.exit(1);
+        }
+        int count = compileDirectory(new File(args[0]), new File(args[1]));
+        log.info("Compiled " + count + " hyphenation pattern files");
+    }
+
+    /**
+     * Compiles all the pattern XML files of the directory. The files which can't be parsed are skipped,
+     * {@link Hyphenator} can't load them either.
+     * @param sourceDirectory the directory with the XML files
+     * @param destinationDirectory the directory to write the compiled patterns to
+     * @return the number of compiled files
+     * @throws IOException in case of an I/O error
+     */
+    public static int compileDirectory(File sourceDirectory, File destinationDirectory) throws IOException {
+        File[] sources = sourceDirectory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(XML_EXTENSION);
+            }
+        });
+        if (sources == null) {
+            throw new IOException("Not a directory: " + sourceDirectory.getPath());
+        }
+        if (!destinationDirectory.isDirectory() && !destinationDirectory.mkdirs()) {
+            throw new IOException("Can't create directory: " + destinationDirectory.getPath());
+        }
+        int count = 0;
+        for (File source : sources) {
+            String key = source.getName().substring(0, source.getName().length() - XML_EXTENSION.length());
+            try {
+                compile(source, new File(destinationDirectory, key + HyphenationTree.COMPILED_PATTERNS_EXTENSION));
+                count++;
+            } catch (HyphenationException e) {
+                log.warn("Skipped hyphenation pattern file " + source.getName() + ": " + e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compiles a pattern XML file.
+     * @param source the XML file
+     * @param destination the file to write the compiled patterns to
+     * @throws IOException in case of an I/O error
+     * @throws HyphenationException in case the pattern file can't be parsed
+     */
+    public static void compile(File source, File destination) throws IOException, HyphenationException {
+        HyphenationTree hTree = new HyphenationTree();
+        FileInputStream in = new FileInputStream(source);
+        try {
+            hTree.loadPatterns(in, source.getName());
+        } finally {
+            in.close();
+        }
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(destination));
+        try {
+            hTree.storeCompiledPatterns(out);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -17,11 +17,17 @@
 
 package com.itextpdf.layout.hyphenation;
 
+import com.itextpdf.io.util.StreamUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -39,6 +45,16 @@ public class HyphenationTree extends TernaryTree implements IPatternConsumer {
 
     private static final long serialVersionUID = -7842107987915665573L;
 
+    /**
+     * The file extension of the compiled patterns.
+     */
+    public static final String COMPILED_PATTERNS_EXTENSION = ".hyb";
+
+    private static final int COMPILED_PATTERNS_MAGIC = 0x48594231; // "HYB1"
+
+    private static final byte EXCEPTION_STRING = 0;
+    private static final byte EXCEPTION_HYPHEN = 1;
+
     /**
      * value space: stores the interletter values
      */
@@ -137,6 +153,7 @@ public class HyphenationTree extends TernaryTree implements IPatternConsumer {
      * @throws HyphenationException In case the parsing fails
      */
     public void loadPatterns(InputStream stream, String name) throws HyphenationException {
+        checkWritable();
         PatternParser pp = new PatternParser(this);
         ivalues = new TernaryTree();
 
@@ -152,6 +169,90 @@ public class HyphenationTree extends TernaryTree implements IPatternConsumer {
         ivalues = null;
     }
 
+    /**
+     * Read hyphenation patterns compiled with {@link #storeCompiledPatterns(OutputStream)}.
+     * The whole stream is read at once, the node arrays are restored as they are, without
+     * parsing and inserting the patterns one by one.
+     * @param stream the stream with the compiled patterns
+     * @param name unique key representing country-language combination
+     * @throws HyphenationException In case the stream can't be read or doesn't contain compiled patterns
+     */
+    public void loadCompiledPatterns(InputStream stream, String name) throws HyphenationException {
+        checkWritable();
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(StreamUtil.inputStreamToArray(stream)));
+            if (in.readInt() != COMPILED_PATTERNS_MAGIC) {
+                throw new HyphenationException(name + " doesn't contain compiled hyphenation patterns");
+            }
+            readNodes(in);
+            classmap.readNodes(in);
+            byte[] values = new byte[in.readInt()];
+            in.readFully(values);
+            vspace = new ByteVector(values);
+            int exceptionCount = in.readInt();
+            stoplist = new HashMap<>(exceptionCount);
+            for (int i = 0; i < exceptionCount; i++) {
+                String word = in.readUTF();
+                int size = in.readInt();
+                ArrayList<Object> hyphenatedWord = new ArrayList<>(size);
+                for (int j = 0; j < size; j++) {
+                    if (in.readByte() == EXCEPTION_HYPHEN) {
+                        hyphenatedWord.add(new Hyphen(readNullableString(in), readNullableString(in), readNullableString(in)));
+                    } else {
+                        hyphenatedWord.add(in.readUTF());
+                    }
+                }
+                stoplist.put(word, hyphenatedWord);
+            }
+        } catch (IOException e) {
+            throw new HyphenationException(name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write the loaded hyphenation patterns in the compact binary form, which can be read
+     * with {@link #loadCompiledPatterns(InputStream, String)}.
+     * @param stream the stream to write to
+     * @throws IOException in case of an I/O error
+     */
+    public void storeCompiledPatterns(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(COMPILED_PATTERNS_MAGIC);
+        writeNodes(out);
+        classmap.writeNodes(out);
+        out.writeInt(vspace.length());
+        out.write(vspace.getArray(), 0, vspace.length());
+        out.writeInt(stoplist.size());
+        for (Map.Entry<String, List> exception : stoplist.entrySet()) {
+            out.writeUTF(exception.getKey());
+            out.writeInt(exception.getValue().size());
+            for (Object o : exception.getValue()) {
+                if (o instanceof Hyphen) {
+                    Hyphen hyphen = (Hyphen) o;
+                    out.writeByte(EXCEPTION_HYPHEN);
+                    writeNullableString(out, hyphen.preBreak);
+                    writeNullableString(out, hyphen.noBreak);
+                    writeNullableString(out, hyphen.postBreak);
+                } else {
+                    out.writeByte(EXCEPTION_STRING);
+                    out.writeUTF(o.toString());
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeNullableString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
     /**
      * Find pattern.
      * @param pat a pattern
@@ -556,6 +657,7 @@ public class HyphenationTree extends TernaryTree implements IPatternConsumer {
      * @param chargroup a character class (group)
      */
     public void addClass(String chargroup) {
+        checkWritable();
         if (chargroup.length() > 0) {
             char equivChar = chargroup.charAt(0);
             char[] key = new char[2];
@@ -576,6 +678,7 @@ public class HyphenationTree extends TernaryTree implements IPatternConsumer {
      * {@link Hyphen hyphen} objects.
      */
     public void addException(String word, List hyphenatedword) {
+        checkWritable();
         stoplist.put(word, hyphenatedword);
     }
 
@@ -590,6 +693,7 @@ public class HyphenationTree extends TernaryTree implements IPatternConsumer {
      * (i.e. '0' to '9').
      */
     public void addPattern(String pattern, String ivalue) {
+        checkWritable();
         int k = ivalues.find(ivalue);
         if (k <= 0) {
             k = packValues(ivalue);
@@ -598,4 +702,10 @@ public class HyphenationTree extends TernaryTree implements IPatternConsumer {
         insert(pattern, (char)k);
     }
 
+    @Override
+    void setReadOnly() {
+        super.setReadOnly();
+        classmap.setReadOnly();
+    }
+
 }
@@ -194,49 +194,49 @@ public final class Hyphenator {
 
         HyphenationTree hTree;
         // first try to find it in the cache
-        hTree = getHyphenationTreeCache().getHyphenationTree(lang, country);
+        hTree = cache.getHyphenationTree(lang, country);
         if (hTree != null) {
             return hTree;
         }
 
-        String key = HyphenationTreeCache.constructUserKey(lang, country, hyphPathNames);
-        if (key == null) {
-            key = llccKey;
-        }
-
-        if (additionalHyphenationFileDirectories != null) {
-            for (String dir : additionalHyphenationFileDirectories) {
-                hTree = getHyphenationTree(dir, key);
+        // the patterns of a language are loaded once, even if several threads ask for them at the same time
+        synchronized (cache) {
+            hTree = cache.getHyphenationTree(lang, country);
+            if (hTree == null) {
+                hTree = loadHyphenationTree(lang, country, hyphPathNames);
+                // put it into the pattern cache
                 if (hTree != null) {
-                    break;
+                    cache.cache(llccKey, hTree);
                 }
             }
         }
 
-        if (hTree == null) {
-            // get from the default directory
-            InputStream defaultHyphenationResourceStream = ResourceUtil.getResourceStream(HYPHENATION_DEFAULT_RESOURCE + key + ".xml");
-            if (defaultHyphenationResourceStream != null) {
-                hTree = getHyphenationTree(defaultHyphenationResourceStream, key);
-            }
-        }
-
-        // put it into the pattern cache
-        if (hTree != null) {
-            cache.cache(llccKey, hTree);
-        }
-
         return hTree;
     }
 
     /**
-     * Load tree from xml file using configuration settings.
+     * Load tree from compiled patterns file or xml file using configuration settings.
      *
      * @param searchDirectory the directory to search the file into
      * @param key language key for the requested hyphenation file
      * @return the requested HyphenationTree or null if it is not available
      */
     public static HyphenationTree getHyphenationTree(String searchDirectory, String key) {
+        String compiledName = key + HyphenationTree.COMPILED_PATTERNS_EXTENSION;
+        File compiledFile = new File(searchDirectory, compiledName);
+        if (compiledFile.isFile()) {
+            try {
+                HyphenationTree hTree = getCompiledHyphenationTree(new FileInputStream(compiledFile), compiledName);
+                if (hTree != null) {
+                    return hTree;
+                }
+            } catch (IOException ioe) {
+                if (log.isDebugEnabled()) {
+                    log.debug("I/O problem while trying to load " + compiledName + ": " + ioe.getMessage());
+                }
+            }
+        }
+
         // try the raw XML file
         String name = key + ".xml";
         try {
@@ -278,6 +278,68 @@ public final class Hyphenator {
         return hTree;
     }
 
+    /**
+     * Load tree from the stream with compiled patterns,
+     * see {@link HyphenationTree#storeCompiledPatterns(java.io.OutputStream)}.
+     *
+     * @param in the input stream to load the tree from
+     * @param name unique key representing country-language combination
+     * @return the requested HyphenationTree or null if it is not available
+     */
+    public static HyphenationTree getCompiledHyphenationTree(InputStream in, String name) {
+        if (in == null) {
+            return null;
+        }
+        HyphenationTree hTree;
+        try {
+            hTree = new HyphenationTree();
+            hTree.loadCompiledPatterns(in, name);
+        }
+        catch (HyphenationException ex) {
+            log.error("Can't load compiled patterns " + name + ": " + ex.getMessage());
+            return null;
+        }
+        finally {
+            try {
+                in.close();
+            } catch (Exception ignored) {}
+        }
+        return hTree;
+    }
+
+    private static HyphenationTree loadHyphenationTree(String lang, String country, Map<String, String> hyphPathNames) {
+        HyphenationTree hTree = null;
+        String key = HyphenationTreeCache.constructUserKey(lang, country, hyphPathNames);
+        if (key == null) {
+            key = HyphenationTreeCache.constructLlccKey(lang, country);
+        }
+
+        if (additionalHyphenationFileDirectories != null) {
+            for (String dir : additionalHyphenationFileDirectories) {
+                hTree = getHyphenationTree(dir, key);
+                if (hTree != null) {
+                    break;
+                }
+            }
+        }
+
+        if (hTree == null) {
+            // get from the default directory, preferring the compiled patterns
+            InputStream compiledResourceStream = ResourceUtil.getResourceStream(HYPHENATION_DEFAULT_RESOURCE + key + HyphenationTree.COMPILED_PATTERNS_EXTENSION);
+            if (compiledResourceStream != null) {
+                hTree = getCompiledHyphenationTree(compiledResourceStream, key);
+            }
+        }
+        if (hTree == null) {
+            InputStream defaultHyphenationResourceStream = ResourceUtil.getResourceStream(HYPHENATION_DEFAULT_RESOURCE + key + ".xml");
+            if (defaultHyphenationResourceStream != null) {
+                hTree = getHyphenationTree(defaultHyphenationResourceStream, key);
+            }
+        }
+
+        return hTree;
+    }
+
     /**
      * Hyphenates a word.
      *
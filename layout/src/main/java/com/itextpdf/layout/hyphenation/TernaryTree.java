@@ -17,6 +17,9 @@
 
 package com.itextpdf.layout.hyphenation;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Enumeration;
 
@@ -116,6 +119,9 @@ public class TernaryTree implements Serializable {
     /** allocation size for arrays */
     protected static final int BLOCK_SIZE = 2048;
 
+    /** true if the tree is shared and must not be modified anymore */
+    private boolean readOnly;
+
     /** default constructor */
     TernaryTree() {
         init();
@@ -155,6 +161,7 @@ public class TernaryTree implements Serializable {
      * @param val a value
      */
     public void insert(String key, char val) {
+        checkWritable();
         // make sure we have enough room in the arrays
         int len = key.length()
                   + 1;    // maximum number of nodes that may be generated
@@ -174,6 +181,7 @@ public class TernaryTree implements Serializable {
      * @param val a value
      */
     public void insert(char[] key, int start, char val) {
+        checkWritable();
         int len = strlen(key) + 1;
         if (freenode + len > eq.length) {
             redimNodeArrays(eq.length + BLOCK_SIZE);
@@ -441,6 +449,7 @@ public class TernaryTree implements Serializable {
      * Balance the tree for best search performance
      */
     public void balance() {
+        checkWritable();
         // System.out.print("Before root splitchar = "); System.out.println(sc[root]);
 
         int i = 0;
@@ -473,6 +482,7 @@ public class TernaryTree implements Serializable {
      *
      */
     public void trimToSize() {
+        checkWritable();
         // first balance the tree for best performance
         balance();
 
@@ -514,5 +524,79 @@ public class TernaryTree implements Serializable {
     public Enumeration keys() {
         return new TernaryTreeIterator(this);
     }
+
+    /**
+     * Makes the tree read-only. It is called once the tree is shared, e.g. when it is put
+     * into a {@link HyphenationTreeCache}. Any attempt to modify it afterwards throws
+     * an {@link IllegalStateException}.
+     */
+    void setReadOnly() {
+        readOnly = true;
+    }
+
+    /**
+     * Checks whether the tree is read-only, see {@link #setReadOnly()}.
+     * @return true if the tree can't be modified
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Throws an {@link IllegalStateException} if the tree is read-only.
+     */
+    protected void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("The tree is read-only, it can't be modified after it is shared.");
+        }
+    }
+
+    /**
+     * Writes the used part of the node arrays and the key vector.
+     * @param out the output to write to
+     * @throws IOException in case of an I/O error
+     */
+    void writeNodes(DataOutputStream out) throws IOException {
+        out.writeChar(root);
+        out.writeChar(freenode);
+        out.writeInt(length);
+        writeChars(out, lo, freenode);
+        writeChars(out, hi, freenode);
+        writeChars(out, eq, freenode);
+        writeChars(out, sc, freenode);
+        out.writeInt(kv.length());
+        writeChars(out, kv.getArray(), kv.length());
+    }
+
+    /**
+     * Replaces the content of the tree with the nodes written by {@link #writeNodes(DataOutputStream)}.
+     * @param in the input to read from
+     * @throws IOException in case of an I/O error
+     */
+    void readNodes(DataInputStream in) throws IOException {
+        checkWritable();
+        root = in.readChar();
+        freenode = in.readChar();
+        length = in.readInt();
+        lo = readChars(in, freenode);
+        hi = readChars(in, freenode);
+        eq = readChars(in, freenode);
+        sc = readChars(in, freenode);
+        kv = new CharVector(readChars(in, in.readInt()));
+    }
+
+    private static void writeChars(DataOutputStream out, char[] chars, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeChar(chars[i]);
+        }
+    }
+
+    private static char[] readChars(DataInputStream in, int count) throws IOException {
+        char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = in.readChar();
+        }
+        return chars;
+    }
 }
 
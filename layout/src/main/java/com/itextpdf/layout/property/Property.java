@@ -164,6 +164,10 @@ public final class Property {
     public static final int TAB_LEADER = 68;
     public static final int TAB_STOPS = 69;
     public static final int TEXT_ALIGNMENT = 70;
+    /**
+     * Use a {@link com.itextpdf.layout.renderer.TextLayoutCache} instance to reuse the layout of identical text.
+     */
+    public static final int TEXT_LAYOUT_CACHE = 101;
     /**
      * Use values from {@link com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants.TextRenderingMode}.
      */
@@ -187,7 +191,7 @@ public final class Property {
      * related to textual operations. Indicates whether or not this type of property is inheritable.
      */
     private static final boolean[] INHERITED_PROPERTIES;
-    private static final int MAX_INHERITED_PROPERTY_ID = 98;
+    private static final int MAX_INHERITED_PROPERTY_ID = 101;
 
     static {
         INHERITED_PROPERTIES = new boolean[MAX_INHERITED_PROPERTY_ID + 1];
@@ -217,6 +221,7 @@ public final class Property {
         INHERITED_PROPERTIES[Property.STROKE_COLOR] = true;
         INHERITED_PROPERTIES[Property.STROKE_WIDTH] = true;
         INHERITED_PROPERTIES[Property.TEXT_ALIGNMENT] = true;
+        INHERITED_PROPERTIES[Property.TEXT_LAYOUT_CACHE] = true;
         INHERITED_PROPERTIES[Property.TEXT_RENDERING_MODE] = true;
         INHERITED_PROPERTIES[Property.TEXT_RISE] = true;
         INHERITED_PROPERTIES[Property.UNDERLINE] = true;
@@ -0,0 +1,334 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.layout.property;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A {@link Map} of property values, keyed by the {@link Property} constants, which is used as the property storage
+ * of layout elements and renderers.
+ * <br><br>
+ * The values are held in an array indexed directly by the property key, so that lookups do not need any hashing.
+ * Copies made with {@link #PropertyMap(Map)} or {@link #putAll(Map)} into an empty map share the array with the
+ * original until either of them is modified, which makes copying the properties of a split renderer cheap.
+ * Keys outside the range of the layout properties are supported as well, but stored in a regular hash map.
+ */
+public final class PropertyMap extends AbstractMap<Integer, Object> {
+
+    /**
+     * Keys from 0 up to this value, exclusive, are stored in the array.
+     */
+    private static final int MAX_DENSE_KEY = 128;
+
+    /**
+     * Stands for a {@code null} value in the array, where {@code null} means that there is no mapping.
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private Object[] values = EMPTY_VALUES;
+
+    /**
+     * Whether {@link #values} may be shared with another map, in which case it is copied before being modified.
+     */
+    private boolean valuesShared;
+
+    private int denseSize;
+
+    private Map<Integer, Object> sparseValues;
+
+    private transient Set<Map.Entry<Integer, Object>> entrySet;
+
+    /**
+     * Creates an empty map.
+     */
+    public PropertyMap() {
+    }
+
+    /**
+     * Creates a map with the same mappings as the specified one.
+     *
+     * @param other the map whose mappings are to be placed in this map
+     */
+    public PropertyMap(Map<Integer, Object> other) {
+        putAll(other);
+    }
+
+    @Override
+    public int size() {
+        return denseSize + (sparseValues != null ? sparseValues.size() : 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key instanceof Integer) {
+            int k = (int) (Integer) key;
+            if (isDense(k)) {
+                return k < values.length && values[k] != null;
+            }
+        }
+        return sparseValues != null && sparseValues.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (key instanceof Integer) {
+            int k = (int) (Integer) key;
+            if (isDense(k)) {
+                return k < values.length ? unmask(values[k]) : null;
+            }
+        }
+        return sparseValues != null ? sparseValues.get(key) : null;
+    }
+
+    @Override
+    public Object put(Integer key, Object value) {
+        int k = (int) key;
+        if (!isDense(k)) {
+            if (sparseValues == null) {
+                sparseValues = new HashMap<>();
+            }
+            return sparseValues.put(key, value);
+        }
+        if (k >= values.length) {
+            Object[] grown = new Object[Math.min(Math.max(k + 1, values.length * 2), MAX_DENSE_KEY)];
+            System.arraycopy(values, 0, grown, 0, values.length);
+            values = grown;
+            valuesShared = false;
+        } else if (valuesShared) {
+            values = values.clone();
+            valuesShared = false;
+        }
+        Object previous = values[k];
+        values[k] = value != null ? value : NULL_VALUE;
+        if (previous == null) {
+            denseSize++;
+        }
+        return unmask(previous);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (key instanceof Integer) {
+            int k = (int) (Integer) key;
+            if (isDense(k)) {
+                if (k >= values.length || values[k] == null) {
+                    return null;
+                }
+                if (valuesShared) {
+                    values = values.clone();
+                    valuesShared = false;
+                }
+                Object previous = values[k];
+                values[k] = null;
+                denseSize--;
+                return unmask(previous);
+            }
+        }
+        return sparseValues != null ? sparseValues.remove(key) : null;
+    }
+
+    @Override
+    public void putAll(Map<? extends Integer, ?> m) {
+        if (m instanceof PropertyMap && isEmpty()) {
+            PropertyMap other = (PropertyMap) m;
+            values = other.values;
+            denseSize = other.denseSize;
+            valuesShared = true;
+            other.valuesShared = true;
+            if (other.sparseValues != null) {
+                sparseValues = new HashMap<>(other.sparseValues);
+            }
+        } else {
+            super.putAll(m);
+        }
+    }
+
+    @Override
+    public void clear() {
+        values = EMPTY_VALUES;
+        valuesShared = false;
+        denseSize = 0;
+        sparseValues = null;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private static boolean isDense(int key) {
+        return key >= 0 && key < MAX_DENSE_KEY;
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL_VALUE ? null : value;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<Integer, Object>> {
+        @Override
+        public Iterator<Map.Entry<Integer, Object>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return PropertyMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            PropertyMap.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Integer, Object>> {
+        private int nextKey = -1;
+        private int lastKey = -1;
+        private Iterator<Map.Entry<Integer, Object>> sparseIterator;
+        private boolean lastFromSparse;
+
+        EntryIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextKey < values.length || sparseIterator().hasNext();
+        }
+
+        @Override
+        public Map.Entry<Integer, Object> next() {
+            if (nextKey < values.length) {
+                lastKey = nextKey;
+                lastFromSparse = false;
+                advance();
+                return new Entry(lastKey);
+            }
+            Map.Entry<Integer, Object> entry = sparseIterator().next();
+            lastFromSparse = true;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastFromSparse) {
+                sparseIterator().remove();
+            } else if (lastKey >= 0) {
+                PropertyMap.this.remove(lastKey);
+                lastKey = -1;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+
+        private void advance() {
+            do {
+                nextKey++;
+            } while (nextKey < values.length && values[nextKey] == null);
+        }
+
+        private Iterator<Map.Entry<Integer, Object>> sparseIterator() {
+            if (sparseIterator == null) {
+                sparseIterator = sparseValues != null
+                        ? sparseValues.entrySet().iterator()
+                        : new HashMap<Integer, Object>().entrySet().iterator();
+            }
+            return sparseIterator;
+        }
+    }
+
+    private final class Entry implements Map.Entry<Integer, Object> {
+        private final int key;
+
+        Entry(int key) {
+            this.key = key;
+        }
+
+        @Override
+        public Integer getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return get(key);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object value = getValue();
+            return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return key ^ (value == null ? 0 : value.hashCode());
+        }
+    }
+}
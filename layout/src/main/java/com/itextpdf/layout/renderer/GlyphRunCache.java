@@ -0,0 +1,289 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.layout.renderer;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.otf.Glyph;
+import com.itextpdf.io.font.otf.GlyphLine;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfType3Font;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Memoizes the result of applying OpenType features (script shaping and kerning) to a line of glyphs,
+ * and the conversion of texts to glyphs.
+ * <br><br>
+ * There is one shaping cache per {@link FontProgram}, obtained with {@link #getInstance(FontProgram)}, which lives as long
+ * as the font program itself. A shaped run is looked up by the unshaped glyphs, the script and whether kerning
+ * was applied. There is also one conversion cache per {@link PdfFont}, obtained with {@link #getInstance(PdfFont)},
+ * in which the result of {@link PdfFont#createGlyphLine(String)} is looked up by the text.
+ * The cached run is never handed out: every lookup returns a fresh copy which may be modified and
+ * split by the caller.
+ * <br><br>
+ * Each cache holds a bounded number of runs, evicting the least recently used ones. It is safe to use
+ * from several threads.
+ */
+public final class GlyphRunCache {
+
+    /**
+     * The default maximum number of cached runs per font program.
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /**
+     * Texts longer than this are converted to glyphs without being cached.
+     */
+    static final int MAX_CONVERTED_TEXT_LENGTH = 256;
+
+    private static final Map<FontProgram, GlyphRunCache> caches = new WeakHashMap<>();
+    private static final Map<PdfFont, GlyphRunCache> conversionCaches = new WeakHashMap<>();
+
+    private final int capacity;
+    private final Map<Object, GlyphLine> runs;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache holding up to the specified number of shaped runs.
+     *
+     * @param capacity the maximum number of cached runs
+     */
+    GlyphRunCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity");
+        }
+        this.capacity = capacity;
+        this.runs = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the shaping cache of the font program, creating it if it does not exist yet.
+     *
+     * @param fontProgram the font program the runs are shaped with
+     * @return the cache of the font program
+     */
+    public static GlyphRunCache getInstance(FontProgram fontProgram) {
+        synchronized (caches) {
+            GlyphRunCache cache = caches.get(fontProgram);
+            if (cache == null) {
+                cache = new GlyphRunCache(DEFAULT_CAPACITY);
+                caches.put(fontProgram, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Gets the conversion cache of the font, creating it if it does not exist yet.
+     *
+     * @param font the font the texts are converted with
+     * @return the cache of the font
+     */
+    public static GlyphRunCache getInstance(PdfFont font) {
+        synchronized (conversionCaches) {
+            GlyphRunCache cache = conversionCaches.get(font);
+            if (cache == null) {
+                cache = new GlyphRunCache(DEFAULT_CAPACITY);
+                conversionCaches.put(font, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Converts the text to glyphs with {@link PdfFont#createGlyphLine(String)}, taking the result from the conversion
+     * cache of the font if the same text was already converted. Long texts are not cached, neither are the texts
+     * of Type 3 fonts, whose glyphs may be added after the text is converted.
+     *
+     * @param font the font to convert the text with
+     * @param text the text
+     * @return the line of glyphs, which may be modified by the caller
+     */
+    static GlyphLine createGlyphLine(PdfFont font, String text) {
+        if (font instanceof PdfType3Font || text.length() > MAX_CONVERTED_TEXT_LENGTH) {
+            return font.createGlyphLine(text);
+        }
+        GlyphRunCache cache = getInstance(font);
+        GlyphLine line = cache.get(text);
+        if (line == null) {
+            line = font.createGlyphLine(text);
+            cache.put(text, line);
+        }
+        return line;
+    }
+
+    /**
+     * @return the maximum number of cached runs
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of currently cached runs
+     */
+    public synchronized int size() {
+        return runs.size();
+    }
+
+    /**
+     * @return the number of runs which were taken from the cache instead of being shaped or converted
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of runs which were looked up, but had to be shaped or converted
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes all the cached runs and resets the hit and miss counters.
+     */
+    public synchronized void clear() {
+        runs.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Creates the lookup key of a line which is about to be shaped.
+     *
+     * @param text the unshaped line, only the glyphs between its start and end are taken into account
+     * @param script the script applied to the line, or null if only kerning is applied
+     * @param kerning whether kerning is applied to the line
+     * @return the key, or null if the line can not be cached because its glyphs are already positioned
+     */
+    static Key createKey(GlyphLine text, Character.UnicodeScript script, boolean kerning) {
+        int length = text.end - text.start;
+        int[] glyphs = new int[length * 2];
+        for (int i = 0; i < length; i++) {
+            Glyph glyph = text.get(text.start + i);
+            if (glyph.hasOffsets()) {
+                return null;
+            }
+            glyphs[2 * i] = glyph.getCode();
+            glyphs[2 * i + 1] = glyph.getUnicode();
+        }
+        return new Key(glyphs, script, kerning);
+    }
+
+    /**
+     * Looks a run up, by its {@link Key} if it is shaped or by its text if it is converted.
+     *
+     * @return a copy of the cached run, or null if there is no such run
+     */
+    synchronized GlyphLine get(Object key) {
+        GlyphLine run = runs.get(key);
+        if (run == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copyOf(run);
+    }
+
+    synchronized void put(Object key, GlyphLine run) {
+        runs.put(key, copyOf(run));
+        if (runs.size() > capacity) {
+            Object eldest = runs.keySet().iterator().next();
+            runs.remove(eldest);
+        }
+    }
+
+    /**
+     * Copies the line, including the glyphs with positioning adjustments, as those may be altered in place
+     * later on, e.g. when reordering bidirectional text.
+     */
+    private static GlyphLine copyOf(GlyphLine line) {
+        GlyphLine copy = line.copy(line.start, line.end);
+        for (int i = copy.start; i < copy.end; i++) {
+            Glyph glyph = copy.get(i);
+            if (glyph.hasOffsets()) {
+                copy.set(i, new Glyph(glyph));
+            }
+        }
+        return copy;
+    }
+
+    static final class Key {
+        private final int[] glyphs;
+        private final Character.UnicodeScript script;
+        private final boolean kerning;
+        private final int hash;
+
+        private Key(int[] glyphs, Character.UnicodeScript script, boolean kerning) {
+            this.glyphs = glyphs;
+            this.script = script;
+            this.kerning = kerning;
+            int result = Arrays.hashCode(glyphs);
+            result = 31 * result + (script != null ? script.hashCode() : 0);
+            result = 31 * result + (kerning ? 1 : 0);
+            this.hash = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && kerning == other.kerning && script == other.script && Arrays.equals(glyphs, other.glyphs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
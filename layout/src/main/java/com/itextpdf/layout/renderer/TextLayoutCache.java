@@ -0,0 +1,331 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.layout.renderer;
+
+import com.itextpdf.io.font.otf.Glyph;
+import com.itextpdf.io.font.otf.GlyphLine;
+import com.itextpdf.kernel.font.PdfFont;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memoizes the layout of text which fits into the available area, so that repeated identical snippets, e.g. table
+ * header rows repeated on every page or fixed labels, are measured only once.
+ * <br><br>
+ * The cache is opt-in: set it to a {@link com.itextpdf.layout.Document} with
+ * {@link com.itextpdf.layout.Document#setTextLayoutCache(TextLayoutCache)}, or as the
+ * {@link com.itextpdf.layout.property.Property#TEXT_LAYOUT_CACHE} property of any element. A {@link TextRenderer}
+ * looks its layout up by its glyphs, font, text properties and available width, and reuses the cached line
+ * metrics, positioned in the current area. Only layouts with {@link com.itextpdf.layout.layout.LayoutResult#FULL}
+ * result are cached. Text using custom {@link com.itextpdf.layout.splitting.ISplitCharacters} is not cached.
+ * <br><br>
+ * The cache holds a bounded number of entries, evicting the least recently used ones. It references the fonts
+ * of the cached text, so an instance shared between documents should be cleared when they are closed.
+ * It is safe to share an instance between threads.
+ */
+public class TextLayoutCache {
+
+    /**
+     * The default maximum number of cached layouts.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final int capacity;
+    private final Map<Key, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache holding up to {@link #DEFAULT_CAPACITY} layouts.
+     */
+    public TextLayoutCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache holding up to the specified number of layouts.
+     *
+     * @param capacity the maximum number of cached layouts
+     */
+    public TextLayoutCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @return the maximum number of cached layouts
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of currently cached layouts
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of layouts which were taken from the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of layouts which were looked up, but not found in the cache
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes all the cached layouts and resets the hit and miss counters.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Looks a layout up. A cached layout is only returned if its line also fits into the available height.
+     */
+    synchronized Entry get(Key key, float availableHeight) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.lineHeight <= availableHeight) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        return null;
+    }
+
+    synchronized void put(Key key, Entry entry) {
+        entries.put(key.detach(), entry);
+        if (entries.size() > capacity) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Identifies a text layout: the glyph data the layout depends on, the font, the text properties and the width
+     * available for the text. A key made for a lookup refers to the glyph line of the renderer, which is copied
+     * when the key is stored.
+     */
+    static final class Key {
+        private final PdfFont font;
+        private final float fontSize;
+        private final float textRise;
+        private final Float characterSpacing;
+        private final Float wordSpacing;
+        private final float horizontalScaling;
+        private final float italicSkewAddition;
+        private final float boldSimulationAddition;
+        private final Character tabAnchorCharacter;
+        private final float availableWidth;
+
+        private final GlyphLine text;
+        /**
+         * unicode, width and x advance of each glyph, only set for stored keys
+         */
+        private final int[] glyphs;
+        private final int hash;
+
+        Key(PdfFont font, GlyphLine text, float fontSize, float textRise, Float characterSpacing, Float wordSpacing,
+            float horizontalScaling, float italicSkewAddition, float boldSimulationAddition, Character tabAnchorCharacter,
+            float availableWidth) {
+            this(font, text, null, fontSize, textRise, characterSpacing, wordSpacing, horizontalScaling,
+                    italicSkewAddition, boldSimulationAddition, tabAnchorCharacter, availableWidth, 0);
+        }
+
+        private Key(PdfFont font, GlyphLine text, int[] glyphs, float fontSize, float textRise, Float characterSpacing,
+                    Float wordSpacing, float horizontalScaling, float italicSkewAddition, float boldSimulationAddition,
+                    Character tabAnchorCharacter, float availableWidth, int hash) {
+            this.font = font;
+            this.text = text;
+            this.glyphs = glyphs;
+            this.fontSize = fontSize;
+            this.textRise = textRise;
+            this.characterSpacing = characterSpacing;
+            this.wordSpacing = wordSpacing;
+            this.horizontalScaling = horizontalScaling;
+            this.italicSkewAddition = italicSkewAddition;
+            this.boldSimulationAddition = boldSimulationAddition;
+            this.tabAnchorCharacter = tabAnchorCharacter;
+            this.availableWidth = availableWidth;
+            this.hash = glyphs == null ? calculateHash() : hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && font == other.font && glyphCount() == other.glyphCount()
+                    && Float.compare(fontSize, other.fontSize) == 0
+                    && Float.compare(textRise, other.textRise) == 0
+                    && equal(characterSpacing, other.characterSpacing)
+                    && equal(wordSpacing, other.wordSpacing)
+                    && Float.compare(horizontalScaling, other.horizontalScaling) == 0
+                    && Float.compare(italicSkewAddition, other.italicSkewAddition) == 0
+                    && Float.compare(boldSimulationAddition, other.boldSimulationAddition) == 0
+                    && equal(tabAnchorCharacter, other.tabAnchorCharacter)
+                    && Float.compare(availableWidth, other.availableWidth) == 0
+                    && glyphsEqual(other);
+        }
+
+        Key detach() {
+            if (glyphs != null) {
+                return this;
+            }
+            int[] glyphData = new int[glyphCount() * 3];
+            for (int i = 0, j = 0; i < glyphCount(); i++, j += 3) {
+                Glyph glyph = text.get(text.start + i);
+                glyphData[j] = glyph.getUnicode();
+                glyphData[j + 1] = glyph.getWidth();
+                glyphData[j + 2] = glyph.getXAdvance();
+            }
+            return new Key(font, null, glyphData, fontSize, textRise, characterSpacing, wordSpacing, horizontalScaling,
+                    italicSkewAddition, boldSimulationAddition, tabAnchorCharacter, availableWidth, hash);
+        }
+
+        private int glyphCount() {
+            return glyphs != null ? glyphs.length / 3 : text.end - text.start;
+        }
+
+        private int getGlyphData(int glyphIndex, int field) {
+            if (glyphs != null) {
+                return glyphs[glyphIndex * 3 + field];
+            }
+            Glyph glyph = text.get(text.start + glyphIndex);
+            switch (field) {
+                case 0:
+                    return glyph.getUnicode();
+                case 1:
+                    return glyph.getWidth();
+                default:
+                    return glyph.getXAdvance();
+            }
+        }
+
+        private boolean glyphsEqual(Key other) {
+            int count = glyphCount();
+            for (int i = 0; i < count; i++) {
+                for (int field = 0; field < 3; field++) {
+                    if (getGlyphData(i, field) != other.getGlyphData(i, field)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private int calculateHash() {
+            int result = System.identityHashCode(font);
+            result = 31 * result + Float.floatToIntBits(fontSize);
+            result = 31 * result + Float.floatToIntBits(textRise);
+            result = 31 * result + (characterSpacing != null ? characterSpacing.hashCode() : 0);
+            result = 31 * result + (wordSpacing != null ? wordSpacing.hashCode() : 0);
+            result = 31 * result + Float.floatToIntBits(horizontalScaling);
+            result = 31 * result + Float.floatToIntBits(italicSkewAddition);
+            result = 31 * result + Float.floatToIntBits(boldSimulationAddition);
+            result = 31 * result + (tabAnchorCharacter != null ? tabAnchorCharacter.hashCode() : 0);
+            result = 31 * result + Float.floatToIntBits(availableWidth);
+            for (int i = text.start; i < text.end; i++) {
+                Glyph glyph = text.get(i);
+                result = 31 * result + glyph.getUnicode();
+                result = 31 * result + glyph.getWidth();
+                result = 31 * result + glyph.getXAdvance();
+            }
+            return result;
+        }
+
+        private static boolean equal(Object o1, Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+    }
+
+    /**
+     * The outcome of a text layout, in terms which do not depend on the position of the layout area.
+     * Line positions are relative to the start of the text, or -1 if not set.
+     */
+    static final class Entry {
+        final int lineStart;
+        final int lineEnd;
+        final float lineWidth;
+        final float lineHeight;
+        final float lineAscender;
+        final float tabAnchorCharacterPosition;
+        final boolean tabAnchorCharacterFound;
+        final float childrenMinWidth;
+        final float childrenMaxWidth;
+
+        Entry(int lineStart, int lineEnd, float lineWidth, float lineHeight, float lineAscender,
+              float tabAnchorCharacterPosition, boolean tabAnchorCharacterFound, float childrenMinWidth, float childrenMaxWidth) {
+            this.lineStart = lineStart;
+            this.lineEnd = lineEnd;
+            this.lineWidth = lineWidth;
+            this.lineHeight = lineHeight;
+            this.lineAscender = lineAscender;
+            this.tabAnchorCharacterPosition = tabAnchorCharacterPosition;
+            this.tabAnchorCharacterFound = tabAnchorCharacterFound;
+            this.childrenMinWidth = childrenMinWidth;
+            this.childrenMaxWidth = childrenMaxWidth;
+        }
+    }
+}
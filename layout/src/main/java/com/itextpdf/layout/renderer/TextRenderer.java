@@ -82,6 +82,7 @@ import com.itextpdf.layout.property.FontKerning;
 import com.itextpdf.layout.property.Property;
 import com.itextpdf.layout.property.TransparentColor;
 import com.itextpdf.layout.property.Underline;
+import com.itextpdf.layout.splitting.DefaultSplitCharacters;
 import com.itextpdf.layout.splitting.ISplitCharacters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -205,6 +206,21 @@ public class TextRenderer extends AbstractRenderer implements ILeafElementRender
 
         TextLayoutResult result = null;
 
+        TextLayoutCache layoutCache = null;
+        TextLayoutCache.Key layoutCacheKey = null;
+        Character initialTabAnchorCharacter = tabAnchorCharacter;
+        if (splitCharacters != null && splitCharacters.getClass() == DefaultSplitCharacters.class) {
+            layoutCache = this.<TextLayoutCache>getProperty(Property.TEXT_LAYOUT_CACHE);
+        }
+        if (layoutCache != null) {
+            layoutCacheKey = new TextLayoutCache.Key(font, text, fontSize, textRise, characterSpacing, wordSpacing, hScale,
+                    italicSkewAddition, boldSimulationAddition, tabAnchorCharacter, layoutBox.getWidth());
+            TextLayoutCache.Entry cachedLayout = layoutCache.get(layoutCacheKey, layoutBox.getHeight());
+            if (cachedLayout != null) {
+                return layoutFromCache(cachedLayout, margins, borders, countedMinMaxWidth, fontSize, italicSkewAddition, boldSimulationAddition);
+            }
+        }
+
         // true in situations like "\nHello World" or "Hello\nWorld"
         boolean isSplitForcedByNewLine = false;
         // needed in situation like "\nHello World" or " Hello World", when split occurs on first character, but we want to leave it on previous line
@@ -443,6 +459,13 @@ public class TextRenderer extends AbstractRenderer implements ILeafElementRender
 
         if (result == null) {
             result = new TextLayoutResult(LayoutResult.FULL, occupiedArea, null, null, isPlacingForcedWhileNothing ? this : null);
+            if (layoutCacheKey != null && !isPlacingForcedWhileNothing) {
+                layoutCache.put(layoutCacheKey, new TextLayoutCache.Entry(
+                        line.start == -1 ? -1 : line.start - text.start, line.end == -1 ? -1 : line.end - text.start,
+                        currentLineWidth, currentLineHeight, currentLineAscender, tabAnchorCharacterPosition,
+                        initialTabAnchorCharacter != null && tabAnchorCharacter == null,
+                        countedMinMaxWidth.getChildrenMinWidth(), countedMinMaxWidth.getChildrenMaxWidth()));
+            }
         } else {
             TextRenderer[] split;
             if (ignoreNewLineSymbol) {
@@ -470,6 +493,35 @@ public class TextRenderer extends AbstractRenderer implements ILeafElementRender
         return result;
     }
 
+    /**
+     * Repeats a layout which resulted in {@link LayoutResult#FULL}, taking the line metrics from the cache
+     * instead of measuring the text. The occupied area is calculated in the same way as in {@link #layout(LayoutContext)}.
+     */
+    private TextLayoutResult layoutFromCache(TextLayoutCache.Entry cachedLayout, float[] margins, Border[] borders,
+                                             MinMaxWidth countedMinMaxWidth, float fontSize, float italicSkewAddition, float boldSimulationAddition) {
+        line = new GlyphLine(text);
+        line.start = cachedLayout.lineStart == -1 ? -1 : text.start + cachedLayout.lineStart;
+        line.end = cachedLayout.lineEnd == -1 ? -1 : text.start + cachedLayout.lineEnd;
+        if (cachedLayout.tabAnchorCharacterFound) {
+            tabAnchorCharacterPosition = cachedLayout.tabAnchorCharacterPosition;
+        }
+
+        yLineOffset = cachedLayout.lineAscender * fontSize / TEXT_SPACE_COEFF;
+
+        occupiedArea.getBBox().moveDown(cachedLayout.lineHeight);
+        occupiedArea.getBBox().setHeight(occupiedArea.getBBox().getHeight() + cachedLayout.lineHeight);
+        occupiedArea.getBBox().setWidth(Math.max(occupiedArea.getBBox().getWidth(), cachedLayout.lineWidth));
+        occupiedArea.getBBox().setWidth(occupiedArea.getBBox().getWidth() + italicSkewAddition + boldSimulationAddition);
+        applyBorderBox(occupiedArea.getBBox(), borders, true);
+        applyMargins(occupiedArea.getBBox(), margins, true);
+
+        countedMinMaxWidth.setChildrenMinWidth(cachedLayout.childrenMinWidth);
+        countedMinMaxWidth.setChildrenMaxWidth(cachedLayout.childrenMaxWidth);
+        TextLayoutResult result = new TextLayoutResult(LayoutResult.FULL, occupiedArea, null, null, null);
+        result.setMinMaxWidth(countedMinMaxWidth);
+        return result;
+    }
+
     public void applyOtf() {
         updateFontAndText();
         Character.UnicodeScript script = this.<Character.UnicodeScript>getProperty(Property.FONT_SCRIPT);
@@ -510,13 +562,29 @@ public class TextRenderer extends AbstractRenderer implements ILeafElementRender
                 }
             }
 
-            if (hasOtfFont() && script != null) {
-                TypographyUtils.applyOtfScript(font.getFontProgram(), text, script);
-            }
-
+            boolean applyScript = hasOtfFont() && script != null;
             FontKerning fontKerning = (FontKerning) this.<FontKerning>getProperty(Property.FONT_KERNING, FontKerning.NO);
-            if (fontKerning == FontKerning.YES) {
-                TypographyUtils.applyKerning(font.getFontProgram(), text);
+            boolean applyKerning = fontKerning == FontKerning.YES;
+
+            GlyphRunCache runCache = null;
+            GlyphRunCache.Key runKey = null;
+            if ((applyScript || applyKerning) && TypographyUtils.isTypographyModuleInitialized() && text.start == 0 && text.end == text.size()) {
+                runCache = GlyphRunCache.getInstance(font.getFontProgram());
+                runKey = GlyphRunCache.createKey(text, applyScript ? script : null, applyKerning);
+            }
+            GlyphLine shapedText = runKey != null ? runCache.get(runKey) : null;
+            if (shapedText != null) {
+                text = shapedText;
+            } else {
+                if (applyScript) {
+                    TypographyUtils.applyOtfScript(font.getFontProgram(), text, script);
+                }
+                if (applyKerning) {
+                    TypographyUtils.applyKerning(font.getFontProgram(), text);
+                }
+                if (runKey != null) {
+                    runCache.put(runKey, text);
+                }
             }
 
             otfFeaturesApplied = true;
@@ -970,7 +1038,7 @@ public class TextRenderer extends AbstractRenderer implements ILeafElementRender
     }
 
     private GlyphLine convertToGlyphLine(String text) {
-        return font.createGlyphLine(text);
+        return GlyphRunCache.createGlyphLine(font, text);
     }
 
     private boolean hasOtfFont() {
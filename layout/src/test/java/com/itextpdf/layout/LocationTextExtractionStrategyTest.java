@@ -200,6 +200,19 @@ public class LocationTextExtractionStrategyTest extends SimpleTextExtractionStra
         Assert.assertEquals(expectedText, text);
     }
 
+    @Test
+    public void testTextDrawnOutOfReadingOrder() throws Exception {
+        // cells are drawn column by column, from the last row up, and must still be read row by row
+        String[][] cells = new String[][]{{"A1", "B1", "C1"}, {"A2", "B2", "C2"}, {"A3", "B3", "C3"}};
+        PdfDocument pdfDocument = createPdfWithTextByColumns(cells);
+
+        String text = PdfTextExtractor.getTextFromPage(pdfDocument.getPage(1), createRenderListenerForTest());
+        Assert.assertEquals("A1 B1 C1\nA2 B2 C2\nA3 B3 C3", text);
+
+        text = PdfTextExtractor.getTextFromPage(pdfDocument.getPage(1), new LocationTextExtractionStrategy().setRightToLeftRunDirection(true));
+        Assert.assertEquals("C1 B1 A1\nC2 B2 A2\nC3 B3 A3", text);
+    }
+
     private byte[] createPdfWithNegativeCharSpacing(String str1, float charSpacing, String str2) throws Exception {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos).setCompressionLevel(0));
@@ -314,6 +327,24 @@ public class LocationTextExtractionStrategyTest extends SimpleTextExtractionStra
         return new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
     }
 
+    private PdfDocument createPdfWithTextByColumns(String[][] cells) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document doc = new Document(new PdfDocument(new PdfWriter(baos).setCompressionLevel(0)));
+
+        float ystart = 500;
+        float xstart = 50;
+
+        for (int col = cells[0].length - 1; col >= 0; col--) {
+            for (int row = cells.length - 1; row >= 0; row--) {
+                doc.showTextAligned(cells[row][col], xstart + col * 70.0f, ystart - row * 25.0f, TextAlignment.LEFT);
+            }
+        }
+
+        doc.close();
+
+        return new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+    }
+
     private byte[] createPdfWithSupescript(String regularText, String superscriptText) throws Exception {
         final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
 
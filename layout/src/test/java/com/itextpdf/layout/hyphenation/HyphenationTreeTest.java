@@ -0,0 +1,165 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.layout.hyphenation;
+
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+@Category(UnitTest.class)
+public class HyphenationTreeTest extends ExtendedITextTest {
+
+    public static final String destinationFolder = "./target/test/com/itextpdf/layout/HyphenationTreeTest/";
+
+    private static final String PATTERNS = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+            "<hyphenation-info>\n" +
+            "<hyphen-min before=\"2\" after=\"2\"/>\n" +
+            "<classes>\n" +
+            "aA bB cC dD eE fF gG hH iI jJ kK lL mM nN oO pP qQ rR sS tT uU vV wW xX yY zZ\n" +
+            "</classes>\n" +
+            "<exceptions>\n" +
+            "ta-ble\n" +
+            "</exceptions>\n" +
+            "<patterns>\n" +
+            "1na n1t 1ti o2n 1pa 1ra a1ti 1phe 1tion hy3ph\n" +
+            "</patterns>\n" +
+            "</hyphenation-info>\n";
+
+    private static final String[] WORDS = {"hyphenation", "Table", "nation", "paragraph", "xyz"};
+
+    @BeforeClass
+    public static void beforeClass() {
+        createDestinationFolder(destinationFolder);
+    }
+
+    @Test
+    public void compiledPatternsTest() throws HyphenationException, IOException {
+        HyphenationTree xmlTree = loadXmlTree();
+
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        xmlTree.storeCompiledPatterns(compiled);
+        HyphenationTree compiledTree = new HyphenationTree();
+        compiledTree.loadCompiledPatterns(new ByteArrayInputStream(compiled.toByteArray()), "test");
+
+        for (String word : WORDS) {
+            Assert.assertEquals(word, toString(xmlTree.hyphenate(word, 2, 2)), toString(compiledTree.hyphenate(word, 2, 2)));
+        }
+        Assert.assertEquals("ta-ble", toString(compiledTree.hyphenate("table", 1, 1)));
+        Assert.assertEquals(xmlTree.findPattern("hyph"), compiledTree.findPattern("hyph"));
+    }
+
+    @Test
+    public void notCompiledPatternsTest() {
+        try {
+            new HyphenationTree().loadCompiledPatterns(new ByteArrayInputStream(PATTERNS.getBytes(Charset.forName("UTF-8"))), "test");
+            Assert.fail("HyphenationException expected");
+        } catch (HyphenationException expected) {
+        }
+    }
+
+    @Test
+    public void compiledPatternsPreferredTest() throws HyphenationException, IOException {
+        OutputStream out = new FileOutputStream(destinationFolder + "xx" + HyphenationTree.COMPILED_PATTERNS_EXTENSION);
+        try {
+            loadXmlTree().storeCompiledPatterns(out);
+        } finally {
+            out.close();
+        }
+        // there is no xml file with this key in the folder, so the tree can only be loaded from the compiled patterns
+        HyphenationTree hTree = Hyphenator.getHyphenationTree(new File(destinationFolder).getAbsolutePath(), "xx");
+        Assert.assertNotNull(hTree);
+        Assert.assertEquals("hy-phe-na-tion", toString(hTree.hyphenate("hyphenation", 2, 2)));
+    }
+
+    @Test
+    public void cachedTreeIsReadOnlyTest() throws HyphenationException {
+        HyphenationTree hTree = loadXmlTree();
+        Assert.assertFalse(hTree.isReadOnly());
+        new HyphenationTreeCache().cache("xx", hTree);
+        Assert.assertTrue(hTree.isReadOnly());
+        Assert.assertTrue(hTree.classmap.isReadOnly());
+
+        try {
+            hTree.loadPatterns(new ByteArrayInputStream(PATTERNS.getBytes(Charset.forName("UTF-8"))), "test");
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            hTree.insert("abc", 'x');
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            hTree.addClass("xX");
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            hTree.balance();
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertEquals("hy-phe-na-tion", toString(hTree.hyphenate("hyphenation", 2, 2)));
+    }
+
+    private static HyphenationTree loadXmlTree() throws HyphenationException {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new ByteArrayInputStream(PATTERNS.getBytes(Charset.forName("UTF-8"))), "test");
+        return hTree;
+    }
+
+    private static String toString(Hyphenation hyphenation) {
+        return hyphenation == null ? null : hyphenation.toString();
+    }
+}
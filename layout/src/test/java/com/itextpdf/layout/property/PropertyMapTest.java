@@ -0,0 +1,126 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.layout.property;
+
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class PropertyMapTest extends ExtendedITextTest {
+
+    @Test
+    public void behavesAsHashMapTest() {
+        Map<Integer, Object> expected = new HashMap<>();
+        Map<Integer, Object> actual = new PropertyMap();
+        int[] keys = {Property.FONT_SIZE, Property.MARGIN_TOP, 0, 127, 128, 1000, -5, Property.FONT_SIZE};
+        for (int i = 0; i < keys.length; i++) {
+            Object value = i == 2 ? null : Integer.valueOf(i);
+            Assert.assertEquals(expected.put(keys[i], value), actual.put(keys[i], value));
+        }
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.hashCode(), actual.hashCode());
+        Assert.assertTrue(actual.containsKey(0));
+        Assert.assertNull(actual.get(0));
+        Assert.assertFalse(actual.containsKey(Property.FONT));
+        Assert.assertNull(actual.get("not a property"));
+
+        Assert.assertEquals(expected.remove(Property.MARGIN_TOP), actual.remove(Property.MARGIN_TOP));
+        Assert.assertEquals(expected.remove(1000), actual.remove(1000));
+        Assert.assertEquals(expected.remove(Property.MARGIN_TOP), actual.remove(Property.MARGIN_TOP));
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected, new HashMap<>(actual));
+
+        for (Iterator<Map.Entry<Integer, Object>> it = actual.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Object> entry = it.next();
+            if (entry.getKey() == 127 || entry.getKey() == -5) {
+                it.remove();
+            } else {
+                entry.setValue("updated");
+            }
+        }
+        Assert.assertEquals(3, actual.size());
+        Assert.assertEquals("updated", actual.get(Property.FONT_SIZE));
+        Assert.assertEquals("updated", actual.get(128));
+
+        actual.clear();
+        Assert.assertTrue(actual.isEmpty());
+        Assert.assertFalse(actual.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void copyOnWriteTest() {
+        PropertyMap original = new PropertyMap();
+        original.put(Property.FONT_SIZE, 12f);
+        original.put(Property.MARGIN_TOP, 5f);
+        original.put(500, "sparse");
+
+        PropertyMap copy = new PropertyMap(original);
+        Map<Integer, Object> addedCopy = new PropertyMap();
+        addedCopy.putAll(original);
+        Assert.assertEquals(original, copy);
+        Assert.assertEquals(original, addedCopy);
+
+        copy.put(Property.FONT_SIZE, 14f);
+        copy.remove(Property.MARGIN_TOP);
+        copy.put(500, "changed");
+        original.put(Property.FONT_COLOR, "red");
+
+        Assert.assertEquals(12f, original.get(Property.FONT_SIZE));
+        Assert.assertEquals(5f, original.get(Property.MARGIN_TOP));
+        Assert.assertEquals("sparse", original.get(500));
+        Assert.assertEquals(14f, copy.get(Property.FONT_SIZE));
+        Assert.assertFalse(copy.containsKey(Property.MARGIN_TOP));
+        Assert.assertFalse(copy.containsKey(Property.FONT_COLOR));
+        Assert.assertFalse(addedCopy.containsKey(Property.FONT_COLOR));
+        Assert.assertEquals(3, addedCopy.size());
+        Assert.assertEquals(12f, addedCopy.get(Property.FONT_SIZE));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.layout.renderer;
+
+import com.itextpdf.io.font.otf.Glyph;
+import com.itextpdf.io.font.otf.GlyphLine;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Text;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Category(UnitTest.class)
+public class GlyphRunCacheTest extends ExtendedITextTest {
+
+    @Test
+    public void cachedRunIsCopiedTest() {
+        GlyphRunCache cache = new GlyphRunCache(10);
+        GlyphLine text = createLine(1, 2, 3);
+        GlyphRunCache.Key key = GlyphRunCache.createKey(text, Character.UnicodeScript.LATIN, true);
+
+        Assert.assertNull(cache.get(key));
+        text.set(1, new Glyph(text.get(1), 0, 0, 100, 0, 0));
+        cache.put(key, text);
+
+        GlyphLine cached = cache.get(GlyphRunCache.createKey(createLine(1, 2, 3), Character.UnicodeScript.LATIN, true));
+        Assert.assertNotNull(cached);
+        Assert.assertEquals(3, cached.end - cached.start);
+        Assert.assertEquals(100, cached.get(1).getXAdvance());
+        Assert.assertNotSame(text.get(1), cached.get(1));
+        Assert.assertSame(text.get(0), cached.get(0));
+
+        cached.set(0, cached.get(2));
+        Assert.assertEquals(1, cache.get(key).get(0).getCode());
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void keyTest() {
+        GlyphLine text = createLine(1, 2, 3);
+        GlyphRunCache.Key key = GlyphRunCache.createKey(text, null, true);
+        Assert.assertEquals(key, GlyphRunCache.createKey(createLine(1, 2, 3), null, true));
+        Assert.assertNotEquals(key, GlyphRunCache.createKey(createLine(1, 2, 3), null, false));
+        Assert.assertNotEquals(key, GlyphRunCache.createKey(createLine(1, 2, 3), Character.UnicodeScript.ARABIC, true));
+        Assert.assertNotEquals(key, GlyphRunCache.createKey(createLine(1, 2), null, true));
+
+        text.set(2, new Glyph(text.get(2), 0, 0, 100, 0, 0));
+        Assert.assertNull(GlyphRunCache.createKey(text, null, true));
+    }
+
+    @Test
+    public void capacityTest() {
+        GlyphRunCache cache = new GlyphRunCache(2);
+        for (int i = 1; i <= 3; i++) {
+            GlyphLine text = createLine(i);
+            cache.put(GlyphRunCache.createKey(text, null, true), text);
+        }
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get(GlyphRunCache.createKey(createLine(1), null, true)));
+        Assert.assertNotNull(cache.get(GlyphRunCache.createKey(createLine(3), null, true)));
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void convertedTextIsCachedTest() throws IOException {
+        PdfFont font = PdfFontFactory.createFont();
+        GlyphRunCache cache = GlyphRunCache.getInstance(font);
+        Assert.assertSame(cache, GlyphRunCache.getInstance(font));
+
+        GlyphLine converted = GlyphRunCache.createGlyphLine(font, "Hello");
+        converted.set(0, converted.get(4));
+        GlyphLine cached = GlyphRunCache.createGlyphLine(font, "Hello");
+        assertSameGlyphs(font.createGlyphLine("Hello"), cached);
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        char[] longText = new char[GlyphRunCache.MAX_CONVERTED_TEXT_LENGTH + 1];
+        Arrays.fill(longText, 'a');
+        GlyphRunCache.createGlyphLine(font, new String(longText));
+        GlyphRunCache.createGlyphLine(font, new String(longText));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void repeatedTextIsConvertedOnceTest() throws IOException {
+        PdfFont font = PdfFontFactory.createFont();
+        Document document = new Document(new PdfDocument(new PdfWriter(new ByteArrayOutputStream())));
+        document.setFont(font);
+        for (int i = 0; i < 10; i++) {
+            document.add(new Paragraph().add(new Text("repeated")).add(new Text("text")));
+        }
+        document.close();
+
+        GlyphRunCache cache = GlyphRunCache.getInstance(font);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertTrue(cache.getHits() >= 18);
+        assertSameGlyphs(font.createGlyphLine("repeated"), GlyphRunCache.createGlyphLine(font, "repeated"));
+    }
+
+    private static void assertSameGlyphs(GlyphLine expected, GlyphLine actual) {
+        Assert.assertEquals(expected.end - expected.start, actual.end - actual.start);
+        for (int i = 0; i < expected.end - expected.start; i++) {
+            Assert.assertEquals(expected.get(expected.start + i), actual.get(actual.start + i));
+        }
+    }
+
+    private static GlyphLine createLine(int... codes) {
+        List<Glyph> glyphs = new ArrayList<>();
+        for (int code : codes) {
+            glyphs.add(new Glyph(code, 500, 'a' + code));
+        }
+        return new GlyphLine(glyphs);
+    }
+}
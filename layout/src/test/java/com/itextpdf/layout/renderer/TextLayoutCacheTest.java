@@ -0,0 +1,121 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2017 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.layout.renderer;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.utils.CompareTool;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+
+@Category(IntegrationTest.class)
+public class TextLayoutCacheTest extends ExtendedITextTest {
+
+    public static final String destinationFolder = "./target/test/com/itextpdf/layout/TextLayoutCacheTest/";
+
+    @BeforeClass
+    public static void beforeClass() {
+        createDestinationFolder(destinationFolder);
+    }
+
+    @Test
+    public void repeatedContentTest01() throws IOException, InterruptedException {
+        String outFileName = destinationFolder + "repeatedContentTest01.pdf";
+        String cmpFileName = destinationFolder + "repeatedContentTest01_nocache.pdf";
+
+        TextLayoutCache cache = new TextLayoutCache();
+        createRepeatedContent(outFileName, cache);
+        createRepeatedContent(cmpFileName, null);
+
+        Assert.assertTrue(cache.getHits() > 0);
+        Assert.assertTrue(cache.getMisses() > 0);
+        Assert.assertTrue(cache.size() <= cache.getCapacity());
+        Assert.assertNull(new CompareTool().compareByContent(outFileName, cmpFileName, destinationFolder, "diff"));
+    }
+
+    @Test
+    public void capacityTest01() throws IOException {
+        String outFileName = destinationFolder + "capacityTest01.pdf";
+
+        TextLayoutCache cache = new TextLayoutCache(2);
+        Document document = new Document(new PdfDocument(new PdfWriter(outFileName)));
+        document.setTextLayoutCache(cache);
+        for (int i = 0; i < 10; i++) {
+            document.add(new Paragraph("Paragraph " + i));
+        }
+        document.close();
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(0, cache.getHits());
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static void createRepeatedContent(String fileName, TextLayoutCache cache) throws IOException {
+        Document document = new Document(new PdfDocument(new PdfWriter(fileName)));
+        if (cache != null) {
+            document.setTextLayoutCache(cache);
+        }
+        for (int i = 0; i < 3; i++) {
+            Table table = new Table(3);
+            table.addHeaderCell("Name").addHeaderCell("Quantity").addHeaderCell("Price");
+            for (int j = 0; j < 60; j++) {
+                table.addCell("Item " + (j % 7)).addCell(new Cell().add(new Paragraph(String.valueOf(j % 3)))).addCell("10.00");
+            }
+            document.add(table);
+            document.add(new Paragraph("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt " +
+                    "ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation ullamco laboris."));
+        }
+        document.close();
+    }
+}
@@ -83,6 +83,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.security.DigestOutputStream;
 import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.PrivateKey;
@@ -221,6 +222,16 @@ public class PdfSigner {
      */
     protected boolean closed;
 
+    /**
+     * The stream that digests the document while it is written, or null.
+     */
+    private DigestOutputStream digestingOS;
+
+    /**
+     * The number of bytes digested by {@link #digestingOS}, set in {@link #preClose(Map)}.
+     */
+    private long digestedLength;
+
     /**
      * Creates a PdfSigner instance. Uses a {@link java.io.ByteArrayOutputStream} instead of a temporary file.
      *
@@ -243,18 +254,48 @@ public class PdfSigner {
      * @throws IOException
      */
     public PdfSigner(PdfReader reader, OutputStream outputStream, String path, boolean append) throws IOException {
+        this(reader, outputStream, path, append, null);
+    }
+
+    /**
+     * Creates a PdfSigner instance that digests the document while it is being written.
+     * <p>
+     * The bytes preceding the signature dictionary, which in append mode include the whole original
+     * document, are hashed on their way to the output, so that signing only needs to read back the
+     * signature dictionary and what follows it instead of the whole file. The digest is used if
+     * the signature is created with the same hash algorithm, otherwise the byte ranges are read as usual.
+     * <p>
+     * This only pays off in append mode. When the document is rewritten, nothing but its header is written
+     * before the signature dictionary, so the digest is ignored and the whole file is read back as usual.
+     * Also note that without a temporary file the output is still kept in memory and copied to {@link #bout}
+     * once it is complete, like with the other constructors; only hashing the original document again is avoided.
+     *
+     * @param reader        PdfReader that reads the PDF file
+     * @param outputStream  OutputStream to write the signed PDF file
+     * @param path          File to which the output is temporarily written
+     * @param append        boolean to indicate whether the signing should happen in append mode or not
+     * @param messageDigest the fresh digest to update while the document is written in append mode, or null
+     * @throws IOException
+     */
+    public PdfSigner(PdfReader reader, OutputStream outputStream, String path, boolean append, MessageDigest messageDigest) throws IOException {
         StampingProperties properties = new StampingProperties()
                 .preserveEncryption();
         if (append) {
             properties.useAppendMode();
         }
+        OutputStream os;
         if (path == null) {
             temporaryOS = new ByteArrayOutputStream();
-            document = new PdfDocument(reader, new PdfWriter(temporaryOS), properties);
+            os = temporaryOS;
         } else {
             this.tempFile = FileUtil.createTempFile(path);
-            document = new PdfDocument(reader, new PdfWriter(FileUtil.getFileOutputStream(tempFile)), properties);
+            os = FileUtil.getFileOutputStream(tempFile);
         }
+        if (messageDigest != null && append) {
+            digestingOS = new DigestOutputStream(os, messageDigest);
+            os = digestingOS;
+        }
+        document = new PdfDocument(reader, new PdfWriter(os), properties);
 
         originalOS = outputStream;
         signDate = DateTimeUtil.getCurrentTimeCalendar();
@@ -574,8 +615,7 @@ public class PdfSigner {
         if (signaturePolicy != null) {
             sgn.setSignaturePolicy(signaturePolicy);
         }
-        InputStream data = getRangeStream();
-        byte[] hash = DigestAlgorithms.digest(data, SignUtils.getMessageDigest(hashAlgorithm, externalDigest));
+        byte[] hash = digestRangeStream(SignUtils.getMessageDigest(hashAlgorithm, externalDigest));
         byte[] ocsp = null;
         if (chain.length >= 2 && ocspClient != null) {
             ocsp = ocspClient.getEncoded((X509Certificate) chain[0], (X509Certificate) chain[1], null);
@@ -674,14 +714,7 @@ public class PdfSigner {
         Map<PdfName, Integer> exc = new HashMap<>();
         exc.put(PdfName.Contents, contentEstimated * 2 + 2);
         preClose(exc);
-        InputStream data = getRangeStream();
-        MessageDigest messageDigest = tsa.getMessageDigest();
-        byte[] buf = new byte[4096];
-        int n;
-        while ((n = data.read(buf)) > 0) {
-            messageDigest.update(buf, 0, n);
-        }
-        byte[] tsImprint = messageDigest.digest();
+        byte[] tsImprint = digestRangeStream(tsa.getMessageDigest());
         byte[] tsToken;
         try {
             tsToken = tsa.getTimeStampToken(tsImprint);
@@ -917,6 +950,12 @@ public class PdfSigner {
             document.getCatalog().put(PdfName.Perms, docmdp);
             document.getCatalog().setModified();
         }
+        if (digestingOS != null) {
+            // the signature dictionary holds the /ByteRange, which is only known once the document is closed
+            document.getWriter().flush();
+            digestingOS.on(false);
+            digestedLength = document.getWriter().getCurrentPos();
+        }
         cryptoDictionary.getPdfObject().flush(false);
         document.close();
 
@@ -984,6 +1023,34 @@ public class PdfSigner {
         return new RASInputStream(fac.createRanged(getUnderlyingSource(), range));
     }
 
+    /**
+     * Digests the bytes to be signed. If the document was digested with the same algorithm
+     * while it was being written, only the rest of the byte ranges is read back.
+     *
+     * @param messageDigest the digest to use if the document wasn't digested while written
+     * @return the hash of the byte ranges
+     */
+    private byte[] digestRangeStream(MessageDigest messageDigest) throws GeneralSecurityException, IOException {
+        InputStream data;
+        if (digestingOS != null && isSameAlgorithm(digestingOS.getMessageDigest(), messageDigest)) {
+            messageDigest = digestingOS.getMessageDigest();
+            long[] remainingRange = range.clone();
+            remainingRange[0] = digestedLength;
+            remainingRange[1] -= digestedLength;
+            RandomAccessSourceFactory fac = new RandomAccessSourceFactory();
+            data = new RASInputStream(fac.createRanged(getUnderlyingSource(), remainingRange));
+        } else {
+            data = getRangeStream();
+        }
+        digestingOS = null;
+        return DigestAlgorithms.digest(data, messageDigest);
+    }
+
+    private static boolean isSameAlgorithm(MessageDigest digest1, MessageDigest digest2) {
+        return DigestAlgorithms.normalizeDigestName(digest1.getAlgorithm().toUpperCase())
+                .equals(DigestAlgorithms.normalizeDigestName(digest2.getAlgorithm().toUpperCase()));
+    }
+
     /**
      * This is the last method to be called when using external signatures. The general sequence is:
      * preClose(), getDocumentBytes() and close().
@@ -42,6 +42,7 @@
  */
 package com.itextpdf.signatures.sign;
 
+import com.itextpdf.io.source.IRandomAccessSource;
 import com.itextpdf.kernel.crypto.CryptoUtil;
 import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
@@ -57,6 +58,7 @@ import com.itextpdf.signatures.PdfSignatureAppearance;
 import com.itextpdf.signatures.PdfSigner;
 import com.itextpdf.signatures.PrivateKeySignature;
 import com.itextpdf.signatures.testutils.Pkcs12FileHelper;
+import com.itextpdf.signatures.testutils.client.TestTsaClient;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.type.IntegrationTest;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -66,12 +68,15 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.Security;
@@ -208,6 +213,57 @@ public class SigningTest extends ExtendedITextTest {
                 "diff_", getTestMap(new Rectangle(30, 245, 200, 12))));
     }
 
+    @Test
+    public void signingWhileDigestingAppendMode() throws GeneralSecurityException, IOException {
+        ReadCountingSigner signer = signWhileDigesting(destinationFolder + "signedWhileDigestingAppendMode.pdf",
+                destinationFolder, true, DigestAlgorithms.SHA256);
+        // the original document was digested while written, only the appended part is read back
+        assertOriginalDocumentSkipped(signer, sourceFolder + "simpleDocument.pdf");
+    }
+
+    @Test
+    public void signingWhileDigestingInMemory() throws GeneralSecurityException, IOException {
+        ReadCountingSigner signer = signWhileDigesting(destinationFolder + "signedWhileDigestingInMemory.pdf",
+                null, true, DigestAlgorithms.SHA256);
+        assertOriginalDocumentSkipped(signer, sourceFolder + "simpleDocument.pdf");
+    }
+
+    @Test
+    public void signingWhileDigesting() throws GeneralSecurityException, IOException {
+        // without append mode the digest is ignored, so all the byte ranges are read back
+        ReadCountingSigner signer = signWhileDigesting(destinationFolder + "signedWhileDigesting.pdf",
+                destinationFolder, false, DigestAlgorithms.SHA256);
+        Assert.assertEquals(signer.getSignedLength(), signer.getBytesRead());
+    }
+
+    @Test
+    public void signingWhileDigestingWithOtherAlgorithm() throws GeneralSecurityException, IOException {
+        // the document digest doesn't match the signature hash algorithm, so the byte ranges are read again
+        ReadCountingSigner signer = signWhileDigesting(destinationFolder + "signedWhileDigestingWithOtherAlgorithm.pdf",
+                destinationFolder, true, DigestAlgorithms.SHA512);
+        Assert.assertEquals(signer.getSignedLength(), signer.getBytesRead());
+    }
+
+    @Test
+    public void timestampingWhileDigesting() throws GeneralSecurityException, IOException {
+        String src = sourceFolder + "simpleDocument.pdf";
+        String dest = destinationFolder + "timestampedWhileDigesting.pdf";
+        String tsaCertFileName = "./src/test/resources/com/itextpdf/signatures/certs/tsCertRsa.p12";
+        char[] tsaPassword = "testpass".toCharArray();
+
+        Certificate[] tsaChain = Pkcs12FileHelper.readFirstChain(tsaCertFileName, tsaPassword);
+        PrivateKey tsaPrivateKey = Pkcs12FileHelper.readFirstKey(tsaCertFileName, tsaPassword, tsaPassword);
+        TestTsaClient testTsa = new TestTsaClient(Arrays.asList(tsaChain), tsaPrivateKey);
+
+        String fieldName = "timestampSig1";
+        ReadCountingSigner signer = new ReadCountingSigner(new PdfReader(src), new FileOutputStream(dest), destinationFolder,
+                true, testTsa.getMessageDigest());
+        signer.timestamp(testTsa, fieldName);
+
+        PadesSigTest.basicCheckSignedDoc(dest, fieldName);
+        assertOriginalDocumentSkipped(signer, src);
+    }
+
     @Test
     public void signEncryptedDoc01() throws GeneralSecurityException, IOException, InterruptedException {
         String fileName = "encrypted.pdf";
@@ -280,9 +336,87 @@ public class SigningTest extends ExtendedITextTest {
         signer.signDetached(new BouncyCastleDigest(), pks, chain, null, null, null, 0, subfilter);
     }
 
+    private ReadCountingSigner signWhileDigesting(String dest, String tempPath, boolean append, String documentDigestAlgorithm) throws GeneralSecurityException, IOException {
+        String src = sourceFolder + "simpleDocument.pdf";
+
+        String fieldName = "Signature1";
+        PdfReader reader = new PdfReader(src);
+        ReadCountingSigner signer = new ReadCountingSigner(reader, new FileOutputStream(dest), tempPath, append,
+                new BouncyCastleDigest().getMessageDigest(documentDigestAlgorithm));
+        signer.getSignatureAppearance()
+                .setReason("Test 1")
+                .setLocation("TestCity")
+                .setPageRect(new Rectangle(36, 648, 200, 100));
+        signer.setFieldName(fieldName);
+
+        IExternalSignature pks = new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME);
+        signer.signDetached(new BouncyCastleDigest(), pks, chain, null, null, null, 0, PdfSigner.CryptoStandard.CADES);
+
+        PadesSigTest.basicCheckSignedDoc(dest, fieldName);
+        return signer;
+    }
+
+    private static void assertOriginalDocumentSkipped(ReadCountingSigner signer, String src) {
+        Assert.assertTrue(signer.getBytesRead() > 0);
+        Assert.assertTrue(signer.getBytesRead() <= signer.getSignedLength() - new File(src).length());
+    }
+
     private static Map<Integer, List<Rectangle> > getTestMap(Rectangle ignoredArea) {
         Map<Integer, List<Rectangle> > result = new HashMap<Integer, List<Rectangle> >();
         result.put(1, Arrays.asList(ignoredArea));
         return result;
     }
+
+    /**
+     * Counts the bytes of the prepared document which are read back to compute the hash.
+     */
+    private static class ReadCountingSigner extends PdfSigner {
+        private long bytesRead;
+
+        ReadCountingSigner(PdfReader reader, OutputStream outputStream, String path, boolean append, MessageDigest messageDigest) throws IOException {
+            super(reader, outputStream, path, append, messageDigest);
+        }
+
+        long getBytesRead() {
+            return bytesRead;
+        }
+
+        long getSignedLength() {
+            long length = 0;
+            for (int k = 1; k < range.length; k += 2) {
+                length += range[k];
+            }
+            return length;
+        }
+
+        @Override
+        protected IRandomAccessSource getUnderlyingSource() throws IOException {
+            final IRandomAccessSource source = super.getUnderlyingSource();
+            return new IRandomAccessSource() {
+                public int get(long position) throws IOException {
+                    int b = source.get(position);
+                    if (b != -1) {
+                        bytesRead++;
+                    }
+                    return b;
+                }
+
+                public int get(long position, byte[] bytes, int off, int len) throws IOException {
+                    int n = source.get(position, bytes, off, len);
+                    if (n > 0) {
+                        bytesRead += n;
+                    }
+                    return n;
+                }
+
+                public long length() {
+                    return source.length();
+                }
+
+                public void close() throws IOException {
+                    source.close();
+                }
+            };
+        }
+    }
 }